@@ -2,6 +2,9 @@ package com.charusat.pacelearn.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Properties specific to Assignment Administration System.
  * <p>
@@ -9,4 +12,865 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  * See {@link tech.jhipster.config.JHipsterProperties} for a good example.
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
-public class ApplicationProperties {}
+public class ApplicationProperties {
+
+    private final EnrollmentCounter enrollmentCounter = new EnrollmentCounter();
+
+    private final PlatformMetrics platformMetrics = new PlatformMetrics();
+
+    private final Search search = new Search();
+
+    private final Autocomplete autocomplete = new Autocomplete();
+
+    private final Catalog catalog = new Catalog();
+
+    private final TokenCache tokenCache = new TokenCache();
+
+    private final PrincipalCache principalCache = new PrincipalCache();
+
+    private final PasswordHashing passwordHashing = new PasswordHashing();
+
+    private final LoginThrottling loginThrottling = new LoginThrottling();
+
+    private final RateLimit rateLimit = new RateLimit();
+
+    private final RefreshToken refreshToken = new RefreshToken();
+
+    private final Media media = new Media();
+
+    private final MediaUpload mediaUpload = new MediaUpload();
+
+    private final MediaBlobs mediaBlobs = new MediaBlobs();
+
+    private final Images images = new Images();
+
+    private final ProgressIngestion progressIngestion = new ProgressIngestion();
+
+    private final ProgressSync progressSync = new ProgressSync();
+
+    private final CourseCompletion courseCompletion = new CourseCompletion();
+
+    private final CourseRollups courseRollups = new CourseRollups();
+
+    private final Curriculum curriculum = new Curriculum();
+
+    public EnrollmentCounter getEnrollmentCounter() {
+        return enrollmentCounter;
+    }
+
+    public PlatformMetrics getPlatformMetrics() {
+        return platformMetrics;
+    }
+
+    public Search getSearch() {
+        return search;
+    }
+
+    public Autocomplete getAutocomplete() {
+        return autocomplete;
+    }
+
+    public Catalog getCatalog() {
+        return catalog;
+    }
+
+    public TokenCache getTokenCache() {
+        return tokenCache;
+    }
+
+    public PrincipalCache getPrincipalCache() {
+        return principalCache;
+    }
+
+    public PasswordHashing getPasswordHashing() {
+        return passwordHashing;
+    }
+
+    public LoginThrottling getLoginThrottling() {
+        return loginThrottling;
+    }
+
+    public RateLimit getRateLimit() {
+        return rateLimit;
+    }
+
+    public RefreshToken getRefreshToken() {
+        return refreshToken;
+    }
+
+    public Media getMedia() {
+        return media;
+    }
+
+    public MediaUpload getMediaUpload() {
+        return mediaUpload;
+    }
+
+    public MediaBlobs getMediaBlobs() {
+        return mediaBlobs;
+    }
+
+    public Images getImages() {
+        return images;
+    }
+
+    public ProgressIngestion getProgressIngestion() {
+        return progressIngestion;
+    }
+
+    public ProgressSync getProgressSync() {
+        return progressSync;
+    }
+
+    public CourseCompletion getCourseCompletion() {
+        return courseCompletion;
+    }
+
+    public CourseRollups getCourseRollups() {
+        return courseRollups;
+    }
+
+    public Curriculum getCurriculum() {
+        return curriculum;
+    }
+
+    public static class EnrollmentCounter {
+
+        private int slots = 8;
+
+        private String repairCron = "0 30 2 * * ?";
+
+        public int getSlots() {
+            return slots;
+        }
+
+        public void setSlots(int slots) {
+            this.slots = slots;
+        }
+
+        public String getRepairCron() {
+            return repairCron;
+        }
+
+        public void setRepairCron(String repairCron) {
+            this.repairCron = repairCron;
+        }
+    }
+
+    public static class PlatformMetrics {
+
+        private long recountDelayMs = 300_000L;
+
+        public long getRecountDelayMs() {
+            return recountDelayMs;
+        }
+
+        public void setRecountDelayMs(long recountDelayMs) {
+            this.recountDelayMs = recountDelayMs;
+        }
+    }
+
+    public static class Search {
+
+        private String indexDirectory = "data/search-index";
+
+        private long refreshDelayMs = 1_000L;
+
+        public String getIndexDirectory() {
+            return indexDirectory;
+        }
+
+        public void setIndexDirectory(String indexDirectory) {
+            this.indexDirectory = indexDirectory;
+        }
+
+        public long getRefreshDelayMs() {
+            return refreshDelayMs;
+        }
+
+        public void setRefreshDelayMs(long refreshDelayMs) {
+            this.refreshDelayMs = refreshDelayMs;
+        }
+    }
+
+    public static class Autocomplete {
+
+        private int maxSuggestions = 10;
+
+        private long refreshDelayMs = 1_000L;
+
+        private long rebuildDelayMs = 900_000L;
+
+        public int getMaxSuggestions() {
+            return maxSuggestions;
+        }
+
+        public void setMaxSuggestions(int maxSuggestions) {
+            this.maxSuggestions = maxSuggestions;
+        }
+
+        public long getRefreshDelayMs() {
+            return refreshDelayMs;
+        }
+
+        public void setRefreshDelayMs(long refreshDelayMs) {
+            this.refreshDelayMs = refreshDelayMs;
+        }
+
+        public long getRebuildDelayMs() {
+            return rebuildDelayMs;
+        }
+
+        public void setRebuildDelayMs(long rebuildDelayMs) {
+            this.rebuildDelayMs = rebuildDelayMs;
+        }
+    }
+
+    public static class Catalog {
+
+        private long refreshDelayMs = 1_000L;
+
+        public long getRefreshDelayMs() {
+            return refreshDelayMs;
+        }
+
+        public void setRefreshDelayMs(long refreshDelayMs) {
+            this.refreshDelayMs = refreshDelayMs;
+        }
+    }
+
+    public static class TokenCache {
+
+        private long maximumSize = 10_000L;
+
+        public long getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+    }
+
+    public static class PrincipalCache {
+
+        private long maximumSize = 1_000L;
+
+        private long timeToLiveSeconds = 60L;
+
+        public long getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public long getTimeToLiveSeconds() {
+            return timeToLiveSeconds;
+        }
+
+        public void setTimeToLiveSeconds(long timeToLiveSeconds) {
+            this.timeToLiveSeconds = timeToLiveSeconds;
+        }
+    }
+
+    public static class PasswordHashing {
+
+        private int threads = 4;
+
+        private int queueCapacity = 64;
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+    }
+
+    public static class LoginThrottling {
+
+        private int maxFailuresPerLogin = 5;
+
+        private int maxFailuresPerAddress = 100;
+
+        private long windowSeconds = 900L;
+
+        private long maximumTracked = 100_000L;
+
+        public int getMaxFailuresPerLogin() {
+            return maxFailuresPerLogin;
+        }
+
+        public void setMaxFailuresPerLogin(int maxFailuresPerLogin) {
+            this.maxFailuresPerLogin = maxFailuresPerLogin;
+        }
+
+        public int getMaxFailuresPerAddress() {
+            return maxFailuresPerAddress;
+        }
+
+        public void setMaxFailuresPerAddress(int maxFailuresPerAddress) {
+            this.maxFailuresPerAddress = maxFailuresPerAddress;
+        }
+
+        public long getWindowSeconds() {
+            return windowSeconds;
+        }
+
+        public void setWindowSeconds(long windowSeconds) {
+            this.windowSeconds = windowSeconds;
+        }
+
+        public long getMaximumTracked() {
+            return maximumTracked;
+        }
+
+        public void setMaximumTracked(long maximumTracked) {
+            this.maximumTracked = maximumTracked;
+        }
+    }
+
+    public static class RateLimit {
+
+        private int stripes = 16_384;
+
+        private List<Route> routes = new ArrayList<>(
+            List.of(
+                Route.of("open-courses", "GET", "/api/open-courses", 60, 1, 1, Route.KEY_BY_ADDRESS),
+                Route.of("open-metadata", "GET", "/api/admin/openMetaData", 20, 1, 5, Route.KEY_BY_ADDRESS),
+                Route.of("find-username", "POST", "/api/account/findUsername", 5, 1, 60, Route.KEY_BY_ADDRESS),
+                Route.of("course-search", "GET", "/api/courses/search", 30, 5, 1, Route.KEY_BY_USER),
+                Route.of("course-autocomplete", "GET", "/api/courses/autocomplete", 60, 20, 1, Route.KEY_BY_USER),
+                Route.of("course-catalog", "GET", "/api/courses/catalog", 30, 5, 1, Route.KEY_BY_USER)
+            )
+        );
+
+        /**
+         * @return the number of buckets of each route, rounded up to a power of two; keys hashing to the same
+         * bucket share its tokens.
+         */
+        public int getStripes() {
+            return stripes;
+        }
+
+        public void setStripes(int stripes) {
+            this.stripes = stripes;
+        }
+
+        public List<Route> getRoutes() {
+            return routes;
+        }
+
+        public void setRoutes(List<Route> routes) {
+            this.routes = routes;
+        }
+
+        /**
+         * A route limited to {@code capacity} requests in a burst, refilled by {@code refillTokens} every
+         * {@code refillPeriodSeconds}, per client address or per user.
+         */
+        public static class Route {
+
+            public static final String KEY_BY_ADDRESS = "address";
+
+            /**
+             * The login of the user, or the client address of anonymous requests.
+             */
+            public static final String KEY_BY_USER = "user";
+
+            private String name;
+
+            private String method;
+
+            private String pattern;
+
+            private long capacity;
+
+            private long refillTokens;
+
+            private long refillPeriodSeconds;
+
+            private String keyBy = KEY_BY_ADDRESS;
+
+            static Route of(
+                String name,
+                String method,
+                String pattern,
+                long capacity,
+                long refillTokens,
+                long refillPeriodSeconds,
+                String keyBy
+            ) {
+                Route route = new Route();
+                route.setName(name);
+                route.setMethod(method);
+                route.setPattern(pattern);
+                route.setCapacity(capacity);
+                route.setRefillTokens(refillTokens);
+                route.setRefillPeriodSeconds(refillPeriodSeconds);
+                route.setKeyBy(keyBy);
+                return route;
+            }
+
+            public String getName() {
+                return name;
+            }
+
+            public void setName(String name) {
+                this.name = name;
+            }
+
+            /**
+             * @return the HTTP method of the route, {@code null} for any method.
+             */
+            public String getMethod() {
+                return method;
+            }
+
+            public void setMethod(String method) {
+                this.method = method;
+            }
+
+            /**
+             * @return the Ant-style path pattern of the route.
+             */
+            public String getPattern() {
+                return pattern;
+            }
+
+            public void setPattern(String pattern) {
+                this.pattern = pattern;
+            }
+
+            public long getCapacity() {
+                return capacity;
+            }
+
+            public void setCapacity(long capacity) {
+                this.capacity = capacity;
+            }
+
+            public long getRefillTokens() {
+                return refillTokens;
+            }
+
+            public void setRefillTokens(long refillTokens) {
+                this.refillTokens = refillTokens;
+            }
+
+            public long getRefillPeriodSeconds() {
+                return refillPeriodSeconds;
+            }
+
+            public void setRefillPeriodSeconds(long refillPeriodSeconds) {
+                this.refillPeriodSeconds = refillPeriodSeconds;
+            }
+
+            public String getKeyBy() {
+                return keyBy;
+            }
+
+            public void setKeyBy(String keyBy) {
+                this.keyBy = keyBy;
+            }
+        }
+    }
+
+    public static class RefreshToken {
+
+        private long accessTokenValiditySeconds = 900L;
+
+        private long revocationRefreshDelayMs = 60_000L;
+
+        /**
+         * @return the validity of the access tokens; the refresh tokens keep the {@code jhipster.security.authentication.jwt}
+         * validities.
+         */
+        public long getAccessTokenValiditySeconds() {
+            return accessTokenValiditySeconds;
+        }
+
+        public void setAccessTokenValiditySeconds(long accessTokenValiditySeconds) {
+            this.accessTokenValiditySeconds = accessTokenValiditySeconds;
+        }
+
+        public long getRevocationRefreshDelayMs() {
+            return revocationRefreshDelayMs;
+        }
+
+        public void setRevocationRefreshDelayMs(long revocationRefreshDelayMs) {
+            this.revocationRefreshDelayMs = revocationRefreshDelayMs;
+        }
+    }
+
+    public static class Media {
+
+        private String directory = "data/media";
+
+        private long urlValiditySeconds = 14_400L;
+
+        private String signingSecret;
+
+        private int maxOpenFiles = 256;
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public long getUrlValiditySeconds() {
+            return urlValiditySeconds;
+        }
+
+        public void setUrlValiditySeconds(long urlValiditySeconds) {
+            this.urlValiditySeconds = urlValiditySeconds;
+        }
+
+        /**
+         * @return the Base64-encoded key signing the media URLs; when absent, a key is derived from the JWT secret.
+         */
+        public String getSigningSecret() {
+            return signingSecret;
+        }
+
+        public void setSigningSecret(String signingSecret) {
+            this.signingSecret = signingSecret;
+        }
+
+        /**
+         * @return the maximum number of media files kept open between requests.
+         */
+        public int getMaxOpenFiles() {
+            return maxOpenFiles;
+        }
+
+        public void setMaxOpenFiles(int maxOpenFiles) {
+            this.maxOpenFiles = maxOpenFiles;
+        }
+    }
+
+    public static class MediaUpload {
+
+        private String directory = "data/uploads";
+
+        private int chunkSize = 8 * 1024 * 1024;
+
+        private long maxSize = 16L * 1024 * 1024 * 1024;
+
+        private long expirySeconds = 86_400L;
+
+        /**
+         * @return the directory of the uploads in progress; best on the filesystem of the media directory, so
+         * completing an upload is a rename.
+         */
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        public long getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(long maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        /**
+         * @return the time after which an upload left incomplete is discarded.
+         */
+        public long getExpirySeconds() {
+            return expirySeconds;
+        }
+
+        public void setExpirySeconds(long expirySeconds) {
+            this.expirySeconds = expirySeconds;
+        }
+    }
+
+    public static class MediaBlobs {
+
+        private long gracePeriodSeconds = 86_400L;
+
+        /**
+         * @return the time a blob stays on disk once unreferenced, which also covers an upload completing
+         * against an existing blob.
+         */
+        public long getGracePeriodSeconds() {
+            return gracePeriodSeconds;
+        }
+
+        public void setGracePeriodSeconds(long gracePeriodSeconds) {
+            this.gracePeriodSeconds = gracePeriodSeconds;
+        }
+    }
+
+    public static class Images {
+
+        private String cacheDirectory = "data/image-cache";
+
+        private long maxCacheBytes = 512L * 1024 * 1024;
+
+        private List<Integer> widths = new ArrayList<>(List.of(64, 128, 256, 512));
+
+        private int catalogWidth = 200;
+
+        private float jpegQuality = 0.8f;
+
+        public String getCacheDirectory() {
+            return cacheDirectory;
+        }
+
+        public void setCacheDirectory(String cacheDirectory) {
+            this.cacheDirectory = cacheDirectory;
+        }
+
+        /**
+         * @return the disk space of the thumbnails, the least recently used being deleted beyond it.
+         */
+        public long getMaxCacheBytes() {
+            return maxCacheBytes;
+        }
+
+        public void setMaxCacheBytes(long maxCacheBytes) {
+            this.maxCacheBytes = maxCacheBytes;
+        }
+
+        /**
+         * @return the widths thumbnails are rendered at; a requested width is rounded up to one of them.
+         */
+        public List<Integer> getWidths() {
+            return widths;
+        }
+
+        public void setWidths(List<Integer> widths) {
+            this.widths = widths;
+        }
+
+        /**
+         * @return the width the catalog grids display the logos and profile images at.
+         */
+        public int getCatalogWidth() {
+            return catalogWidth;
+        }
+
+        public void setCatalogWidth(int catalogWidth) {
+            this.catalogWidth = catalogWidth;
+        }
+
+        public float getJpegQuality() {
+            return jpegQuality;
+        }
+
+        public void setJpegQuality(float jpegQuality) {
+            this.jpegQuality = jpegQuality;
+        }
+    }
+
+    public static class ProgressIngestion {
+
+        private long flushDelayMs = 1_000L;
+
+        private int batchSize = 500;
+
+        private int stripes = 16;
+
+        private int maxPending = 200_000;
+
+        private int maxWatchers = 100_000;
+
+        private long watcherExpireAfterAccessSeconds = 1_800L;
+
+        /**
+         * @return the delay between two flushes, which bounds the watch time lost if the instance dies.
+         */
+        public long getFlushDelayMs() {
+            return flushDelayMs;
+        }
+
+        public void setFlushDelayMs(long flushDelayMs) {
+            this.flushDelayMs = flushDelayMs;
+        }
+
+        /**
+         * @return the number of pending updates flushed per JDBC batch, and that triggers a flush without waiting.
+         */
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getStripes() {
+            return stripes;
+        }
+
+        public void setStripes(int stripes) {
+            this.stripes = stripes;
+        }
+
+        /**
+         * @return the number of pending updates beyond which reports are flushed by the reporting thread itself.
+         */
+        public int getMaxPending() {
+            return maxPending;
+        }
+
+        public void setMaxPending(int maxPending) {
+            this.maxPending = maxPending;
+        }
+
+        /**
+         * @return the number of users watching a session whose enrollment and watch time credit are kept in memory.
+         */
+        public int getMaxWatchers() {
+            return maxWatchers;
+        }
+
+        public void setMaxWatchers(int maxWatchers) {
+            this.maxWatchers = maxWatchers;
+        }
+
+        /**
+         * @return how long the enrollment of a user watching a session is trusted once checked, without reports.
+         */
+        public long getWatcherExpireAfterAccessSeconds() {
+            return watcherExpireAfterAccessSeconds;
+        }
+
+        public void setWatcherExpireAfterAccessSeconds(long watcherExpireAfterAccessSeconds) {
+            this.watcherExpireAfterAccessSeconds = watcherExpireAfterAccessSeconds;
+        }
+    }
+
+    public static class ProgressSync {
+
+        private int maxItems = 1_000;
+
+        /**
+         * @return the maximum number of progress records in one sync request.
+         */
+        public int getMaxItems() {
+            return maxItems;
+        }
+
+        public void setMaxItems(int maxItems) {
+            this.maxItems = maxItems;
+        }
+    }
+
+    public static class CourseCompletion {
+
+        private double threshold = 0.9;
+
+        private int maxCachedCourses = 10_000;
+
+        /**
+         * @return the share of the duration of a session a user must have watched for it to count as completed.
+         */
+        public double getThreshold() {
+            return threshold;
+        }
+
+        public void setThreshold(double threshold) {
+            this.threshold = threshold;
+        }
+
+        /**
+         * @return the maximum number of course layouts held in memory.
+         */
+        public int getMaxCachedCourses() {
+            return maxCachedCourses;
+        }
+
+        public void setMaxCachedCourses(int maxCachedCourses) {
+            this.maxCachedCourses = maxCachedCourses;
+        }
+    }
+
+    public static class CourseRollups {
+
+        private int parallelism = 4;
+
+        private int chunkSize = 1_000;
+
+        /**
+         * @return the number of id ranges recomputed at the same time.
+         */
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        /**
+         * @return the width of the id ranges recomputed by one statement.
+         */
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+    }
+
+    public static class Curriculum {
+
+        private int maxCachedCourses = 10_000;
+
+        private long expireAfterWriteSeconds = 600;
+
+        /**
+         * @return the maximum number of course curricula held in memory.
+         */
+        public int getMaxCachedCourses() {
+            return maxCachedCourses;
+        }
+
+        public void setMaxCachedCourses(int maxCachedCourses) {
+            this.maxCachedCourses = maxCachedCourses;
+        }
+
+        /**
+         * @return how long a curriculum is served from memory at most, bounding the staleness left by writes that
+         * bypass the services, such as the nightly rollup recomputation.
+         */
+        public long getExpireAfterWriteSeconds() {
+            return expireAfterWriteSeconds;
+        }
+
+        public void setExpireAfterWriteSeconds(long expireAfterWriteSeconds) {
+            this.expireAfterWriteSeconds = expireAfterWriteSeconds;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.charusat.pacelearn.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import tech.jhipster.config.JHipsterProperties;
+
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Second-level and query cache of Hibernate, backed by an in-process Caffeine JCache provider.
+ * <p>
+ * Every region is bounded by {@code jhipster.cache.caffeine.max-entries} and expires
+ * {@code jhipster.cache.caffeine.time-to-live-seconds} after write. Statistics are enabled so
+ * Spring Boot publishes hit, miss and eviction meters for each region through Micrometer.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfiguration {
+
+    private static final String QUERY_RESULTS_REGION = "default-query-results-region";
+
+    private static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    private final javax.cache.configuration.Configuration<Object, Object> jcacheConfiguration;
+
+    private final javax.cache.configuration.Configuration<Object, Object> timestampsConfiguration;
+
+    public CacheConfiguration(JHipsterProperties jHipsterProperties) {
+        JHipsterProperties.Cache.Caffeine caffeine = jHipsterProperties.getCache().getCaffeine();
+
+        CaffeineConfiguration<Object, Object> caffeineConfiguration = new CaffeineConfiguration<>();
+        caffeineConfiguration.setMaximumSize(OptionalLong.of(caffeine.getMaxEntries()));
+        caffeineConfiguration.setExpireAfterWrite(OptionalLong.of(TimeUnit.SECONDS.toNanos(caffeine.getTimeToLiveSeconds())));
+        caffeineConfiguration.setStatisticsEnabled(true);
+        jcacheConfiguration = caffeineConfiguration;
+
+        // Update timestamps must outlive the query results they validate, so they never expire.
+        CaffeineConfiguration<Object, Object> timestamps = new CaffeineConfiguration<>();
+        timestamps.setStatisticsEnabled(true);
+        timestampsConfiguration = timestamps;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernatePropertiesCustomizer(javax.cache.CacheManager cacheManager) {
+        return hibernateProperties -> {
+            hibernateProperties.put("hibernate.cache.use_second_level_cache", "true");
+            hibernateProperties.put("hibernate.cache.use_query_cache", "true");
+            hibernateProperties.put("hibernate.cache.region.factory_class", "jcache");
+            hibernateProperties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
+        };
+    }
+
+    @Bean
+    public JCacheManagerCustomizer cacheManagerCustomizer() {
+        return cm -> {
+            createCache(cm, com.charusat.pacelearn.domain.User.class.getName());
+            createCache(cm, com.charusat.pacelearn.domain.Authority.class.getName());
+            createCache(cm, com.charusat.pacelearn.domain.User.class.getName() + ".authorities");
+            createCache(cm, com.charusat.pacelearn.domain.CourseLevel.class.getName());
+            createCache(cm, com.charusat.pacelearn.domain.CourseType.class.getName());
+            createCache(cm, com.charusat.pacelearn.domain.CourseCategory.class.getName());
+            createCache(cm, QUERY_RESULTS_REGION);
+            createCache(cm, UPDATE_TIMESTAMPS_REGION, timestampsConfiguration);
+        };
+    }
+
+    private void createCache(javax.cache.CacheManager cm, String cacheName) {
+        createCache(cm, cacheName, jcacheConfiguration);
+    }
+
+    private void createCache(
+        javax.cache.CacheManager cm,
+        String cacheName,
+        javax.cache.configuration.Configuration<Object, Object> configuration
+    ) {
+        javax.cache.Cache<Object, Object> cache = cm.getCache(cacheName);
+        if (cache != null) {
+            cache.clear();
+        } else {
+            cm.createCache(cacheName, configuration);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.charusat.pacelearn.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables the {@code @Scheduled} maintenance jobs (user cleanup, counter repair, ...).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfiguration {}
@@ -1,5 +1,6 @@
 package com.charusat.pacelearn.config;
 
+import com.charusat.pacelearn.management.SecurityMetersService;
 import com.charusat.pacelearn.security.*;
 import com.charusat.pacelearn.security.jwt.*;
 import org.springframework.context.annotation.Bean;
@@ -32,16 +33,24 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
     private final CorsFilter corsFilter;
     private final SecurityProblemSupport problemSupport;
 
+    private final ApplicationProperties applicationProperties;
+
+    private final SecurityMetersService securityMetersService;
+
     public SecurityConfiguration(
         TokenProvider tokenProvider,
         CorsFilter corsFilter,
         JHipsterProperties jHipsterProperties,
-        SecurityProblemSupport problemSupport
+        SecurityProblemSupport problemSupport,
+        ApplicationProperties applicationProperties,
+        SecurityMetersService securityMetersService
     ) {
         this.tokenProvider = tokenProvider;
         this.corsFilter = corsFilter;
         this.jHipsterProperties = jHipsterProperties;
         this.problemSupport = problemSupport;
+        this.applicationProperties = applicationProperties;
+        this.securityMetersService = securityMetersService;
 
     }
 
@@ -65,7 +74,12 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
             .antMatchers("/messages/**")
             .antMatchers("/content/**")
             .antMatchers("/swagger-ui/**")
-            .antMatchers("/test/**");
+            .antMatchers("/test/**")
+            // authorized by the signature of the URL, see MediaUrlFilter
+            .antMatchers("/media/**")
+            // thumbnails of the logos and profile images, public like the images themselves; the signature of the
+            // URL keeps them to those images, see ImageThumbnailService
+            .antMatchers("/images/**");
     }
 
     @Override
@@ -77,6 +91,8 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
             .disable()
 //            .addFilterBefore(corsFilter, UsernamePasswordAuthenticationFilter.class)
             .addFilterBefore(corsFilter, UsernamePasswordAuthenticationFilter.class)
+            // after the JWT filter, which is inserted before UsernamePasswordAuthenticationFilter
+            .addFilterAfter(rateLimitFilter(), UsernamePasswordAuthenticationFilter.class)
             .exceptionHandling()
                 .authenticationEntryPoint(problemSupport)
                 .accessDeniedHandler(problemSupport)
@@ -98,6 +114,8 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
         .and()
             .authorizeRequests()
             .antMatchers("/api/authenticate").permitAll()
+            .antMatchers("/api/authenticate/refresh").permitAll()
+            .antMatchers("/api/logout").authenticated()
 //                .antMatchers(HttpMethod.OPTIONS, "/**").permitAll()
             .antMatchers("/api/register").permitAll()
             .antMatchers("/api/activate").permitAll()
@@ -127,6 +145,10 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
         // @formatter:on
     }
 
+    private RateLimitFilter rateLimitFilter() {
+        return new RateLimitFilter(applicationProperties.getRateLimit(), securityMetersService);
+    }
+
     private JWTConfigurer securityConfigurerAdapter() {
         return new JWTConfigurer(tokenProvider);
     }
@@ -9,7 +9,10 @@ import java.util.Arrays;
 import javax.servlet.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import com.charusat.pacelearn.security.MediaUrlFilter;
+import com.charusat.pacelearn.security.MediaUrlSigner;
 import org.springframework.boot.web.server.*;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.boot.web.servlet.ServletContextInitializer;
 import org.springframework.boot.web.servlet.server.ConfigurableServletWebServerFactory;
 import org.springframework.context.annotation.Bean;
@@ -84,6 +87,16 @@ public class WebConfigurer implements ServletContextInitializer, WebServerFactor
         return extractedPath.substring(0, extractionEndIndex);
     }
 
+    /**
+     * Checks the signature of the media URLs; the media paths are outside the Spring Security chain.
+     */
+    @Bean
+    public FilterRegistrationBean<MediaUrlFilter> mediaUrlFilter(MediaUrlSigner mediaUrlSigner) {
+        FilterRegistrationBean<MediaUrlFilter> registration = new FilterRegistrationBean<>(new MediaUrlFilter(mediaUrlSigner));
+        registration.addUrlPatterns(MediaUrlSigner.PATH_PREFIX + "*");
+        return registration;
+    }
+
     @Bean
     public CorsFilter corsFilter() {
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -92,6 +105,7 @@ public class WebConfigurer implements ServletContextInitializer, WebServerFactor
         config.setAllowedOrigins(Arrays.asList("http://localhost:3000"));
         config.setAllowedMethods(Arrays.asList("GET", "POST", "OPTIONS", "DELETE", "PUT", "PATCH"));
         config.setAllowedHeaders(Arrays.asList("X-Requested-With", "Origin", "Content-Type", "Accept", "Authorization"));
+        config.setExposedHeaders(Arrays.asList("Link", "X-Total-Count", "X-Next-Cursor"));
         config.setAllowCredentials(true);
 //        System.out.println("HAHA in cors filter");
         if (!CollectionUtils.isEmpty(config.getAllowedOrigins()) || !CollectionUtils.isEmpty(config.getAllowedOriginPatterns())) {
@@ -5,14 +5,19 @@ import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
 import java.io.Serializable;
 import java.time.LocalDate;
-import java.util.HashSet;
-import java.util.Set;
 
 /**
  * A Course.
  */
 @Entity
-@Table(name = "course")
+@Table(
+    name = "course",
+    indexes = {
+        @Index(name = "idx_course__created_on_id", columnList = "course_created_on, id"),
+        @Index(name = "idx_course__approved_created_on_id", columnList = "is_approved, course_created_on, id"),
+        @Index(name = "idx_course__user_created_on_id", columnList = "user_id, course_created_on, id"),
+    }
+)
 public class Course implements Serializable {
 
     private static final long serialVersionUID = 1L;
@@ -50,6 +55,23 @@ public class Course implements Serializable {
     @Column(name = "course_length")
     private Integer courseLength;
 
+    // rollups of the sessions of the course, maintained by CourseRollupService rather than through the entity
+    @Column(name = "total_duration", insertable = false, updatable = false)
+    private Long totalDuration;
+
+    @Column(name = "session_count", insertable = false, updatable = false)
+    private Integer sessionCount;
+
+    @Column(name = "preview_session_count", insertable = false, updatable = false)
+    private Integer previewSessionCount;
+
+    @Column(name = "approved_session_count", insertable = false, updatable = false)
+    private Integer approvedSessionCount;
+
+    // the next completion ordinal of its sessions, maintained by CourseCompletionService; it never goes down
+    @Column(name = "next_completion_ordinal", insertable = false, updatable = false)
+    private Integer nextCompletionOrdinal;
+
     @NotNull
 //   //  @Size(min = 10, max = 42)
     @Column(name = "course_logo", nullable = false)
@@ -110,14 +132,6 @@ public class Course implements Serializable {
     @ManyToOne
     private User reviewer;
 
-    @ManyToMany
-    @JoinTable(
-        name = "rel_course__enrolled_users_list",
-        joinColumns = @JoinColumn(name = "course_id"),
-        inverseJoinColumns = @JoinColumn(name = "enrolled_users_list_id")
-    )
-    private Set<User> enrolledUsersLists = new HashSet<>();
-
     public User getReviewer() {
         return reviewer;
     }
@@ -133,14 +147,6 @@ public class Course implements Serializable {
 
     // jhipster-needle-entity-add-field - JHipster will add fields here
 
-    public Set<User> getEnrolledUsersLists() {
-        return enrolledUsersLists;
-    }
-
-    public void setEnrolledUsersLists(Set<User> enrolledUsersLists) {
-        this.enrolledUsersLists = enrolledUsersLists;
-    }
-
     public Integer getMinStudents() {
         return minStudents;
     }
@@ -248,6 +254,66 @@ public class Course implements Serializable {
         this.courseLength = courseLength;
     }
 
+    public Long getTotalDuration() {
+        return this.totalDuration;
+    }
+
+    public Course totalDuration(Long totalDuration) {
+        this.setTotalDuration(totalDuration);
+        return this;
+    }
+
+    public void setTotalDuration(Long totalDuration) {
+        this.totalDuration = totalDuration;
+    }
+
+    public Integer getSessionCount() {
+        return this.sessionCount;
+    }
+
+    public Course sessionCount(Integer sessionCount) {
+        this.setSessionCount(sessionCount);
+        return this;
+    }
+
+    public void setSessionCount(Integer sessionCount) {
+        this.sessionCount = sessionCount;
+    }
+
+    public Integer getPreviewSessionCount() {
+        return this.previewSessionCount;
+    }
+
+    public Course previewSessionCount(Integer previewSessionCount) {
+        this.setPreviewSessionCount(previewSessionCount);
+        return this;
+    }
+
+    public void setPreviewSessionCount(Integer previewSessionCount) {
+        this.previewSessionCount = previewSessionCount;
+    }
+
+    public Integer getApprovedSessionCount() {
+        return this.approvedSessionCount;
+    }
+
+    public Course approvedSessionCount(Integer approvedSessionCount) {
+        this.setApprovedSessionCount(approvedSessionCount);
+        return this;
+    }
+
+    public void setApprovedSessionCount(Integer approvedSessionCount) {
+        this.approvedSessionCount = approvedSessionCount;
+    }
+
+    public Integer getNextCompletionOrdinal() {
+        return this.nextCompletionOrdinal;
+    }
+
+    public void setNextCompletionOrdinal(Integer nextCompletionOrdinal) {
+        this.nextCompletionOrdinal = nextCompletionOrdinal;
+    }
+
     public String getCourseLogo() {
         return this.courseLogo;
     }
@@ -466,6 +532,10 @@ public class Course implements Serializable {
             ", isApproved='" + getIsApproved() + "'" +
             ", isPublished='" + getIsPublished() + "'" +
             ", courseApprovalDate='" + getCourseApprovalDate() + "'" +
+            ", totalDuration=" + getTotalDuration() +
+            ", sessionCount=" + getSessionCount() +
+            ", previewSessionCount=" + getPreviewSessionCount() +
+            ", approvedSessionCount=" + getApprovedSessionCount() +
             "}";
     }
 }
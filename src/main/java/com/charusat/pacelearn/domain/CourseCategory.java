@@ -1,5 +1,8 @@
 package com.charusat.pacelearn.domain;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
@@ -10,6 +13,7 @@ import java.io.Serializable;
  */
 @Entity
 @Table(name = "course_category")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class CourseCategory implements Serializable {
 
     private static final long serialVersionUID = 1L;
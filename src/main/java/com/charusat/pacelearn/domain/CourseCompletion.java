@@ -0,0 +1,126 @@
+package com.charusat.pacelearn.domain;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * A CourseCompletion.
+ * <p>
+ * The sessions of a course a user has completed, as a bitset over the completion ordinals of the sessions, and the
+ * number of bits set. A session is completed once its progress crosses the completion threshold; it stays completed.
+ */
+@Entity
+@Table(
+    name = "course_completion",
+    uniqueConstraints = @UniqueConstraint(name = "ux_course_completion__user_course", columnNames = { "user_id", "course_id" })
+)
+public class CourseCompletion implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @NotNull
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @NotNull
+    @Column(name = "course_id", nullable = false)
+    private Long courseId;
+
+    /**
+     * Little-endian bitset, as {@link java.util.BitSet#toByteArray()}; 8192 sessions at most.
+     */
+    @NotNull
+    @Column(name = "completed_sessions", length = 1024, nullable = false)
+    private byte[] completedSessions;
+
+    @NotNull
+    @Column(name = "completed_count", nullable = false)
+    private Integer completedCount;
+
+    @Column(name = "last_completed_date")
+    private Instant lastCompletedDate;
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getUserId() {
+        return this.userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getCourseId() {
+        return this.courseId;
+    }
+
+    public void setCourseId(Long courseId) {
+        this.courseId = courseId;
+    }
+
+    public byte[] getCompletedSessions() {
+        return this.completedSessions;
+    }
+
+    public void setCompletedSessions(byte[] completedSessions) {
+        this.completedSessions = completedSessions;
+    }
+
+    public Integer getCompletedCount() {
+        return this.completedCount;
+    }
+
+    public void setCompletedCount(Integer completedCount) {
+        this.completedCount = completedCount;
+    }
+
+    public Instant getLastCompletedDate() {
+        return this.lastCompletedDate;
+    }
+
+    public void setLastCompletedDate(Instant lastCompletedDate) {
+        this.lastCompletedDate = lastCompletedDate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CourseCompletion)) {
+            return false;
+        }
+        return id != null && id.equals(((CourseCompletion) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "CourseCompletion{" +
+            "id=" + getId() +
+            ", userId=" + getUserId() +
+            ", courseId=" + getCourseId() +
+            ", completedCount=" + getCompletedCount() +
+            ", lastCompletedDate='" + getLastCompletedDate() + "'" +
+            "}";
+    }
+}
@@ -11,7 +11,11 @@ import java.time.LocalDate;
  * A CourseEnrollment.
  */
 @Entity
-@Table(name = "course_enrollment")
+@Table(
+    name = "course_enrollment",
+    uniqueConstraints = @UniqueConstraint(name = "ux_course_enrollment__course_user", columnNames = { "course_id", "user_id" }),
+    indexes = @Index(name = "idx_course_enrollment__user", columnList = "user_id")
+)
 public class CourseEnrollment implements Serializable {
 
     private static final long serialVersionUID = 1L;
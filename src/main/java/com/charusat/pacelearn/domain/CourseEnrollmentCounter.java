@@ -0,0 +1,99 @@
+package com.charusat.pacelearn.domain;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+
+/**
+ * A CourseEnrollmentCounter.
+ * <p>
+ * One slot of the denormalized enrollment count of a course. A course owns several slots and its
+ * enrollment count is the sum over them, so concurrent enrollments in the same course update
+ * different rows instead of queueing on a single row lock.
+ */
+@Entity
+@Table(
+    name = "course_enrollment_counter",
+    uniqueConstraints = @UniqueConstraint(name = "ux_course_enrollment_counter__course_slot", columnNames = { "course_id", "slot" })
+)
+public class CourseEnrollmentCounter implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @NotNull
+    @Column(name = "course_id", nullable = false)
+    private Long courseId;
+
+    @NotNull
+    @Column(name = "slot", nullable = false)
+    private Integer slot;
+
+    @NotNull
+    @Column(name = "enrollment_count", nullable = false)
+    private Long enrollmentCount;
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getCourseId() {
+        return this.courseId;
+    }
+
+    public void setCourseId(Long courseId) {
+        this.courseId = courseId;
+    }
+
+    public Integer getSlot() {
+        return this.slot;
+    }
+
+    public void setSlot(Integer slot) {
+        this.slot = slot;
+    }
+
+    public Long getEnrollmentCount() {
+        return this.enrollmentCount;
+    }
+
+    public void setEnrollmentCount(Long enrollmentCount) {
+        this.enrollmentCount = enrollmentCount;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CourseEnrollmentCounter)) {
+            return false;
+        }
+        return id != null && id.equals(((CourseEnrollmentCounter) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "CourseEnrollmentCounter{" +
+            "id=" + getId() +
+            ", courseId=" + getCourseId() +
+            ", slot=" + getSlot() +
+            ", enrollmentCount=" + getEnrollmentCount() +
+            "}";
+    }
+}
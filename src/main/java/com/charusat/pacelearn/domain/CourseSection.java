@@ -44,6 +44,19 @@ public class CourseSection implements Serializable {
     @Column(name = "is_approved", nullable = false)
     private Boolean isApproved;
 
+    // rollups of the sessions of the section, maintained by CourseRollupService rather than through the entity
+    @Column(name = "total_duration", insertable = false, updatable = false)
+    private Long totalDuration;
+
+    @Column(name = "session_count", insertable = false, updatable = false)
+    private Integer sessionCount;
+
+    @Column(name = "preview_session_count", insertable = false, updatable = false)
+    private Integer previewSessionCount;
+
+    @Column(name = "approved_session_count", insertable = false, updatable = false)
+    private Integer approvedSessionCount;
+
     @ManyToOne
     @JsonIgnoreProperties(value = { "courseLevel", "courseCategory", "courseType", "user" }, allowSetters = true)
     private Course course;
@@ -150,6 +163,58 @@ public class CourseSection implements Serializable {
         return this;
     }
 
+    public Long getTotalDuration() {
+        return this.totalDuration;
+    }
+
+    public CourseSection totalDuration(Long totalDuration) {
+        this.setTotalDuration(totalDuration);
+        return this;
+    }
+
+    public void setTotalDuration(Long totalDuration) {
+        this.totalDuration = totalDuration;
+    }
+
+    public Integer getSessionCount() {
+        return this.sessionCount;
+    }
+
+    public CourseSection sessionCount(Integer sessionCount) {
+        this.setSessionCount(sessionCount);
+        return this;
+    }
+
+    public void setSessionCount(Integer sessionCount) {
+        this.sessionCount = sessionCount;
+    }
+
+    public Integer getPreviewSessionCount() {
+        return this.previewSessionCount;
+    }
+
+    public CourseSection previewSessionCount(Integer previewSessionCount) {
+        this.setPreviewSessionCount(previewSessionCount);
+        return this;
+    }
+
+    public void setPreviewSessionCount(Integer previewSessionCount) {
+        this.previewSessionCount = previewSessionCount;
+    }
+
+    public Integer getApprovedSessionCount() {
+        return this.approvedSessionCount;
+    }
+
+    public CourseSection approvedSessionCount(Integer approvedSessionCount) {
+        this.setApprovedSessionCount(approvedSessionCount);
+        return this;
+    }
+
+    public void setApprovedSessionCount(Integer approvedSessionCount) {
+        this.approvedSessionCount = approvedSessionCount;
+    }
+
     // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
 
     @Override
@@ -179,6 +244,10 @@ public class CourseSection implements Serializable {
             ", sectionOrder=" + getSectionOrder() +
             ", isDraft='" + getIsDraft() + "'" +
             ", isApproved='" + getIsApproved() + "'" +
+            ", totalDuration=" + getTotalDuration() +
+            ", sessionCount=" + getSessionCount() +
+            ", previewSessionCount=" + getPreviewSessionCount() +
+            ", approvedSessionCount=" + getApprovedSessionCount() +
             "}";
     }
 }
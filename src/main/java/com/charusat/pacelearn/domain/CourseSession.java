@@ -2,6 +2,7 @@ package com.charusat.pacelearn.domain;
 
 import com.charusat.pacelearn.service.dto.CourseSessionDTO;
 import com.charusat.pacelearn.service.dto.CourseSessionDTOManual;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 import javax.persistence.*;
@@ -74,6 +75,13 @@ public class CourseSession implements Serializable {
     @Column(name = "quiz_link", length = 42)
     private String quizLink;
 
+    /**
+     * Bit of the session in the {@link CourseCompletion} bitsets of its course; assigned once, never reused.
+     */
+    @JsonIgnore
+    @Column(name = "completion_ordinal", updatable = false)
+    private Integer completionOrdinal;
+
     @ManyToOne
     @JsonIgnoreProperties(value = { "course" }, allowSetters = true)
     private CourseSection courseSection;
@@ -257,6 +265,14 @@ public class CourseSession implements Serializable {
         this.quizLink = quizLink;
     }
 
+    public Integer getCompletionOrdinal() {
+        return this.completionOrdinal;
+    }
+
+    public void setCompletionOrdinal(Integer completionOrdinal) {
+        this.completionOrdinal = completionOrdinal;
+    }
+
     public CourseSection getCourseSection() {
         return this.courseSection;
     }
@@ -5,12 +5,21 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
 import java.io.Serializable;
+import java.time.Instant;
 
 /**
  * A CourseSessionProgress.
+ * <p>
+ * At most one per user and session, the watch time reports being merged into it.
  */
 @Entity
-@Table(name = "course_session_progress")
+@Table(
+    name = "course_session_progress",
+    uniqueConstraints = @UniqueConstraint(
+        name = "ux_course_session_progress__user_course_session",
+        columnNames = { "user_id", "course_session_id" }
+    )
+)
 public class CourseSessionProgress implements Serializable {
 
     private static final long serialVersionUID = 1L;
@@ -25,6 +34,9 @@ public class CourseSessionProgress implements Serializable {
     @Column(name = "watch_seconds", nullable = false)
     private Long watchSeconds;
 
+    @Column(name = "last_reported_at")
+    private Instant lastReportedAt;
+
     @ManyToOne
     private User user;
 
@@ -60,6 +72,22 @@ public class CourseSessionProgress implements Serializable {
         this.watchSeconds = watchSeconds;
     }
 
+    /**
+     * @return the client time of the latest report merged by a sync, {@code null} if none was.
+     */
+    public Instant getLastReportedAt() {
+        return this.lastReportedAt;
+    }
+
+    public CourseSessionProgress lastReportedAt(Instant lastReportedAt) {
+        this.setLastReportedAt(lastReportedAt);
+        return this;
+    }
+
+    public void setLastReportedAt(Instant lastReportedAt) {
+        this.lastReportedAt = lastReportedAt;
+    }
+
     public User getUser() {
         return this.user;
     }
@@ -111,6 +139,7 @@ public class CourseSessionProgress implements Serializable {
         return "CourseSessionProgress{" +
             "id=" + getId() +
             ", watchSeconds=" + getWatchSeconds() +
+            ", lastReportedAt='" + getLastReportedAt() + "'" +
             "}";
     }
 }
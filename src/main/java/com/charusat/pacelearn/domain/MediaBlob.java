@@ -0,0 +1,126 @@
+package com.charusat.pacelearn.domain;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * A MediaBlob.
+ * <p>
+ * One file of the content-addressed media storage, named by the SHA-256 of its content and the extension it was
+ * uploaded with. The reference count is the number of session videos and resources pointing at it; a blob is
+ * only deleted once it has been unreferenced for a grace period.
+ */
+@Entity
+@Table(name = "media_blob")
+public class MediaBlob implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Size(max = 80)
+    @Column(name = "name", length = 80, nullable = false)
+    private String name;
+
+    @NotNull
+    @Size(min = 64, max = 64)
+    @Column(name = "hash", length = 64, nullable = false)
+    private String hash;
+
+    @NotNull
+    @Column(name = "jhi_size", nullable = false)
+    private Long size;
+
+    @NotNull
+    @Column(name = "reference_count", nullable = false)
+    private Integer referenceCount;
+
+    @NotNull
+    @Column(name = "created_date", nullable = false)
+    private Instant createdDate;
+
+    @Column(name = "released_date")
+    private Instant releasedDate;
+
+    public String getName() {
+        return this.name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getHash() {
+        return this.hash;
+    }
+
+    public void setHash(String hash) {
+        this.hash = hash;
+    }
+
+    public Long getSize() {
+        return this.size;
+    }
+
+    public void setSize(Long size) {
+        this.size = size;
+    }
+
+    public Integer getReferenceCount() {
+        return this.referenceCount;
+    }
+
+    public void setReferenceCount(Integer referenceCount) {
+        this.referenceCount = referenceCount;
+    }
+
+    public Instant getCreatedDate() {
+        return this.createdDate;
+    }
+
+    public void setCreatedDate(Instant createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    /**
+     * @return when the blob last became unreferenced, {@code null} while it is referenced.
+     */
+    public Instant getReleasedDate() {
+        return this.releasedDate;
+    }
+
+    public void setReleasedDate(Instant releasedDate) {
+        this.releasedDate = releasedDate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof MediaBlob)) {
+            return false;
+        }
+        return name != null && name.equals(((MediaBlob) o).name);
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "MediaBlob{" +
+            "name='" + getName() + "'" +
+            ", size=" + getSize() +
+            ", referenceCount=" + getReferenceCount() +
+            ", createdDate='" + getCreatedDate() + "'" +
+            ", releasedDate='" + getReleasedDate() + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,142 @@
+package com.charusat.pacelearn.domain;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * A RefreshToken.
+ * <p>
+ * One login session. Only the SHA-256 digest of the current refresh token is stored; it is replaced on every
+ * refresh, while the id stays and is carried by the access tokens of the session as their {@code sid} claim. The
+ * digest of the token it replaced is kept to recognise that token if it is ever presented again.
+ */
+@Entity
+@Table(name = "refresh_token", indexes = @Index(name = "ix_refresh_token__previous_token_hash", columnList = "previous_token_hash"))
+public class RefreshToken implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @NotNull
+    @Size(max = 50)
+    @Column(name = "login", length = 50, nullable = false)
+    private String login;
+
+    @NotNull
+    @Size(max = 64)
+    @Column(name = "token_hash", length = 64, nullable = false, unique = true)
+    private String tokenHash;
+
+    @Size(max = 64)
+    @Column(name = "previous_token_hash", length = 64)
+    private String previousTokenHash;
+
+    @NotNull
+    @Column(name = "created_date", nullable = false)
+    private Instant createdDate;
+
+    @NotNull
+    @Column(name = "expiry_date", nullable = false)
+    private Instant expiryDate;
+
+    @Column(name = "revoked_date")
+    private Instant revokedDate;
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getLogin() {
+        return this.login;
+    }
+
+    public void setLogin(String login) {
+        this.login = login;
+    }
+
+    public String getTokenHash() {
+        return this.tokenHash;
+    }
+
+    public void setTokenHash(String tokenHash) {
+        this.tokenHash = tokenHash;
+    }
+
+    /**
+     * @return the digest of the refresh token replaced by the current one, {@code null} before the first refresh.
+     */
+    public String getPreviousTokenHash() {
+        return this.previousTokenHash;
+    }
+
+    public void setPreviousTokenHash(String previousTokenHash) {
+        this.previousTokenHash = previousTokenHash;
+    }
+
+    public Instant getCreatedDate() {
+        return this.createdDate;
+    }
+
+    public void setCreatedDate(Instant createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    public Instant getExpiryDate() {
+        return this.expiryDate;
+    }
+
+    public void setExpiryDate(Instant expiryDate) {
+        this.expiryDate = expiryDate;
+    }
+
+    /**
+     * @return when the session was revoked, {@code null} while it is active.
+     */
+    public Instant getRevokedDate() {
+        return this.revokedDate;
+    }
+
+    public void setRevokedDate(Instant revokedDate) {
+        this.revokedDate = revokedDate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RefreshToken)) {
+            return false;
+        }
+        return id != null && id.equals(((RefreshToken) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "RefreshToken{" +
+            "id=" + getId() +
+            ", login='" + getLogin() + "'" +
+            ", createdDate='" + getCreatedDate() + "'" +
+            ", expiryDate='" + getExpiryDate() + "'" +
+            ", revokedDate='" + getRevokedDate() + "'" +
+            "}";
+    }
+}
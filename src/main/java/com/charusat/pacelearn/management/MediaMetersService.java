@@ -0,0 +1,75 @@
+package com.charusat.pacelearn.management;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+
+@Service
+public class MediaMetersService {
+
+    public static final String BYTES_SERVED_METER_NAME = "media.bytes-served";
+    public static final String BYTES_SERVED_METER_DESCRIPTION =
+        "Bytes of session media copied to the clients, or handed to the container's sendfile, by course.";
+
+    public static final String THROUGHPUT_METER_NAME = "media.throughput";
+    public static final String THROUGHPUT_METER_DESCRIPTION =
+        "Transfer rate of the session media responses copied by the application, by course.";
+
+    public static final String COURSE_DIMENSION = "course";
+    public static final String TRANSFER_DIMENSION = "transfer";
+
+    public static final String TRANSFER_COPY = "copy";
+    public static final String TRANSFER_SENDFILE = "sendfile";
+
+    private final MeterRegistry registry;
+
+    public MediaMetersService(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Records one media response copied to the client by the application.
+     *
+     * @param courseId the course of the media.
+     * @param bytes the number of bytes sent.
+     * @param nanos the time spent sending them.
+     */
+    public void trackCopied(long courseId, long bytes, long nanos) {
+        String course = Long.toString(courseId);
+        countBytes(course, TRANSFER_COPY, bytes);
+        if (nanos > 0) {
+            DistributionSummary
+                .builder(THROUGHPUT_METER_NAME)
+                .description(THROUGHPUT_METER_DESCRIPTION)
+                .baseUnit("bytes/second")
+                .tag(COURSE_DIMENSION, course)
+                .register(registry)
+                .record(bytes * (double) TimeUnit.SECONDS.toNanos(1) / nanos);
+        }
+    }
+
+    /**
+     * Records one media response handed to the container's sendfile. The transfer happens after the request
+     * returns, so neither its duration nor its completion is known: the bytes are the ones scheduled.
+     *
+     * @param courseId the course of the media.
+     * @param bytes the number of bytes handed over.
+     */
+    public void trackSendfile(long courseId, long bytes) {
+        countBytes(Long.toString(courseId), TRANSFER_SENDFILE, bytes);
+    }
+
+    private void countBytes(String course, String transfer, long bytes) {
+        Counter
+            .builder(BYTES_SERVED_METER_NAME)
+            .description(BYTES_SERVED_METER_DESCRIPTION)
+            .baseUnit("bytes")
+            .tag(COURSE_DIMENSION, course)
+            .tag(TRANSFER_DIMENSION, transfer)
+            .register(registry)
+            .increment(bytes);
+    }
+}
@@ -1,9 +1,16 @@
 package com.charusat.pacelearn.management;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Supplier;
+
 @Service
 public class SecurityMetersService {
 
@@ -13,16 +20,62 @@ public class SecurityMetersService {
     public static final String INVALID_TOKENS_METER_BASE_UNIT = "errors";
     public static final String INVALID_TOKENS_METER_CAUSE_DIMENSION = "cause";
 
+    public static final String TOKEN_VERIFICATION_METER_NAME = "security.authentication.token-verification";
+    public static final String TOKEN_VERIFICATION_METER_DESCRIPTION =
+        "Time spent parsing and verifying the signature of the tokens presented by the clients.";
+
+    public static final String TOKEN_CACHE_NAME = "security.authentication.verified-tokens";
+
+    public static final String PASSWORD_CHECK_METER_NAME = "security.authentication.password-check";
+    public static final String PASSWORD_CHECK_METER_DESCRIPTION =
+        "Time spent loading the user and checking the password of a login, excluding the wait in the queue.";
+    public static final String PASSWORD_CHECK_QUEUE_METER_NAME = "security.authentication.password-check.queue";
+    public static final String PASSWORD_CHECK_ACTIVE_METER_NAME = "security.authentication.password-check.active";
+
+    public static final String REJECTED_LOGINS_METER_NAME = "security.authentication.rejected-logins";
+    public static final String REJECTED_LOGINS_METER_DESCRIPTION =
+        "Logins refused before any password check, because the client failed too often or the hashing queue was full.";
+
+    public static final String RATE_LIMIT_METER_NAME = "security.rate-limit.requests";
+    public static final String RATE_LIMIT_METER_DESCRIPTION = "Requests to the rate-limited routes, by route and outcome.";
+
+    private final MeterRegistry registry;
+
     private final Counter tokenInvalidSignatureCounter;
     private final Counter tokenExpiredCounter;
     private final Counter tokenUnsupportedCounter;
     private final Counter tokenMalformedCounter;
 
+    private final Timer tokenVerificationTimer;
+
+    private final Timer passwordCheckTimer;
+
+    private final Counter loginThrottledCounter;
+    private final Counter loginOverloadedCounter;
+
     public SecurityMetersService(MeterRegistry registry) {
+        this.registry = registry;
         this.tokenInvalidSignatureCounter = invalidTokensCounterForCauseBuilder("invalid-signature").register(registry);
         this.tokenExpiredCounter = invalidTokensCounterForCauseBuilder("expired").register(registry);
         this.tokenUnsupportedCounter = invalidTokensCounterForCauseBuilder("unsupported").register(registry);
         this.tokenMalformedCounter = invalidTokensCounterForCauseBuilder("malformed").register(registry);
+        this.tokenVerificationTimer = Timer
+            .builder(TOKEN_VERIFICATION_METER_NAME)
+            .description(TOKEN_VERIFICATION_METER_DESCRIPTION)
+            .register(registry);
+        this.passwordCheckTimer = Timer
+            .builder(PASSWORD_CHECK_METER_NAME)
+            .description(PASSWORD_CHECK_METER_DESCRIPTION)
+            .register(registry);
+        this.loginThrottledCounter = rejectedLoginsCounterForCauseBuilder("throttled").register(registry);
+        this.loginOverloadedCounter = rejectedLoginsCounterForCauseBuilder("overloaded").register(registry);
+    }
+
+    private Counter.Builder rejectedLoginsCounterForCauseBuilder(String cause) {
+        return Counter
+            .builder(REJECTED_LOGINS_METER_NAME)
+            .description(REJECTED_LOGINS_METER_DESCRIPTION)
+            .tag(INVALID_TOKENS_METER_CAUSE_DIMENSION, cause);
     }
 
     private Counter.Builder invalidTokensCounterForCauseBuilder(String cause) {
@@ -48,4 +101,47 @@ public class SecurityMetersService {
     public void trackTokenMalformed() {
         this.tokenMalformedCounter.increment();
     }
+
+    public <T> T timeTokenVerification(Supplier<T> verification) {
+        return this.tokenVerificationTimer.record(verification);
+    }
+
+    /**
+     * Publishes the hit, miss, eviction and size meters of the verified token cache.
+     */
+    public void monitorTokenCache(Cache<?, ?> cache) {
+        CaffeineCacheMetrics.monitor(registry, cache, TOKEN_CACHE_NAME);
+    }
+
+    public <T> T timePasswordCheck(Supplier<T> check) {
+        return this.passwordCheckTimer.record(check);
+    }
+
+    /**
+     * Publishes the queue depth and the busy threads of the password check executor.
+     */
+    public void monitorPasswordCheckExecutor(ThreadPoolExecutor executor) {
+        Gauge.builder(PASSWORD_CHECK_QUEUE_METER_NAME, executor, e -> e.getQueue().size()).register(registry);
+        Gauge.builder(PASSWORD_CHECK_ACTIVE_METER_NAME, executor, ThreadPoolExecutor::getActiveCount).register(registry);
+    }
+
+    public void trackLoginThrottled() {
+        this.loginThrottledCounter.increment();
+    }
+
+    public void trackLoginOverloaded() {
+        this.loginOverloadedCounter.increment();
+    }
+
+    /**
+     * @return the counter of the requests to a rate-limited route that were let through or rejected.
+     */
+    public Counter rateLimitCounter(String route, boolean allowed) {
+        return Counter
+            .builder(RATE_LIMIT_METER_NAME)
+            .description(RATE_LIMIT_METER_DESCRIPTION)
+            .tag("route", route)
+            .tag("outcome", allowed ? "allowed" : "rejected")
+            .register(registry);
+    }
 }
@@ -0,0 +1,44 @@
+package com.charusat.pacelearn.repository;
+
+import com.charusat.pacelearn.domain.CourseCompletion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Spring Data SQL repository for the CourseCompletion entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface CourseCompletionRepository extends JpaRepository<CourseCompletion, Long>, CourseCompletionRepositoryCustom {
+    Optional<CourseCompletion> findByUserIdAndCourseId(Long userId, Long courseId);
+
+    /**
+     * Lock the completions of some users in some courses, every combination included.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select completion from CourseCompletion completion where completion.userId in :userIds and completion.courseId in :courseIds")
+    List<CourseCompletion> findAllForUpdate(@Param("userIds") Collection<Long> userIds, @Param("courseIds") Collection<Long> courseIds);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select completion from CourseCompletion completion where completion.courseId = :courseId")
+    List<CourseCompletion> findAllByCourseIdForUpdate(@Param("courseId") Long courseId);
+
+    /**
+     * The users and courses with progress but no completion yet, as (userId, courseId).
+     */
+    @Query(
+        "select distinct progress.user.id, section.course.id from CourseSessionProgress progress " +
+        "join progress.courseSession session join session.courseSection section " +
+        "where not exists (select completion.id from CourseCompletion completion " +
+        "where completion.userId = progress.user.id and completion.courseId = section.course.id)"
+    )
+    List<Object[]> findMissing();
+}
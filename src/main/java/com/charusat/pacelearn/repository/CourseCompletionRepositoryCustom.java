@@ -0,0 +1,11 @@
+package com.charusat.pacelearn.repository;
+
+/**
+ * Custom queries of the CourseCompletion repository that cannot be expressed with {@code @Query}.
+ */
+public interface CourseCompletionRepositoryCustom {
+    /**
+     * Create the empty completion of a user in a course, unless it exists; concurrent callers never conflict.
+     */
+    int insertIfMissing(Long userId, Long courseId);
+}
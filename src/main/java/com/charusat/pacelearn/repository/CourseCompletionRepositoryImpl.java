@@ -0,0 +1,33 @@
+package com.charusat.pacelearn.repository;
+
+import com.charusat.pacelearn.domain.CourseCompletion;
+import org.hibernate.query.NativeQuery;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+/**
+ * Implementation of {@link CourseCompletionRepositoryCustom}.
+ */
+public class CourseCompletionRepositoryImpl implements CourseCompletionRepositoryCustom {
+
+    private static final String INSERT_IF_MISSING =
+        "insert ignore into course_completion (user_id, course_id, completed_sessions, completed_count) " +
+        "values (:userId, :courseId, '', 0)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int insertIfMissing(Long userId, Long courseId) {
+        // Declaring the touched table keeps Hibernate from evicting the whole second-level cache,
+        // which it does for native updates with unknown query spaces.
+        return entityManager
+            .createNativeQuery(INSERT_IF_MISSING)
+            .unwrap(NativeQuery.class)
+            .addSynchronizedEntityClass(CourseCompletion.class)
+            .setParameter("userId", userId)
+            .setParameter("courseId", courseId)
+            .executeUpdate();
+    }
+}
@@ -0,0 +1,51 @@
+package com.charusat.pacelearn.repository;
+
+import com.charusat.pacelearn.domain.CourseEnrollmentCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Spring Data SQL repository for the CourseEnrollmentCounter entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface CourseEnrollmentCounterRepository
+    extends JpaRepository<CourseEnrollmentCounter, Long>, CourseEnrollmentCounterRepositoryCustom {
+    @Query(
+        "select coalesce(sum(counter.enrollmentCount), 0) from CourseEnrollmentCounter counter where counter.courseId = :courseId"
+    )
+    Long sumByCourseId(@Param("courseId") Long courseId);
+
+    @Query(
+        "select counter.courseId, sum(counter.enrollmentCount) from CourseEnrollmentCounter counter " +
+        "where counter.courseId in :courseIds group by counter.courseId"
+    )
+    List<Object[]> sumByCourseIdIn(@Param("courseIds") Collection<Long> courseIds);
+
+    @Query("select coalesce(sum(counter.enrollmentCount), 0) from CourseEnrollmentCounter counter")
+    Long sumAll();
+
+    @Modifying
+    @Query("delete from CourseEnrollmentCounter counter where counter.courseId = :courseId")
+    void deleteByCourseId(@Param("courseId") Long courseId);
+
+    /**
+     * Courses whose counted total differs from the number of course_enrollment rows, as
+     * (course_id, actual, counted). Both sides are read in one statement so they share a snapshot.
+     */
+    @Query(
+        value = "select t.course_id, sum(t.actual), sum(t.counted) from (" +
+        "select course_id, count(*) as actual, 0 as counted from course_enrollment group by course_id " +
+        "union all " +
+        "select course_id, 0 as actual, sum(enrollment_count) as counted from course_enrollment_counter group by course_id" +
+        ") t group by t.course_id having sum(t.actual) <> sum(t.counted)",
+        nativeQuery = true
+    )
+    List<Object[]> findDrift();
+}
@@ -0,0 +1,12 @@
+package com.charusat.pacelearn.repository;
+
+/**
+ * Custom queries of the CourseEnrollmentCounter repository that cannot be expressed with {@code @Query}.
+ */
+public interface CourseEnrollmentCounterRepositoryCustom {
+    /**
+     * Adds {@code delta} to one slot of a course, creating the slot row on first use.
+     * Being a single upsert it needs no read beforehand and only locks the touched slot.
+     */
+    void addToSlot(Long courseId, Integer slot, Long delta);
+}
@@ -0,0 +1,34 @@
+package com.charusat.pacelearn.repository;
+
+import com.charusat.pacelearn.domain.CourseEnrollmentCounter;
+import org.hibernate.query.NativeQuery;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+/**
+ * Implementation of {@link CourseEnrollmentCounterRepositoryCustom}.
+ */
+public class CourseEnrollmentCounterRepositoryImpl implements CourseEnrollmentCounterRepositoryCustom {
+
+    private static final String ADD_TO_SLOT =
+        "insert into course_enrollment_counter (course_id, slot, enrollment_count) values (:courseId, :slot, :delta) " +
+        "on duplicate key update enrollment_count = enrollment_count + values(enrollment_count)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void addToSlot(Long courseId, Integer slot, Long delta) {
+        // Declaring the touched table keeps Hibernate from evicting the whole second-level cache,
+        // which it does for native updates with unknown query spaces.
+        entityManager
+            .createNativeQuery(ADD_TO_SLOT)
+            .unwrap(NativeQuery.class)
+            .addSynchronizedEntityClass(CourseEnrollmentCounter.class)
+            .setParameter("courseId", courseId)
+            .setParameter("slot", slot)
+            .setParameter("delta", delta)
+            .executeUpdate();
+    }
+}
@@ -1,11 +1,16 @@
 package com.charusat.pacelearn.repository;
 
+import com.charusat.pacelearn.domain.Course;
 import com.charusat.pacelearn.domain.CourseEnrollment;
+import com.charusat.pacelearn.domain.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -16,4 +21,51 @@ import java.util.List;
 public interface CourseEnrollmentRepository extends JpaRepository<CourseEnrollment, Long>, JpaSpecificationExecutor<CourseEnrollment> {
     @Query("select courseEnrollment from CourseEnrollment courseEnrollment where courseEnrollment.user.login = ?#{principal.username}")
     List<CourseEnrollment> findByUserIsCurrentUser();
+
+    /**
+     * CUSTOM
+     * Enrollment lookups backed by the (course_id, user_id) unique index and the user_id index,
+     * so none of them has to load the enrolled users of a course.
+     */
+    boolean existsByCourse_IdAndUser_Id(Long courseId, Long userId);
+
+    boolean existsByCourse_Id(Long courseId);
+
+    long countByCourse_Id(Long courseId);
+
+    @Query("select count(distinct courseEnrollment.course.id) from CourseEnrollment courseEnrollment")
+    long countEnrolledCourses();
+
+    @Query("select courseEnrollment.user from CourseEnrollment courseEnrollment where courseEnrollment.course.id = :courseId")
+    List<User> findEnrolledUsersByCourseId(@Param("courseId") Long courseId);
+
+    @Query("select courseEnrollment.course from CourseEnrollment courseEnrollment where courseEnrollment.user = :user")
+    List<Course> findEnrolledCoursesByUser(@Param("user") User user);
+
+    /**
+     * The courses a user is enrolled in, as (course, completion), the completion being null until the user makes
+     * progress in the course.
+     */
+    @Query(
+        "select courseEnrollment.course, completion from CourseEnrollment courseEnrollment " +
+        "left join CourseCompletion completion on completion.courseId = courseEnrollment.course.id " +
+        "and completion.userId = courseEnrollment.user.id where courseEnrollment.user = :user"
+    )
+    List<Object[]> findEnrolledCoursesWithCompletionByUser(@Param("user") User user);
+
+    @Query(
+        "select courseEnrollment.course.id from CourseEnrollment courseEnrollment " +
+        "where courseEnrollment.user = :user and courseEnrollment.course.id in :courseIds"
+    )
+    List<Long> findEnrolledCourseIdsByUserAndCourseIdIn(@Param("user") User user, @Param("courseIds") Collection<Long> courseIds);
+
+    @Query(
+        "select courseEnrollment.course.id from CourseEnrollment courseEnrollment " +
+        "where courseEnrollment.user.id = :userId and courseEnrollment.course.id in :courseIds"
+    )
+    List<Long> findEnrolledCourseIdsByUserIdAndCourseIdIn(@Param("userId") Long userId, @Param("courseIds") Collection<Long> courseIds);
+
+    @Modifying
+    @Query("delete from CourseEnrollment courseEnrollment where courseEnrollment.course.id = :courseId")
+    void deleteByCourseId(@Param("courseId") Long courseId);
 }
@@ -2,39 +2,72 @@ package com.charusat.pacelearn.repository;
 
 import com.charusat.pacelearn.domain.Course;
 import com.charusat.pacelearn.domain.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
 import javax.validation.constraints.NotNull;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Spring Data SQL repository for the Course entity.
  */
 @SuppressWarnings("unused")
 @Repository
-public interface CourseRepository extends JpaRepository<Course, Long>, JpaSpecificationExecutor<Course> {
+public interface CourseRepository
+    extends JpaRepository<Course, Long>, JpaSpecificationExecutor<Course>, CourseRepositoryCustom {
     @Query("select course from Course course where course.user.login = ?#{principal.username}")
     List<Course> findByUserIsCurrentUser();
 
     //    @Query("select course from Course course where course.semester in (?1, ?2)")
     //    List<Course> findAllBySemester(int a, int b);
 
-    List<Course> findCourseByEnrolledUsersListsContaining(User user);
-
     @Query(
         value = "select course from Course course where course.courseCategory.id = :id and course.isApproved = true order by course.courseTitle"
     )
     List<Course> findByCategoryId(@Param("id") Long id);
 
-    @Query(value = "select count(*) from rel_course__enrolled_users_list", nativeQuery = true)
-    Integer findTotalEnrollment();
+    @Query("select course.id from Course course where course.courseCategory.id = :categoryId")
+    List<Long> findIdsByCourseCategoryId(@Param("categoryId") Long categoryId);
+
+    @Query(
+        "select course from Course course join fetch course.courseCategory category " +
+        "where category.isParent = false and course.isApproved = true order by course.courseTitle"
+    )
+    List<Course> findApprovedInSubCategories();
 
     List<Course> findAllByIsApproved(Boolean value);
 
+    /**
+     * Lock a course row until the end of the transaction, serializing the writers of the course across instances.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select course from Course course where course.id = :id")
+    Optional<Course> lockById(@Param("id") Long id);
+
+    @Query("select max(course.id) from Course course")
+    Long findMaxId();
+
+    boolean existsBySessionCountIsNull();
+
+    /**
+     * The curriculum summary of a course, as (id, courseTitle, courseSubTitle, courseDescription, courseLogo, amount,
+     * totalDuration, sessionCount, previewSessionCount, instructor first name, instructor last name).
+     */
+    @Query(
+        "select course.id, course.courseTitle, course.courseSubTitle, course.courseDescription, course.courseLogo, course.amount, " +
+        "course.totalDuration, course.sessionCount, course.previewSessionCount, instructor.firstName, instructor.lastName " +
+        "from Course course left join course.user instructor where course.id = :id"
+    )
+    List<Object[]> findCurriculumSummary(@Param("id") Long id);
+
     List<Course> findCourseByUserEquals(User author);
 
     /**
@@ -44,6 +77,46 @@ public interface CourseRepository extends JpaRepository<Course, Long>, JpaSpecif
 
     Integer countCoursesByIsApproved(@NotNull Boolean isApproved);
 
-    @Query(value = "select count(distinct course_id) from rel_course__enrolled_users_list", nativeQuery = true)
-    Integer findEnrolledCourses();
+    @Query("select coalesce(sum(course.minStudents), 0) from Course course")
+    Long sumMinStudents();
+
+    /**
+     * CUSTOM
+     * Keyset pagination over (courseCreatedOn desc, id desc). Pass a {@link Pageable} of the first
+     * page with the wanted size: the "after" queries seek past the cursor instead of using an offset.
+     */
+    @Query("select course from Course course order by course.courseCreatedOn desc, course.id desc")
+    List<Course> findFirstPage(Pageable pageable);
+
+    @Query(
+        "select course from Course course where course.courseCreatedOn < :createdOn " +
+        "or (course.courseCreatedOn = :createdOn and course.id < :id) " +
+        "order by course.courseCreatedOn desc, course.id desc"
+    )
+    List<Course> findPageAfter(@Param("createdOn") LocalDate createdOn, @Param("id") Long id, Pageable pageable);
+
+    @Query("select course from Course course where course.isApproved = true order by course.courseCreatedOn desc, course.id desc")
+    List<Course> findApprovedFirstPage(Pageable pageable);
+
+    @Query(
+        "select course from Course course where course.isApproved = true and (course.courseCreatedOn < :createdOn " +
+        "or (course.courseCreatedOn = :createdOn and course.id < :id)) " +
+        "order by course.courseCreatedOn desc, course.id desc"
+    )
+    List<Course> findApprovedPageAfter(@Param("createdOn") LocalDate createdOn, @Param("id") Long id, Pageable pageable);
+
+    @Query("select course from Course course where course.user = :author order by course.courseCreatedOn desc, course.id desc")
+    List<Course> findByAuthorFirstPage(@Param("author") User author, Pageable pageable);
+
+    @Query(
+        "select course from Course course where course.user = :author and (course.courseCreatedOn < :createdOn " +
+        "or (course.courseCreatedOn = :createdOn and course.id < :id)) " +
+        "order by course.courseCreatedOn desc, course.id desc"
+    )
+    List<Course> findByAuthorPageAfter(
+        @Param("author") User author,
+        @Param("createdOn") LocalDate createdOn,
+        @Param("id") Long id,
+        Pageable pageable
+    );
 }
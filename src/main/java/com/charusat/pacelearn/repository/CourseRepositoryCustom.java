@@ -0,0 +1,22 @@
+package com.charusat.pacelearn.repository;
+
+/**
+ * Custom queries of the Course repository that cannot be expressed with {@code @Query}.
+ */
+public interface CourseRepositoryCustom {
+    /**
+     * Add the contribution of sessions to the rollups of a course; negative amounts remove it.
+     */
+    int addToRollups(Long id, long duration, int sessions, int previews, int approved);
+
+    /**
+     * Recompute the rollups of the courses in a range of ids from their sessions.
+     */
+    int recomputeRollups(long fromId, long toId);
+
+    /**
+     * Move the completion ordinal counter of a course forward; it never moves back, so an ordinal is handed out once
+     * even after its session is deleted or moved away.
+     */
+    int advanceNextCompletionOrdinal(Long id, int next);
+}
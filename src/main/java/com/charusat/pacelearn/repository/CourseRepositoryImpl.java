@@ -0,0 +1,71 @@
+package com.charusat.pacelearn.repository;
+
+import com.charusat.pacelearn.domain.Course;
+import org.hibernate.query.NativeQuery;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+/**
+ * Implementation of {@link CourseRepositoryCustom}.
+ */
+public class CourseRepositoryImpl implements CourseRepositoryCustom {
+
+    private static final String ADD_TO_ROLLUPS =
+        "update course set total_duration = coalesce(total_duration, 0) + :duration, " +
+        "session_count = coalesce(session_count, 0) + :sessions, " +
+        "preview_session_count = coalesce(preview_session_count, 0) + :previews, " +
+        "approved_session_count = coalesce(approved_session_count, 0) + :approved where id = :id";
+
+    private static final String RECOMPUTE_ROLLUPS =
+        "update course course left join (" +
+        "select section.course_id, sum(session.session_duration) as total_duration, count(*) as session_count, " +
+        "count(case when session.is_preview = 1 then 1 end) as preview_session_count, " +
+        "count(case when session.is_approved = 1 then 1 end) as approved_session_count " +
+        "from course_session session join course_section section on section.id = session.course_section_id " +
+        "where section.course_id between :fromId and :toId group by section.course_id" +
+        ") totals on totals.course_id = course.id " +
+        "set course.total_duration = coalesce(totals.total_duration, 0), " +
+        "course.session_count = coalesce(totals.session_count, 0), " +
+        "course.preview_session_count = coalesce(totals.preview_session_count, 0), " +
+        "course.approved_session_count = coalesce(totals.approved_session_count, 0) " +
+        "where course.id between :fromId and :toId";
+
+    private static final String ADVANCE_NEXT_COMPLETION_ORDINAL =
+        "update course set next_completion_ordinal = greatest(coalesce(next_completion_ordinal, 0), :next) where id = :id";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int addToRollups(Long id, long duration, int sessions, int previews, int approved) {
+        return courseUpdate(ADD_TO_ROLLUPS)
+            .setParameter("id", id)
+            .setParameter("duration", duration)
+            .setParameter("sessions", sessions)
+            .setParameter("previews", previews)
+            .setParameter("approved", approved)
+            .executeUpdate();
+    }
+
+    @Override
+    @Transactional
+    public int recomputeRollups(long fromId, long toId) {
+        return courseUpdate(RECOMPUTE_ROLLUPS).setParameter("fromId", fromId).setParameter("toId", toId).executeUpdate();
+    }
+
+    @Override
+    public int advanceNextCompletionOrdinal(Long id, int next) {
+        return courseUpdate(ADVANCE_NEXT_COMPLETION_ORDINAL).setParameter("id", id).setParameter("next", next).executeUpdate();
+    }
+
+    /**
+     * A native update of the course table. Declaring the table keeps Hibernate from evicting the whole second-level
+     * cache, which it does for native updates with unknown query spaces.
+     */
+    @SuppressWarnings("rawtypes")
+    private NativeQuery courseUpdate(String sql) {
+        return entityManager.createNativeQuery(sql).unwrap(NativeQuery.class).addSynchronizedEntityClass(Course.class);
+    }
+}
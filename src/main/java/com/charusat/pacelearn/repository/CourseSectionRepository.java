@@ -20,7 +20,8 @@ import java.util.Optional;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface CourseSectionRepository extends JpaRepository<CourseSection, Long>, JpaSpecificationExecutor<CourseSection> {
+public interface CourseSectionRepository
+    extends JpaRepository<CourseSection, Long>, JpaSpecificationExecutor<CourseSection>, CourseSectionRepositoryCustom {
 
     /**
      * CUSTOM
@@ -33,7 +34,15 @@ public interface CourseSectionRepository extends JpaRepository<CourseSection, Lo
 
     Page<CourseSection> findCourseSectionByCourse_User_IdAndCourse_Id(Long userId, Long courseId, Pageable pageable);
 
-    Page<CourseSection> findCourseSectionByCourse_IdAndCourseEnrolledUsersListsContaining(Long courseId, User user, Pageable pageable);
+    @Query(
+        value = "select courseSection from CourseSection courseSection where courseSection.course.id = :courseId and exists (" +
+        "select courseEnrollment.id from CourseEnrollment courseEnrollment where courseEnrollment.course.id = :courseId and courseEnrollment.user = :user" +
+        ")",
+        countQuery = "select count(courseSection) from CourseSection courseSection where courseSection.course.id = :courseId and exists (" +
+        "select courseEnrollment.id from CourseEnrollment courseEnrollment where courseEnrollment.course.id = :courseId and courseEnrollment.user = :user" +
+        ")"
+    )
+    Page<CourseSection> findCourseSectionByCourseIdForEnrolledUser(@Param("courseId") Long courseId, @Param("user") User user, Pageable pageable);
 
     @Modifying
     @Query(value = "delete from CourseSection courseSection where courseSection.course.id = :courseId")
@@ -44,4 +53,17 @@ public interface CourseSectionRepository extends JpaRepository<CourseSection, Lo
     List<CourseSection> findCourseSectionByCourse(Optional<Course> course);
 
     List<CourseSection> findCourseSectionsByCourse(Optional<Course> course);
+
+    @Query("select max(section.id) from CourseSection section")
+    Long findMaxId();
+
+    /**
+     * The sections of a course, as (id, sectionTitle, sectionDescription, sectionOrder, totalDuration), in curriculum
+     * order.
+     */
+    @Query(
+        "select section.id, section.sectionTitle, section.sectionDescription, section.sectionOrder, section.totalDuration " +
+        "from CourseSection section where section.course.id = :courseId order by section.sectionOrder, section.id"
+    )
+    List<Object[]> findCurriculumSections(@Param("courseId") Long courseId);
 }
@@ -0,0 +1,16 @@
+package com.charusat.pacelearn.repository;
+
+/**
+ * Custom queries of the CourseSection repository that cannot be expressed with {@code @Query}.
+ */
+public interface CourseSectionRepositoryCustom {
+    /**
+     * Add the contribution of sessions to the rollups of a section; negative amounts remove it.
+     */
+    int addToRollups(Long id, long duration, int sessions, int previews, int approved);
+
+    /**
+     * Recompute the rollups of the sections in a range of ids from their sessions.
+     */
+    int recomputeRollups(long fromId, long toId);
+}
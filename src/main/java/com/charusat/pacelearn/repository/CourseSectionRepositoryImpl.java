@@ -0,0 +1,63 @@
+package com.charusat.pacelearn.repository;
+
+import com.charusat.pacelearn.domain.CourseSection;
+import org.hibernate.query.NativeQuery;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+/**
+ * Implementation of {@link CourseSectionRepositoryCustom}.
+ */
+public class CourseSectionRepositoryImpl implements CourseSectionRepositoryCustom {
+
+    private static final String ADD_TO_ROLLUPS =
+        "update course_section set total_duration = coalesce(total_duration, 0) + :duration, " +
+        "session_count = coalesce(session_count, 0) + :sessions, " +
+        "preview_session_count = coalesce(preview_session_count, 0) + :previews, " +
+        "approved_session_count = coalesce(approved_session_count, 0) + :approved where id = :id";
+
+    private static final String RECOMPUTE_ROLLUPS =
+        "update course_section section left join (" +
+        "select session.course_section_id, sum(session.session_duration) as total_duration, count(*) as session_count, " +
+        "count(case when session.is_preview = 1 then 1 end) as preview_session_count, " +
+        "count(case when session.is_approved = 1 then 1 end) as approved_session_count " +
+        "from course_session session where session.course_section_id between :fromId and :toId " +
+        "group by session.course_section_id" +
+        ") totals on totals.course_section_id = section.id " +
+        "set section.total_duration = coalesce(totals.total_duration, 0), " +
+        "section.session_count = coalesce(totals.session_count, 0), " +
+        "section.preview_session_count = coalesce(totals.preview_session_count, 0), " +
+        "section.approved_session_count = coalesce(totals.approved_session_count, 0) " +
+        "where section.id between :fromId and :toId";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int addToRollups(Long id, long duration, int sessions, int previews, int approved) {
+        return sectionUpdate(ADD_TO_ROLLUPS)
+            .setParameter("id", id)
+            .setParameter("duration", duration)
+            .setParameter("sessions", sessions)
+            .setParameter("previews", previews)
+            .setParameter("approved", approved)
+            .executeUpdate();
+    }
+
+    @Override
+    @Transactional
+    public int recomputeRollups(long fromId, long toId) {
+        return sectionUpdate(RECOMPUTE_ROLLUPS).setParameter("fromId", fromId).setParameter("toId", toId).executeUpdate();
+    }
+
+    /**
+     * A native update of the course_section table. Declaring the table keeps Hibernate from evicting the whole
+     * second-level cache, which it does for native updates with unknown query spaces.
+     */
+    @SuppressWarnings("rawtypes")
+    private NativeQuery sectionUpdate(String sql) {
+        return entityManager.createNativeQuery(sql).unwrap(NativeQuery.class).addSynchronizedEntityClass(CourseSection.class);
+    }
+}
@@ -4,8 +4,10 @@ import com.charusat.pacelearn.domain.CourseSessionProgress;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -14,9 +16,74 @@ import java.util.List;
 @SuppressWarnings("unused")
 @Repository
 public interface CourseSessionProgressRepository
-    extends JpaRepository<CourseSessionProgress, Long>, JpaSpecificationExecutor<CourseSessionProgress> {
+    extends
+        JpaRepository<CourseSessionProgress, Long>,
+        JpaSpecificationExecutor<CourseSessionProgress>,
+        CourseSessionProgressRepositoryCustom {
     @Query(
         "select courseSessionProgress from CourseSessionProgress courseSessionProgress where courseSessionProgress.user.login = ?#{principal.username}"
     )
     List<CourseSessionProgress> findByUserIsCurrentUser();
+
+    /**
+     * Resolve the sessions a client reported progress of, with the progress of a user in each.
+     *
+     * @return one row per existing session: its id, the watch seconds and last report time of the progress of the
+     * user, both null when the user has no progress in the session, the duration of the session and the id of its
+     * course.
+     */
+    @Query(
+        "select courseSession.id, progress.watchSeconds, progress.lastReportedAt, courseSession.sessionDuration, section.course.id " +
+        "from CourseSession courseSession join courseSession.courseSection section " +
+        "left join CourseSessionProgress progress on progress.courseSession = courseSession and progress.user.id = :userId " +
+        "where courseSession.id in :courseSessionIds"
+    )
+    List<Object[]> findSyncTargets(@Param("userId") Long userId, @Param("courseSessionIds") Collection<Long> courseSessionIds);
+
+    /**
+     * Resolve a session a user reports watch time in.
+     *
+     * @return one row if the session belongs to a course: its duration, the id of its course, and the last report
+     * time of the progress of the user in it, null when the user has no progress in the session.
+     */
+    @Query(
+        "select courseSession.sessionDuration, section.course.id, progress.lastReportedAt from CourseSession courseSession " +
+        "join courseSession.courseSection section " +
+        "left join CourseSessionProgress progress on progress.courseSession = courseSession and progress.user.id = :userId " +
+        "where courseSession.id = :courseSessionId"
+    )
+    List<Object[]> findWatchTarget(@Param("userId") Long userId, @Param("courseSessionId") Long courseSessionId);
+
+    /**
+     * The completed sessions among the progress of some users in some sessions, every combination included.
+     * A session is completed once the watch time reaches the given share of its duration.
+     *
+     * @return one row per completed progress: the user id, the session id and the course id.
+     */
+    @Query(
+        "select progress.user.id, courseSession.id, section.course.id from CourseSessionProgress progress " +
+        "join progress.courseSession courseSession join courseSession.courseSection section " +
+        "where progress.user.id in :userIds and courseSession.id in :courseSessionIds " +
+        "and progress.watchSeconds >= courseSession.sessionDuration * :threshold"
+    )
+    List<Object[]> findCompleted(
+        @Param("userIds") Collection<Long> userIds,
+        @Param("courseSessionIds") Collection<Long> courseSessionIds,
+        @Param("threshold") double threshold
+    );
+
+    /**
+     * The ids of the sessions of a course a user completed, as {@link #findCompleted}.
+     */
+    @Query(
+        "select courseSession.id from CourseSessionProgress progress " +
+        "join progress.courseSession courseSession join courseSession.courseSection section " +
+        "where progress.user.id = :userId and section.course.id = :courseId " +
+        "and progress.watchSeconds >= courseSession.sessionDuration * :threshold"
+    )
+    List<Long> findCompletedSessionIds(
+        @Param("userId") Long userId,
+        @Param("courseId") Long courseId,
+        @Param("threshold") double threshold
+    );
 }
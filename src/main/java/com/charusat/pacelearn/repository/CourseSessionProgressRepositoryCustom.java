@@ -0,0 +1,117 @@
+package com.charusat.pacelearn.repository;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Custom queries of the CourseSessionProgress repository that cannot be expressed with {@code @Query}.
+ */
+public interface CourseSessionProgressRepositoryCustom {
+    /**
+     * Merges watch time into the progress rows, creating the missing ones, as one JDBC batch of upserts.
+     * <p>
+     * The watch time of a row becomes the greater of its current value plus {@code addedSeconds} and
+     * {@code minSeconds}, and its report time the later of both. Updates of sessions that no longer exist are skipped.
+     *
+     * @return the update count of every update, as reported by the driver.
+     */
+    @Transactional
+    int[] mergeWatchTime(List<WatchTime> updates);
+
+    /**
+     * Merges progress reported by a client into the progress rows of a user, creating the missing ones, as one JDBC
+     * batch of upserts.
+     * <p>
+     * With {@code lastWriterWins}, a report replaces the watch time of a row last reported before it; otherwise, or
+     * when the row has no report time, the watch time of a row becomes the greater of both. Reports of sessions that
+     * no longer exist are skipped.
+     *
+     * @return the update count of every report, as reported by the driver.
+     */
+    @Transactional
+    int[] syncWatchTime(Long userId, List<ReportedWatchTime> reports, boolean lastWriterWins);
+
+    /**
+     * Watch time to merge into the progress of a user on a session.
+     */
+    final class WatchTime {
+
+        private final Long userId;
+
+        private final Long courseSessionId;
+
+        private final long addedSeconds;
+
+        private final long minSeconds;
+
+        private final Instant reportedAt;
+
+        public WatchTime(Long userId, Long courseSessionId, long addedSeconds, long minSeconds, Instant reportedAt) {
+            this.userId = userId;
+            this.courseSessionId = courseSessionId;
+            this.addedSeconds = addedSeconds;
+            this.minSeconds = minSeconds;
+            this.reportedAt = reportedAt;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public Long getCourseSessionId() {
+            return courseSessionId;
+        }
+
+        public long getAddedSeconds() {
+            return addedSeconds;
+        }
+
+        public long getMinSeconds() {
+            return minSeconds;
+        }
+
+        public Instant getReportedAt() {
+            return reportedAt;
+        }
+
+        @Override
+        public String toString() {
+            return (
+                "WatchTime{userId=" + userId + ", courseSessionId=" + courseSessionId + ", addedSeconds=" + addedSeconds +
+                ", minSeconds=" + minSeconds + ", reportedAt=" + reportedAt + "}"
+            );
+        }
+    }
+
+    /**
+     * A watch time reported by a client at a given time.
+     */
+    final class ReportedWatchTime {
+
+        private final Long courseSessionId;
+
+        private final long watchSeconds;
+
+        private final Instant reportedAt;
+
+        public ReportedWatchTime(Long courseSessionId, long watchSeconds, Instant reportedAt) {
+            this.courseSessionId = courseSessionId;
+            this.watchSeconds = watchSeconds;
+            this.reportedAt = reportedAt;
+        }
+
+        public Long getCourseSessionId() {
+            return courseSessionId;
+        }
+
+        public long getWatchSeconds() {
+            return watchSeconds;
+        }
+
+        public Instant getReportedAt() {
+            return reportedAt;
+        }
+    }
+}
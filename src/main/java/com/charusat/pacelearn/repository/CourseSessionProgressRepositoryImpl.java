@@ -0,0 +1,105 @@
+package com.charusat.pacelearn.repository;
+
+import org.hibernate.Session;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Implementation of {@link CourseSessionProgressRepositoryCustom}.
+ */
+public class CourseSessionProgressRepositoryImpl implements CourseSessionProgressRepositoryCustom {
+
+    // Selecting the session rather than inserting its id skips the sessions deleted meanwhile instead of
+    // failing the whole batch on the foreign key.
+    private static final String MERGE_WATCH_TIME =
+        "insert into course_session_progress (watch_seconds, last_reported_at, user_id, course_session_id) " +
+        "select ?, ?, ?, course_session.id from course_session where course_session.id = ? " +
+        "on duplicate key update watch_seconds = greatest(watch_seconds + ?, ?), " +
+        "last_reported_at = greatest(coalesce(last_reported_at, ?), ?)";
+
+    private static final String SYNC_WATCH_TIME =
+        "insert into course_session_progress (watch_seconds, last_reported_at, user_id, course_session_id) " +
+        "select ?, ?, ?, course_session.id from course_session where course_session.id = ? on duplicate key update ";
+
+    // MySQL applies the assignments in order, so the watch time is decided on the previous report time
+    private static final String MAX_WINS = SYNC_WATCH_TIME +
+        "watch_seconds = greatest(watch_seconds, ?), " +
+        "last_reported_at = greatest(coalesce(last_reported_at, ?), ?)";
+
+    // a row never stamped predates the report times: nothing says which is later, so the furthest is kept
+    private static final String LAST_WRITER_WINS = SYNC_WATCH_TIME +
+        "watch_seconds = if(last_reported_at is null, greatest(watch_seconds, ?), if(last_reported_at < ?, ?, watch_seconds)), " +
+        "last_reported_at = greatest(coalesce(last_reported_at, ?), ?)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int[] mergeWatchTime(List<WatchTime> updates) {
+        if (updates.isEmpty()) {
+            return new int[0];
+        }
+        Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        return entityManager
+            .unwrap(Session.class)
+            .doReturningWork(
+                connection -> {
+                    try (PreparedStatement statement = connection.prepareStatement(MERGE_WATCH_TIME)) {
+                        for (WatchTime update : updates) {
+                            Timestamp reportedAt = Timestamp.from(update.getReportedAt());
+                            statement.setLong(1, Math.max(update.getAddedSeconds(), update.getMinSeconds()));
+                            statement.setTimestamp(2, reportedAt, utc);
+                            statement.setLong(3, update.getUserId());
+                            statement.setLong(4, update.getCourseSessionId());
+                            statement.setLong(5, update.getAddedSeconds());
+                            statement.setLong(6, update.getMinSeconds());
+                            statement.setTimestamp(7, reportedAt, utc);
+                            statement.setTimestamp(8, reportedAt, utc);
+                            statement.addBatch();
+                        }
+                        return statement.executeBatch();
+                    }
+                }
+            );
+    }
+
+    @Override
+    public int[] syncWatchTime(Long userId, List<ReportedWatchTime> reports, boolean lastWriterWins) {
+        if (reports.isEmpty()) {
+            return new int[0];
+        }
+        // timestamps are stored in UTC, the hibernate.jdbc.time_zone of JHipster applications
+        Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        return entityManager
+            .unwrap(Session.class)
+            .doReturningWork(
+                connection -> {
+                    try (PreparedStatement statement = connection.prepareStatement(lastWriterWins ? LAST_WRITER_WINS : MAX_WINS)) {
+                        for (ReportedWatchTime report : reports) {
+                            Timestamp reportedAt = Timestamp.from(report.getReportedAt());
+                            statement.setLong(1, report.getWatchSeconds());
+                            statement.setTimestamp(2, reportedAt, utc);
+                            statement.setLong(3, userId);
+                            statement.setLong(4, report.getCourseSessionId());
+                            int index = 5;
+                            if (lastWriterWins) {
+                                statement.setLong(index++, report.getWatchSeconds());
+                                statement.setTimestamp(index++, reportedAt, utc);
+                            }
+                            statement.setLong(index++, report.getWatchSeconds());
+                            statement.setTimestamp(index++, reportedAt, utc);
+                            statement.setTimestamp(index, reportedAt, utc);
+                            statement.addBatch();
+                        }
+                        return statement.executeBatch();
+                    }
+                }
+            );
+    }
+}
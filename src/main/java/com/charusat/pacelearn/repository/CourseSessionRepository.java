@@ -7,6 +7,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Collection;
@@ -18,7 +19,8 @@ import java.util.Optional;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface CourseSessionRepository extends JpaRepository<CourseSession, Long>, JpaSpecificationExecutor<CourseSession> {
+public interface CourseSessionRepository
+    extends JpaRepository<CourseSession, Long>, JpaSpecificationExecutor<CourseSession>, CourseSessionRepositoryCustom {
 
     /**
      * CUSTOM
@@ -34,4 +36,36 @@ public interface CourseSessionRepository extends JpaRepository<CourseSession, Lo
     @Query(value = "select count(*) from course_session", nativeQuery = true)
     Integer countAll();
 
+    long countByCourseSection_Course_Id(Long courseId);
+
+    /**
+     * The session titles of the given courses, as (courseId, sessionTitle), in curriculum order.
+     */
+    @Query(
+        "select section.course.id, session.sessionTitle from CourseSession session join session.courseSection section " +
+        "where section.course.id in :courseIds order by section.sectionOrder, session.sessionOrder"
+    )
+    List<Object[]> findSessionTitlesByCourseIdIn(@Param("courseIds") Collection<Long> courseIds);
+
+    /**
+     * The sessions of a course, as (id, completionOrdinal, sessionDuration), in curriculum order.
+     */
+    @Query(
+        "select session.id, session.completionOrdinal, session.sessionDuration from CourseSession session " +
+        "join session.courseSection section where section.course.id = :courseId " +
+        "order by section.sectionOrder, session.sessionOrder, session.id"
+    )
+    List<Object[]> findCompletionLayoutByCourseId(@Param("courseId") Long courseId);
+
+    /**
+     * The sessions of a course, as (sectionId, id, sessionTitle, sessionDuration, sessionOrder, isPreview), in
+     * curriculum order.
+     */
+    @Query(
+        "select section.id, session.id, session.sessionTitle, session.sessionDuration, session.sessionOrder, session.isPreview " +
+        "from CourseSession session join session.courseSection section where section.course.id = :courseId " +
+        "order by section.sectionOrder, session.sessionOrder, session.id"
+    )
+    List<Object[]> findCurriculumSessions(@Param("courseId") Long courseId);
+
 }
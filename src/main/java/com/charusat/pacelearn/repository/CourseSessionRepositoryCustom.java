@@ -0,0 +1,11 @@
+package com.charusat.pacelearn.repository;
+
+/**
+ * Custom queries of the CourseSession repository that cannot be expressed with {@code @Query}.
+ */
+public interface CourseSessionRepositoryCustom {
+    /**
+     * Set the completion ordinal of a session; {@code null} frees the session of its bit.
+     */
+    int updateCompletionOrdinal(Long id, Integer ordinal);
+}
@@ -0,0 +1,32 @@
+package com.charusat.pacelearn.repository;
+
+import com.charusat.pacelearn.domain.CourseSession;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.IntegerType;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+/**
+ * Implementation of {@link CourseSessionRepositoryCustom}.
+ */
+public class CourseSessionRepositoryImpl implements CourseSessionRepositoryCustom {
+
+    private static final String UPDATE_COMPLETION_ORDINAL = "update course_session set completion_ordinal = :ordinal where id = :id";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int updateCompletionOrdinal(Long id, Integer ordinal) {
+        // Declaring the touched table keeps Hibernate from evicting the whole second-level cache,
+        // which it does for native updates with unknown query spaces.
+        return entityManager
+            .createNativeQuery(UPDATE_COMPLETION_ORDINAL)
+            .unwrap(NativeQuery.class)
+            .addSynchronizedEntityClass(CourseSession.class)
+            .setParameter("id", id)
+            .setParameter("ordinal", ordinal, IntegerType.INSTANCE)
+            .executeUpdate();
+    }
+}
@@ -0,0 +1,52 @@
+package com.charusat.pacelearn.repository;
+
+import com.charusat.pacelearn.domain.MediaBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Spring Data SQL repository for the MediaBlob entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface MediaBlobRepository extends JpaRepository<MediaBlob, String> {
+    @Modifying
+    @Query("update MediaBlob blob set blob.referenceCount = blob.referenceCount + 1, blob.releasedDate = null where blob.name = :name")
+    int retain(@Param("name") String name);
+
+    @Modifying
+    @Query(
+        "update MediaBlob blob set blob.referenceCount = blob.referenceCount - 1 " +
+        "where blob.name = :name and blob.referenceCount > 0"
+    )
+    int release(@Param("name") String name);
+
+    /**
+     * Restart the grace period of an unreferenced blob.
+     */
+    @Transactional
+    @Modifying
+    @Query("update MediaBlob blob set blob.releasedDate = :now where blob.name = :name and blob.referenceCount = 0")
+    int markReleased(@Param("name") String name, @Param("now") Instant now);
+
+    @Query("select blob.name from MediaBlob blob where blob.referenceCount = 0 and blob.releasedDate < :before")
+    List<String> findNamesReleasedBefore(@Param("before") Instant before);
+
+    /**
+     * Delete a blob only if it is still unreferenced since before a given instant, so a blob referenced again in
+     * the meantime survives.
+     *
+     * @return the number of blobs deleted, {@code 0} or {@code 1}.
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from MediaBlob blob where blob.name = :name and blob.referenceCount = 0 and blob.releasedDate < :before")
+    int deleteIfReleasedBefore(@Param("name") String name, @Param("before") Instant before);
+}
@@ -0,0 +1,53 @@
+package com.charusat.pacelearn.repository;
+
+import com.charusat.pacelearn.domain.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Spring Data SQL repository for the RefreshToken entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+    Optional<RefreshToken> findOneByTokenHash(String tokenHash);
+
+    Optional<RefreshToken> findOneByPreviousTokenHash(String previousTokenHash);
+
+    /**
+     * Replace the token of an active session, only if it still holds the presented token, so two concurrent refreshes
+     * with the same token cannot both succeed. The presented token is kept as the previous one.
+     *
+     * @return the number of sessions updated, {@code 0} or {@code 1}.
+     */
+    @Modifying
+    @Query(
+        "update RefreshToken token set token.previousTokenHash = :oldHash, token.tokenHash = :newHash " +
+        "where token.id = :id and token.tokenHash = :oldHash and token.revokedDate is null and token.expiryDate > :now"
+    )
+    int rotate(@Param("id") Long id, @Param("oldHash") String oldHash, @Param("newHash") String newHash, @Param("now") Instant now);
+
+    @Query("select token.id from RefreshToken token where token.login = :login and token.revokedDate is null")
+    List<Long> findActiveIdsByLogin(@Param("login") String login);
+
+    @Modifying
+    @Query("update RefreshToken token set token.revokedDate = :now where token.id in :ids and token.revokedDate is null")
+    int revokeAllByIdIn(@Param("ids") List<Long> ids, @Param("now") Instant now);
+
+    /**
+     * Sessions revoked since a given instant, as (id, revoked date).
+     */
+    @Query("select token.id, token.revokedDate from RefreshToken token where token.revokedDate > :since")
+    List<Object[]> findRevokedSince(@Param("since") Instant since);
+
+    @Modifying
+    @Query("delete from RefreshToken token where token.expiryDate < :before")
+    int deleteAllExpiredBefore(@Param("before") Instant before);
+}
@@ -0,0 +1,102 @@
+package com.charusat.pacelearn.security;
+
+import com.charusat.pacelearn.config.ApplicationProperties;
+import com.charusat.pacelearn.management.SecurityMetersService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the failed logins per login and per client address, to refuse credential stuffing before any password is hashed.
+ * <p>
+ * A login or an address is blocked once it reaches its maximum of failures, until
+ * {@code application.login-throttling.window-seconds} pass without a new failure. Only the most recent
+ * {@code application.login-throttling.maximum-tracked} logins and addresses are tracked.
+ */
+@Component
+public class LoginAttemptService {
+
+    private final SecurityMetersService securityMetersService;
+
+    private final int maxFailuresPerLogin;
+
+    private final int maxFailuresPerAddress;
+
+    private final Cache<String, AtomicInteger> failuresByLogin;
+
+    private final Cache<String, AtomicInteger> failuresByAddress;
+
+    public LoginAttemptService(ApplicationProperties applicationProperties, SecurityMetersService securityMetersService) {
+        this.securityMetersService = securityMetersService;
+        ApplicationProperties.LoginThrottling loginThrottling = applicationProperties.getLoginThrottling();
+        this.maxFailuresPerLogin = loginThrottling.getMaxFailuresPerLogin();
+        this.maxFailuresPerAddress = loginThrottling.getMaxFailuresPerAddress();
+        this.failuresByLogin = failureCounters(loginThrottling);
+        this.failuresByAddress = failureCounters(loginThrottling);
+    }
+
+    private static Cache<String, AtomicInteger> failureCounters(ApplicationProperties.LoginThrottling loginThrottling) {
+        return Caffeine
+            .newBuilder()
+            .maximumSize(loginThrottling.getMaximumTracked())
+            .expireAfterWrite(Duration.ofSeconds(loginThrottling.getWindowSeconds()))
+            .build();
+    }
+
+    /**
+     * Tell whether a login attempt must be refused without checking its password.
+     */
+    public boolean isBlocked(String login, String address) {
+        boolean blocked = failures(failuresByLogin, normalize(login)) >= maxFailuresPerLogin ||
+            failures(failuresByAddress, address) >= maxFailuresPerAddress;
+        if (blocked) {
+            securityMetersService.trackLoginThrottled();
+        }
+        return blocked;
+    }
+
+    public void loginFailed(String login, String address) {
+        increment(failuresByLogin, normalize(login));
+        increment(failuresByAddress, address);
+    }
+
+    /**
+     * Clears the failures of a login; those of its address are kept, as other logins may be tried from it.
+     */
+    public void loginSucceeded(String login) {
+        failuresByLogin.invalidate(normalize(login));
+    }
+
+    private static int failures(Cache<String, AtomicInteger> counters, String key) {
+        if (key == null) {
+            return 0;
+        }
+        AtomicInteger failures = counters.getIfPresent(key);
+        return failures == null ? 0 : failures.get();
+    }
+
+    private static void increment(Cache<String, AtomicInteger> counters, String key) {
+        if (key == null) {
+            return;
+        }
+        // a compute is a write, so the window restarts with every failure
+        counters
+            .asMap()
+            .compute(
+                key,
+                (k, failures) -> {
+                    AtomicInteger counter = failures == null ? new AtomicInteger() : failures;
+                    counter.incrementAndGet();
+                    return counter;
+                }
+            );
+    }
+
+    private static String normalize(String login) {
+        return login == null ? null : login.toLowerCase(Locale.ENGLISH);
+    }
+}
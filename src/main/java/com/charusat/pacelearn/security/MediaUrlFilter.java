@@ -0,0 +1,54 @@
+package com.charusat.pacelearn.security;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UriUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+/**
+ * Admits the requests under {@link MediaUrlSigner#PATH_PREFIX} only with a valid signature, and hands the verified
+ * {@link MediaUrlSigner.Grant} to the handler as the {@link #GRANT_ATTRIBUTE} request attribute.
+ * <p>
+ * The media paths bypass the Spring Security chain, so this HMAC check is the only work done to authorize each
+ * request, including every range request of a player.
+ */
+public class MediaUrlFilter extends OncePerRequestFilter {
+
+    public static final String GRANT_ATTRIBUTE = MediaUrlFilter.class.getName() + ".grant";
+
+    private final MediaUrlSigner mediaUrlSigner;
+
+    public MediaUrlFilter(MediaUrlSigner mediaUrlSigner) {
+        this.mediaUrlSigner = mediaUrlSigner;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        Optional<MediaUrlSigner.Grant> grant = Optional.empty();
+        if (path.startsWith(MediaUrlSigner.PATH_PREFIX)) {
+            grant =
+                mediaUrlSigner.verify(
+                    UriUtils.decode(path.substring(MediaUrlSigner.PATH_PREFIX.length()), StandardCharsets.UTF_8),
+                    request.getParameter("course"),
+                    request.getParameter("session"),
+                    request.getParameter("user"),
+                    request.getParameter("expires"),
+                    request.getParameter("signature")
+                );
+        }
+        if (grant.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+        request.setAttribute(GRANT_ATTRIBUTE, grant.get());
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,218 @@
+package com.charusat.pacelearn.security;
+
+import com.charusat.pacelearn.config.ApplicationProperties;
+import io.jsonwebtoken.io.Decoders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ObjectUtils;
+import tech.jhipster.config.JHipsterProperties;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Signs and verifies the time-bounded URLs of the session media.
+ * <p>
+ * A URL names the media key and carries the course, the session, the user it was issued to and its expiry, all
+ * covered by an HMAC-SHA256 signature; verifying it needs neither the database nor the user's JWT.
+ * <p>
+ * The thumbnail URLs of the public images, the logos and profile images, carry a signature of their media key alone,
+ * so the thumbnails only ever render images the server listed.
+ */
+@Component
+public class MediaUrlSigner {
+
+    public static final String PATH_PREFIX = "/media/";
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    /**
+     * Starts the payload of an image signature; no session media payload does, as media keys hold no NUL.
+     */
+    private static final String IMAGE_PREFIX = "\u0000image\n";
+
+    private final SecretKeySpec key;
+
+    private final long validitySeconds;
+
+    private final ThreadLocal<Mac> macs;
+
+    public MediaUrlSigner(ApplicationProperties applicationProperties, JHipsterProperties jHipsterProperties) {
+        ApplicationProperties.Media media = applicationProperties.getMedia();
+        this.validitySeconds = media.getUrlValiditySeconds();
+        if (!ObjectUtils.isEmpty(media.getSigningSecret())) {
+            this.key = new SecretKeySpec(Decoders.BASE64.decode(media.getSigningSecret()), ALGORITHM);
+        } else {
+            this.key = new SecretKeySpec(deriveKey(jHipsterProperties.getSecurity().getAuthentication().getJwt()), ALGORITHM);
+        }
+        this.macs = ThreadLocal.withInitial(this::newMac);
+    }
+
+    /**
+     * Sign the URL of a media file.
+     *
+     * @param mediaKey the key of the file in the media storage.
+     * @return the path and query of the URL, relative to the server root.
+     */
+    public String sign(String mediaKey, long courseId, long sessionId, long userId) {
+        long expires = Instant.now().getEpochSecond() + validitySeconds;
+        String signature = signature(mediaKey, courseId, sessionId, userId, expires);
+        return (
+            PATH_PREFIX +
+            encodePath(mediaKey) +
+            "?course=" +
+            courseId +
+            "&session=" +
+            sessionId +
+            "&user=" +
+            userId +
+            "&expires=" +
+            expires +
+            "&signature=" +
+            signature
+        );
+    }
+
+    /**
+     * Verify a signed media URL.
+     *
+     * @return the grant carried by the URL, or empty if a parameter is missing, the signature does not match or the URL expired.
+     */
+    public Optional<Grant> verify(String mediaKey, String course, String session, String user, String expires, String signature) {
+        if (mediaKey == null || course == null || session == null || user == null || expires == null || signature == null) {
+            return Optional.empty();
+        }
+        Grant grant;
+        try {
+            grant = new Grant(mediaKey, Long.parseLong(course), Long.parseLong(session), Long.parseLong(user), Long.parseLong(expires));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+        if (grant.getExpires() < Instant.now().getEpochSecond()) {
+            return Optional.empty();
+        }
+        String expected = signature(mediaKey, grant.getCourseId(), grant.getSessionId(), grant.getUserId(), grant.getExpires());
+        if (!MessageDigest.isEqual(expected.getBytes(StandardCharsets.US_ASCII), signature.getBytes(StandardCharsets.US_ASCII))) {
+            return Optional.empty();
+        }
+        return Optional.of(grant);
+    }
+
+    /**
+     * Sign the media key of a public image, for the URLs of its thumbnails; the signature does not expire, like the
+     * URLs it goes into.
+     */
+    public String signImage(String mediaKey) {
+        return signature(IMAGE_PREFIX + mediaKey);
+    }
+
+    /**
+     * @return whether a signature is the one of {@link #signImage(String)} for a media key.
+     */
+    public boolean verifyImage(String mediaKey, String signature) {
+        if (mediaKey == null || signature == null) {
+            return false;
+        }
+        String expected = signImage(mediaKey);
+        return MessageDigest.isEqual(expected.getBytes(StandardCharsets.US_ASCII), signature.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private String signature(String mediaKey, long courseId, long sessionId, long userId, long expires) {
+        return signature(mediaKey + '\n' + courseId + '\n' + sessionId + '\n' + userId + '\n' + expires);
+    }
+
+    private String signature(String payload) {
+        byte[] mac = macs.get().doFinal(payload.getBytes(StandardCharsets.UTF_8));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(mac);
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+
+    /**
+     * A key dedicated to the media URLs, so a leaked media signature says nothing about the JWT key.
+     */
+    private static byte[] deriveKey(JHipsterProperties.Security.Authentication.Jwt jwt) {
+        byte[] secret = !ObjectUtils.isEmpty(jwt.getBase64Secret())
+            ? Decoders.BASE64.decode(jwt.getBase64Secret())
+            : jwt.getSecret().getBytes(StandardCharsets.UTF_8);
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(new SecretKeySpec(secret, ALGORITHM));
+            return mac.doFinal("pacelearn-media-url".getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+
+    private static String encodePath(String mediaKey) {
+        StringBuilder path = new StringBuilder();
+        for (String segment : mediaKey.split("/")) {
+            if (path.length() > 0) {
+                path.append('/');
+            }
+            path.append(URLEncoder.encode(segment, StandardCharsets.UTF_8).replace("+", "%20"));
+        }
+        return path.toString();
+    }
+
+    /**
+     * What a verified media URL grants: one media file, for one user, until {@code expires}.
+     */
+    public static final class Grant {
+
+        private final String mediaKey;
+
+        private final long courseId;
+
+        private final long sessionId;
+
+        private final long userId;
+
+        private final long expires;
+
+        Grant(String mediaKey, long courseId, long sessionId, long userId, long expires) {
+            this.mediaKey = mediaKey;
+            this.courseId = courseId;
+            this.sessionId = sessionId;
+            this.userId = userId;
+            this.expires = expires;
+        }
+
+        public String getMediaKey() {
+            return mediaKey;
+        }
+
+        public long getCourseId() {
+            return courseId;
+        }
+
+        public long getSessionId() {
+            return sessionId;
+        }
+
+        public long getUserId() {
+            return userId;
+        }
+
+        /**
+         * @return the expiry, in seconds since the epoch.
+         */
+        public long getExpires() {
+            return expires;
+        }
+    }
+}
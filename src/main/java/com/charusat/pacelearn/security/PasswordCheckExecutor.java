@@ -0,0 +1,65 @@
+package com.charusat.pacelearn.security;
+
+import com.charusat.pacelearn.config.ApplicationProperties;
+import com.charusat.pacelearn.management.SecurityMetersService;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Bounded pool running the password checks of the logins, so bcrypt never occupies the request threads.
+ * <p>
+ * The pool has {@code application.password-hashing.threads} threads and queues at most
+ * {@code application.password-hashing.queue-capacity} checks; beyond that a login is refused at once.
+ */
+@Component
+public class PasswordCheckExecutor {
+
+    private final SecurityMetersService securityMetersService;
+
+    private final ThreadPoolExecutor executor;
+
+    public PasswordCheckExecutor(ApplicationProperties applicationProperties, SecurityMetersService securityMetersService) {
+        this.securityMetersService = securityMetersService;
+        ApplicationProperties.PasswordHashing passwordHashing = applicationProperties.getPasswordHashing();
+        this.executor =
+            new ThreadPoolExecutor(
+                passwordHashing.getThreads(),
+                passwordHashing.getThreads(),
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(passwordHashing.getQueueCapacity()),
+                new CustomizableThreadFactory("password-check-"),
+                new ThreadPoolExecutor.AbortPolicy()
+            );
+        securityMetersService.monitorPasswordCheckExecutor(executor);
+    }
+
+    /**
+     * Queue a password check.
+     *
+     * @param check the check, typically an {@code AuthenticationManager#authenticate} call.
+     * @return the result of the check, completed on a pool thread.
+     * @throws RejectedExecutionException if the queue is full.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> check) {
+        try {
+            return CompletableFuture.supplyAsync(() -> securityMetersService.timePasswordCheck(check), executor);
+        } catch (RejectedExecutionException e) {
+            securityMetersService.trackLoginOverloaded();
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
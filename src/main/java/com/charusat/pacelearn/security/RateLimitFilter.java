@@ -0,0 +1,113 @@
+package com.charusat.pacelearn.security;
+
+import com.charusat.pacelearn.config.ApplicationProperties;
+import com.charusat.pacelearn.management.SecurityMetersService;
+import com.charusat.pacelearn.web.rest.errors.ErrorConstants;
+import io.micrometer.core.instrument.Counter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Limits the public and expensive routes of {@code application.rate-limit.routes} with a {@link TokenBucketLimiter}
+ * per route, answering {@code 429 (Too Many Requests)} with a {@code Retry-After} header once a client runs out of
+ * tokens.
+ * <p>
+ * Installed in the security filter chain after the JWT filter, so routes keyed by user see the authenticated login.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String PROBLEM_CONTENT_TYPE = "application/problem+json";
+
+    private final List<LimitedRoute> routes;
+
+    public RateLimitFilter(ApplicationProperties.RateLimit rateLimit, SecurityMetersService securityMetersService) {
+        this.routes =
+            rateLimit
+                .getRoutes()
+                .stream()
+                .map(route -> new LimitedRoute(route, rateLimit.getStripes(), securityMetersService))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        for (LimitedRoute route : routes) {
+            if (route.matcher.matches(request)) {
+                long wait = route.limiter.tryAcquire(route.key(request));
+                if (wait > 0) {
+                    route.rejected.increment();
+                    reject(request, response, wait);
+                    return;
+                }
+                route.allowed.increment();
+                break;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private static void reject(HttpServletRequest request, HttpServletResponse response, long waitNanos) throws IOException {
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(PROBLEM_CONTENT_TYPE);
+        response
+            .getWriter()
+            .write(
+                "{\"type\":\"" +
+                ErrorConstants.RATE_LIMITED_TYPE +
+                "\",\"title\":\"Too Many Requests\",\"status\":" +
+                HttpStatus.TOO_MANY_REQUESTS.value() +
+                ",\"path\":\"" +
+                request.getRequestURI().replace("\\", "\\\\").replace("\"", "\\\"") +
+                "\"}"
+            );
+    }
+
+    private static final class LimitedRoute {
+
+        private final String keyBy;
+
+        private final AntPathRequestMatcher matcher;
+
+        private final TokenBucketLimiter limiter;
+
+        private final Counter allowed;
+
+        private final Counter rejected;
+
+        LimitedRoute(ApplicationProperties.RateLimit.Route route, int stripes, SecurityMetersService securityMetersService) {
+            this.keyBy = route.getKeyBy();
+            this.matcher = new AntPathRequestMatcher(route.getPattern(), route.getMethod());
+            this.limiter =
+                new TokenBucketLimiter(
+                    stripes,
+                    route.getCapacity(),
+                    route.getRefillTokens(),
+                    Duration.ofSeconds(route.getRefillPeriodSeconds())
+                );
+            this.allowed = securityMetersService.rateLimitCounter(route.getName(), true);
+            this.rejected = securityMetersService.rateLimitCounter(route.getName(), false);
+        }
+
+        String key(HttpServletRequest request) {
+            if (ApplicationProperties.RateLimit.Route.KEY_BY_USER.equals(keyBy)) {
+                return SecurityUtils.getCurrentUserLogin().map(login -> "user:" + login).orElseGet(() -> request.getRemoteAddr());
+            }
+            return request.getRemoteAddr();
+        }
+    }
+}
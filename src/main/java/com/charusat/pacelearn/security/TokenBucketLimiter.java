@@ -0,0 +1,67 @@
+package com.charusat.pacelearn.security;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Token buckets of a fixed number of stripes, each bucket a single {@code long} updated by compare-and-set.
+ * <p>
+ * A bucket holds {@code capacity} tokens and gains one every {@code refillPeriod / refillTokens}. Rather than a
+ * token count and a refill time, each stripe stores the instant at which its bucket will be full again (the
+ * theoretical arrival time of the generic cell rate algorithm), which makes the whole update a single CAS.
+ * Keys are hashed onto the stripes, so keys sharing a stripe share a bucket; size the stripes well above the
+ * number of active clients.
+ */
+public final class TokenBucketLimiter {
+
+    private final long origin = System.nanoTime();
+
+    private final AtomicLongArray stripes;
+
+    private final int mask;
+
+    /**
+     * Nanoseconds to regain one token.
+     */
+    private final long interval;
+
+    /**
+     * Nanoseconds to refill an empty bucket.
+     */
+    private final long burst;
+
+    public TokenBucketLimiter(int stripes, long capacity, long refillTokens, Duration refillPeriod) {
+        if (capacity < 1 || refillTokens < 1 || refillPeriod.isNegative() || refillPeriod.isZero()) {
+            throw new IllegalArgumentException("A token bucket needs a positive capacity and refill rate");
+        }
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new AtomicLongArray(size);
+        this.mask = size - 1;
+        this.interval = Math.max(1, refillPeriod.toNanos() / refillTokens);
+        this.burst = Math.multiplyExact(capacity, interval);
+    }
+
+    /**
+     * Take a token from the bucket of a key.
+     *
+     * @param key the client the bucket belongs to.
+     * @return {@code 0} if a token was taken, otherwise the nanoseconds until one is available.
+     */
+    public long tryAcquire(String key) {
+        int hash = key.hashCode();
+        int stripe = (hash ^ (hash >>> 16)) & mask;
+        // never negative, so the zeroed initial stripes read as full buckets
+        long now = System.nanoTime() - origin;
+        while (true) {
+            long full = stripes.get(stripe);
+            long next = Math.max(full, now) + interval;
+            long wait = next - burst - now;
+            if (wait > 0) {
+                return wait;
+            }
+            if (stripes.compareAndSet(stripe, full, next)) {
+                return 0;
+            }
+        }
+    }
+}
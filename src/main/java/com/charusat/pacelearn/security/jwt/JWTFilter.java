@@ -8,7 +8,6 @@ import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.GenericFilterBean;
@@ -33,10 +32,9 @@ public class JWTFilter extends GenericFilterBean {
         HttpServletRequest httpServletRequest = (HttpServletRequest) servletRequest;
         String jwt = resolveToken(httpServletRequest);
 //        System.out.println("HAHAHA in filter");
-        if (StringUtils.hasText(jwt) && this.tokenProvider.validateToken(jwt)) {
-            Authentication authentication = this.tokenProvider.getAuthentication(jwt);
-//            System.out.println("In doFilter if part");
-            SecurityContextHolder.getContext().setAuthentication(authentication);
+        if (StringUtils.hasText(jwt)) {
+            // verified once per token, later requests with the same token are served from the cache
+            this.tokenProvider.resolveAuthentication(jwt).ifPresent(SecurityContextHolder.getContext()::setAuthentication);
         }
 //        final HttpServletResponse response = (HttpServletResponse) servletResponse;
 //        response.setHeader("Access-Control-Allow-Origin", "http://localhost:3000");
@@ -1,13 +1,20 @@
 package com.charusat.pacelearn.security.jwt;
 
+import com.charusat.pacelearn.config.ApplicationProperties;
 import com.charusat.pacelearn.management.SecurityMetersService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,6 +34,8 @@ public class TokenProvider {
 
     private static final String AUTHORITIES_KEY = "auth";
 
+    private static final String SESSION_KEY = "sid";
+
     private static final String INVALID_JWT_TOKEN = "Invalid JWT token.";
 
     private final Key key;
@@ -35,11 +44,21 @@ public class TokenProvider {
 
     private final long tokenValidityInMilliseconds;
 
-    private final long tokenValidityInMillisecondsForRememberMe;
-
     private final SecurityMetersService securityMetersService;
 
-    public TokenProvider(JHipsterProperties jHipsterProperties, SecurityMetersService securityMetersService) {
+    private final TokenRevocationList tokenRevocationList;
+
+    /**
+     * Authentications of the tokens already verified, by SHA-256 digest of the token, each kept until its token expires.
+     */
+    private final Cache<String, VerifiedToken> verifiedTokens;
+
+    public TokenProvider(
+        JHipsterProperties jHipsterProperties,
+        SecurityMetersService securityMetersService,
+        ApplicationProperties applicationProperties,
+        TokenRevocationList tokenRevocationList
+    ) {
         byte[] keyBytes;
         String secret = jHipsterProperties.getSecurity().getAuthentication().getJwt().getBase64Secret();
         if (!ObjectUtils.isEmpty(secret)) {
@@ -55,36 +74,100 @@ public class TokenProvider {
         }
         key = Keys.hmacShaKeyFor(keyBytes);
         jwtParser = Jwts.parserBuilder().setSigningKey(key).build();
-        this.tokenValidityInMilliseconds = 1000 * jHipsterProperties.getSecurity().getAuthentication().getJwt().getTokenValidityInSeconds();
-        this.tokenValidityInMillisecondsForRememberMe =
-                1000 * jHipsterProperties.getSecurity().getAuthentication().getJwt().getTokenValidityInSecondsForRememberMe();
+        // the session lifetimes of jhipster.security.authentication.jwt now bound the refresh tokens
+        this.tokenValidityInMilliseconds = 1000 * applicationProperties.getRefreshToken().getAccessTokenValiditySeconds();
 
         this.securityMetersService = securityMetersService;
+        this.tokenRevocationList = tokenRevocationList;
+        this.verifiedTokens =
+            Caffeine
+                .newBuilder()
+                .maximumSize(applicationProperties.getTokenCache().getMaximumSize())
+                .expireAfter(new UntilTokenExpiry())
+                .recordStats()
+                .build();
+        securityMetersService.monitorTokenCache(verifiedTokens);
     }
 
-    public String createToken(Authentication authentication, boolean rememberMe) {
+    /**
+     * Create a short-lived access token for a login session.
+     *
+     * @param authentication the authenticated user.
+     * @param sessionId the id of the session, checked against the {@link TokenRevocationList} on every use.
+     * @return the compact JWT.
+     */
+    public String createToken(Authentication authentication, Long sessionId) {
         String authorities = authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority).collect(Collectors.joining(","));
 //        System.out.println("AUthorities are --> " + authorities);
         long now = (new Date()).getTime();
-        Date validity;
-        if (rememberMe) {
-            validity = new Date(now + this.tokenValidityInMillisecondsForRememberMe);
-        } else {
-            validity = new Date(now + this.tokenValidityInMilliseconds);
-        }
+        Date validity = new Date(now + this.tokenValidityInMilliseconds);
 
         return Jwts
                 .builder()
                 .setSubject(authentication.getName())
                 .claim(AUTHORITIES_KEY, authorities)
+                .claim(SESSION_KEY, sessionId)
                 .signWith(key, SignatureAlgorithm.HS512)
                 .setExpiration(validity)
                 .compact();
     }
 
+    /**
+     * Get the authentication carried by a token, verifying the token only the first time it is seen.
+     * <p>
+     * The session of the token is checked against the {@link TokenRevocationList} on every call.
+     *
+     * @param token the compact JWT.
+     * @return the authentication, or empty if the token is not valid or its session was revoked.
+     */
+    public Optional<Authentication> resolveAuthentication(String token) {
+        String digest = digest(token);
+        VerifiedToken verified = verifiedTokens.getIfPresent(digest);
+        if (verified != null && verified.expiresAt > System.currentTimeMillis()) {
+            return isRevoked(verified.sessionId) ? Optional.empty() : Optional.of(verified.authentication);
+        }
+        Claims claims = securityMetersService.timeTokenVerification(() -> parseVerifiedClaims(token));
+        if (claims == null) {
+            return Optional.empty();
+        }
+        Long sessionId = sessionId(claims);
+        Authentication authentication = toAuthentication(claims, token);
+        if (claims.getExpiration() != null) {
+            verifiedTokens.put(digest, new VerifiedToken(authentication, sessionId, claims.getExpiration().getTime()));
+        }
+        return isRevoked(sessionId) ? Optional.empty() : Optional.of(authentication);
+    }
+
+    /**
+     * Get the login session an authentication was created from.
+     *
+     * @return the session id, or empty for the authentications not built from an access token.
+     */
+    public static Optional<Long> getSessionId(Authentication authentication) {
+        if (authentication != null && authentication.getDetails() instanceof Long) {
+            return Optional.of((Long) authentication.getDetails());
+        }
+        return Optional.empty();
+    }
+
+    private boolean isRevoked(Long sessionId) {
+        return sessionId != null && tokenRevocationList.isRevoked(sessionId);
+    }
+
+    private static Long sessionId(Claims claims) {
+        Object sessionId = claims.get(SESSION_KEY);
+        return sessionId instanceof Number ? ((Number) sessionId).longValue() : null;
+    }
+
     public Authentication getAuthentication(String token) {
-        Claims claims = jwtParser.parseClaimsJws(token).getBody();
+        return toAuthentication(jwtParser.parseClaimsJws(token).getBody(), token);
+    }
+
+    public boolean validateToken(String authToken) {
+        return parseVerifiedClaims(authToken) != null;
+    }
 
+    private Authentication toAuthentication(Claims claims, String token) {
         Collection<? extends GrantedAuthority> authorities = Arrays
                 .stream(claims.get(AUTHORITIES_KEY).toString().split(","))
                 .filter(auth -> !auth.trim().isEmpty())
@@ -93,14 +176,19 @@ public class TokenProvider {
 
         User principal = new User(claims.getSubject(), "", authorities);
 
-        return new UsernamePasswordAuthenticationToken(principal, token, authorities);
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(principal, token, authorities);
+        authentication.setDetails(sessionId(claims));
+        return authentication;
     }
 
-    public boolean validateToken(String authToken) {
+    /**
+     * Parse a token and verify its signature and expiry.
+     *
+     * @return the claims of the token, or {@code null} if the token is not valid.
+     */
+    private Claims parseVerifiedClaims(String authToken) {
         try {
-            jwtParser.parseClaimsJws(authToken);
-
-            return true;
+            return jwtParser.parseClaimsJws(authToken).getBody();
         } catch (ExpiredJwtException e) {
             this.securityMetersService.trackTokenExpired();
 
@@ -121,6 +209,51 @@ public class TokenProvider {
             log.error("Token validation error {}", e.getMessage());
         }
 
-        return false;
+        return null;
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static final class VerifiedToken {
+
+        private final Authentication authentication;
+
+        private final Long sessionId;
+
+        private final long expiresAt;
+
+        VerifiedToken(Authentication authentication, Long sessionId, long expiresAt) {
+            this.authentication = authentication;
+            this.sessionId = sessionId;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Evicts a verified token when the token itself expires.
+     */
+    private static final class UntilTokenExpiry implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, value.expiresAt - System.currentTimeMillis()));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
@@ -0,0 +1,99 @@
+package com.charusat.pacelearn.security.jwt;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory list of the revoked login sessions, checked for every request carrying an access token.
+ * <p>
+ * A Bloom filter answers the common case, a session that was never revoked, with a few bit reads; only its rare
+ * positives are confirmed against the exact set. A session stays listed until its last access token has expired;
+ * {@link #rebuild} drops the elapsed ones and clears the filter of them.
+ */
+@Component
+public class TokenRevocationList {
+
+    private static final int FILTER_BITS = 1 << 20;
+
+    private static final int FILTER_HASHES = 4;
+
+    /**
+     * Revoked session ids, with the instant in milliseconds after which none of their access tokens can be valid.
+     */
+    private final Map<Long, Long> revokedUntil = new ConcurrentHashMap<>();
+
+    private volatile BloomFilter filter = new BloomFilter();
+
+    public boolean isRevoked(long sessionId) {
+        return filter.mightContain(sessionId) && revokedUntil.containsKey(sessionId);
+    }
+
+    public synchronized void revoke(long sessionId, long untilMillis) {
+        revokedUntil.merge(sessionId, untilMillis, Math::max);
+        filter.add(sessionId);
+    }
+
+    /**
+     * Replace the listed sessions by a fresh snapshot, keeping the revocations made in memory meanwhile.
+     *
+     * @param revoked the revoked session ids with the instant in milliseconds they can be forgotten.
+     */
+    public synchronized void rebuild(Map<Long, Long> revoked) {
+        revoked.forEach((sessionId, untilMillis) -> revokedUntil.merge(sessionId, untilMillis, Math::max));
+        long now = System.currentTimeMillis();
+        revokedUntil.values().removeIf(untilMillis -> untilMillis <= now);
+        BloomFilter rebuilt = new BloomFilter();
+        revokedUntil.keySet().forEach(rebuilt::add);
+        filter = rebuilt;
+    }
+
+    public int size() {
+        return revokedUntil.size();
+    }
+
+    private static final class BloomFilter {
+
+        private final AtomicLongArray words = new AtomicLongArray(FILTER_BITS / Long.SIZE);
+
+        void add(long value) {
+            long hash = mix(value);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < FILTER_HASHES; i++) {
+                int bit = (h1 + i * h2) & (FILTER_BITS - 1);
+                long mask = 1L << bit;
+                int word = bit >>> 6;
+                long current;
+                do {
+                    current = words.get(word);
+                } while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask));
+            }
+        }
+
+        boolean mightContain(long value) {
+            long hash = mix(value);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < FILTER_HASHES; i++) {
+                int bit = (h1 + i * h2) & (FILTER_BITS - 1);
+                if ((words.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * The SplitMix64 finalizer, spreading sequential ids over all 64 bits.
+         */
+        private static long mix(long value) {
+            long z = value + 0x9E3779B97F4A7C15L;
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.charusat.pacelearn.service;
+
+import com.charusat.pacelearn.config.ApplicationProperties;
+import com.charusat.pacelearn.domain.Course;
+import com.charusat.pacelearn.domain.CourseCategory;
+import com.charusat.pacelearn.domain.User;
+import com.charusat.pacelearn.repository.CourseRepository;
+import com.charusat.pacelearn.service.dto.SuggestionDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Service answering the typeahead of the search box from an in-memory {@link AutocompleteTrie}.
+ * <p>
+ * The trie holds the titles of the approved courses, the titles of their categories and the names
+ * of their instructors, each weighted by the number of enrollments behind it. Approving,
+ * disapproving, renaming or deleting a course is applied within {@code application.autocomplete.refresh-delay-ms};
+ * the enrollment weights are refreshed by a full rebuild every {@code application.autocomplete.rebuild-delay-ms}.
+ */
+@Service
+@Transactional(readOnly = true)
+public class AutocompleteService {
+
+    private final Logger log = LoggerFactory.getLogger(AutocompleteService.class);
+
+    private final CourseRepository courseRepository;
+
+    private final EnrollmentCounterService enrollmentCounterService;
+
+    private final int maxSuggestions;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Set<Long> pendingCourseIds = ConcurrentHashMap.newKeySet();
+
+    private AutocompleteTrie trie;
+
+    /**
+     * What each indexed course contributes to the suggestions of its category and instructor.
+     */
+    private Map<Long, IndexedCourse> courses = new HashMap<>();
+
+    private Map<Long, Group> categories = new HashMap<>();
+
+    private Map<Long, Group> instructors = new HashMap<>();
+
+    public AutocompleteService(
+        CourseRepository courseRepository,
+        EnrollmentCounterService enrollmentCounterService,
+        ApplicationProperties applicationProperties
+    ) {
+        this.courseRepository = courseRepository;
+        this.enrollmentCounterService = enrollmentCounterService;
+        this.maxSuggestions = applicationProperties.getAutocomplete().getMaxSuggestions();
+        this.trie = new AutocompleteTrie(maxSuggestions);
+    }
+
+    /**
+     * Get the best completions of what the user typed so far.
+     *
+     * @param prefix the text typed so far.
+     * @param size the maximum number of completions.
+     * @return the completions, best first.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<SuggestionDTO> complete(String prefix, int size) {
+        lock.readLock().lock();
+        try {
+            return trie.complete(prefix, Math.max(0, Math.min(size, maxSuggestions)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rebuilds the trie from the approved courses and their current enrollment counts.
+     * <p>
+     * Runs once the application is ready and then every {@code application.autocomplete.rebuild-delay-ms}.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${application.autocomplete.rebuild-delay-ms:900000}", initialDelayString = "${application.autocomplete.rebuild-delay-ms:900000}")
+    public synchronized void rebuild() {
+        List<Course> approved = courseRepository.findAllByIsApproved(true);
+        List<Long> courseIds = new ArrayList<>();
+        approved.forEach(course -> courseIds.add(course.getId()));
+        Map<Long, Long> enrollments = enrollmentCounterService.getCounts(courseIds);
+
+        AutocompleteTrie built = new AutocompleteTrie(maxSuggestions);
+        Map<Long, IndexedCourse> builtCourses = new HashMap<>();
+        Map<Long, Group> builtCategories = new HashMap<>();
+        Map<Long, Group> builtInstructors = new HashMap<>();
+        for (Course course : approved) {
+            add(built, builtCourses, builtCategories, builtInstructors, course, enrollments.getOrDefault(course.getId(), 0L));
+        }
+        lock.writeLock().lock();
+        try {
+            trie = built;
+            courses = builtCourses;
+            categories = builtCategories;
+            instructors = builtInstructors;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.debug("Rebuilt the autocomplete trie with {} suggestions", built.size());
+    }
+
+    /**
+     * Queues a committed write to a course for the next refresh.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void courseChanged(CourseChangedEvent event) {
+        pendingCourseIds.add(event.getCourseId());
+    }
+
+    /**
+     * Applies the courses reported since the last run.
+     */
+    @Scheduled(fixedDelayString = "${application.autocomplete.refresh-delay-ms:1000}")
+    public synchronized void refreshPending() {
+        if (pendingCourseIds.isEmpty()) {
+            return;
+        }
+        Set<Long> courseIds = new HashSet<>(pendingCourseIds);
+        pendingCourseIds.removeAll(courseIds);
+        boolean refreshed = false;
+        try {
+            Map<Long, Course> approved = new HashMap<>();
+            for (Course course : courseRepository.findAllById(courseIds)) {
+                if (Boolean.TRUE.equals(course.getIsApproved())) {
+                    approved.put(course.getId(), course);
+                }
+            }
+            Map<Long, Long> enrollments = enrollmentCounterService.getCounts(approved.keySet());
+            lock.writeLock().lock();
+            try {
+                for (Long courseId : courseIds) {
+                    remove(courseId);
+                    Course course = approved.get(courseId);
+                    if (course != null) {
+                        add(trie, courses, categories, instructors, course, enrollments.getOrDefault(courseId, 0L));
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            refreshed = true;
+        } finally {
+            if (!refreshed) {
+                // retried on the next run
+                pendingCourseIds.addAll(courseIds);
+            }
+        }
+    }
+
+    private void remove(Long courseId) {
+        IndexedCourse indexed = courses.remove(courseId);
+        if (indexed == null) {
+            return;
+        }
+        trie.remove(SuggestionDTO.key(SuggestionDTO.COURSE, courseId));
+        leave(trie, categories, SuggestionDTO.CATEGORY, indexed.categoryId, indexed.weight);
+        leave(trie, instructors, SuggestionDTO.INSTRUCTOR, indexed.instructorId, indexed.weight);
+    }
+
+    private static void add(
+        AutocompleteTrie trie,
+        Map<Long, IndexedCourse> courses,
+        Map<Long, Group> categories,
+        Map<Long, Group> instructors,
+        Course course,
+        long weight
+    ) {
+        trie.put(new SuggestionDTO(SuggestionDTO.COURSE, course.getId(), course.getCourseTitle(), weight));
+        CourseCategory category = course.getCourseCategory();
+        User instructor = course.getUser();
+        Long categoryId = category == null ? null : category.getId();
+        Long instructorId = instructor == null ? null : instructor.getId();
+        if (categoryId != null) {
+            join(trie, categories, SuggestionDTO.CATEGORY, categoryId, category.getCourseCategoryTitle(), weight);
+        }
+        if (instructorId != null) {
+            join(trie, instructors, SuggestionDTO.INSTRUCTOR, instructorId, instructorName(instructor), weight);
+        }
+        courses.put(course.getId(), new IndexedCourse(categoryId, instructorId, weight));
+    }
+
+    private static void join(AutocompleteTrie trie, Map<Long, Group> groups, String type, Long id, String text, long weight) {
+        Group group = groups.computeIfAbsent(id, key -> new Group());
+        group.text = text;
+        group.courses++;
+        group.weight += weight;
+        trie.put(new SuggestionDTO(type, id, group.text, group.weight));
+    }
+
+    private static void leave(AutocompleteTrie trie, Map<Long, Group> groups, String type, Long id, long weight) {
+        Group group = id == null ? null : groups.get(id);
+        if (group == null) {
+            return;
+        }
+        group.courses--;
+        group.weight -= weight;
+        if (group.courses <= 0) {
+            groups.remove(id);
+            trie.remove(SuggestionDTO.key(type, id));
+        } else {
+            trie.put(new SuggestionDTO(type, id, group.text, group.weight));
+        }
+    }
+
+    private static String instructorName(User user) {
+        String name = String.join(" ", nonNull(user.getFirstName()), nonNull(user.getLastName())).strip();
+        return name.isEmpty() ? user.getLogin() : name;
+    }
+
+    private static String nonNull(String value) {
+        return value == null ? "" : value;
+    }
+
+    private static final class IndexedCourse {
+
+        private final Long categoryId;
+
+        private final Long instructorId;
+
+        private final long weight;
+
+        IndexedCourse(Long categoryId, Long instructorId, long weight) {
+            this.categoryId = categoryId;
+            this.instructorId = instructorId;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * A category or instructor suggestion, summed over its approved courses.
+     */
+    private static final class Group {
+
+        private String text;
+
+        private int courses;
+
+        private long weight;
+    }
+}
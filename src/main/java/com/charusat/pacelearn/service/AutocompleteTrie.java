@@ -0,0 +1,290 @@
+package com.charusat.pacelearn.service;
+
+import com.charusat.pacelearn.service.dto.SuggestionDTO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Radix tree answering top-k completions.
+ * <p>
+ * Every suggestion is reachable from the start of each word of its text. Runs of nodes with a single
+ * child are compressed into one edge labelled with their characters, so a key costs a node where it
+ * branches off rather than a node per character. Each node keeps the best {@code maxSuggestions}
+ * suggestions of its subtree, so a lookup is one walk down the prefix; an update recomputes those
+ * lists on the path of the changed keys only. Children are held in sorted parallel arrays, keyed by
+ * the first character of their edge, rather than maps to keep the nodes small.
+ * <p>
+ * Not thread-safe.
+ */
+public final class AutocompleteTrie {
+
+    private static final Comparator<SuggestionDTO> RANKING = Comparator
+        .comparingLong(SuggestionDTO::getWeight)
+        .reversed()
+        .thenComparing(SuggestionDTO::getText);
+
+    private static final SuggestionDTO[] NONE = new SuggestionDTO[0];
+
+    private final int maxSuggestions;
+
+    private final Node root = new Node();
+
+    private final Map<String, SuggestionDTO> suggestions = new HashMap<>();
+
+    public AutocompleteTrie(int maxSuggestions) {
+        this.maxSuggestions = maxSuggestions;
+    }
+
+    /**
+     * Add a suggestion, replacing the previous version of the same item.
+     */
+    public void put(SuggestionDTO suggestion) {
+        remove(suggestion.key());
+        suggestions.put(suggestion.key(), suggestion);
+        for (String key : keys(suggestion.getText())) {
+            insert(key, suggestion);
+        }
+    }
+
+    /**
+     * Remove the suggestion of an item.
+     *
+     * @param key the {@link SuggestionDTO#key()} of the item.
+     */
+    public void remove(String key) {
+        SuggestionDTO previous = suggestions.remove(key);
+        if (previous != null) {
+            for (String indexed : keys(previous.getText())) {
+                delete(indexed, previous);
+            }
+        }
+    }
+
+    public SuggestionDTO get(String key) {
+        return suggestions.get(key);
+    }
+
+    /**
+     * Get the best completions of a prefix.
+     *
+     * @param prefix the text typed so far.
+     * @param limit the maximum number of completions, at most the {@code maxSuggestions} of the trie.
+     * @return the completions, best first.
+     */
+    public List<SuggestionDTO> complete(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            node = node.child(key.charAt(i));
+            // the prefix may end within the edge to the node
+            int length = Math.min(node == null ? 0 : node.label.length(), key.length() - i);
+            if (node == null || !key.regionMatches(i, node.label, 0, length)) {
+                return Collections.emptyList();
+            }
+            i += length;
+        }
+        return Collections.unmodifiableList(Arrays.asList(node.top).subList(0, Math.min(limit, node.top.length)));
+    }
+
+    public int size() {
+        return suggestions.size();
+    }
+
+    private void insert(String key, SuggestionDTO suggestion) {
+        List<Node> path = new ArrayList<>();
+        path.add(root);
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            Node child = node.child(key.charAt(i));
+            if (child == null) {
+                child = new Node(key.substring(i));
+                node.addChild(child);
+                i = key.length();
+            } else {
+                int common = commonPrefixLength(child.label, key, i);
+                if (common < child.label.length()) {
+                    child = node.split(child, common);
+                }
+                i += common;
+            }
+            path.add(child);
+            node = child;
+        }
+        node.terminals.add(suggestion);
+        recompute(path);
+    }
+
+    private void delete(String key, SuggestionDTO suggestion) {
+        List<Node> path = new ArrayList<>();
+        path.add(root);
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            node = node.child(key.charAt(i));
+            if (node == null || !key.startsWith(node.label, i)) {
+                return;
+            }
+            i += node.label.length();
+            path.add(node);
+        }
+        node.terminals.remove(suggestion);
+        recompute(path);
+    }
+
+    /**
+     * Recomputes the best suggestions on a path, bottom up, pruning the nodes left empty and merging the
+     * nodes left with a single child and no suggestion of their own into that child.
+     */
+    private void recompute(List<Node> path) {
+        for (int depth = path.size() - 1; depth >= 0; depth--) {
+            Node node = path.get(depth);
+            if (depth > 0 && node.isEmpty()) {
+                path.get(depth - 1).removeChild(node.label.charAt(0));
+                continue;
+            }
+            if (depth > 0 && node.terminals.isEmpty() && node.children.length == 1) {
+                node.absorb(node.children[0]);
+            }
+            Map<String, SuggestionDTO> candidates = new LinkedHashMap<>();
+            node.terminals.forEach(suggestion -> candidates.put(suggestion.key(), suggestion));
+            for (Node child : node.children) {
+                for (SuggestionDTO suggestion : child.top) {
+                    candidates.put(suggestion.key(), suggestion);
+                }
+            }
+            List<SuggestionDTO> ranked = new ArrayList<>(candidates.values());
+            ranked.sort(RANKING);
+            node.top = ranked.subList(0, Math.min(maxSuggestions, ranked.size())).toArray(NONE);
+        }
+    }
+
+    private static int commonPrefixLength(String label, String key, int from) {
+        int max = Math.min(label.length(), key.length() - from);
+        int length = 0;
+        while (length < max && label.charAt(length) == key.charAt(from + length)) {
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * The keys a text is reachable from: the normalized text from the start of each of its words.
+     */
+    private static List<String> keys(String text) {
+        String normalized = normalize(text);
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < normalized.length(); i++) {
+            if (i == 0 || normalized.charAt(i - 1) == ' ') {
+                keys.add(normalized.substring(i));
+            }
+        }
+        return keys;
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]+", " ").strip();
+    }
+
+    private static final class Node {
+
+        /**
+         * The characters of the edge from the parent; empty for the root only.
+         */
+        private String label;
+
+        private char[] firsts = new char[0];
+
+        private Node[] children = new Node[0];
+
+        private List<SuggestionDTO> terminals = new ArrayList<>(1);
+
+        private SuggestionDTO[] top = NONE;
+
+        Node() {
+            this("");
+        }
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        Node child(char first) {
+            int index = Arrays.binarySearch(firsts, first);
+            return index < 0 ? null : children[index];
+        }
+
+        void addChild(Node child) {
+            int index = -Arrays.binarySearch(firsts, child.label.charAt(0)) - 1;
+            char[] newFirsts = new char[firsts.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(firsts, 0, newFirsts, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            newFirsts[index] = child.label.charAt(0);
+            newChildren[index] = child;
+            System.arraycopy(firsts, index, newFirsts, index + 1, firsts.length - index);
+            System.arraycopy(children, index, newChildren, index + 1, children.length - index);
+            firsts = newFirsts;
+            children = newChildren;
+        }
+
+        void removeChild(char first) {
+            int index = Arrays.binarySearch(firsts, first);
+            if (index < 0) {
+                return;
+            }
+            char[] newFirsts = new char[firsts.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(firsts, 0, newFirsts, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            System.arraycopy(firsts, index + 1, newFirsts, index, firsts.length - index - 1);
+            System.arraycopy(children, index + 1, newChildren, index, children.length - index - 1);
+            firsts = newFirsts;
+            children = newChildren;
+        }
+
+        /**
+         * Split the edge to a child after its first {@code length} characters.
+         *
+         * @return the node inserted at the split, holding the child below it.
+         */
+        Node split(Node child, int length) {
+            Node middle = new Node(child.label.substring(0, length));
+            child.label = child.label.substring(length);
+            middle.addChild(child);
+            middle.top = child.top;
+            children[Arrays.binarySearch(firsts, middle.label.charAt(0))] = middle;
+            return middle;
+        }
+
+        /**
+         * Take the place of the only child, extending the edge with its label.
+         */
+        void absorb(Node child) {
+            label = label + child.label;
+            firsts = child.firsts;
+            children = child.children;
+            terminals = child.terminals;
+            top = child.top;
+        }
+
+        boolean isEmpty() {
+            return children.length == 0 && terminals.isEmpty();
+        }
+    }
+}
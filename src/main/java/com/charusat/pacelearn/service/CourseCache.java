@@ -0,0 +1,59 @@
+package com.charusat.pacelearn.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A cache of values derived from the rows of a course, invalidated on the {@link CourseChangedEvent} of the course.
+ * <p>
+ * A value loaded while an invalidation happened may predate the write behind it, so it is returned but not cached:
+ * loaders take the {@link #generation()} before loading and cache with {@link #put(Long, Object, long)}.
+ * <p>
+ * Thread-safe.
+ */
+final class CourseCache<V> {
+
+    private final Cache<Long, V> values;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * @param maximumSize the most courses cached.
+     * @param expireAfterWrite how long a value is kept, {@code null} to keep it until invalidated or evicted.
+     */
+    CourseCache(long maximumSize, Duration expireAfterWrite) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder().maximumSize(maximumSize);
+        if (expireAfterWrite != null) {
+            builder.expireAfterWrite(expireAfterWrite);
+        }
+        this.values = builder.build();
+    }
+
+    V getIfPresent(Long courseId) {
+        return values.getIfPresent(courseId);
+    }
+
+    /**
+     * @return the generation to load a value for, to pass to {@link #put(Long, Object, long)}.
+     */
+    long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Cache a value unless the cache was invalidated since its generation was taken.
+     */
+    void put(Long courseId, V value, long loadedFor) {
+        if (generation.get() == loadedFor) {
+            values.put(courseId, value);
+        }
+    }
+
+    void invalidate(Long courseId) {
+        generation.incrementAndGet();
+        values.invalidate(courseId);
+    }
+}
@@ -0,0 +1,183 @@
+package com.charusat.pacelearn.service;
+
+import com.charusat.pacelearn.domain.Course;
+import com.charusat.pacelearn.repository.CourseRepository;
+import com.charusat.pacelearn.service.dto.CatalogPageDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Service answering the faceted course catalog from a {@link CourseFacetIndex} of the approved courses.
+ * <p>
+ * Facets are the level, type and category ids of a course and its price band. The index is built
+ * once the application is ready; approving, disapproving, editing or deleting a course is applied
+ * within {@code application.catalog.refresh-delay-ms}.
+ */
+@Service
+@Transactional(readOnly = true)
+public class CourseCatalogService {
+
+    public static final String PRICE_FREE = "free";
+    public static final String PRICE_UNDER_500 = "under-500";
+    public static final String PRICE_500_TO_1999 = "500-1999";
+    public static final String PRICE_2000_AND_MORE = "2000-and-more";
+
+    private static final Comparator<Course> LISTING_ORDER = Comparator
+        .comparing(Course::getCourseCreatedOn, Comparator.nullsFirst(Comparator.naturalOrder()))
+        .thenComparing(Course::getId);
+
+    private final Logger log = LoggerFactory.getLogger(CourseCatalogService.class);
+
+    private final CourseRepository courseRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Set<Long> pendingCourseIds = ConcurrentHashMap.newKeySet();
+
+    private CourseFacetIndex index = new CourseFacetIndex();
+
+    public CourseCatalogService(CourseRepository courseRepository) {
+        this.courseRepository = courseRepository;
+    }
+
+    /**
+     * Get a page of the approved courses matching a facet selection, newest first.
+     *
+     * @param selection the selected values of each facet, OR-ed within a facet and AND-ed across facets.
+     * @param pageable the pagination information, its sort is ignored.
+     * @return the page of courses and the count of every facet value.
+     */
+    public CatalogPageDTO find(Map<String, ? extends Collection<String>> selection, Pageable pageable) {
+        CourseFacetIndex.Result result;
+        List<Long> pageIds;
+        lock.readLock().lock();
+        try {
+            result = index.query(selection);
+            pageIds = index.newestFirst(result.getHits(), pageable.getOffset(), pageable.getPageSize());
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<Course> courses = new ArrayList<>(courseRepository.findAllById(pageIds));
+        courses.sort(Comparator.comparingInt(course -> pageIds.indexOf(course.getId())));
+        return new CatalogPageDTO(
+            new PageImpl<>(courses, pageable, result.getHits().getLongCardinality()),
+            result.getFacetCounts()
+        );
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        CourseFacetIndex built = new CourseFacetIndex();
+        List<Course> courses = courseRepository.findAllByIsApproved(true);
+        // in listing order, every course takes the next ordinal
+        courses.sort(LISTING_ORDER);
+        for (Course course : courses) {
+            built.put(course.getId(), course.getCourseCreatedOn(), facetValues(course));
+        }
+        lock.writeLock().lock();
+        try {
+            index = built;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.debug("Built the catalog facet index of {} courses", built.size());
+    }
+
+    /**
+     * Queues a committed write to a course for the next refresh.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void courseChanged(CourseChangedEvent event) {
+        pendingCourseIds.add(event.getCourseId());
+    }
+
+    /**
+     * Applies the courses reported since the last run.
+     */
+    @Scheduled(fixedDelayString = "${application.catalog.refresh-delay-ms:1000}")
+    public synchronized void refreshPending() {
+        if (pendingCourseIds.isEmpty()) {
+            return;
+        }
+        Set<Long> courseIds = new HashSet<>(pendingCourseIds);
+        pendingCourseIds.removeAll(courseIds);
+        boolean refreshed = false;
+        try {
+            Set<Long> removedIds = new HashSet<>(courseIds);
+            List<Course> approved = new ArrayList<>();
+            for (Course course : courseRepository.findAllById(courseIds)) {
+                if (Boolean.TRUE.equals(course.getIsApproved())) {
+                    approved.add(course);
+                    removedIds.remove(course.getId());
+                }
+            }
+            // new courses come in listing order, so each takes the next ordinal
+            approved.sort(LISTING_ORDER);
+            lock.writeLock().lock();
+            try {
+                for (Long courseId : removedIds) {
+                    index.remove(courseId);
+                }
+                for (Course course : approved) {
+                    index.put(course.getId(), course.getCourseCreatedOn(), facetValues(course));
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            refreshed = true;
+        } finally {
+            if (!refreshed) {
+                // retried on the next run
+                pendingCourseIds.addAll(courseIds);
+            }
+        }
+    }
+
+    private static Map<String, String> facetValues(Course course) {
+        Map<String, String> values = new HashMap<>();
+        if (course.getCourseLevel() != null) {
+            values.put(CourseFacetIndex.LEVEL, course.getCourseLevel().getId().toString());
+        }
+        if (course.getCourseType() != null) {
+            values.put(CourseFacetIndex.TYPE, course.getCourseType().getId().toString());
+        }
+        if (course.getCourseCategory() != null) {
+            values.put(CourseFacetIndex.CATEGORY, course.getCourseCategory().getId().toString());
+        }
+        values.put(CourseFacetIndex.PRICE, priceBand(course.getAmount()));
+        return values;
+    }
+
+    private static String priceBand(Double amount) {
+        if (amount == null || amount <= 0) {
+            return PRICE_FREE;
+        }
+        if (amount < 500) {
+            return PRICE_UNDER_500;
+        }
+        if (amount < 2000) {
+            return PRICE_500_TO_1999;
+        }
+        return PRICE_2000_AND_MORE;
+    }
+}
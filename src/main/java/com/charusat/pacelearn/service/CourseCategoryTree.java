@@ -0,0 +1,174 @@
+package com.charusat.pacelearn.service;
+
+import com.charusat.pacelearn.domain.CourseCategory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the category hierarchy together with the number of courses of every category.
+ * <p>
+ * A parent category and its sub-categories share the same {@code parentId}.
+ */
+public final class CourseCategoryTree {
+
+    private final List<CourseCategory> categories;
+
+    private final List<CourseCategory> parentCategories;
+
+    private final List<CourseCategory> parentCategoriesWithCourses;
+
+    private final List<CourseCategory> subCategories;
+
+    private final Map<Integer, List<CourseCategory>> categoriesWithCoursesByParentId;
+
+    private final Map<Long, Long> courseCountByCategoryId;
+
+    private final Map<Integer, Map<Long, Integer>> courseCountBySubCategoryByParentId;
+
+    private final Map<Long, Integer> courseCountByParentCategory;
+
+    private CourseCategoryTree(
+        List<CourseCategory> categories,
+        List<CourseCategory> parentCategories,
+        List<CourseCategory> parentCategoriesWithCourses,
+        List<CourseCategory> subCategories,
+        Map<Integer, List<CourseCategory>> categoriesWithCoursesByParentId,
+        Map<Long, Long> courseCountByCategoryId,
+        Map<Integer, Map<Long, Integer>> courseCountBySubCategoryByParentId,
+        Map<Long, Integer> courseCountByParentCategory
+    ) {
+        this.categories = categories;
+        this.parentCategories = parentCategories;
+        this.parentCategoriesWithCourses = parentCategoriesWithCourses;
+        this.subCategories = subCategories;
+        this.categoriesWithCoursesByParentId = categoriesWithCoursesByParentId;
+        this.courseCountByCategoryId = courseCountByCategoryId;
+        this.courseCountBySubCategoryByParentId = courseCountBySubCategoryByParentId;
+        this.courseCountByParentCategory = courseCountByParentCategory;
+    }
+
+    /**
+     * Build the tree.
+     *
+     * @param categories every category, in display order.
+     * @param courseCountByCategoryId the number of courses of each category, categories without courses may be absent.
+     * @return the tree.
+     */
+    public static CourseCategoryTree of(List<CourseCategory> categories, Map<Long, Long> courseCountByCategoryId) {
+        List<CourseCategory> parents = new ArrayList<>();
+        List<CourseCategory> subs = new ArrayList<>();
+        Map<Integer, List<CourseCategory>> withCourses = new HashMap<>();
+        Map<Integer, Map<Long, Integer>> subCategoryCounts = new HashMap<>();
+        Map<Integer, Integer> countsByParentId = new HashMap<>();
+        for (CourseCategory category : categories) {
+            boolean parent = Boolean.TRUE.equals(category.getIsParent());
+            if (parent) {
+                parents.add(category);
+            } else {
+                subs.add(category);
+            }
+            long count = courseCountByCategoryId.getOrDefault(category.getId(), 0L);
+            if (count > 0) {
+                withCourses.computeIfAbsent(category.getParentId(), key -> new ArrayList<>()).add(category);
+                subCategoryCounts
+                    .computeIfAbsent(category.getParentId(), key -> new LinkedHashMap<>())
+                    .put(category.getId(), parent ? 0 : (int) count);
+                if (!parent) {
+                    countsByParentId.merge(category.getParentId(), (int) count, Integer::sum);
+                }
+            }
+        }
+        List<CourseCategory> parentsWithCourses = new ArrayList<>();
+        Map<Long, Integer> parentCounts = new LinkedHashMap<>();
+        for (CourseCategory parent : parents) {
+            if (withCourses.containsKey(parent.getParentId())) {
+                parentsWithCourses.add(parent);
+                // sub-categories point at the id of their parent through parentId
+                parentCounts.put(parent.getId(), countsByParentId.getOrDefault(parent.getId().intValue(), 0));
+            }
+        }
+        withCourses.replaceAll((parentId, list) -> Collections.unmodifiableList(list));
+        subCategoryCounts.replaceAll((parentId, counts) -> Collections.unmodifiableMap(counts));
+        return new CourseCategoryTree(
+            List.copyOf(categories),
+            Collections.unmodifiableList(parents),
+            Collections.unmodifiableList(parentsWithCourses),
+            Collections.unmodifiableList(subs),
+            Collections.unmodifiableMap(withCourses),
+            Collections.unmodifiableMap(new HashMap<>(courseCountByCategoryId)),
+            Collections.unmodifiableMap(subCategoryCounts),
+            Collections.unmodifiableMap(parentCounts)
+        );
+    }
+
+    /**
+     * Copy of this tree with one course moved between categories.
+     *
+     * @param fromCategoryId the category the course left, {@code null} for a new course.
+     * @param toCategoryId the category the course joined, {@code null} for a deleted course.
+     * @return the updated tree.
+     */
+    public CourseCategoryTree withCourseMoved(Long fromCategoryId, Long toCategoryId) {
+        Map<Long, Long> counts = new HashMap<>(courseCountByCategoryId);
+        if (fromCategoryId != null) {
+            counts.merge(fromCategoryId, -1L, Long::sum);
+        }
+        if (toCategoryId != null) {
+            counts.merge(toCategoryId, 1L, Long::sum);
+        }
+        return of(categories, counts);
+    }
+
+    /**
+     * @return every parent category.
+     */
+    public List<CourseCategory> getParentCategories() {
+        return parentCategories;
+    }
+
+    /**
+     * @return the parent categories having at least one category with courses under them.
+     */
+    public List<CourseCategory> getParentCategoriesWithCourses() {
+        return parentCategoriesWithCourses;
+    }
+
+    /**
+     * @return every sub-category.
+     */
+    public List<CourseCategory> getSubCategories() {
+        return subCategories;
+    }
+
+    /**
+     * @param parentId the {@code parentId} shared by a parent category and its sub-categories.
+     * @return the categories under {@code parentId} having at least one course.
+     */
+    public List<CourseCategory> getCategoriesWithCourses(Integer parentId) {
+        return categoriesWithCoursesByParentId.getOrDefault(parentId, Collections.emptyList());
+    }
+
+    public long getCourseCount(Long categoryId) {
+        return courseCountByCategoryId.getOrDefault(categoryId, 0L);
+    }
+
+    /**
+     * @param parentId the {@code parentId} shared by a parent category and its sub-categories.
+     * @return the number of courses of every category under {@code parentId} having courses, by category id.
+     */
+    public Map<Long, Integer> getCourseCountBySubCategory(Integer parentId) {
+        return courseCountBySubCategoryByParentId.getOrDefault(parentId, Collections.emptyMap());
+    }
+
+    /**
+     * @return the number of courses under every parent category having courses, by category id.
+     */
+    public Map<Long, Integer> getCourseCountByParentCategory() {
+        return courseCountByParentCategory;
+    }
+}
@@ -0,0 +1,147 @@
+package com.charusat.pacelearn.service;
+
+import com.charusat.pacelearn.domain.CourseCategory;
+import com.charusat.pacelearn.repository.CourseCategoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Service holding the {@link CourseCategoryTree} served by the category endpoints.
+ * <p>
+ * The tree is built from two queries on first use. Course counts are then moved incrementally as
+ * courses are created, deleted or re-categorized, and the tree is only rebuilt when a category changes.
+ */
+@Service
+public class CourseCategoryTreeService {
+
+    private final Logger log = LoggerFactory.getLogger(CourseCategoryTreeService.class);
+
+    private final CourseCategoryRepository courseCategoryRepository;
+
+    private final Object buildLock = new Object();
+
+    private final AtomicReference<CourseCategoryTree> tree = new AtomicReference<>();
+
+    /**
+     * Bumped on every change, so a build that raced with a change is not kept.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * The tree taken before the commit of each course move in flight; events have identity equality.
+     */
+    private final Map<CourseChangedEvent, CourseCategoryTree> treesBeforeCommit = new ConcurrentHashMap<>();
+
+    public CourseCategoryTreeService(CourseCategoryRepository courseCategoryRepository) {
+        this.courseCategoryRepository = courseCategoryRepository;
+    }
+
+    public CourseCategoryTree getTree() {
+        CourseCategoryTree current = tree.get();
+        if (current != null) {
+            return current;
+        }
+        synchronized (buildLock) {
+            current = tree.get();
+            if (current != null) {
+                return current;
+            }
+            long builtFor = generation.get();
+            List<CourseCategory> categories = courseCategoryRepository.findAll(Sort.by("courseCategoryTitle"));
+            Map<Long, Long> courseCounts = new HashMap<>();
+            for (Object[] row : courseCategoryRepository.countCoursesGroupByCategory()) {
+                courseCounts.put((Long) row[0], (Long) row[1]);
+            }
+            CourseCategoryTree built = CourseCategoryTree.of(categories, courseCounts);
+            tree.set(built);
+            if (builtFor != generation.get()) {
+                tree.set(null);
+            }
+            log.debug("Built course category tree of {} categories", categories.size());
+            return built;
+        }
+    }
+
+    /**
+     * Drops the tree once the surrounding transaction commits; the next read rebuilds it.
+     */
+    public void invalidate() {
+        afterCommit(
+            () -> {
+                generation.incrementAndGet();
+                tree.set(null);
+            }
+        );
+    }
+
+    /**
+     * Takes the tree current before the commit of a course created, deleted or moved to another category;
+     * it cannot hold the move yet.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void beforeCourseMoveCommit(CourseChangedEvent event) {
+        if (!event.isCategoryMoved()) {
+            return;
+        }
+        // a build running across the commit is not kept
+        generation.incrementAndGet();
+        CourseCategoryTree current = tree.get();
+        if (current != null) {
+            treesBeforeCommit.put(event, current);
+        }
+    }
+
+    /**
+     * Applies a committed course move to the tree taken before the commit. A tree built in between may or
+     * may not hold it, so it is dropped instead.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void courseMoved(CourseChangedEvent event) {
+        if (!event.isCategoryMoved()) {
+            return;
+        }
+        generation.incrementAndGet();
+        CourseCategoryTree beforeCommit = treesBeforeCommit.remove(event);
+        if (beforeCommit == null) {
+            tree.set(null);
+            return;
+        }
+        CourseCategoryTree moved = beforeCommit.withCourseMoved(event.getPreviousCategoryId(), event.getCategoryId());
+        if (!tree.compareAndSet(beforeCommit, moved)) {
+            tree.set(null);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_ROLLBACK)
+    public void courseMoveRolledBack(CourseChangedEvent event) {
+        treesBeforeCommit.remove(event);
+    }
+
+    private void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        change.run();
+                    }
+                }
+            );
+        } else {
+            change.run();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.charusat.pacelearn.service;
+
+import java.util.Objects;
+
+/**
+ * Published within the transaction of every write to a course, its sections, its sessions or its category.
+ * <p>
+ * The in-memory views of the courses listen to it with {@code @TransactionalEventListener}, so they only ever apply
+ * committed writes.
+ */
+public final class CourseChangedEvent {
+
+    private final Long courseId;
+
+    private final boolean categoryKnown;
+
+    private final Long previousCategoryId;
+
+    private final Long categoryId;
+
+    private CourseChangedEvent(Long courseId, boolean categoryKnown, Long previousCategoryId, Long categoryId) {
+        this.courseId = Objects.requireNonNull(courseId);
+        this.categoryKnown = categoryKnown;
+        this.previousCategoryId = previousCategoryId;
+        this.categoryId = categoryId;
+    }
+
+    /**
+     * A write leaving the category of the course as it was.
+     */
+    public static CourseChangedEvent of(Long courseId) {
+        return new CourseChangedEvent(courseId, false, null, null);
+    }
+
+    /**
+     * A write to the course itself.
+     *
+     * @param courseId the id of the course.
+     * @param previousCategoryId the category of the course before the write, {@code null} when it is created.
+     * @param categoryId the category of the course after the write, {@code null} when it is deleted.
+     */
+    public static CourseChangedEvent of(Long courseId, Long previousCategoryId, Long categoryId) {
+        return new CourseChangedEvent(courseId, true, previousCategoryId, categoryId);
+    }
+
+    public Long getCourseId() {
+        return courseId;
+    }
+
+    /**
+     * @return whether the course was created, deleted or moved to another category.
+     */
+    public boolean isCategoryMoved() {
+        return categoryKnown && !Objects.equals(previousCategoryId, categoryId);
+    }
+
+    public Long getPreviousCategoryId() {
+        return previousCategoryId;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    @Override
+    public String toString() {
+        return (
+            "CourseChangedEvent{courseId=" + courseId + (categoryKnown
+                    ? ", previousCategoryId=" + previousCategoryId + ", categoryId=" + categoryId
+                    : "") + "}"
+        );
+    }
+}
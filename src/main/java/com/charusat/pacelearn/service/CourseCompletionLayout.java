@@ -0,0 +1,103 @@
+package com.charusat.pacelearn.service;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The sessions of a course as seen by the completion bitsets: their curriculum order and the completion ordinal of
+ * each, the bit standing for the session in a {@link com.charusat.pacelearn.domain.CourseCompletion}.
+ * <p>
+ * Immutable.
+ */
+public final class CourseCompletionLayout {
+
+    /**
+     * The most sessions a course can track, the capacity of the completion bitsets.
+     */
+    public static final int MAX_ORDINALS = 8192;
+
+    private final Long[] sessionIds;
+
+    private final int[] ordinals;
+
+    private final Long[] sessionByOrdinal;
+
+    private final Map<Long, Integer> ordinalBySession;
+
+    private final boolean ordered;
+
+    /**
+     * @param sessionIds the ids of the sessions in curriculum order.
+     * @param ordinals the completion ordinal of each session, below {@link #MAX_ORDINALS} and distinct.
+     */
+    public CourseCompletionLayout(List<Long> sessionIds, List<Integer> ordinals) {
+        this.sessionIds = sessionIds.toArray(new Long[0]);
+        this.ordinals = ordinals.stream().mapToInt(Integer::intValue).toArray();
+        this.ordinalBySession = new HashMap<>();
+        int maxOrdinal = -1;
+        boolean ascending = true;
+        for (int i = 0; i < this.ordinals.length; i++) {
+            ordinalBySession.put(this.sessionIds[i], this.ordinals[i]);
+            ascending &= this.ordinals[i] > maxOrdinal;
+            maxOrdinal = Math.max(maxOrdinal, this.ordinals[i]);
+        }
+        this.sessionByOrdinal = new Long[maxOrdinal + 1];
+        for (int i = 0; i < this.ordinals.length; i++) {
+            sessionByOrdinal[this.ordinals[i]] = this.sessionIds[i];
+        }
+        this.ordered = ascending;
+    }
+
+    public int sessionCount() {
+        return sessionIds.length;
+    }
+
+    /**
+     * @return the completion ordinal of a session, {@code null} when the session is not part of the course.
+     */
+    public Integer ordinalOf(Long sessionId) {
+        return ordinalBySession.get(sessionId);
+    }
+
+    /**
+     * Find the first session of the curriculum missing from a completion bitset.
+     * <p>
+     * Sessions are usually created in curriculum order, so the ordinals ascend along the curriculum and the answer is
+     * the first clear bit of a live ordinal, found a word at a time; otherwise the curriculum is walked.
+     *
+     * @return the id of the session, {@code null} when every session is completed.
+     */
+    public Long nextIncomplete(BitSet completed) {
+        if (ordered) {
+            for (int ordinal = completed.nextClearBit(0); ordinal < sessionByOrdinal.length; ordinal = completed.nextClearBit(ordinal + 1)) {
+                if (sessionByOrdinal[ordinal] != null) {
+                    return sessionByOrdinal[ordinal];
+                }
+            }
+            return null;
+        }
+        for (int i = 0; i < ordinals.length; i++) {
+            if (!completed.get(ordinals[i])) {
+                return sessionIds[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the ids of the completed sessions in curriculum order.
+     */
+    public List<Long> completedSessionIds(BitSet completed) {
+        List<Long> completedIds = new ArrayList<>();
+        for (int i = 0; i < ordinals.length; i++) {
+            if (completed.get(ordinals[i])) {
+                completedIds.add(sessionIds[i]);
+            }
+        }
+        return Collections.unmodifiableList(completedIds);
+    }
+}
@@ -0,0 +1,317 @@
+package com.charusat.pacelearn.service;
+
+import com.charusat.pacelearn.config.ApplicationProperties;
+import com.charusat.pacelearn.domain.Course;
+import com.charusat.pacelearn.domain.CourseCompletion;
+import com.charusat.pacelearn.domain.CourseSession;
+import com.charusat.pacelearn.repository.CourseCompletionRepository;
+import com.charusat.pacelearn.repository.CourseRepository;
+import com.charusat.pacelearn.repository.CourseSessionProgressRepository;
+import com.charusat.pacelearn.repository.CourseSessionRepository;
+import com.charusat.pacelearn.service.dto.CourseCompletionDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Service keeping the {@link CourseCompletion} of every user in every course they made progress in.
+ * <p>
+ * Writers of progress report the sessions they touched; the sessions whose progress crossed
+ * {@code application.course-completion.threshold} of their duration are set in the bitset of the user in the course.
+ * Reads combine that bitset with the {@link CourseCompletionLayout} of the course, cached in memory, so they take no
+ * more than the completion row itself.
+ */
+@Service
+@Transactional
+public class CourseCompletionService {
+
+    private final Logger log = LoggerFactory.getLogger(CourseCompletionService.class);
+
+    private final CourseCompletionRepository courseCompletionRepository;
+
+    private final CourseSessionProgressRepository courseSessionProgressRepository;
+
+    private final CourseSessionRepository courseSessionRepository;
+
+    private final CourseRepository courseRepository;
+
+    private final double threshold;
+
+    private final CourseCache<CourseCompletionLayout> layouts;
+
+    public CourseCompletionService(
+        CourseCompletionRepository courseCompletionRepository,
+        CourseSessionProgressRepository courseSessionProgressRepository,
+        CourseSessionRepository courseSessionRepository,
+        CourseRepository courseRepository,
+        ApplicationProperties applicationProperties
+    ) {
+        this.courseCompletionRepository = courseCompletionRepository;
+        this.courseSessionProgressRepository = courseSessionProgressRepository;
+        this.courseSessionRepository = courseSessionRepository;
+        this.courseRepository = courseRepository;
+        ApplicationProperties.CourseCompletion properties = applicationProperties.getCourseCompletion();
+        this.threshold = properties.getThreshold();
+        this.layouts = new CourseCache<>(properties.getMaxCachedCourses(), null);
+    }
+
+    /**
+     * Report progress written for some users in some sessions; every combination is checked.
+     */
+    public void progressChanged(Collection<Long> userIds, Collection<Long> courseSessionIds) {
+        if (userIds.isEmpty() || courseSessionIds.isEmpty()) {
+            return;
+        }
+        Map<Long, Map<Long, List<Long>>> completedByUser = new HashMap<>();
+        Set<Long> courseIds = new HashSet<>();
+        for (Object[] row : courseSessionProgressRepository.findCompleted(userIds, courseSessionIds, threshold)) {
+            Long courseId = (Long) row[2];
+            completedByUser
+                .computeIfAbsent((Long) row[0], userId -> new HashMap<>())
+                .computeIfAbsent(courseId, id -> new ArrayList<>())
+                .add((Long) row[1]);
+            courseIds.add(courseId);
+        }
+        if (completedByUser.isEmpty()) {
+            return;
+        }
+        Map<Long, Map<Long, CourseCompletion>> completions = lockCompletions(completedByUser.keySet(), courseIds);
+        Instant now = Instant.now();
+        completedByUser.forEach(
+            (userId, completedByCourse) ->
+                completedByCourse.forEach(
+                    (courseId, sessionIds) -> {
+                        Map<Long, CourseCompletion> userCompletions = completions.computeIfAbsent(userId, id -> new HashMap<>());
+                        CourseCompletion completion = userCompletions.get(courseId);
+                        if (completion == null) {
+                            completion = create(userId, courseId);
+                            userCompletions.put(courseId, completion);
+                        }
+                        markCompleted(completion, sessionIds, now);
+                    }
+                )
+        );
+    }
+
+    /**
+     * Drops the cached layout of a course once a write to its sessions or sections commits.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void courseChanged(CourseChangedEvent event) {
+        layouts.invalidate(event.getCourseId());
+    }
+
+    /**
+     * Report a session about to be deleted: its bit is cleared from the completions of its course.
+     */
+    public void sessionDeleted(CourseSession courseSession, Long courseId) {
+        clearOrdinal(courseId, courseSession.getCompletionOrdinal());
+    }
+
+    /**
+     * Report a session moved to another course: its bit is cleared from the completions of its previous course, and
+     * it gets a fresh ordinal in its new course, whose completions never held that one.
+     *
+     * @param courseSessionId the id of the session.
+     * @param ordinal the completion ordinal of the session before the move.
+     * @param previousCourseId the course of the session before the move.
+     */
+    public void sessionMoved(Long courseSessionId, Integer ordinal, Long previousCourseId) {
+        clearOrdinal(previousCourseId, ordinal);
+        if (ordinal != null) {
+            courseSessionRepository.updateCompletionOrdinal(courseSessionId, null);
+        }
+    }
+
+    private void clearOrdinal(Long courseId, Integer ordinal) {
+        if (courseId == null || ordinal == null) {
+            return;
+        }
+        for (CourseCompletion completion : courseCompletionRepository.findAllByCourseIdForUpdate(courseId)) {
+            BitSet completed = BitSet.valueOf(completion.getCompletedSessions());
+            if (completed.get(ordinal)) {
+                completed.clear(ordinal);
+                completion.setCompletedSessions(completed.toByteArray());
+                completion.setCompletedCount(completion.getCompletedCount() - 1);
+            }
+        }
+    }
+
+    /**
+     * Get the completion of a user in a course, with the completed sessions.
+     */
+    public CourseCompletionDTO getCompletion(Long userId, Long courseId) {
+        CourseCompletionLayout layout = getLayout(courseId);
+        BitSet completed = courseCompletionRepository
+            .findByUserIdAndCourseId(userId, courseId)
+            .map(completion -> BitSet.valueOf(completion.getCompletedSessions()))
+            .orElseGet(BitSet::new);
+        List<Long> completedSessionIds = layout.completedSessionIds(completed);
+        return new CourseCompletionDTO(
+            courseId,
+            completedSessionIds.size(),
+            layout.sessionCount(),
+            layout.nextIncomplete(completed),
+            completedSessionIds
+        );
+    }
+
+    /**
+     * Summarize a completion already loaded, without the completed sessions.
+     *
+     * @param courseId the id of the course.
+     * @param completion the completion of the user in the course, {@code null} when the user made no progress yet.
+     */
+    public CourseCompletionDTO toSummary(Long courseId, CourseCompletion completion) {
+        CourseCompletionLayout layout = getLayout(courseId);
+        if (completion == null) {
+            return new CourseCompletionDTO(courseId, 0, layout.sessionCount(), layout.nextIncomplete(new BitSet()), null);
+        }
+        return new CourseCompletionDTO(
+            courseId,
+            completion.getCompletedCount(),
+            layout.sessionCount(),
+            layout.nextIncomplete(BitSet.valueOf(completion.getCompletedSessions())),
+            null
+        );
+    }
+
+    /**
+     * Creates the completions missing for progress written before they existed, or by a writer that failed to report
+     * it.
+     *
+     * @return the number of completions created.
+     */
+    @Scheduled(cron = "${application.course-completion.repair-cron:0 30 3 * * ?}")
+    public int createMissing() {
+        List<Object[]> missing = courseCompletionRepository.findMissing();
+        for (Object[] row : missing) {
+            create((Long) row[0], (Long) row[1]);
+        }
+        log.debug("Created {} missing course completions", missing.size());
+        return missing.size();
+    }
+
+    /**
+     * Get the layout of a course, assigning completion ordinals to the sessions lacking one.
+     */
+    public CourseCompletionLayout getLayout(Long courseId) {
+        CourseCompletionLayout layout = layouts.getIfPresent(courseId);
+        if (layout != null) {
+            return layout;
+        }
+        long generation = layouts.generation();
+        List<Object[]> rows = courseSessionRepository.findCompletionLayoutByCourseId(courseId);
+        boolean assigned = false;
+        if (!hasOrdinals(rows)) {
+            // the lock keeps two instances from handing out the same ordinal
+            Integer next = courseRepository.lockById(courseId).map(Course::getNextCompletionOrdinal).orElse(null);
+            rows = courseSessionRepository.findCompletionLayoutByCourseId(courseId);
+            assigned = assignOrdinals(courseId, rows, next);
+        }
+        List<Long> sessionIds = new ArrayList<>(rows.size());
+        List<Integer> ordinals = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            Integer ordinal = (Integer) row[1];
+            if (ordinal != null && ordinal < CourseCompletionLayout.MAX_ORDINALS) {
+                sessionIds.add((Long) row[0]);
+                ordinals.add(ordinal);
+            }
+        }
+        layout = new CourseCompletionLayout(sessionIds, ordinals);
+        // a layout with fresh ordinals is only cached once they are committed, by the next load
+        if (!assigned) {
+            layouts.put(courseId, layout, generation);
+        }
+        return layout;
+    }
+
+    private Map<Long, Map<Long, CourseCompletion>> lockCompletions(Set<Long> userIds, Set<Long> courseIds) {
+        Map<Long, Map<Long, CourseCompletion>> completions = new HashMap<>();
+        for (CourseCompletion completion : courseCompletionRepository.findAllForUpdate(userIds, courseIds)) {
+            completions.computeIfAbsent(completion.getUserId(), id -> new HashMap<>()).put(completion.getCourseId(), completion);
+        }
+        return completions;
+    }
+
+    /**
+     * Creates the completion of a user in a course unless it exists, seeded with the sessions already completed, and
+     * locks it.
+     */
+    private CourseCompletion create(Long userId, Long courseId) {
+        courseCompletionRepository.insertIfMissing(userId, courseId);
+        CourseCompletion completion = courseCompletionRepository.findAllForUpdate(List.of(userId), List.of(courseId)).get(0);
+        markCompleted(completion, courseSessionProgressRepository.findCompletedSessionIds(userId, courseId, threshold), Instant.now());
+        return completion;
+    }
+
+    private void markCompleted(CourseCompletion completion, List<Long> sessionIds, Instant now) {
+        CourseCompletionLayout layout = getLayout(completion.getCourseId());
+        BitSet completed = BitSet.valueOf(completion.getCompletedSessions());
+        int added = 0;
+        for (Long sessionId : sessionIds) {
+            Integer ordinal = layout.ordinalOf(sessionId);
+            if (ordinal != null && !completed.get(ordinal)) {
+                completed.set(ordinal);
+                added++;
+            }
+        }
+        if (added > 0) {
+            completion.setCompletedSessions(completed.toByteArray());
+            completion.setCompletedCount(completion.getCompletedCount() + added);
+            completion.setLastCompletedDate(now);
+        }
+    }
+
+    private static boolean hasOrdinals(List<Object[]> rows) {
+        Set<Integer> seen = new HashSet<>();
+        for (Object[] row : rows) {
+            if (row[1] == null || !seen.add((Integer) row[1])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gives ordinals from the counter of the course to the sessions without one, or sharing one with an earlier
+     * session, and moves the counter past them.
+     *
+     * @param next the counter of the course, {@code null} for a course predating it.
+     * @return whether any ordinal was assigned; the rows are updated in place.
+     */
+    private boolean assignOrdinals(Long courseId, List<Object[]> rows, Integer next) {
+        int highest = rows.stream().filter(row -> row[1] != null).mapToInt(row -> (Integer) row[1]).max().orElse(-1);
+        int counter = Math.max(next == null ? 0 : next, highest + 1);
+        Set<Integer> seen = new HashSet<>();
+        boolean assigned = false;
+        for (Object[] row : rows) {
+            if (row[1] == null || !seen.add((Integer) row[1])) {
+                row[1] = counter++;
+                seen.add((Integer) row[1]);
+                courseSessionRepository.updateCompletionOrdinal((Long) row[0], (Integer) row[1]);
+                assigned = true;
+            }
+        }
+        if (assigned) {
+            courseRepository.advanceNextCompletionOrdinal(courseId, counter);
+        }
+        if (counter > CourseCompletionLayout.MAX_ORDINALS) {
+            log.warn("Course {} has handed out more completion ordinals than its completion can track", courseId);
+        }
+        return assigned;
+    }
+}
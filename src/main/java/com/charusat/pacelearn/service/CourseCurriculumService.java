@@ -0,0 +1,127 @@
+package com.charusat.pacelearn.service;
+
+import com.charusat.pacelearn.config.ApplicationProperties;
+import com.charusat.pacelearn.repository.CourseRepository;
+import com.charusat.pacelearn.repository.CourseSectionRepository;
+import com.charusat.pacelearn.repository.CourseSessionRepository;
+import com.charusat.pacelearn.service.dto.CourseCurriculumDTO;
+import com.charusat.pacelearn.service.dto.CourseCurriculumDTO.CourseSummary;
+import com.charusat.pacelearn.service.dto.CourseCurriculumDTO.SectionSummary;
+import com.charusat.pacelearn.service.dto.CourseCurriculumDTO.SessionSummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Service assembling the {@link CourseCurriculumDTO} of a course from three queries, one for the course, one for its
+ * sections and one for all its sessions, and caching it until a course, section or session write of the course
+ * commits.
+ */
+@Service
+@Transactional(readOnly = true)
+public class CourseCurriculumService {
+
+    private final Logger log = LoggerFactory.getLogger(CourseCurriculumService.class);
+
+    private final CourseRepository courseRepository;
+
+    private final CourseSectionRepository courseSectionRepository;
+
+    private final CourseSessionRepository courseSessionRepository;
+
+    private final CourseCache<CourseCurriculumDTO> curricula;
+
+    public CourseCurriculumService(
+        CourseRepository courseRepository,
+        CourseSectionRepository courseSectionRepository,
+        CourseSessionRepository courseSessionRepository,
+        ApplicationProperties applicationProperties
+    ) {
+        this.courseRepository = courseRepository;
+        this.courseSectionRepository = courseSectionRepository;
+        this.courseSessionRepository = courseSessionRepository;
+        ApplicationProperties.Curriculum properties = applicationProperties.getCurriculum();
+        this.curricula = new CourseCache<>(properties.getMaxCachedCourses(), Duration.ofSeconds(properties.getExpireAfterWriteSeconds()));
+    }
+
+    /**
+     * Get the curriculum of a course.
+     *
+     * @param courseId the id of the course.
+     * @return the curriculum, empty when the course does not exist.
+     */
+    public Optional<CourseCurriculumDTO> getCurriculum(Long courseId) {
+        CourseCurriculumDTO curriculum = curricula.getIfPresent(courseId);
+        if (curriculum != null) {
+            return Optional.of(curriculum);
+        }
+        long generation = curricula.generation();
+        List<Object[]> courseRows = courseRepository.findCurriculumSummary(courseId);
+        if (courseRows.isEmpty()) {
+            return Optional.empty();
+        }
+        Object[] row = courseRows.get(0);
+        CourseSummary course = new CourseSummary(
+            (Long) row[0],
+            (String) row[1],
+            (String) row[2],
+            (String) row[3],
+            (String) row[4],
+            (Double) row[5],
+            fullName((String) row[9], (String) row[10]),
+            (Long) row[6],
+            (Integer) row[7],
+            (Integer) row[8]
+        );
+
+        Map<Long, List<SessionSummary>> sessionsBySection = new HashMap<>();
+        for (Object[] session : courseSessionRepository.findCurriculumSessions(courseId)) {
+            sessionsBySection
+                .computeIfAbsent((Long) session[0], sectionId -> new ArrayList<>())
+                .add(new SessionSummary((Long) session[1], (String) session[2], (Long) session[3], (Integer) session[4], (Boolean) session[5]));
+        }
+        List<SectionSummary> sections = new ArrayList<>();
+        for (Object[] section : courseSectionRepository.findCurriculumSections(courseId)) {
+            List<SessionSummary> sessions = sessionsBySection.getOrDefault((Long) section[0], Collections.emptyList());
+            sections.add(
+                new SectionSummary(
+                    (Long) section[0],
+                    (String) section[1],
+                    (String) section[2],
+                    (Integer) section[3],
+                    (Long) section[4],
+                    Collections.unmodifiableList(sessions)
+                )
+            );
+        }
+        curriculum = new CourseCurriculumDTO(course, Collections.unmodifiableList(sections));
+        curricula.put(courseId, curriculum, generation);
+        log.debug("Assembled the curriculum of Course {} : {} sections", courseId, sections.size());
+        return Optional.of(curriculum);
+    }
+
+    /**
+     * Drops the cached curriculum of a course once a write to it, its sections or its sessions commits.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void courseChanged(CourseChangedEvent event) {
+        curricula.invalidate(event.getCourseId());
+    }
+
+    private static String fullName(String firstName, String lastName) {
+        String name = Stream.of(firstName, lastName).filter(part -> part != null && !part.isBlank()).collect(Collectors.joining(" "));
+        return name.isEmpty() ? null : name;
+    }
+}
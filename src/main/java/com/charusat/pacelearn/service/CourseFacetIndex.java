@@ -0,0 +1,242 @@
+package com.charusat.pacelearn.service;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Compressed bitmap index of the approved courses, with one bitmap per facet value.
+ * <p>
+ * Bitmaps hold dense ordinals rather than course ids, which are longs. Ordinals follow the order of the
+ * course listings, {@code (courseCreatedOn, id)}, so the newest hits are the highest ordinals. A course
+ * sorting after every indexed course takes the next ordinal; any other one renumbers the whole index, which
+ * also drops the ordinals of removed courses.
+ * <p>
+ * Not thread-safe.
+ */
+public final class CourseFacetIndex {
+
+    public static final String LEVEL = "level";
+    public static final String TYPE = "type";
+    public static final String CATEGORY = "category";
+    public static final String PRICE = "price";
+
+    public static final List<String> FACETS = List.of(LEVEL, TYPE, CATEGORY, PRICE);
+
+    /**
+     * The order of the listings, oldest first; MySQL sorts a missing creation date as the oldest.
+     */
+    private static final Comparator<Entry> LISTING_ORDER = Comparator
+        .comparing((Entry entry) -> entry.createdOn, Comparator.nullsFirst(Comparator.naturalOrder()))
+        .thenComparingLong(entry -> entry.courseId);
+
+    private static final int MAX_ORDINALS = Integer.MAX_VALUE - 8;
+
+    private final RoaringBitmap all = new RoaringBitmap();
+
+    private final Map<String, Map<String, RoaringBitmap>> bitmaps = new HashMap<>();
+
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+
+    private Entry[] entries = new Entry[64];
+
+    private int nextOrdinal;
+
+    public CourseFacetIndex() {
+        FACETS.forEach(facet -> bitmaps.put(facet, new HashMap<>()));
+    }
+
+    /**
+     * Index a course, replacing its previous facet values.
+     *
+     * @param courseId the id of the course.
+     * @param createdOn the creation date of the course, which orders the hits.
+     * @param values the value of each facet of the course; facets without a value may be absent.
+     */
+    public void put(long courseId, LocalDate createdOn, Map<String, String> values) {
+        Entry entry = new Entry(courseId, createdOn, values);
+        Integer ordinal = ordinals.get(courseId);
+        if (ordinal != null && Objects.equals(entries[ordinal].createdOn, createdOn)) {
+            unindex(ordinal);
+            index(ordinal, entry);
+            return;
+        }
+        remove(courseId);
+        if (nextOrdinal > 0 && nextOrdinal < MAX_ORDINALS && LISTING_ORDER.compare(entries[nextOrdinal - 1], entry) < 0) {
+            if (nextOrdinal == entries.length) {
+                entries = Arrays.copyOf(entries, (int) Math.min(MAX_ORDINALS, 2L * entries.length));
+            }
+            index(nextOrdinal++, entry);
+        } else {
+            renumber(entry);
+        }
+    }
+
+    public void remove(long courseId) {
+        Integer ordinal = ordinals.remove(courseId);
+        if (ordinal == null) {
+            return;
+        }
+        unindex(ordinal);
+        // the entry stays as the sort key of its ordinal until the next renumbering
+    }
+
+    /**
+     * Page through hits, newest first.
+     *
+     * @param hits the hits of a {@link #query(Map)}.
+     * @param offset the number of hits to skip.
+     * @param limit the most course ids returned.
+     * @return the ids of the courses of the page, in listing order.
+     */
+    public List<Long> newestFirst(RoaringBitmap hits, long offset, int limit) {
+        List<Long> courseIds = new ArrayList<>(limit);
+        long total = hits.getLongCardinality();
+        for (long rank = offset; rank < total && courseIds.size() < limit; rank++) {
+            courseIds.add(entries[hits.select((int) (total - 1 - rank))].courseId);
+        }
+        return courseIds;
+    }
+
+    /**
+     * Match the courses against a selection: values of one facet are OR-ed, facets are AND-ed.
+     * <p>
+     * The count of a value is the number of hits the selection would have if that facet were set to
+     * that value alone, so selecting a value never hides the other values of its own facet.
+     *
+     * @param selection the selected values of each facet; facets without a selection may be absent.
+     * @return the hits and the count of every facet value.
+     */
+    public Result query(Map<String, ? extends Collection<String>> selection) {
+        Map<String, RoaringBitmap> matches = new HashMap<>();
+        selection.forEach(
+            (facet, values) -> {
+                if (values != null && !values.isEmpty() && bitmaps.containsKey(facet)) {
+                    RoaringBitmap match = new RoaringBitmap();
+                    for (String value : values) {
+                        RoaringBitmap bitmap = bitmaps.get(facet).get(value);
+                        if (bitmap != null) {
+                            match.or(bitmap);
+                        }
+                    }
+                    matches.put(facet, match);
+                }
+            }
+        );
+        RoaringBitmap hits = all.clone();
+        matches.values().forEach(hits::and);
+
+        Map<String, Map<String, Integer>> counts = new LinkedHashMap<>();
+        for (String facet : FACETS) {
+            RoaringBitmap others = hits;
+            if (matches.containsKey(facet)) {
+                others = all.clone();
+                for (Map.Entry<String, RoaringBitmap> match : matches.entrySet()) {
+                    if (!match.getKey().equals(facet)) {
+                        others.and(match.getValue());
+                    }
+                }
+            }
+            Map<String, Integer> facetCounts = new LinkedHashMap<>();
+            for (Map.Entry<String, RoaringBitmap> value : bitmaps.get(facet).entrySet()) {
+                int count = RoaringBitmap.andCardinality(value.getValue(), others);
+                if (count > 0) {
+                    facetCounts.put(value.getKey(), count);
+                }
+            }
+            counts.put(facet, Collections.unmodifiableMap(facetCounts));
+        }
+        return new Result(hits, Collections.unmodifiableMap(counts));
+    }
+
+    public int size() {
+        return all.getCardinality();
+    }
+
+    private void index(int ordinal, Entry entry) {
+        entries[ordinal] = entry;
+        ordinals.put(entry.courseId, ordinal);
+        all.add(ordinal);
+        entry.values.forEach((facet, value) -> bitmaps.get(facet).computeIfAbsent(value, key -> new RoaringBitmap()).add(ordinal));
+    }
+
+    private void unindex(int ordinal) {
+        all.remove(ordinal);
+        entries[ordinal].values.forEach(
+            (facet, value) -> {
+                Map<String, RoaringBitmap> facetBitmaps = bitmaps.get(facet);
+                RoaringBitmap bitmap = facetBitmaps.get(value);
+                bitmap.remove(ordinal);
+                if (bitmap.isEmpty()) {
+                    facetBitmaps.remove(value);
+                }
+            }
+        );
+    }
+
+    /**
+     * Re-assign the ordinals of the indexed courses and of one more in listing order, from 0.
+     */
+    private void renumber(Entry added) {
+        List<Entry> live = new ArrayList<>(ordinals.size() + 1);
+        ordinals.values().forEach(ordinal -> live.add(entries[ordinal]));
+        live.add(added);
+        live.sort(LISTING_ORDER);
+        all.clear();
+        bitmaps.values().forEach(Map::clear);
+        ordinals.clear();
+        entries = new Entry[Math.max(64, live.size() + live.size() / 2)];
+        nextOrdinal = 0;
+        for (Entry entry : live) {
+            index(nextOrdinal++, entry);
+        }
+    }
+
+    private static final class Entry {
+
+        private final long courseId;
+
+        private final LocalDate createdOn;
+
+        private final Map<String, String> values;
+
+        Entry(long courseId, LocalDate createdOn, Map<String, String> values) {
+            this.courseId = courseId;
+            this.createdOn = createdOn;
+            this.values = values;
+        }
+    }
+
+    public static final class Result {
+
+        private final RoaringBitmap hits;
+
+        private final Map<String, Map<String, Integer>> facetCounts;
+
+        private Result(RoaringBitmap hits, Map<String, Map<String, Integer>> facetCounts) {
+            this.hits = hits;
+            this.facetCounts = facetCounts;
+        }
+
+        /**
+         * @return the ordinals of the matching courses, to page with {@link #newestFirst}; owned by the caller.
+         */
+        public RoaringBitmap getHits() {
+            return hits;
+        }
+
+        public Map<String, Map<String, Integer>> getFacetCounts() {
+            return facetCounts;
+        }
+    }
+}
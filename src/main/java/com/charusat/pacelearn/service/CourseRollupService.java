@@ -0,0 +1,197 @@
+package com.charusat.pacelearn.service;
+
+import com.charusat.pacelearn.config.ApplicationProperties;
+import com.charusat.pacelearn.domain.CourseSession;
+import com.charusat.pacelearn.repository.CourseRepository;
+import com.charusat.pacelearn.repository.CourseSectionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Service maintaining the session rollups of the courses and sections: total duration, session count, preview count
+ * and approved count.
+ * <p>
+ * Every session write applies its contribution as a delta, in the transaction of the write. The whole catalog is
+ * recomputed from the sessions every night, id range by id range in parallel, and once at startup while courses
+ * without rollups remain.
+ */
+@Service
+public class CourseRollupService {
+
+    private final Logger log = LoggerFactory.getLogger(CourseRollupService.class);
+
+    private final CourseRepository courseRepository;
+
+    private final CourseSectionRepository courseSectionRepository;
+
+    private final int parallelism;
+
+    private final int chunkSize;
+
+    public CourseRollupService(
+        CourseRepository courseRepository,
+        CourseSectionRepository courseSectionRepository,
+        ApplicationProperties applicationProperties
+    ) {
+        this.courseRepository = courseRepository;
+        this.courseSectionRepository = courseSectionRepository;
+        ApplicationProperties.CourseRollups properties = applicationProperties.getCourseRollups();
+        this.parallelism = Math.max(1, properties.getParallelism());
+        this.chunkSize = Math.max(1, properties.getChunkSize());
+    }
+
+    /**
+     * Apply a session write to the rollups; must run in the transaction of the write.
+     *
+     * @param before the contribution of the session before the write, {@code null} when it is created.
+     * @param after the contribution of the session after the write, {@code null} when it is deleted.
+     */
+    public void sessionChanged(Contribution before, Contribution after) {
+        if (before != null && after != null && before.sameParents(after)) {
+            add(
+                after.sectionId,
+                after.courseId,
+                after.duration - before.duration,
+                0,
+                after.previews - before.previews,
+                after.approved - before.approved
+            );
+            return;
+        }
+        if (before != null) {
+            add(before.sectionId, before.courseId, -before.duration, -1, -before.previews, -before.approved);
+        }
+        if (after != null) {
+            add(after.sectionId, after.courseId, after.duration, 1, after.previews, after.approved);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recomputeIfMissing() {
+        if (courseRepository.existsBySessionCountIsNull()) {
+            recomputeAll();
+        }
+    }
+
+    /**
+     * Recomputes the rollups of every section and course from their sessions.
+     */
+    @Scheduled(cron = "${application.course-rollups.recompute-cron:0 0 5 * * ?}")
+    public void recomputeAll() {
+        long start = System.nanoTime();
+        int sections = recompute(courseSectionRepository.findMaxId(), courseSectionRepository::recomputeRollups);
+        int courses = recompute(courseRepository.findMaxId(), courseRepository::recomputeRollups);
+        log.info(
+            "Recomputed the rollups of {} sections and {} courses in {} ms",
+            sections,
+            courses,
+            (System.nanoTime() - start) / 1_000_000
+        );
+    }
+
+    private void add(Long sectionId, Long courseId, long duration, int sessions, int previews, int approved) {
+        if (duration == 0 && sessions == 0 && previews == 0 && approved == 0) {
+            return;
+        }
+        if (sectionId != null) {
+            courseSectionRepository.addToRollups(sectionId, duration, sessions, previews, approved);
+        }
+        if (courseId != null) {
+            courseRepository.addToRollups(courseId, duration, sessions, previews, approved);
+        }
+    }
+
+    /**
+     * Runs a range recomputation over ids 1 to {@code maxId} in chunks, {@code parallelism} chunks at a time; each
+     * chunk commits on its own.
+     *
+     * @return the number of rows updated.
+     */
+    private int recompute(Long maxId, RangeStatement statement) {
+        if (maxId == null) {
+            return 0;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            List<Future<Integer>> chunks = new ArrayList<>();
+            for (long fromId = 1; fromId <= maxId; fromId += chunkSize) {
+                long from = fromId;
+                long to = Math.min(maxId, fromId + chunkSize - 1);
+                chunks.add(executor.submit(() -> statement.apply(from, to)));
+            }
+            int updated = 0;
+            for (Future<Integer> chunk : chunks) {
+                updated += chunk.get();
+            }
+            return updated;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Rollup recomputation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Rollup recomputation failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface RangeStatement {
+        int apply(long fromId, long toId);
+    }
+
+    /**
+     * What one session adds to the rollups of its section and course.
+     */
+    public static final class Contribution {
+
+        private final Long sectionId;
+
+        private final Long courseId;
+
+        private final long duration;
+
+        private final int previews;
+
+        private final int approved;
+
+        private Contribution(Long sectionId, Long courseId, long duration, int previews, int approved) {
+            this.sectionId = sectionId;
+            this.courseId = courseId;
+            this.duration = duration;
+            this.previews = previews;
+            this.approved = approved;
+        }
+
+        /**
+         * Take the contribution of a session as it is now.
+         *
+         * @param courseSession the session.
+         * @param courseId the id of the course of the session.
+         */
+        public static Contribution of(CourseSession courseSession, Long courseId) {
+            return new Contribution(
+                courseSession.getCourseSection() == null ? null : courseSession.getCourseSection().getId(),
+                courseId,
+                courseSession.getSessionDuration() == null ? 0 : courseSession.getSessionDuration(),
+                Boolean.TRUE.equals(courseSession.getIsPreview()) ? 1 : 0,
+                Boolean.TRUE.equals(courseSession.getIsApproved()) ? 1 : 0
+            );
+        }
+
+        boolean sameParents(Contribution other) {
+            return Objects.equals(sectionId, other.sectionId) && Objects.equals(courseId, other.courseId);
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package com.charusat.pacelearn.service;
+
+import com.charusat.pacelearn.config.ApplicationProperties;
+import com.charusat.pacelearn.domain.Course;
+import com.charusat.pacelearn.repository.CourseRepository;
+import com.charusat.pacelearn.repository.CourseSessionRepository;
+import com.charusat.pacelearn.service.dto.CourseSearchHitDTO;
+import com.charusat.pacelearn.web.rest.errors.BadRequestAlertException;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.en.EnglishAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopScoreDocCollector;
+import org.apache.lucene.search.highlight.Highlighter;
+import org.apache.lucene.search.highlight.InvalidTokenOffsetsException;
+import org.apache.lucene.search.highlight.QueryScorer;
+import org.apache.lucene.search.highlight.SimpleHTMLEncoder;
+import org.apache.lucene.search.highlight.SimpleHTMLFormatter;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service keeping an on-disk full-text index of the approved courses.
+ * <p>
+ * Every approved course is one document holding its title, sub-title, description, objectives,
+ * category title and session titles, stemmed with the English analyzer and ranked with BM25. The
+ * index survives restarts and is only rebuilt from the database when it is empty or on demand.
+ * Writes report the courses they touched; those are re-indexed every
+ * {@code application.search.refresh-delay-ms}.
+ */
+@Service
+@Transactional(readOnly = true)
+public class CourseSearchService {
+
+    public static final String ID = "id";
+    public static final String TITLE = "courseTitle";
+    public static final String SUB_TITLE = "courseSubTitle";
+    public static final String DESCRIPTION = "courseDescription";
+    public static final String OBJECTIVES = "courseObjectives";
+    public static final String CATEGORY = "courseCategory";
+    public static final String SESSIONS = "sessions";
+    private static final String LOGO = "courseLogo";
+
+    private static final String[] SEARCH_FIELDS = { TITLE, SUB_TITLE, DESCRIPTION, OBJECTIVES, CATEGORY, SESSIONS };
+
+    private static final Map<String, Float> BOOSTS = Map.of(TITLE, 3f, SUB_TITLE, 2f, CATEGORY, 1.5f);
+
+    private static final String SESSION_SEPARATOR = " | ";
+
+    /**
+     * Deepest hit a client can page to.
+     */
+    private static final int MAX_RESULT_WINDOW = 1_000;
+
+    private static final int BATCH_SIZE = 500;
+
+    private final Logger log = LoggerFactory.getLogger(CourseSearchService.class);
+
+    private final CourseRepository courseRepository;
+
+    private final CourseSessionRepository courseSessionRepository;
+
+    private final Analyzer analyzer = new EnglishAnalyzer();
+
+    private final Directory directory;
+
+    private final IndexWriter indexWriter;
+
+    private final SearcherManager searcherManager;
+
+    private final Set<Long> pendingCourseIds = ConcurrentHashMap.newKeySet();
+
+    public CourseSearchService(
+        CourseRepository courseRepository,
+        CourseSessionRepository courseSessionRepository,
+        ApplicationProperties applicationProperties
+    ) throws IOException {
+        this.courseRepository = courseRepository;
+        this.courseSessionRepository = courseSessionRepository;
+        this.directory = FSDirectory.open(Paths.get(applicationProperties.getSearch().getIndexDirectory()));
+        this.indexWriter = new IndexWriter(directory, new IndexWriterConfig(analyzer).setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+        this.searcherManager = new SearcherManager(indexWriter, null);
+    }
+
+    /**
+     * Builds the index from the database when it is empty, on first start or after it was deleted.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        if (indexWriter.getDocStats().numDocs == 0) {
+            reindexAll();
+        }
+    }
+
+    /**
+     * Rebuilds the whole index from the approved courses.
+     */
+    public synchronized void reindexAll() {
+        List<Course> courses = courseRepository.findAllByIsApproved(true);
+        try {
+            indexWriter.deleteAll();
+            for (int from = 0; from < courses.size(); from += BATCH_SIZE) {
+                List<Course> batch = courses.subList(from, Math.min(from + BATCH_SIZE, courses.size()));
+                Map<Long, List<String>> sessionTitles = sessionTitlesByCourseId(batch);
+                for (Course course : batch) {
+                    indexWriter.addDocument(toDocument(course, sessionTitles.getOrDefault(course.getId(), Collections.emptyList())));
+                }
+            }
+            commit();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.info("Indexed {} courses for search", courses.size());
+    }
+
+    /**
+     * Queues a committed write touching a course or one of its sessions for re-indexing.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void courseChanged(CourseChangedEvent event) {
+        pendingCourseIds.add(event.getCourseId());
+    }
+
+    /**
+     * Re-indexes the courses reported since the last run.
+     */
+    @Scheduled(fixedDelayString = "${application.search.refresh-delay-ms:1000}")
+    public synchronized void refreshPending() {
+        if (pendingCourseIds.isEmpty()) {
+            return;
+        }
+        Set<Long> courseIds = new HashSet<>(pendingCourseIds);
+        pendingCourseIds.removeAll(courseIds);
+        boolean refreshed = false;
+        try {
+            List<Course> courses = courseRepository.findAllById(courseIds);
+            Map<Long, List<String>> sessionTitles = sessionTitlesByCourseId(courses);
+            Set<Long> indexed = new HashSet<>();
+            for (Course course : courses) {
+                if (Boolean.TRUE.equals(course.getIsApproved())) {
+                    indexWriter.updateDocument(
+                        idTerm(course.getId()),
+                        toDocument(course, sessionTitles.getOrDefault(course.getId(), Collections.emptyList()))
+                    );
+                    indexed.add(course.getId());
+                }
+            }
+            for (Long courseId : courseIds) {
+                if (!indexed.contains(courseId)) {
+                    indexWriter.deleteDocuments(idTerm(courseId));
+                }
+            }
+            commit();
+            refreshed = true;
+        } catch (IOException e) {
+            log.warn("Could not update the search index: {}", e.getMessage());
+        } finally {
+            if (!refreshed) {
+                // retried on the next run, whatever the failure
+                pendingCourseIds.addAll(courseIds);
+            }
+        }
+    }
+
+    /**
+     * Search the approved courses.
+     *
+     * @param text the text typed by the user, taken literally.
+     * @param pageable the pagination information.
+     * @return the page of hits, best first.
+     */
+    public Page<CourseSearchHitDTO> search(String text, Pageable pageable) {
+        if (text == null || text.isBlank() || pageable.getOffset() >= MAX_RESULT_WINDOW) {
+            return new PageImpl<>(Collections.emptyList(), pageable, 0);
+        }
+        Query query;
+        try {
+            query = new MultiFieldQueryParser(SEARCH_FIELDS, analyzer, BOOSTS).parse(QueryParser.escape(text.strip()));
+        } catch (ParseException e) {
+            throw new BadRequestAlertException("Invalid search query", "course", "searchinvalid");
+        }
+        int offset = (int) pageable.getOffset();
+        int window = Math.min(offset + pageable.getPageSize(), MAX_RESULT_WINDOW);
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                TopScoreDocCollector collector = TopScoreDocCollector.create(window, Integer.MAX_VALUE);
+                searcher.search(query, collector);
+                TopDocs topDocs = collector.topDocs(offset, window - offset);
+                Highlighter highlighter = new Highlighter(
+                    new SimpleHTMLFormatter("<em>", "</em>"),
+                    new SimpleHTMLEncoder(),
+                    new QueryScorer(query)
+                );
+                List<CourseSearchHitDTO> hits = new ArrayList<>();
+                for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                    hits.add(toHit(searcher.doc(scoreDoc.doc), scoreDoc.score, highlighter));
+                }
+                return new PageImpl<>(hits, pageable, topDocs.totalHits.value);
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Applies the writes still queued before closing the index, so none is lost on shutdown.
+     */
+    @PreDestroy
+    public void close() throws IOException {
+        try {
+            refreshPending();
+        } catch (RuntimeException e) {
+            log.warn("Could not update the search index on shutdown: {}", e.getMessage());
+        }
+        searcherManager.close();
+        indexWriter.close();
+        directory.close();
+    }
+
+    private void commit() throws IOException {
+        indexWriter.commit();
+        searcherManager.maybeRefresh();
+    }
+
+    private Map<Long, List<String>> sessionTitlesByCourseId(Collection<Course> courses) {
+        Map<Long, List<String>> titles = new HashMap<>();
+        if (courses.isEmpty()) {
+            return titles;
+        }
+        List<Long> courseIds = new ArrayList<>();
+        courses.forEach(course -> courseIds.add(course.getId()));
+        for (Object[] row : courseSessionRepository.findSessionTitlesByCourseIdIn(courseIds)) {
+            titles.computeIfAbsent((Long) row[0], key -> new ArrayList<>()).add((String) row[1]);
+        }
+        return titles;
+    }
+
+    private static Term idTerm(Long courseId) {
+        return new Term(ID, courseId.toString());
+    }
+
+    private static Document toDocument(Course course, List<String> sessionTitles) {
+        Document document = new Document();
+        document.add(new StringField(ID, course.getId().toString(), Field.Store.YES));
+        addText(document, TITLE, course.getCourseTitle());
+        addText(document, SUB_TITLE, course.getCourseSubTitle());
+        addText(document, DESCRIPTION, course.getCourseDescription());
+        addText(document, OBJECTIVES, course.getCourseObjectives());
+        if (course.getCourseCategory() != null) {
+            addText(document, CATEGORY, course.getCourseCategory().getCourseCategoryTitle());
+        }
+        addText(document, SESSIONS, String.join(SESSION_SEPARATOR, sessionTitles));
+        if (course.getCourseLogo() != null) {
+            document.add(new StoredField(LOGO, course.getCourseLogo()));
+        }
+        return document;
+    }
+
+    private static void addText(Document document, String field, String value) {
+        if (value != null && !value.isBlank()) {
+            document.add(new TextField(field, value, Field.Store.YES));
+        }
+    }
+
+    private CourseSearchHitDTO toHit(Document document, float score, Highlighter highlighter) throws IOException {
+        CourseSearchHitDTO hit = new CourseSearchHitDTO();
+        hit.setCourseId(Long.valueOf(document.get(ID)));
+        hit.setCourseTitle(document.get(TITLE));
+        hit.setCourseSubTitle(document.get(SUB_TITLE));
+        hit.setCourseLogo(document.get(LOGO));
+        hit.setScore(score);
+        Map<String, String> highlights = new LinkedHashMap<>();
+        for (String field : SEARCH_FIELDS) {
+            String value = document.get(field);
+            if (value == null) {
+                continue;
+            }
+            try {
+                String fragment = highlighter.getBestFragment(analyzer, field, value);
+                if (fragment != null) {
+                    highlights.put(field, fragment);
+                }
+            } catch (InvalidTokenOffsetsException e) {
+                log.debug("Could not highlight {} of course {}", field, hit.getCourseId());
+            }
+        }
+        hit.setHighlights(highlights);
+        return hit;
+    }
+}
@@ -3,6 +3,7 @@ package com.charusat.pacelearn.service;
 import com.charusat.pacelearn.domain.Course;
 import com.charusat.pacelearn.domain.User;
 import com.charusat.pacelearn.service.dto.CourseDTO;
+import com.charusat.pacelearn.service.dto.CursorPageDTO;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
@@ -35,13 +36,14 @@ public interface CourseService {
     Optional<CourseDTO> partialUpdate(CourseDTO courseDTO);
 
     /**
-     * Get all the courses.
+     * Get one page of the approved courses, newest first.
      *
-     * @param pageable the pagination information.
-     * @return the list of entities.
+     * @param cursor the continuation token returned with the previous page, {@code null} for the first page.
+     * @param size the maximum number of courses on the page.
+     * @return the page of entities.
      */
 //    Page<CourseDTO> findAllOpen(Pageable pageable);
-    List<Course> findAllOpen();
+    CursorPageDTO<Course> findAllOpen(String cursor, int size);
 
     /**
      * Get the "id" course.
@@ -79,7 +81,14 @@ public interface CourseService {
 
     ResponseEntity<Set<User>> getEnrolledUsersByCourseId(Long courseId);
 
-    List<Course> findAll();
+    /**
+     * Get one page of the courses visible to the current user, newest first.
+     *
+     * @param cursor the continuation token returned with the previous page, {@code null} for the first page.
+     * @param size the maximum number of courses on the page.
+     * @return the page of entities.
+     */
+    CursorPageDTO<Course> findAll(String cursor, int size);
 
     Course approveCourse(Long courseId);
     Course disApproveCourse(Long courseId);
@@ -0,0 +1,112 @@
+package com.charusat.pacelearn.service;
+
+import com.charusat.pacelearn.config.ApplicationProperties;
+import com.charusat.pacelearn.repository.CourseEnrollmentCounterRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Service maintaining the denormalized enrollment count of every course.
+ * <p>
+ * The count is spread over {@code application.enrollment-counter.slots} rows per course and every
+ * change goes to a random slot, so a registration rush on one course does not serialize on a
+ * single row lock. Changes must run in the transaction that inserts or deletes the enrollment.
+ * The counters are seeded from the course_enrollment table on startup, and reconciled with it nightly.
+ */
+@Service
+@Transactional
+public class EnrollmentCounterService {
+
+    private final Logger log = LoggerFactory.getLogger(EnrollmentCounterService.class);
+
+    private final CourseEnrollmentCounterRepository courseEnrollmentCounterRepository;
+
+    private final int slots;
+
+    public EnrollmentCounterService(
+        CourseEnrollmentCounterRepository courseEnrollmentCounterRepository,
+        ApplicationProperties applicationProperties
+    ) {
+        this.courseEnrollmentCounterRepository = courseEnrollmentCounterRepository;
+        this.slots = Math.max(1, applicationProperties.getEnrollmentCounter().getSlots());
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void increment(Long courseId) {
+        add(courseId, 1L);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void decrement(Long courseId) {
+        add(courseId, -1L);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void deleteByCourseId(Long courseId) {
+        courseEnrollmentCounterRepository.deleteByCourseId(courseId);
+    }
+
+    @Transactional(readOnly = true)
+    public long getCount(Long courseId) {
+        return courseEnrollmentCounterRepository.sumByCourseId(courseId);
+    }
+
+    /**
+     * Get the enrollment count of several courses at once; courses without enrollments are absent.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Long> getCounts(Collection<Long> courseIds) {
+        Map<Long, Long> counts = new HashMap<>();
+        if (courseIds.isEmpty()) {
+            return counts;
+        }
+        for (Object[] row : courseEnrollmentCounterRepository.sumByCourseIdIn(courseIds)) {
+            counts.put((Long) row[0], ((Number) row[1]).longValue());
+        }
+        return counts;
+    }
+
+    @Transactional(readOnly = true)
+    public long getTotalCount() {
+        return courseEnrollmentCounterRepository.sumAll();
+    }
+
+    /**
+     * Reconciles the counters with the course_enrollment table.
+     * <p>
+     * Runs once the application is ready, which seeds the counters of enrollments made before they were
+     * maintained, and then on {@code application.enrollment-counter.repair-cron}.
+     * <p>
+     * Drift is applied as a correcting delta instead of rewriting the slots, so enrollments
+     * committed while the repair runs are neither lost nor counted twice.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${application.enrollment-counter.repair-cron:0 30 2 * * ?}")
+    public void repairCounts() {
+        List<Object[]> drift = courseEnrollmentCounterRepository.findDrift();
+        for (Object[] row : drift) {
+            Long courseId = ((Number) row[0]).longValue();
+            long actual = ((Number) row[1]).longValue();
+            long counted = ((Number) row[2]).longValue();
+            log.warn("Repairing enrollment count of Course {} : counted {}, actual {}", courseId, counted, actual);
+            courseEnrollmentCounterRepository.addToSlot(courseId, 0, actual - counted);
+        }
+        log.debug("Enrollment counter repair corrected {} courses", drift.size());
+    }
+
+    private void add(Long courseId, Long delta) {
+        courseEnrollmentCounterRepository.addToSlot(courseId, ThreadLocalRandom.current().nextInt(slots), delta);
+    }
+}
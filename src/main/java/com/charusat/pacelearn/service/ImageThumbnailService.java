@@ -0,0 +1,430 @@
+package com.charusat.pacelearn.service;
+
+import com.charusat.pacelearn.config.ApplicationProperties;
+import com.charusat.pacelearn.security.MediaUrlSigner;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Service rendering the thumbnails of the course logos, category logos and profile images.
+ * <p>
+ * A thumbnail is rendered on its first request at one of the {@code application.images.widths}, re-encoded as
+ * JPEG, or PNG for the formats that may be transparent. Its URL carries a digest of the content of the source,
+ * so it never changes meaning and can be cached forever; replacing an image gives it new URLs. Rendered
+ * thumbnails are kept on disk within {@code application.images.max-cache-bytes}, the least used being deleted
+ * first.
+ * <p>
+ * The digest of each image is kept once looked up, and refreshed whenever a thumbnail of it has to be rendered,
+ * so listing thumbnail URLs reads no file; a URL made stale by an image replaced in place answers 404 and
+ * refreshes the digest for the next listing.
+ * <p>
+ * Only images of the media storage get thumbnails; images hosted elsewhere keep their URL. The URLs carry a
+ * signature of their source from {@link MediaUrlSigner#signImage(String)}, so the public thumbnail endpoint only
+ * renders the images listed by the server, never the protected media of the sessions.
+ */
+@Service
+public class ImageThumbnailService {
+
+    public static final String PATH_PREFIX = "/images/";
+
+    public static final String FORMAT_JPEG = "jpg";
+    public static final String FORMAT_PNG = "png";
+
+    private static final int DIGEST_LENGTH = 32;
+
+    /**
+     * Larger sources are refused rather than decoded, a few bytes of PNG can declare a gigapixel image.
+     */
+    private static final long MAX_SOURCE_PIXELS = 40_000_000L;
+
+    private final Logger log = LoggerFactory.getLogger(ImageThumbnailService.class);
+
+    private final MediaStorageService mediaStorageService;
+
+    private final MediaUrlSigner mediaUrlSigner;
+
+    private final Path cacheRoot;
+
+    private final int[] widths;
+
+    private final int catalogWidth;
+
+    private final float jpegQuality;
+
+    private final Cache<SourceVersion, String> digests = Caffeine.newBuilder().maximumSize(10_000).build();
+
+    /**
+     * The digest in the thumbnail URLs of each source image.
+     */
+    private final Cache<String, String> thumbnailKeys = Caffeine.newBuilder().maximumSize(10_000).build();
+
+    private final Cache<String, Long> thumbnails;
+
+    public ImageThumbnailService(
+        MediaStorageService mediaStorageService,
+        MediaUrlSigner mediaUrlSigner,
+        ApplicationProperties applicationProperties
+    ) {
+        this.mediaStorageService = mediaStorageService;
+        this.mediaUrlSigner = mediaUrlSigner;
+        ApplicationProperties.Images properties = applicationProperties.getImages();
+        this.cacheRoot = Paths.get(properties.getCacheDirectory()).toAbsolutePath().normalize();
+        this.widths = properties.getWidths().stream().mapToInt(Integer::intValue).sorted().distinct().toArray();
+        this.catalogWidth = properties.getCatalogWidth();
+        this.jpegQuality = properties.getJpegQuality();
+        this.thumbnails =
+            Caffeine
+                .newBuilder()
+                .maximumWeight(properties.getMaxCacheBytes())
+                .weigher((String name, Long size) -> (int) Math.min(Integer.MAX_VALUE, size))
+                .removalListener((String name, Long size, RemovalCause cause) -> {
+                    if (cause.wasEvicted()) {
+                        delete(name);
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Picks up the thumbnails rendered before a restart, the oldest as the least recently used.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadCache() throws IOException {
+        Files.createDirectories(cacheRoot);
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(cacheRoot)) {
+            files = listing.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+        Map<Path, BasicFileAttributes> attributes = new HashMap<>();
+        for (Path file : files) {
+            attributes.put(file, Files.readAttributes(file, BasicFileAttributes.class));
+        }
+        files.sort(Comparator.comparing(file -> attributes.get(file).lastModifiedTime()));
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            if (name.endsWith(".tmp")) {
+                Files.deleteIfExists(file);
+            } else {
+                thumbnails.put(name, attributes.get(file).size());
+            }
+        }
+        log.debug("Loaded {} cached thumbnails", thumbnails.estimatedSize());
+    }
+
+    /**
+     * Get the URL of the thumbnail of an image, as displayed in the catalog grids.
+     *
+     * @see #thumbnailUrl(String, int)
+     */
+    public String thumbnailUrl(String source) {
+        return thumbnailUrl(source, catalogWidth);
+    }
+
+    /**
+     * Get the URL of the thumbnail of an image.
+     *
+     * @param source the stored image: a media key, or the URL of an image hosted elsewhere.
+     * @param width the displayed width, rounded up to the nearest rendered width.
+     * @return the URL of the thumbnail, or {@code source} itself when the image has no thumbnail.
+     */
+    public String thumbnailUrl(String source, int width) {
+        if (!MediaStorageService.isLocalKey(source)) {
+            return source;
+        }
+        // a missing image is not remembered, so it gets a thumbnail as soon as it appears
+        String digest = thumbnailKeys.get(source, this::lookUpDigest);
+        if (digest == null) {
+            return source;
+        }
+        return (
+            PATH_PREFIX +
+            bucket(width) +
+            "/" +
+            digest +
+            "." +
+            formatOf(source) +
+            "?src=" +
+            URLEncoder.encode(source, StandardCharsets.UTF_8) +
+            "&sig=" +
+            mediaUrlSigner.signImage(source)
+        );
+    }
+
+    private String lookUpDigest(String source) {
+        Optional<String> blob = MediaBlobStore.blobName(source);
+        if (blob.isPresent()) {
+            // named after its content, the digest needs no file
+            return blob.get().substring(0, DIGEST_LENGTH);
+        }
+        Optional<Path> file = mediaStorageService.resolve(source);
+        if (file.isEmpty()) {
+            return null;
+        }
+        try {
+            return digest(source, file.get());
+        } catch (IOException e) {
+            log.warn("Could not read image {}: {}", source, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Get the thumbnail URLs of the images of some items, as displayed in the catalog grids.
+     *
+     * @return the thumbnail URL by item id, for the items having an image.
+     */
+    public <T> Map<Long, String> thumbnailUrls(Collection<T> items, Function<T, Long> id, Function<T, String> source) {
+        Map<Long, String> urls = new HashMap<>();
+        for (T item : items) {
+            if (item != null && id.apply(item) != null && source.apply(item) != null) {
+                urls.putIfAbsent(id.apply(item), thumbnailUrl(source.apply(item)));
+            }
+        }
+        return urls;
+    }
+
+    /**
+     * Get the file of a thumbnail, rendering it if needed.
+     *
+     * @param width the width of the thumbnail, one of the rendered widths.
+     * @param digest the digest of the source in the URL.
+     * @param format the format of the thumbnail in the URL.
+     * @param source the media key of the image.
+     * @param signature the signature of the source in the URL.
+     * @return the thumbnail, or empty if the URL is not signed, does not match the current image or the image cannot
+     * be decoded.
+     */
+    public Optional<Path> getThumbnail(int width, String digest, String format, String source, String signature)
+        throws IOException {
+        if (!mediaUrlSigner.verifyImage(source, signature)) {
+            return Optional.empty();
+        }
+        if (bucket(width) != width || digest.length() != DIGEST_LENGTH || !format.equals(formatOf(source))) {
+            return Optional.empty();
+        }
+        String name = digest + "-" + width + "." + format;
+        Path thumbnail = cacheRoot.resolve(name);
+        if (thumbnails.getIfPresent(name) != null && Files.isRegularFile(thumbnail)) {
+            return Optional.of(thumbnail);
+        }
+        Optional<Path> file = mediaStorageService.resolve(source);
+        if (file.isEmpty()) {
+            thumbnailKeys.invalidate(source);
+            return Optional.empty();
+        }
+        String current = digest(source, file.get());
+        thumbnailKeys.put(source, current);
+        if (!digest.equals(current)) {
+            return Optional.empty();
+        }
+        try {
+            thumbnails
+                .asMap()
+                .compute(
+                    name,
+                    (key, size) -> size != null && Files.isRegularFile(thumbnail) ? size : render(file.get(), width, format, thumbnail)
+                );
+        } catch (UncheckedIOException e) {
+            log.warn("Could not render thumbnail of {}: {}", source, e.getMessage());
+            return Optional.empty();
+        }
+        return Optional.of(thumbnail);
+    }
+
+    private long render(Path source, int width, String format, Path thumbnail) {
+        try {
+            BufferedImage image = read(source);
+            int targetWidth = Math.min(width, image.getWidth());
+            int targetHeight = Math.max(1, (int) Math.round(image.getHeight() * (double) targetWidth / image.getWidth()));
+            BufferedImage scaled = scale(image, targetWidth, targetHeight, FORMAT_PNG.equals(format));
+            Files.createDirectories(cacheRoot);
+            Path temporary = Files.createTempFile(cacheRoot, "thumbnail", ".tmp");
+            try {
+                write(scaled, format, temporary);
+                Files.move(temporary, thumbnail, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+            return Files.size(thumbnail);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static BufferedImage read(Path source) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("Not a readable image");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > MAX_SOURCE_PIXELS) {
+                    throw new IOException("Image too large: " + reader.getWidth(0) + "x" + reader.getHeight(0));
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Scales down by successive halvings, which keeps bilinear interpolation free of aliasing.
+     */
+    private static BufferedImage scale(BufferedImage image, int targetWidth, int targetHeight, boolean transparent) {
+        BufferedImage current = image;
+        int width = image.getWidth();
+        int height = image.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage next = new BufferedImage(width, height, transparent ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                if (!transparent) {
+                    graphics.setColor(Color.WHITE);
+                    graphics.fillRect(0, 0, width, height);
+                }
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private void write(BufferedImage image, String format, Path target) throws IOException {
+        if (FORMAT_PNG.equals(format)) {
+            if (!ImageIO.write(image, "png", target.toFile())) {
+                throw new IOException("No PNG writer");
+            }
+            return;
+        }
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * The digest of the content of an image: the name of its blob, or a hash of the file kept per version of it.
+     */
+    private String digest(String source, Path file) throws IOException {
+        Optional<String> blob = MediaBlobStore.blobName(source);
+        if (blob.isPresent()) {
+            return blob.get().substring(0, DIGEST_LENGTH);
+        }
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        SourceVersion version = new SourceVersion(file, attributes.lastModifiedTime().toMillis(), attributes.size());
+        String digest = digests.getIfPresent(version);
+        if (digest == null) {
+            digest = MediaBlobStore.sha256(file).substring(0, DIGEST_LENGTH);
+            digests.put(version, digest);
+        }
+        return digest;
+    }
+
+    private int bucket(int width) {
+        for (int bucket : widths) {
+            if (bucket >= width) {
+                return bucket;
+            }
+        }
+        return widths[widths.length - 1];
+    }
+
+    private static String formatOf(String source) {
+        String extension = MediaBlobStore.extensionOf(source);
+        return "png".equals(extension) || "gif".equals(extension) ? FORMAT_PNG : FORMAT_JPEG;
+    }
+
+    private void delete(String name) {
+        try {
+            Files.deleteIfExists(cacheRoot.resolve(name));
+        } catch (IOException e) {
+            log.warn("Could not delete thumbnail {}: {}", name, e.getMessage());
+        }
+    }
+
+    private static final class SourceVersion {
+
+        private final Path file;
+
+        private final long lastModified;
+
+        private final long size;
+
+        SourceVersion(Path file, long lastModified, long size) {
+            this.file = file;
+            this.lastModified = lastModified;
+            this.size = size;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SourceVersion)) {
+                return false;
+            }
+            SourceVersion other = (SourceVersion) o;
+            return lastModified == other.lastModified && size == other.size && file.equals(other.file);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(file, lastModified, size);
+        }
+    }
+}
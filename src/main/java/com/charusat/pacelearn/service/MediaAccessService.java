@@ -0,0 +1,113 @@
+package com.charusat.pacelearn.service;
+
+import com.charusat.pacelearn.config.ApplicationProperties;
+import com.charusat.pacelearn.domain.Course;
+import com.charusat.pacelearn.domain.CourseSession;
+import com.charusat.pacelearn.domain.User;
+import com.charusat.pacelearn.repository.CourseEnrollmentRepository;
+import com.charusat.pacelearn.repository.CourseSessionRepository;
+import com.charusat.pacelearn.security.AuthoritiesConstants;
+import com.charusat.pacelearn.security.MediaUrlSigner;
+import com.charusat.pacelearn.service.dto.SessionMediaDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Service issuing the signed media URLs of the course sessions, once per playback instead of once per request.
+ */
+@Service
+@Transactional(readOnly = true)
+public class MediaAccessService {
+
+    /**
+     * The user id signed into the URLs of the preview sessions requested anonymously.
+     */
+    private static final long ANONYMOUS_USER_ID = 0L;
+
+    private final Logger log = LoggerFactory.getLogger(MediaAccessService.class);
+
+    private final CourseSessionRepository courseSessionRepository;
+
+    private final CourseEnrollmentRepository courseEnrollmentRepository;
+
+    private final UserService userService;
+
+    private final MediaUrlSigner mediaUrlSigner;
+
+    private final long urlValiditySeconds;
+
+    public MediaAccessService(
+        CourseSessionRepository courseSessionRepository,
+        CourseEnrollmentRepository courseEnrollmentRepository,
+        UserService userService,
+        MediaUrlSigner mediaUrlSigner,
+        ApplicationProperties applicationProperties
+    ) {
+        this.courseSessionRepository = courseSessionRepository;
+        this.courseEnrollmentRepository = courseEnrollmentRepository;
+        this.userService = userService;
+        this.mediaUrlSigner = mediaUrlSigner;
+        this.urlValiditySeconds = applicationProperties.getMedia().getUrlValiditySeconds();
+    }
+
+    /**
+     * Get the media URLs of a session for the current user.
+     * <p>
+     * Preview sessions are open to everyone; the others to the students enrolled in the course, its instructor,
+     * the reviewers and the admins.
+     *
+     * @param sessionId the id of the session.
+     * @return the media URLs, or empty if the session does not exist.
+     * @throws AccessDeniedException if the current user may not watch the session.
+     */
+    public Optional<SessionMediaDTO> getSessionMedia(Long sessionId) {
+        Optional<CourseSession> courseSession = courseSessionRepository.findById(sessionId);
+        if (courseSession.isEmpty() || courseSession.get().getCourseSection() == null) {
+            return Optional.empty();
+        }
+        CourseSession session = courseSession.get();
+        Course course = session.getCourseSection().getCourse();
+        Optional<User> user = userService.getUserWithAuthorities();
+        if (!Boolean.TRUE.equals(session.getIsPreview()) && !mayWatch(user, course)) {
+            log.debug("Refused the media of session {} to {}", sessionId, user.map(User::getLogin).orElse("anonymous"));
+            throw new AccessDeniedException("Not enrolled in course " + course.getId());
+        }
+        long userId = user.map(User::getId).orElse(ANONYMOUS_USER_ID);
+        return Optional.of(
+            new SessionMediaDTO(
+                sessionId,
+                url(session.getSessionVideo(), course.getId(), sessionId, userId),
+                url(session.getSessionResource(), course.getId(), sessionId, userId),
+                Instant.now().plusSeconds(urlValiditySeconds)
+            )
+        );
+    }
+
+    private boolean mayWatch(Optional<User> user, Course course) {
+        if (user.isEmpty()) {
+            return false;
+        }
+        Set<String> authorities = userService.getCurrentUserAuthorities();
+        if (authorities.contains(AuthoritiesConstants.ADMIN) || authorities.contains(AuthoritiesConstants.REVIEWER)) {
+            return true;
+        }
+        if (course.getUser() != null && user.get().getId().equals(course.getUser().getId())) {
+            return true;
+        }
+        return courseEnrollmentRepository.existsByCourse_IdAndUser_Id(course.getId(), user.get().getId());
+    }
+
+    private String url(String media, long courseId, long sessionId, long userId) {
+        if (!MediaStorageService.isLocalKey(media)) {
+            return media;
+        }
+        return mediaUrlSigner.sign(media, courseId, sessionId, userId);
+    }
+}
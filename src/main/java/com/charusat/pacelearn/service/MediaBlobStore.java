@@ -0,0 +1,251 @@
+package com.charusat.pacelearn.service;
+
+import com.charusat.pacelearn.config.ApplicationProperties;
+import com.charusat.pacelearn.domain.MediaBlob;
+import com.charusat.pacelearn.repository.MediaBlobRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed storage of the session media, deduplicating identical files across sessions.
+ * <p>
+ * A blob lives in the media storage under {@code blobs/ab/cd/abcd…ef.ext}, sharded by the first bytes of the
+ * SHA-256 of its content, so its media key is an ordinary key of the {@link MediaStorageService}. Each session
+ * video or resource pointing at a blob holds one reference to it; unreferenced blobs are deleted once they have
+ * stayed so for {@code application.media-blobs.grace-period-seconds}.
+ * <p>
+ * Placing and deleting blob files is serialized within one instance.
+ */
+@Service
+public class MediaBlobStore {
+
+    public static final String BLOBS_DIRECTORY = "blobs";
+
+    private static final Pattern BLOB_KEY = Pattern.compile(
+        BLOBS_DIRECTORY + "/[0-9a-f]{2}/[0-9a-f]{2}/([0-9a-f]{64}(?:\\.[a-z0-9]{1,10})?)"
+    );
+    private static final Pattern EXTENSION = Pattern.compile("[a-z0-9]{1,10}");
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Logger log = LoggerFactory.getLogger(MediaBlobStore.class);
+
+    private final MediaBlobRepository mediaBlobRepository;
+
+    private final MediaStorageService mediaStorageService;
+
+    private final Duration gracePeriod;
+
+    private final Object files = new Object();
+
+    public MediaBlobStore(
+        MediaBlobRepository mediaBlobRepository,
+        MediaStorageService mediaStorageService,
+        ApplicationProperties applicationProperties
+    ) {
+        this.mediaBlobRepository = mediaBlobRepository;
+        this.mediaStorageService = mediaStorageService;
+        this.gracePeriod = Duration.ofSeconds(applicationProperties.getMediaBlobs().getGracePeriodSeconds());
+    }
+
+    /**
+     * Store a file as a blob; the file is consumed, moved into place or deleted if the blob already exists.
+     * <p>
+     * The new blob is unreferenced until a session points at it.
+     *
+     * @param file the file, on the filesystem of the media storage for the move to be a rename.
+     * @param fileName the original name of the file, for its extension.
+     * @return the media key of the blob.
+     */
+    public String ingest(Path file, String fileName) throws IOException {
+        long size = Files.size(file);
+        String hash = sha256(file);
+        String name = name(hash, extensionOf(fileName));
+        String key = key(name);
+        Path target = mediaStorageService.getRoot().resolve(key);
+        synchronized (files) {
+            Optional<MediaBlob> existing = mediaBlobRepository.findById(name);
+            if (existing.isPresent() && Files.isRegularFile(target)) {
+                Files.delete(file);
+                mediaBlobRepository.markReleased(name, Instant.now());
+                log.debug("Deduplicated {} bytes into blob {}", size, name);
+                return key;
+            }
+            Files.createDirectories(target.getParent());
+            try {
+                Files.move(file, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(file, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            if (existing.isEmpty()) {
+                MediaBlob blob = new MediaBlob();
+                blob.setName(name);
+                blob.setHash(hash);
+                blob.setSize(size);
+                blob.setReferenceCount(0);
+                blob.setCreatedDate(Instant.now());
+                blob.setReleasedDate(blob.getCreatedDate());
+                mediaBlobRepository.save(blob);
+            }
+        }
+        log.debug("Stored {} bytes as blob {}", size, name);
+        return key;
+    }
+
+    /**
+     * Find the blob of a content announced by a client, so the content need not be sent again.
+     * <p>
+     * Finding a blob restarts its grace period, leaving time to reference it.
+     *
+     * @param hash the hex SHA-256 of the content.
+     * @param fileName the original name of the file, for its extension.
+     * @param size the size of the content.
+     * @return the media key of the blob, or empty if no blob matches.
+     */
+    public Optional<String> find(String hash, String fileName, long size) {
+        String name = name(hash.toLowerCase(Locale.ROOT), extensionOf(fileName));
+        synchronized (files) {
+            Optional<MediaBlob> blob = mediaBlobRepository.findById(name);
+            if (blob.isEmpty() || blob.get().getSize() != size || !Files.isRegularFile(mediaStorageService.getRoot().resolve(key(name)))) {
+                return Optional.empty();
+            }
+            mediaBlobRepository.markReleased(name, Instant.now());
+        }
+        return Optional.of(key(name));
+    }
+
+    /**
+     * Move the reference of a session media from one media key to another; keys outside of the store are ignored.
+     */
+    @Transactional
+    public void referenceChanged(String previousKey, String currentKey) {
+        if (Objects.equals(previousKey, currentKey)) {
+            return;
+        }
+        retain(currentKey);
+        release(previousKey);
+    }
+
+    @Transactional
+    public void retain(String key) {
+        blobName(key).ifPresent(mediaBlobRepository::retain);
+    }
+
+    @Transactional
+    public void release(String key) {
+        blobName(key)
+            .ifPresent(
+                name -> {
+                    mediaBlobRepository.release(name);
+                    mediaBlobRepository.markReleased(name, Instant.now());
+                }
+            );
+    }
+
+    /**
+     * Blobs unreferenced for longer than the grace period are deleted everyday, at 04:30 (am).
+     */
+    @Scheduled(cron = "0 30 4 * * ?")
+    public void collectGarbage() {
+        Instant before = Instant.now().minus(gracePeriod);
+        int removed = 0;
+        for (String name : mediaBlobRepository.findNamesReleasedBefore(before)) {
+            synchronized (files) {
+                if (mediaBlobRepository.deleteIfReleasedBefore(name, before) == 0) {
+                    continue;
+                }
+                try {
+                    Files.deleteIfExists(mediaStorageService.getRoot().resolve(key(name)));
+                    removed++;
+                } catch (IOException e) {
+                    log.warn("Could not delete blob {}: {}", name, e.getMessage());
+                }
+            }
+        }
+        log.debug("Deleted {} unreferenced blobs", removed);
+    }
+
+    /**
+     * Get the blob a media key points at.
+     *
+     * @return the name of the blob, or empty if the key is not a key of this store.
+     */
+    public static Optional<String> blobName(String key) {
+        if (key == null) {
+            return Optional.empty();
+        }
+        Matcher matcher = BLOB_KEY.matcher(key);
+        return matcher.matches() ? Optional.of(matcher.group(1)) : Optional.empty();
+    }
+
+    /**
+     * Get the extension of a file name kept on its blob, so the media type of the blob can still be told.
+     *
+     * @return the lower-case extension, or {@code null} if the name has none usable.
+     */
+    public static String extensionOf(String fileName) {
+        if (fileName == null) {
+            return null;
+        }
+        int dot = fileName.lastIndexOf('.');
+        if (dot < 0) {
+            return null;
+        }
+        String extension = fileName.substring(dot + 1).toLowerCase(Locale.ROOT);
+        return EXTENSION.matcher(extension).matches() ? extension : null;
+    }
+
+    private static String name(String hash, String extension) {
+        return extension == null ? hash : hash + "." + extension;
+    }
+
+    private static String key(String name) {
+        return BLOBS_DIRECTORY + "/" + name.substring(0, 2) + "/" + name.substring(2, 4) + "/" + name;
+    }
+
+    /**
+     * @return the hex SHA-256 of the content of a file, read through a direct buffer.
+     */
+    static String sha256(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+}
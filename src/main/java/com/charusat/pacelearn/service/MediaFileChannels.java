@@ -0,0 +1,157 @@
+package com.charusat.pacelearn.service;
+
+import com.charusat.pacelearn.config.ApplicationProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool of read-only channels on the media files, shared by the concurrent requests for the same file.
+ * <p>
+ * At most {@code application.media.max-open-files} channels stay open between requests, closed after a minute
+ * unused. Positional reads never move a channel's position, so one channel serves any number of ranges at once;
+ * an evicted channel is only closed once the last request holding it releases it.
+ */
+@Service
+public class MediaFileChannels {
+
+    private final Logger log = LoggerFactory.getLogger(MediaFileChannels.class);
+
+    private final Cache<Key, Handle> handles;
+
+    public MediaFileChannels(ApplicationProperties applicationProperties) {
+        this.handles =
+            Caffeine
+                .newBuilder()
+                .maximumSize(applicationProperties.getMedia().getMaxOpenFiles())
+                .expireAfterAccess(Duration.ofMinutes(1))
+                .removalListener((Key key, Handle handle, RemovalCause cause) -> {
+                    if (handle != null) {
+                        handle.close();
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Get a channel on a media file; close the handle once done with it.
+     *
+     * @param file the file.
+     * @param lastModified the modification time of the file, so a replaced file never gets the channel of the previous one.
+     * @param size the size of the file.
+     */
+    public Handle open(Path file, long lastModified, long size) throws IOException {
+        Key key = new Key(file, lastModified, size);
+        while (true) {
+            Handle handle;
+            try {
+                handle = handles.get(key, this::openHandle);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            if (handle.retain()) {
+                return handle;
+            }
+            // evicted and closed between the lookup and the retain
+            handles.asMap().remove(key, handle);
+        }
+    }
+
+    private Handle openHandle(Key key) {
+        try {
+            return new Handle(FileChannel.open(key.file, StandardOpenOption.READ));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @PreDestroy
+    public void closeAll() {
+        handles.invalidateAll();
+        handles.cleanUp();
+    }
+
+    /**
+     * A channel counted by its users, the pool being one of them while the channel is cached.
+     */
+    public final class Handle implements AutoCloseable {
+
+        private final FileChannel channel;
+
+        private final AtomicInteger references = new AtomicInteger(1);
+
+        private Handle(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        public FileChannel getChannel() {
+            return channel;
+        }
+
+        private boolean retain() {
+            int current;
+            do {
+                current = references.get();
+                if (current == 0) {
+                    return false;
+                }
+            } while (!references.compareAndSet(current, current + 1));
+            return true;
+        }
+
+        @Override
+        public void close() {
+            if (references.decrementAndGet() == 0) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    log.warn("Could not close media file channel", e);
+                }
+            }
+        }
+    }
+
+    private static final class Key {
+
+        private final Path file;
+
+        private final long lastModified;
+
+        private final long size;
+
+        Key(Path file, long lastModified, long size) {
+            this.file = file;
+            this.lastModified = lastModified;
+            this.size = size;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return lastModified == other.lastModified && size == other.size && file.equals(other.file);
+        }
+
+        @Override
+        public int hashCode() {
+            return (file.hashCode() * 31 + Long.hashCode(lastModified)) * 31 + Long.hashCode(size);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.charusat.pacelearn.service;
+
+import com.charusat.pacelearn.config.ApplicationProperties;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+
+/**
+ * Local filesystem storage of the session media, under {@code application.media.directory}.
+ * <p>
+ * A media key is the path of a file relative to that directory, as stored in {@code CourseSession.sessionVideo}
+ * and {@code CourseSession.sessionResource}; values holding a full URL refer to media hosted elsewhere.
+ */
+@Service
+public class MediaStorageService {
+
+    private final Path root;
+
+    public MediaStorageService(ApplicationProperties applicationProperties) {
+        this.root = Paths.get(applicationProperties.getMedia().getDirectory()).toAbsolutePath().normalize();
+    }
+
+    /**
+     * Tell whether a stored media value is a key of this storage rather than an external URL.
+     */
+    public static boolean isLocalKey(String value) {
+        return value != null && !value.isBlank() && !value.contains("://") && !value.startsWith("//");
+    }
+
+    /**
+     * Get the file of a media key.
+     *
+     * @return the file, or empty if the key escapes the media directory or names no regular file.
+     */
+    public Optional<Path> resolve(String key) {
+        if (!isLocalKey(key)) {
+            return Optional.empty();
+        }
+        Path file = root.resolve(key).normalize();
+        if (!file.startsWith(root) || !Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        return Optional.of(file);
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+}
@@ -0,0 +1,540 @@
+package com.charusat.pacelearn.service;
+
+import com.charusat.pacelearn.config.ApplicationProperties;
+import com.charusat.pacelearn.domain.Course;
+import com.charusat.pacelearn.domain.CourseSession;
+import com.charusat.pacelearn.domain.User;
+import com.charusat.pacelearn.repository.CourseSessionRepository;
+import com.charusat.pacelearn.security.AuthoritiesConstants;
+import com.charusat.pacelearn.security.SecurityUtils;
+import com.charusat.pacelearn.service.dto.CourseSessionDTO;
+import com.charusat.pacelearn.service.dto.MediaUploadDTO;
+import com.charusat.pacelearn.web.rest.errors.BadRequestAlertException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Service receiving the media of the course sessions as resumable, chunked uploads.
+ * <p>
+ * Every upload is a directory under {@code application.media-upload.directory} holding its manifest, the file
+ * being assembled, allocated to its full size so chunks can land in any order, and one empty marker per chunk
+ * received and verified. The state is only ever on disk: a client resumes by asking for the missing chunks,
+ * across restarts of the server and from any instance sharing the directory.
+ * <p>
+ * Completed files go to the {@link MediaBlobStore}; a client announcing the SHA-256 of a file the store already
+ * holds has no chunk to send.
+ */
+@Service
+public class MediaUploadService {
+
+    public static final String KIND_VIDEO = "video";
+    public static final String KIND_RESOURCE = "resource";
+
+    private static final String ENTITY_NAME = "mediaUpload";
+
+    private static final String MANIFEST_FILE = "upload.properties";
+    private static final String DATA_FILE = "data.part";
+    private static final String CHUNKS_DIRECTORY = "chunks";
+    private static final String INCOMING_DIRECTORY = "incoming";
+    private static final String COMPLETING_FILE = ".completing";
+
+    /**
+     * How long a completion claim holds; a claim older than that was left by an instance that stopped mid-way.
+     */
+    private static final Duration COMPLETING_EXPIRY = Duration.ofHours(1);
+
+    private static final int UPLOAD_ID_BYTES = 16;
+    private static final Pattern UPLOAD_ID = Pattern.compile("[A-Za-z0-9_-]{22}");
+
+    private final Logger log = LoggerFactory.getLogger(MediaUploadService.class);
+
+    private final CourseSessionRepository courseSessionRepository;
+
+    private final CourseSessionService courseSessionService;
+
+    private final UserService userService;
+
+    private final MediaBlobStore mediaBlobStore;
+
+    private final Path root;
+
+    private final int chunkSize;
+
+    private final long maxSize;
+
+    private final Duration expiry;
+
+    private final SecureRandom random = new SecureRandom();
+
+    public MediaUploadService(
+        CourseSessionRepository courseSessionRepository,
+        CourseSessionService courseSessionService,
+        UserService userService,
+        MediaBlobStore mediaBlobStore,
+        ApplicationProperties applicationProperties
+    ) {
+        this.courseSessionRepository = courseSessionRepository;
+        this.courseSessionService = courseSessionService;
+        this.userService = userService;
+        this.mediaBlobStore = mediaBlobStore;
+        ApplicationProperties.MediaUpload properties = applicationProperties.getMediaUpload();
+        this.root = Paths.get(properties.getDirectory()).toAbsolutePath().normalize();
+        this.chunkSize = properties.getChunkSize();
+        this.maxSize = properties.getMaxSize();
+        this.expiry = Duration.ofSeconds(properties.getExpirySeconds());
+    }
+
+    /**
+     * Start the upload of a media of a course session.
+     *
+     * @param courseSessionId the id of the session.
+     * @param kind {@link #KIND_VIDEO} or {@link #KIND_RESOURCE}.
+     * @param fileName the name of the file on the client.
+     * @param size the size of the file, in bytes.
+     * @param sha256 the hex SHA-256 of the file if the client knows it, {@code null} otherwise.
+     * @return the new upload, or empty if the session does not exist.
+     * @throws AccessDeniedException if the current user is neither the instructor of the course nor an admin.
+     */
+    public Optional<MediaUploadDTO> start(Long courseSessionId, String kind, String fileName, long size, String sha256)
+        throws IOException {
+        if (!KIND_VIDEO.equals(kind) && !KIND_RESOURCE.equals(kind)) {
+            throw new BadRequestAlertException("Unknown media kind", ENTITY_NAME, "kindinvalid");
+        }
+        if (size <= 0 || size > maxSize) {
+            throw new BadRequestAlertException("Media size must be between 1 and " + maxSize + " bytes", ENTITY_NAME, "sizeinvalid");
+        }
+        Optional<CourseSession> courseSession = courseSessionRepository.findById(courseSessionId);
+        if (courseSession.isEmpty() || courseSession.get().getCourseSection() == null) {
+            return Optional.empty();
+        }
+        String login = checkInstructor(courseSession.get().getCourseSection().getCourse());
+
+        String uploadId = newUploadId();
+        Path directory = root.resolve(uploadId);
+        Files.createDirectories(directory.resolve(CHUNKS_DIRECTORY));
+        String blobKey = sha256 == null ? null : mediaBlobStore.find(sha256, fileName, size).orElse(null);
+        if (blobKey == null) {
+            try (RandomAccessFile data = new RandomAccessFile(directory.resolve(DATA_FILE).toFile(), "rw")) {
+                // sparse where the filesystem allows it; chunks are written at their offset, in any order
+                data.setLength(size);
+            }
+        }
+        Manifest manifest = new Manifest(login, courseSessionId, kind, fileName, size, chunkSize, Instant.now(), blobKey);
+        manifest.store(directory);
+        log.debug("Started upload {} of {} bytes for the {} of session {}", uploadId, size, kind, courseSessionId);
+        return Optional.of(toDto(uploadId, manifest));
+    }
+
+    /**
+     * Get an upload of the current user.
+     *
+     * @return the upload, or empty if it does not exist, has expired or belongs to another user.
+     */
+    public Optional<MediaUploadDTO> findOne(String uploadId) throws IOException {
+        Optional<Manifest> manifest = findManifest(uploadId);
+        if (manifest.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(toDto(uploadId, manifest.get()));
+    }
+
+    /**
+     * Write one chunk of an upload to its place in the file.
+     * <p>
+     * The body is received into a file of its own and only copied into place once its length and SHA-256 match, so
+     * a chunk sent again with a bad body leaves the bytes received before untouched. The chunk counts as received
+     * once it is on disk; a chunk failing either check may simply be sent again. Distinct chunks may be sent
+     * concurrently.
+     *
+     * @param uploadId the id of the upload.
+     * @param offset the offset of the chunk in the file, a multiple of the chunk size.
+     * @param contentLength the declared length of the body, {@code -1} when unknown.
+     * @param body the bytes of the chunk.
+     * @param sha256 the expected SHA-256 of the chunk.
+     * @return the upload, or empty if it does not exist.
+     */
+    public Optional<MediaUploadDTO> writeChunk(String uploadId, long offset, long contentLength, InputStream body, byte[] sha256)
+        throws IOException {
+        Optional<Manifest> found = findManifest(uploadId);
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+        Manifest manifest = found.get();
+        if (manifest.blobKey != null) {
+            throw new BadRequestAlertException("Upload has no missing chunks", ENTITY_NAME, "uploadcomplete");
+        }
+        if (offset < 0 || offset >= manifest.size || offset % manifest.chunkSize != 0) {
+            throw new BadRequestAlertException("Chunk offset must be a multiple of " + manifest.chunkSize, ENTITY_NAME, "chunkoffset");
+        }
+        long length = Math.min(manifest.chunkSize, manifest.size - offset);
+        if (contentLength >= 0 && contentLength != length) {
+            throw new BadRequestAlertException("Chunk length must be " + length, ENTITY_NAME, "chunklength");
+        }
+
+        Path directory = root.resolve(uploadId);
+        Path incoming = Files.createDirectories(directory.resolve(INCOMING_DIRECTORY));
+        Path received = Files.createTempFile(incoming, Long.toString(offset / manifest.chunkSize) + "-", ".part");
+        try {
+            receive(body, received, length, sha256);
+            Path marker = directory.resolve(CHUNKS_DIRECTORY).resolve(Long.toString(offset / manifest.chunkSize));
+            // the chunk is missing while its range is rewritten, so an interrupted copy is sent again
+            Files.deleteIfExists(marker);
+            try (
+                FileChannel in = FileChannel.open(received, StandardOpenOption.READ);
+                FileChannel out = FileChannel.open(directory.resolve(DATA_FILE), StandardOpenOption.WRITE)
+            ) {
+                long copied = 0;
+                while (copied < length) {
+                    long transferred = out.transferFrom(in, offset + copied, length - copied);
+                    if (transferred <= 0) {
+                        throw new IOException("Chunk file ended after " + copied + " bytes");
+                    }
+                    copied += transferred;
+                }
+                out.force(false);
+            }
+            try {
+                Files.createFile(marker);
+            } catch (FileAlreadyExistsException e) {
+                // the same chunk was sent concurrently
+            }
+        } finally {
+            Files.deleteIfExists(received);
+        }
+        return Optional.of(toDto(uploadId, manifest));
+    }
+
+    /**
+     * Complete an upload: the file moves to the blob store and becomes the video or resource of its session.
+     * <p>
+     * The blob is recorded in the manifest as soon as it is stored, so a completion failing to update the session
+     * may be retried. A completion claims the upload with a marker file, so only one runs at a time across the
+     * instances sharing the directory.
+     *
+     * @return the updated session, or empty if the upload or its session does not exist.
+     */
+    public Optional<CourseSessionDTO> complete(String uploadId) throws IOException {
+        Optional<Manifest> found = findManifest(uploadId);
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+        Manifest manifest = found.get();
+        Path directory = root.resolve(uploadId);
+        Path claim = claimCompletion(directory);
+        try {
+            if (!missingChunks(directory, manifest).isEmpty()) {
+                throw new BadRequestAlertException("Upload has missing chunks", ENTITY_NAME, "uploadincomplete");
+            }
+            String key = manifest.blobKey;
+            if (key == null) {
+                key = mediaBlobStore.ingest(directory.resolve(DATA_FILE), manifest.fileName);
+                // recorded before the session is updated, so a completion failing from here on can be retried
+                manifest.withBlobKey(key).store(directory);
+            }
+
+            CourseSessionDTO media = new CourseSessionDTO();
+            media.setId(manifest.courseSessionId);
+            if (KIND_VIDEO.equals(manifest.kind)) {
+                media.setSessionVideo(key);
+            } else {
+                media.setSessionResource(key);
+            }
+            // an orphaned blob is collected after its grace period
+            Optional<CourseSessionDTO> result = courseSessionService.partialUpdate(media);
+            FileSystemUtils.deleteRecursively(directory);
+            log.debug("Completed upload {} as {}", uploadId, key);
+            return result;
+        } finally {
+            Files.deleteIfExists(claim);
+        }
+    }
+
+    /**
+     * Abandon an upload and discard what was received.
+     *
+     * @return {@code true} if the upload existed.
+     */
+    public boolean abort(String uploadId) throws IOException {
+        if (findManifest(uploadId).isEmpty()) {
+            return false;
+        }
+        FileSystemUtils.deleteRecursively(root.resolve(uploadId));
+        log.debug("Aborted upload {}", uploadId);
+        return true;
+    }
+
+    /**
+     * Uploads left incomplete are deleted everyday, at 04:00 (am).
+     */
+    @Scheduled(cron = "0 0 4 * * ?")
+    public void removeExpiredUploads() {
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        Instant now = Instant.now();
+        int removed = 0;
+        try (DirectoryStream<Path> directories = Files.newDirectoryStream(root)) {
+            for (Path directory : directories) {
+                try {
+                    Instant created = Files.isRegularFile(directory.resolve(MANIFEST_FILE))
+                        ? Manifest.load(directory).createdDate
+                        : Files.getLastModifiedTime(directory).toInstant();
+                    if (created.plus(expiry).isBefore(now)) {
+                        FileSystemUtils.deleteRecursively(directory);
+                        removed++;
+                    }
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Could not remove expired upload {}: {}", directory.getFileName(), e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not list the uploads: {}", e.getMessage());
+        }
+        log.debug("Deleted {} expired uploads", removed);
+    }
+
+    /**
+     * Claim the completion of an upload by creating its marker, which only one caller can do; a claim left by a
+     * stopped instance is taken over once expired.
+     */
+    private Path claimCompletion(Path directory) throws IOException {
+        Path claim = directory.resolve(COMPLETING_FILE);
+        try {
+            return Files.createFile(claim);
+        } catch (FileAlreadyExistsException e) {
+            Instant claimed;
+            try {
+                claimed = Files.getLastModifiedTime(claim).toInstant();
+            } catch (NoSuchFileException released) {
+                claimed = Instant.MIN;
+            }
+            if (claimed.plus(COMPLETING_EXPIRY).isAfter(Instant.now())) {
+                throw new BadRequestAlertException("Upload is already being completed", ENTITY_NAME, "uploadcompleting");
+            }
+            log.warn("Taking over the expired completion claim of upload {}", directory.getFileName());
+            Files.deleteIfExists(claim);
+            try {
+                return Files.createFile(claim);
+            } catch (FileAlreadyExistsException taken) {
+                throw new BadRequestAlertException("Upload is already being completed", ENTITY_NAME, "uploadcompleting");
+            }
+        }
+    }
+
+    /**
+     * Receive a chunk body into a file of its own, checking its length and SHA-256.
+     */
+    private static void receive(InputStream body, Path file, long length, byte[] sha256) throws IOException {
+        MessageDigest digest = sha256();
+        // not closed: the body belongs to the container
+        ReadableByteChannel in = Channels.newChannel(new DigestInputStream(body, digest));
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            long written = 0;
+            while (written < length) {
+                long transferred = out.transferFrom(in, written, length - written);
+                if (transferred <= 0) {
+                    break;
+                }
+                written += transferred;
+            }
+            if (written < length || body.read() != -1) {
+                throw new BadRequestAlertException("Chunk length must be " + length, ENTITY_NAME, "chunklength");
+            }
+            if (!MessageDigest.isEqual(digest.digest(), sha256)) {
+                throw new BadRequestAlertException("Chunk checksum mismatch", ENTITY_NAME, "chunkchecksum");
+            }
+            out.force(false);
+        }
+    }
+
+    private String checkInstructor(Course course) {
+        User user = userService.getUserWithAuthorities().orElseThrow(() -> new AccessDeniedException("Not authenticated"));
+        boolean owner = course != null && course.getUser() != null && user.getId().equals(course.getUser().getId());
+        if (!owner && !userService.getCurrentUserAuthorities().contains(AuthoritiesConstants.ADMIN)) {
+            throw new AccessDeniedException("Not the instructor of the course");
+        }
+        return user.getLogin();
+    }
+
+    private Optional<Manifest> findManifest(String uploadId) throws IOException {
+        if (uploadId == null || !UPLOAD_ID.matcher(uploadId).matches()) {
+            return Optional.empty();
+        }
+        Path directory = root.resolve(uploadId);
+        if (!Files.isRegularFile(directory.resolve(MANIFEST_FILE))) {
+            return Optional.empty();
+        }
+        Manifest manifest = Manifest.load(directory);
+        Optional<String> login = SecurityUtils.getCurrentUserLogin();
+        if (login.isEmpty() || !login.get().equals(manifest.login) || manifest.createdDate.plus(expiry).isBefore(Instant.now())) {
+            return Optional.empty();
+        }
+        return Optional.of(manifest);
+    }
+
+    private MediaUploadDTO toDto(String uploadId, Manifest manifest) throws IOException {
+        return new MediaUploadDTO(
+            uploadId,
+            manifest.courseSessionId,
+            manifest.kind,
+            manifest.fileName,
+            manifest.size,
+            manifest.chunkSize,
+            missingChunks(root.resolve(uploadId), manifest),
+            manifest.createdDate.plus(expiry)
+        );
+    }
+
+    private static List<Integer> missingChunks(Path directory, Manifest manifest) throws IOException {
+        if (manifest.blobKey != null) {
+            return List.of();
+        }
+        Set<String> received = new HashSet<>();
+        try (DirectoryStream<Path> chunks = Files.newDirectoryStream(directory.resolve(CHUNKS_DIRECTORY))) {
+            chunks.forEach(chunk -> received.add(chunk.getFileName().toString()));
+        }
+        int chunkCount = Math.toIntExact((manifest.size + manifest.chunkSize - 1) / manifest.chunkSize);
+        List<Integer> missing = new ArrayList<>();
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            if (!received.contains(Integer.toString(chunk))) {
+                missing.add(chunk);
+            }
+        }
+        return missing;
+    }
+
+    private String newUploadId() {
+        byte[] bytes = new byte[UPLOAD_ID_BYTES];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * What an upload is for, fixed when it starts.
+     */
+    private static final class Manifest {
+
+        private final String login;
+
+        private final Long courseSessionId;
+
+        private final String kind;
+
+        private final String fileName;
+
+        private final long size;
+
+        private final int chunkSize;
+
+        private final Instant createdDate;
+
+        /**
+         * The blob already holding the content, {@code null} when the content is uploaded.
+         */
+        private final String blobKey;
+
+        Manifest(
+            String login,
+            Long courseSessionId,
+            String kind,
+            String fileName,
+            long size,
+            int chunkSize,
+            Instant createdDate,
+            String blobKey
+        ) {
+            this.login = login;
+            this.courseSessionId = courseSessionId;
+            this.kind = kind;
+            this.fileName = fileName;
+            this.size = size;
+            this.chunkSize = chunkSize;
+            this.createdDate = createdDate;
+            this.blobKey = blobKey;
+        }
+
+        Manifest withBlobKey(String blobKey) {
+            return new Manifest(login, courseSessionId, kind, fileName, size, chunkSize, createdDate, blobKey);
+        }
+
+        static Manifest load(Path directory) throws IOException {
+            Properties properties = new Properties();
+            try (Reader reader = Files.newBufferedReader(directory.resolve(MANIFEST_FILE), StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            }
+            return new Manifest(
+                properties.getProperty("login"),
+                Long.valueOf(properties.getProperty("courseSessionId")),
+                properties.getProperty("kind"),
+                properties.getProperty("fileName"),
+                Long.parseLong(properties.getProperty("size")),
+                Integer.parseInt(properties.getProperty("chunkSize")),
+                Instant.parse(properties.getProperty("createdDate")),
+                properties.getProperty("blobKey")
+            );
+        }
+
+        void store(Path directory) throws IOException {
+            Properties properties = new Properties();
+            properties.setProperty("login", login);
+            properties.setProperty("courseSessionId", courseSessionId.toString());
+            properties.setProperty("kind", kind);
+            properties.setProperty("fileName", fileName);
+            properties.setProperty("size", Long.toString(size));
+            properties.setProperty("chunkSize", Integer.toString(chunkSize));
+            properties.setProperty("createdDate", createdDate.toString());
+            if (blobKey != null) {
+                properties.setProperty("blobKey", blobKey);
+            }
+            Path temporary = directory.resolve(MANIFEST_FILE + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                properties.store(writer, null);
+            }
+            Files.move(temporary, directory.resolve(MANIFEST_FILE), StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+}
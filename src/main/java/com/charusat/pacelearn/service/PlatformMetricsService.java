@@ -0,0 +1,229 @@
+package com.charusat.pacelearn.service;
+
+import com.charusat.pacelearn.repository.CourseEnrollmentRepository;
+import com.charusat.pacelearn.repository.CourseRepository;
+import com.charusat.pacelearn.repository.CourseSessionRepository;
+import com.charusat.pacelearn.repository.UserRepository;
+import com.charusat.pacelearn.security.AuthoritiesConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Service keeping the platform metrics shown on the admin dashboard and the home-page banner.
+ * <p>
+ * The numbers live in memory and are moved by deltas reported from the write paths (registration,
+ * authority changes, course approval and deletion, session creation, enrollment), so reading them costs no
+ * query. A periodic full recount corrects any drift.
+ */
+@Service
+@Transactional(readOnly = true)
+public class PlatformMetricsService {
+
+    public static final String STUDENTS = "students";
+    public static final String INSTRUCTOR = "instructor";
+    public static final String REVIEWER = "reviewer";
+    public static final String APPROVED_COURSES = "approvedCourses";
+    public static final String APPROVAL_PENDING_COURSES = "approvalPendingCourses";
+    public static final String TOTAL_ENROLLMENT = "totalEnrollment";
+    public static final String COURSE_VIDEOS = "courseVideos";
+    public static final String TOTAL_COURSES = "totalCourses";
+    public static final String COMPUTED_AT = "computedAt";
+
+    private final Logger log = LoggerFactory.getLogger(PlatformMetricsService.class);
+
+    private final UserRepository userRepository;
+
+    private final CourseRepository courseRepository;
+
+    private final CourseEnrollmentRepository courseEnrollmentRepository;
+
+    private final CourseSessionRepository courseSessionRepository;
+
+    private final AtomicLong students = new AtomicLong();
+    private final AtomicLong instructors = new AtomicLong();
+    private final AtomicLong reviewers = new AtomicLong();
+    private final AtomicLong approvedCourses = new AtomicLong();
+    private final AtomicLong approvalPendingCourses = new AtomicLong();
+    private final AtomicLong enrolledCourses = new AtomicLong();
+    private final AtomicLong courseVideos = new AtomicLong();
+
+    private volatile Instant computedAt = Instant.EPOCH;
+
+    public PlatformMetricsService(
+        UserRepository userRepository,
+        CourseRepository courseRepository,
+        CourseEnrollmentRepository courseEnrollmentRepository,
+        CourseSessionRepository courseSessionRepository
+    ) {
+        this.userRepository = userRepository;
+        this.courseRepository = courseRepository;
+        this.courseEnrollmentRepository = courseEnrollmentRepository;
+        this.courseSessionRepository = courseSessionRepository;
+    }
+
+    /**
+     * Recounts every metric from the database.
+     * <p>
+     * Runs once the application is ready and then every {@code application.platform-metrics.recount-delay-ms}.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${application.platform-metrics.recount-delay-ms:300000}", initialDelayString = "${application.platform-metrics.recount-delay-ms:300000}")
+    public void recount() {
+        students.set(userRepository.countAllByAuthoritiesContains(AuthoritiesConstants.STUDENT));
+        instructors.set(userRepository.countAllByAuthoritiesContains(AuthoritiesConstants.FACULTY));
+        reviewers.set(userRepository.countAllByAuthoritiesContains(AuthoritiesConstants.REVIEWER));
+        approvedCourses.set(courseRepository.countCoursesByIsApproved(true));
+        approvalPendingCourses.set(courseRepository.countCoursesByIsApproved(false));
+        enrolledCourses.set(courseEnrollmentRepository.countEnrolledCourses());
+        courseVideos.set(courseSessionRepository.countAll());
+        computedAt = Instant.now();
+        log.debug("Recounted platform metrics at {}", computedAt);
+    }
+
+    /**
+     * Get the metrics of the admin dashboard.
+     */
+    public Map<String, Long> getCoreMetaData() {
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        metrics.put(STUDENTS, students.get());
+        metrics.put(INSTRUCTOR, instructors.get());
+        metrics.put(REVIEWER, reviewers.get());
+        metrics.put(APPROVED_COURSES, approvedCourses.get());
+        metrics.put(APPROVAL_PENDING_COURSES, approvalPendingCourses.get());
+        metrics.put(TOTAL_ENROLLMENT, enrolledCourses.get());
+        metrics.put(COURSE_VIDEOS, courseVideos.get());
+        metrics.put(COMPUTED_AT, computedAt.toEpochMilli());
+        return metrics;
+    }
+
+    /**
+     * Get the metrics of the public home-page banner.
+     */
+    public Map<String, Long> getOpenMetaData() {
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        metrics.put(STUDENTS, students.get());
+        metrics.put(TOTAL_COURSES, approvedCourses.get() + approvalPendingCourses.get());
+        metrics.put(COMPUTED_AT, computedAt.toEpochMilli());
+        return metrics;
+    }
+
+    /**
+     * Reports a change of the authorities of one user (registration, deletion or role update).
+     */
+    public void authoritiesChanged(Collection<String> before, Collection<String> after) {
+        for (String authority : before) {
+            if (!after.contains(authority)) {
+                afterCommit(() -> authorityCounter(authority).decrementAndGet());
+            }
+        }
+        for (String authority : after) {
+            if (!before.contains(authority)) {
+                afterCommit(() -> authorityCounter(authority).incrementAndGet());
+            }
+        }
+    }
+
+    /**
+     * Reports a course appearing ({@code before == null}), disappearing ({@code after == null})
+     * or changing its approval state.
+     */
+    public void courseApprovalChanged(Boolean before, Boolean after) {
+        if (before != null) {
+            afterCommit(() -> approvalCounter(before).decrementAndGet());
+        }
+        if (after != null) {
+            afterCommit(() -> approvalCounter(after).incrementAndGet());
+        }
+    }
+
+    /**
+     * Reports a course being deleted with its enrollments and sessions; call it before they are deleted.
+     */
+    public void courseDeleted(Long courseId, Boolean approved) {
+        courseApprovalChanged(approved, null);
+        if (courseEnrollmentRepository.existsByCourse_Id(courseId)) {
+            afterCommit(enrolledCourses::decrementAndGet);
+        }
+        long sessions = courseSessionRepository.countByCourseSection_Course_Id(courseId);
+        if (sessions > 0) {
+            afterCommit(() -> courseVideos.addAndGet(-sessions));
+        }
+    }
+
+    public void sessionCreated() {
+        afterCommit(courseVideos::incrementAndGet);
+    }
+
+    public void sessionDeleted() {
+        afterCommit(courseVideos::decrementAndGet);
+    }
+
+    /**
+     * Reports the first enrollment of a course.
+     */
+    public void courseFirstEnrolled() {
+        afterCommit(enrolledCourses::incrementAndGet);
+    }
+
+    /**
+     * Reports an enrollment created ({@code fromCourseId == null}), deleted ({@code toCourseId == null}) or moved to
+     * another course; call it once the change is written.
+     */
+    public void enrollmentMoved(Long fromCourseId, Long toCourseId) {
+        if (fromCourseId != null && !courseEnrollmentRepository.existsByCourse_Id(fromCourseId)) {
+            afterCommit(enrolledCourses::decrementAndGet);
+        }
+        if (toCourseId != null && courseEnrollmentRepository.countByCourse_Id(toCourseId) == 1) {
+            afterCommit(enrolledCourses::incrementAndGet);
+        }
+    }
+
+    private AtomicLong authorityCounter(String authority) {
+        switch (authority) {
+            case AuthoritiesConstants.STUDENT:
+                return students;
+            case AuthoritiesConstants.FACULTY:
+                return instructors;
+            case AuthoritiesConstants.REVIEWER:
+                return reviewers;
+            default:
+                // authorities that are not on the dashboard
+                return new AtomicLong();
+        }
+    }
+
+    private AtomicLong approvalCounter(Boolean approved) {
+        return Boolean.TRUE.equals(approved) ? approvedCourses : approvalPendingCourses;
+    }
+
+    /**
+     * Applies a delta once the surrounding transaction commits, so rolled back writes never show up.
+     */
+    private void afterCommit(Runnable delta) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        delta.run();
+                    }
+                }
+            );
+        } else {
+            delta.run();
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.charusat.pacelearn.service;
+
+import com.charusat.pacelearn.repository.CourseEnrollmentRepository;
+import com.charusat.pacelearn.repository.CourseSessionProgressRepository;
+import com.charusat.pacelearn.repository.CourseSessionProgressRepositoryCustom.ReportedWatchTime;
+import com.charusat.pacelearn.service.dto.ProgressSyncItemDTO;
+import com.charusat.pacelearn.service.dto.ProgressSyncResultDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Service merging the progress recorded by a client while offline.
+ * <p>
+ * A sync resolves every reported session and the progress of the user in it with one query, and writes the accepted
+ * records as one JDBC batch of upserts, whatever the number of records. As for live reports, only enrolled users
+ * sync progress, and never beyond the duration of a session.
+ */
+@Service
+@Transactional
+public class ProgressSyncService {
+
+    private final Logger log = LoggerFactory.getLogger(ProgressSyncService.class);
+
+    private final CourseSessionProgressRepository courseSessionProgressRepository;
+
+    private final CourseCompletionService courseCompletionService;
+
+    private final CourseEnrollmentRepository courseEnrollmentRepository;
+
+    public ProgressSyncService(
+        CourseSessionProgressRepository courseSessionProgressRepository,
+        CourseCompletionService courseCompletionService,
+        CourseEnrollmentRepository courseEnrollmentRepository
+    ) {
+        this.courseSessionProgressRepository = courseSessionProgressRepository;
+        this.courseCompletionService = courseCompletionService;
+        this.courseEnrollmentRepository = courseEnrollmentRepository;
+    }
+
+    /**
+     * Merge progress records of a user.
+     * <p>
+     * With {@code lastWriterWins}, a record replaces the progress of its session unless the server has a later one;
+     * records must then carry their client timestamp. Otherwise the furthest watch time is kept, whatever the order.
+     * Timestamps in the future are taken as now, watch times beyond the duration of the session as its duration.
+     * Records of sessions in courses the user is not enrolled in are refused.
+     *
+     * @param userId the id of the user.
+     * @param items the progress records, in any order; several records of one session are allowed.
+     * @param lastWriterWins whether the latest record wins rather than the furthest.
+     * @return the result of every record, in the order of the records.
+     */
+    public List<ProgressSyncResultDTO> sync(Long userId, List<ProgressSyncItemDTO> items, boolean lastWriterWins) {
+        log.debug("Request to sync {} progress records of User : {}", items.size(), userId);
+        Instant now = Instant.now();
+        Instant[] reportedAt = new Instant[items.size()];
+        Set<Long> sessionIds = new HashSet<>();
+        for (int i = 0; i < items.size(); i++) {
+            ProgressSyncItemDTO item = items.get(i);
+            if (item == null || item.getSessionId() == null || item.getWatchSeconds() == null || item.getWatchSeconds() < 0) {
+                continue;
+            }
+            Instant timestamp = item.getClientTimestamp();
+            if (timestamp == null) {
+                if (lastWriterWins) {
+                    continue;
+                }
+                timestamp = now;
+            }
+            reportedAt[i] = timestamp.isAfter(now) ? now : timestamp;
+            sessionIds.add(item.getSessionId());
+        }
+
+        Map<Long, Object[]> targets = new HashMap<>();
+        Set<Long> enrolledCourseIds = new HashSet<>();
+        if (!sessionIds.isEmpty()) {
+            Set<Long> courseIds = new HashSet<>();
+            for (Object[] row : courseSessionProgressRepository.findSyncTargets(userId, sessionIds)) {
+                targets.put((Long) row[0], row);
+                courseIds.add((Long) row[4]);
+            }
+            if (!courseIds.isEmpty()) {
+                enrolledCourseIds.addAll(courseEnrollmentRepository.findEnrolledCourseIdsByUserIdAndCourseIdIn(userId, courseIds));
+            }
+        }
+
+        // the watch time of each record, capped at the duration of its session
+        long[] seconds = new long[items.size()];
+        // the record each session is synced from; the others lose to it
+        Map<Long, Integer> winners = new HashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            if (reportedAt[i] == null) {
+                continue;
+            }
+            Long sessionId = items.get(i).getSessionId();
+            Object[] target = targets.get(sessionId);
+            if (target == null || !enrolledCourseIds.contains((Long) target[4])) {
+                continue;
+            }
+            Long duration = (Long) target[3];
+            seconds[i] = Math.min(items.get(i).getWatchSeconds(), duration == null ? 0 : duration);
+            winners.merge(
+                sessionId,
+                i,
+                (current, candidate) -> beats(seconds, reportedAt, candidate, current, lastWriterWins) ? candidate : current
+            );
+        }
+
+        List<ReportedWatchTime> reports = new ArrayList<>();
+        Map<Long, Long> syncedSeconds = new HashMap<>();
+        Set<Long> applied = new HashSet<>();
+        for (Map.Entry<Long, Integer> winner : winners.entrySet()) {
+            Object[] target = targets.get(winner.getKey());
+            Long watchSeconds = (Long) target[1];
+            Instant lastReportedAt = (Instant) target[2];
+            long synced = seconds[winner.getValue()];
+            Instant timestamp = reportedAt[winner.getValue()];
+            // progress never stamped with a report time is merged by watch time, as the upsert does
+            boolean stale = lastWriterWins && lastReportedAt != null
+                ? !lastReportedAt.isBefore(timestamp)
+                : watchSeconds != null && watchSeconds >= synced;
+            if (stale) {
+                syncedSeconds.put(winner.getKey(), watchSeconds);
+            } else {
+                reports.add(new ReportedWatchTime(winner.getKey(), synced, timestamp));
+                applied.add(winner.getKey());
+                syncedSeconds.put(winner.getKey(), synced);
+            }
+        }
+        courseSessionProgressRepository.syncWatchTime(userId, reports, lastWriterWins);
+        courseCompletionService.progressChanged(List.of(userId), applied);
+
+        List<ProgressSyncResultDTO> results = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            ProgressSyncItemDTO item = items.get(i);
+            Long sessionId = item == null ? null : item.getSessionId();
+            String status;
+            if (reportedAt[i] == null) {
+                status = ProgressSyncResultDTO.INVALID;
+            } else if (!targets.containsKey(sessionId)) {
+                status = ProgressSyncResultDTO.NOT_FOUND;
+            } else if (!winners.containsKey(sessionId)) {
+                status = ProgressSyncResultDTO.FORBIDDEN;
+            } else if (applied.contains(sessionId) && winners.get(sessionId) == i) {
+                status = ProgressSyncResultDTO.APPLIED;
+            } else {
+                status = ProgressSyncResultDTO.STALE;
+            }
+            results.add(new ProgressSyncResultDTO(sessionId, status, syncedSeconds.get(sessionId)));
+        }
+        return results;
+    }
+
+    private static boolean beats(long[] seconds, Instant[] reportedAt, int candidate, int current, boolean lastWriterWins) {
+        if (lastWriterWins) {
+            int order = reportedAt[candidate].compareTo(reportedAt[current]);
+            return order > 0 || (order == 0 && candidate > current);
+        }
+        return seconds[candidate] > seconds[current];
+    }
+}
@@ -0,0 +1,229 @@
+package com.charusat.pacelearn.service;
+
+import com.charusat.pacelearn.config.ApplicationProperties;
+import com.charusat.pacelearn.domain.RefreshToken;
+import com.charusat.pacelearn.repository.RefreshTokenRepository;
+import com.charusat.pacelearn.security.jwt.TokenRevocationList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tech.jhipster.config.JHipsterProperties;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Service managing the login sessions behind the refresh tokens.
+ * <p>
+ * A session lasts {@code jhipster.security.authentication.jwt.token-validity-in-seconds}, or the remember-me
+ * validity, while its access tokens only last {@code application.refresh-token.access-token-validity-seconds}.
+ * Revoking a session lists it in the {@link TokenRevocationList}, which refuses its remaining access tokens; the
+ * list is reloaded from the table on startup and every {@code application.refresh-token.revocation-refresh-delay-ms}.
+ * <p>
+ * A refresh token is used once: presenting the token a session was last refreshed with means it was copied, so the
+ * session is revoked, cutting off both the legitimate client and whoever holds the copy.
+ */
+@Service
+@Transactional
+public class RefreshTokenService {
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final Logger log = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private final SecureRandom random = new SecureRandom();
+
+    private final RefreshTokenRepository refreshTokenRepository;
+
+    private final TokenRevocationList tokenRevocationList;
+
+    private final Duration sessionValidity;
+
+    private final Duration sessionValidityForRememberMe;
+
+    private final Duration accessTokenValidity;
+
+    public RefreshTokenService(
+        RefreshTokenRepository refreshTokenRepository,
+        TokenRevocationList tokenRevocationList,
+        JHipsterProperties jHipsterProperties,
+        ApplicationProperties applicationProperties
+    ) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.tokenRevocationList = tokenRevocationList;
+        JHipsterProperties.Security.Authentication.Jwt jwt = jHipsterProperties.getSecurity().getAuthentication().getJwt();
+        this.sessionValidity = Duration.ofSeconds(jwt.getTokenValidityInSeconds());
+        this.sessionValidityForRememberMe = Duration.ofSeconds(jwt.getTokenValidityInSecondsForRememberMe());
+        this.accessTokenValidity = Duration.ofSeconds(applicationProperties.getRefreshToken().getAccessTokenValiditySeconds());
+    }
+
+    /**
+     * Open a session for a user who just logged in.
+     *
+     * @return the session and its first refresh token.
+     */
+    public Session open(String login, boolean rememberMe) {
+        String token = newToken();
+        Instant now = Instant.now();
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setLogin(login);
+        refreshToken.setTokenHash(digest(token));
+        refreshToken.setCreatedDate(now);
+        refreshToken.setExpiryDate(now.plus(rememberMe ? sessionValidityForRememberMe : sessionValidity));
+        refreshTokenRepository.save(refreshToken);
+        log.debug("Opened session {} for {}", refreshToken.getId(), login);
+        return new Session(refreshToken.getId(), login, token);
+    }
+
+    /**
+     * Exchange a refresh token for a new one of the same session; the presented token stops working.
+     *
+     * @return the session and its new refresh token, or empty if the token is unknown, expired, revoked or already used;
+     * a token already used revokes its session.
+     */
+    public Optional<Session> refresh(String token) {
+        String hash = digest(token);
+        Optional<RefreshToken> refreshToken = refreshTokenRepository.findOneByTokenHash(hash);
+        if (refreshToken.isEmpty()) {
+            refreshTokenRepository
+                .findOneByPreviousTokenHash(hash)
+                .filter(reused -> reused.getRevokedDate() == null)
+                .ifPresent(reused -> {
+                    log.warn("Refresh token of session {} of {} presented again, revoking the session", reused.getId(), reused.getLogin());
+                    revoke(reused.getId());
+                });
+            return Optional.empty();
+        }
+        String next = newToken();
+        if (refreshTokenRepository.rotate(refreshToken.get().getId(), hash, digest(next), Instant.now()) == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(new Session(refreshToken.get().getId(), refreshToken.get().getLogin(), next));
+    }
+
+    /**
+     * Revoke one session, typically on logout.
+     */
+    public void revoke(Long sessionId) {
+        revokeAll(List.of(sessionId));
+    }
+
+    /**
+     * Revoke every session of a user, on password change, deactivation or deletion.
+     */
+    public void revokeAllSessions(String login) {
+        List<Long> sessionIds = refreshTokenRepository.findActiveIdsByLogin(login);
+        if (!sessionIds.isEmpty()) {
+            revokeAll(sessionIds);
+        }
+    }
+
+    private void revokeAll(List<Long> sessionIds) {
+        refreshTokenRepository.revokeAllByIdIn(sessionIds, Instant.now());
+        long untilMillis = Instant.now().plus(accessTokenValidity).toEpochMilli();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        sessionIds.forEach(sessionId -> tokenRevocationList.revoke(sessionId, untilMillis));
+                    }
+                }
+            );
+        } else {
+            sessionIds.forEach(sessionId -> tokenRevocationList.revoke(sessionId, untilMillis));
+        }
+    }
+
+    /**
+     * Reloads the sessions revoked within the validity of an access token, which also picks up the revocations made
+     * by other instances and forgets the elapsed ones.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(
+        fixedDelayString = "${application.refresh-token.revocation-refresh-delay-ms:60000}",
+        initialDelayString = "${application.refresh-token.revocation-refresh-delay-ms:60000}"
+    )
+    @Transactional(readOnly = true)
+    public void loadRevocations() {
+        Map<Long, Long> revoked = new HashMap<>();
+        for (Object[] row : refreshTokenRepository.findRevokedSince(Instant.now().minus(accessTokenValidity))) {
+            revoked.put((Long) row[0], ((Instant) row[1]).plus(accessTokenValidity).toEpochMilli());
+        }
+        tokenRevocationList.rebuild(revoked);
+        log.debug("Loaded {} revoked sessions", tokenRevocationList.size());
+    }
+
+    /**
+     * Expired sessions are deleted everyday, at 03:00 (am).
+     */
+    @Scheduled(cron = "0 0 3 * * ?")
+    public void removeExpiredSessions() {
+        int removed = refreshTokenRepository.deleteAllExpiredBefore(Instant.now());
+        log.debug("Deleted {} expired sessions", removed);
+    }
+
+    private String newToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * A session with the refresh token just issued for it, which is only ever held in clear here.
+     */
+    public static final class Session {
+
+        private final Long id;
+
+        private final String login;
+
+        private final String refreshToken;
+
+        private Session(Long id, String login, String refreshToken) {
+            this.id = id;
+            this.login = login;
+            this.refreshToken = refreshToken;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getLogin() {
+            return login;
+        }
+
+        public String getRefreshToken() {
+            return refreshToken;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.charusat.pacelearn.service;
 
+import com.charusat.pacelearn.config.ApplicationProperties;
 import com.charusat.pacelearn.config.Constants;
 import com.charusat.pacelearn.domain.Authority;
 import com.charusat.pacelearn.domain.User;
@@ -9,6 +10,9 @@ import com.charusat.pacelearn.security.AuthoritiesConstants;
 import com.charusat.pacelearn.security.SecurityUtils;
 import com.charusat.pacelearn.service.dto.AdminUserDTO;
 import com.charusat.pacelearn.service.dto.UserDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
@@ -23,6 +27,10 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 import tech.jhipster.security.RandomUtil;
 
 /**
@@ -32,6 +40,8 @@ import tech.jhipster.security.RandomUtil;
 @Transactional
 public class UserService {
 
+    private static final String CURRENT_PRINCIPAL_ATTRIBUTE = UserService.class.getName() + ".currentPrincipal";
+
     private final Logger log = LoggerFactory.getLogger(UserService.class);
 
     private final UserRepository userRepository;
@@ -40,11 +50,36 @@ public class UserService {
 
     private final AuthorityRepository authorityRepository;
 
+    private final PlatformMetricsService platformMetricsService;
+
+    private final RefreshTokenService refreshTokenService;
+
+    /**
+     * Users with their authorities by login, shared across requests. Entries are evicted when the user is changed
+     * through this service, and expire after {@code application.principal-cache.time-to-live-seconds} otherwise.
+     */
+    private final Cache<String, Principal> principals;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, AuthorityRepository authorityRepository) {
+    public UserService(
+        UserRepository userRepository,
+        PasswordEncoder passwordEncoder,
+        AuthorityRepository authorityRepository,
+        PlatformMetricsService platformMetricsService,
+        RefreshTokenService refreshTokenService,
+        ApplicationProperties applicationProperties
+    ) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.authorityRepository = authorityRepository;
+        this.platformMetricsService = platformMetricsService;
+        this.refreshTokenService = refreshTokenService;
+        ApplicationProperties.PrincipalCache principalCache = applicationProperties.getPrincipalCache();
+        this.principals =
+            Caffeine
+                .newBuilder()
+                .maximumSize(principalCache.getMaximumSize())
+                .expireAfterWrite(Duration.ofSeconds(principalCache.getTimeToLiveSeconds()))
+                .build();
     }
 
     public Optional<User> activateRegistration(String key) {
@@ -55,6 +90,7 @@ public class UserService {
                 // activate given user for the registration key.
                 user.setActivated(true);
                 user.setActivationKey(null);
+                userChanged(user.getLogin());
                 log.debug("Activated user: {}", user);
                 return user;
             });
@@ -69,6 +105,8 @@ public class UserService {
                 user.setPassword(passwordEncoder.encode(newPassword));
                 user.setResetKey(null);
                 user.setResetDate(null);
+                refreshTokenService.revokeAllSessions(user.getLogin());
+                userChanged(user.getLogin());
                 return user;
             });
     }
@@ -137,6 +175,7 @@ public class UserService {
         //        authorityRepository.findById(AuthoritiesConstants.STUDENT).ifPresent(authorities::add);
         newUser.setAuthorities(authorities);
         userRepository.save(newUser);
+        platformMetricsService.authoritiesChanged(Collections.emptySet(), authorityNames(authorities));
         log.debug("Created Information for User: {}", newUser);
         return newUser;
     }
@@ -145,8 +184,10 @@ public class UserService {
         if (existingUser.isActivated()) {
             return false;
         }
+        platformMetricsService.authoritiesChanged(authorityNames(existingUser.getAuthorities()), Collections.emptySet());
         userRepository.delete(existingUser);
         userRepository.flush();
+        userChanged(existingUser.getLogin());
         return true;
     }
 
@@ -180,6 +221,7 @@ public class UserService {
             user.setAuthorities(authorities);
         }
         userRepository.save(user);
+        platformMetricsService.authoritiesChanged(Collections.emptySet(), authorityNames(user.getAuthorities()));
         log.debug("Created Information for User: {}", user);
         return user;
     }
@@ -196,6 +238,10 @@ public class UserService {
             .filter(Optional::isPresent)
             .map(Optional::get)
             .map(user -> {
+                userChanged(user.getLogin());
+                if (!userDTO.isActivated() || !user.getLogin().equals(userDTO.getLogin().toLowerCase())) {
+                    refreshTokenService.revokeAllSessions(user.getLogin());
+                }
                 user.setLogin(userDTO.getLogin().toLowerCase());
                 user.setFirstName(userDTO.getFirstName());
                 user.setLastName(userDTO.getLastName());
@@ -206,6 +252,7 @@ public class UserService {
                 user.setActivated(userDTO.isActivated());
                 user.setLangKey(userDTO.getLangKey());
                 Set<Authority> managedAuthorities = user.getAuthorities();
+                Set<String> previousAuthorities = authorityNames(managedAuthorities);
                 managedAuthorities.clear();
                 userDTO
                     .getAuthorities()
@@ -214,6 +261,8 @@ public class UserService {
                     .filter(Optional::isPresent)
                     .map(Optional::get)
                     .forEach(managedAuthorities::add);
+                platformMetricsService.authoritiesChanged(previousAuthorities, authorityNames(managedAuthorities));
+                userChanged(user.getLogin());
                 log.debug("Changed Information for User: {}", user);
                 return user;
             })
@@ -224,7 +273,10 @@ public class UserService {
         userRepository
             .findOneByLogin(login)
             .ifPresent(user -> {
+                platformMetricsService.authoritiesChanged(authorityNames(user.getAuthorities()), Collections.emptySet());
                 userRepository.delete(user);
+                refreshTokenService.revokeAllSessions(user.getLogin());
+                userChanged(user.getLogin());
                 log.debug("Deleted User: {}", user);
             });
     }
@@ -250,6 +302,7 @@ public class UserService {
                 }
                 user.setLangKey(langKey);
                 user.setImageUrl(imageUrl);
+                userChanged(user.getLogin());
                 log.debug("Changed Information for User: {}", user);
             });
     }
@@ -266,6 +319,8 @@ public class UserService {
                 }
                 String encryptedPassword = passwordEncoder.encode(newPassword);
                 user.setPassword(encryptedPassword);
+                refreshTokenService.revokeAllSessions(user.getLogin());
+                userChanged(user.getLogin());
                 log.debug("Changed password for User: {}", user);
             });
     }
@@ -285,9 +340,78 @@ public class UserService {
         return userRepository.findOneWithAuthoritiesByLogin(login);
     }
 
+    /**
+     * Get the current user with its authorities.
+     * <p>
+     * The user is looked up once per request, and served from a short-lived cache across requests. The returned
+     * entity is detached and shared: use it to read or reference the user, never to modify it.
+     *
+     * @return the current user, or empty if there is none.
+     */
     @Transactional(readOnly = true)
     public Optional<User> getUserWithAuthorities() {
-        return SecurityUtils.getCurrentUserLogin().flatMap(userRepository::findOneWithAuthoritiesByLogin);
+        return currentPrincipal().map(Principal::getUser);
+    }
+
+    /**
+     * Get the names of the authorities of the current user, as stored in the database.
+     *
+     * @return the authority names, empty if there is no current user.
+     */
+    @Transactional(readOnly = true)
+    public Set<String> getCurrentUserAuthorities() {
+        return currentPrincipal().map(Principal::getAuthorities).orElse(Collections.emptySet());
+    }
+
+    /**
+     * Reports a user created, edited or deleted; its cached copy is dropped now and again once the surrounding
+     * transaction commits, so a concurrent lookup cannot cache the old state.
+     */
+    public void userChanged(String login) {
+        if (login == null) {
+            return;
+        }
+        evictPrincipal(login);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        evictPrincipal(login);
+                    }
+                }
+            );
+        }
+    }
+
+    private Optional<Principal> currentPrincipal() {
+        Optional<String> login = SecurityUtils.getCurrentUserLogin();
+        if (login.isEmpty()) {
+            return Optional.empty();
+        }
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            Object memo = request.getAttribute(CURRENT_PRINCIPAL_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            if (memo instanceof Principal && ((Principal) memo).getUser().getLogin().equals(login.get())) {
+                return Optional.of((Principal) memo);
+            }
+        }
+        Principal principal = principals.get(
+            login.get(),
+            key -> userRepository.findOneWithAuthoritiesByLogin(key).map(Principal::new).orElse(null)
+        );
+        if (principal != null && request != null) {
+            request.setAttribute(CURRENT_PRINCIPAL_ATTRIBUTE, principal, RequestAttributes.SCOPE_REQUEST);
+        }
+        return Optional.ofNullable(principal);
+    }
+
+    private void evictPrincipal(String login) {
+        principals.invalidate(login);
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            request.removeAttribute(CURRENT_PRINCIPAL_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        }
     }
 
     /**
@@ -301,7 +425,9 @@ public class UserService {
             .findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(Instant.now().minus(3, ChronoUnit.DAYS))
             .forEach(user -> {
                 log.debug("Deleting not activated user {}", user.getLogin());
+                platformMetricsService.authoritiesChanged(authorityNames(user.getAuthorities()), Collections.emptySet());
                 userRepository.delete(user);
+                userChanged(user.getLogin());
             });
     }
 
@@ -317,4 +443,31 @@ public class UserService {
     public Integer getTotalUsersByAuthority(String authority) {
         return userRepository.countAllByAuthoritiesContains(authority);
     }
+
+    private static Set<String> authorityNames(Set<Authority> authorities) {
+        return authorities.stream().map(Authority::getName).collect(Collectors.toSet());
+    }
+
+    /**
+     * A user loaded with its authorities, and the names of those authorities.
+     */
+    private static final class Principal {
+
+        private final User user;
+
+        private final Set<String> authorities;
+
+        Principal(User user) {
+            this.user = user;
+            this.authorities = Set.copyOf(authorityNames(user.getAuthorities()));
+        }
+
+        User getUser() {
+            return user;
+        }
+
+        Set<String> getAuthorities() {
+            return authorities;
+        }
+    }
 }
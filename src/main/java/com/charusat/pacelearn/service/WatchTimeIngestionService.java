@@ -0,0 +1,323 @@
+package com.charusat.pacelearn.service;
+
+import com.charusat.pacelearn.config.ApplicationProperties;
+import com.charusat.pacelearn.repository.CourseEnrollmentRepository;
+import com.charusat.pacelearn.repository.CourseSessionProgressRepository;
+import com.charusat.pacelearn.repository.CourseSessionProgressRepositoryCustom.WatchTime;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Service absorbing the watch time reports of the players before they reach the database.
+ * <p>
+ * Reports are coalesced per user and session in a striped map: a position keeps the furthest one, watched seconds
+ * add up. The map is flushed as JDBC batches of upserts every {@code application.progress-ingestion.flush-delay-ms},
+ * or as soon as a batch worth of keys is pending, and on shutdown; a crash loses at most one flush delay of reports.
+ * Each batch writes the progress and the course completions it affects in one transaction.
+ * <p>
+ * Only users enrolled in the course of a session may report in it. Watched seconds are credited at most at the
+ * pace of the wall clock, and at most one session duration at a time; positions are capped at the duration.
+ */
+@Service
+public class WatchTimeIngestionService {
+
+    private final Logger log = LoggerFactory.getLogger(WatchTimeIngestionService.class);
+
+    private final CourseSessionProgressRepository courseSessionProgressRepository;
+
+    private final CourseCompletionService courseCompletionService;
+
+    private final CourseEnrollmentRepository courseEnrollmentRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<Key, Pending>[] stripes;
+
+    /**
+     * The users enrolled in the course of a session they report in; a user not enrolled is looked up on every report.
+     */
+    private final Cache<Key, Watcher> watchers;
+
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private final int batchSize;
+
+    private final int maxPending;
+
+    private final ExecutorService flusher = Executors.newSingleThreadExecutor(
+        runnable -> {
+            Thread thread = new Thread(runnable, "watch-time-flusher");
+            thread.setDaemon(true);
+            return thread;
+        }
+    );
+
+    @SuppressWarnings("unchecked")
+    public WatchTimeIngestionService(
+        CourseSessionProgressRepository courseSessionProgressRepository,
+        CourseCompletionService courseCompletionService,
+        CourseEnrollmentRepository courseEnrollmentRepository,
+        PlatformTransactionManager transactionManager,
+        ApplicationProperties applicationProperties
+    ) {
+        this.courseSessionProgressRepository = courseSessionProgressRepository;
+        this.courseCompletionService = courseCompletionService;
+        this.courseEnrollmentRepository = courseEnrollmentRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        ApplicationProperties.ProgressIngestion properties = applicationProperties.getProgressIngestion();
+        this.watchers =
+            Caffeine
+                .newBuilder()
+                .maximumSize(properties.getMaxWatchers())
+                .expireAfterAccess(Duration.ofSeconds(properties.getWatcherExpireAfterAccessSeconds()))
+                .build();
+        this.stripes = new Map[Math.max(1, properties.getStripes())];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ConcurrentHashMap<>();
+        }
+        this.batchSize = Math.max(1, properties.getBatchSize());
+        this.maxPending = Math.max(batchSize, properties.getMaxPending());
+    }
+
+    /**
+     * Report the playback position of a user in a session; the progress keeps the furthest position reported.
+     *
+     * @throws AccessDeniedException if the user is not enrolled in the course of the session.
+     */
+    public void recordPosition(Long userId, Long courseSessionId, long seconds) {
+        Key key = new Key(userId, courseSessionId);
+        Watcher watcher = watcher(key);
+        record(key, 0, Math.min(seconds, watcher.durationSeconds));
+    }
+
+    /**
+     * Report seconds watched by a user in a session since the previous report; the progress adds them up.
+     *
+     * @return the seconds credited, fewer than reported when more time was reported than went by.
+     * @throws AccessDeniedException if the user is not enrolled in the course of the session.
+     */
+    public long recordWatched(Long userId, Long courseSessionId, long seconds) {
+        Key key = new Key(userId, courseSessionId);
+        long credited = watcher(key).credit(seconds, System.currentTimeMillis());
+        if (credited > 0) {
+            record(key, credited, 0);
+        }
+        return credited;
+    }
+
+    private Watcher watcher(Key key) {
+        Watcher watcher = watchers.get(key, this::loadWatcher);
+        if (watcher == null) {
+            throw new AccessDeniedException("Not enrolled in the course of session " + key.courseSessionId);
+        }
+        return watcher;
+    }
+
+    private Watcher loadWatcher(Key key) {
+        List<Object[]> rows = courseSessionProgressRepository.findWatchTarget(key.userId, key.courseSessionId);
+        if (rows.isEmpty() || !courseEnrollmentRepository.existsByCourse_IdAndUser_Id((Long) rows.get(0)[1], key.userId)) {
+            // not cached, so an enrollment applies from the next report
+            return null;
+        }
+        Long duration = (Long) rows.get(0)[0];
+        Instant lastReportedAt = (Instant) rows.get(0)[2];
+        return new Watcher(duration == null ? 0 : duration, lastReportedAt == null ? Long.MIN_VALUE : lastReportedAt.toEpochMilli());
+    }
+
+    private void record(Key key, long addedSeconds, long position) {
+        stripes[Math.floorMod(key.hashCode(), stripes.length)].compute(
+                key,
+                (k, pending) -> {
+                    if (pending == null) {
+                        pendingCount.incrementAndGet();
+                        pending = new Pending();
+                    }
+                    pending.addedSeconds += addedSeconds;
+                    pending.position = Math.max(pending.position, position);
+                    pending.reportedAt = Instant.now();
+                    return pending;
+                }
+            );
+        int count = pendingCount.get();
+        if (count >= maxPending) {
+            // the flusher cannot keep up: make the reporters wait rather than grow without bounds
+            flush();
+        } else if (count >= batchSize && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flush);
+        }
+    }
+
+    @Scheduled(
+        fixedDelayString = "${application.progress-ingestion.flush-delay-ms:1000}",
+        initialDelayString = "${application.progress-ingestion.flush-delay-ms:1000}"
+    )
+    public void scheduledFlush() {
+        flush();
+    }
+
+    /**
+     * Writes every pending update to the database.
+     */
+    public synchronized void flush() {
+        flushRequested.set(false);
+        List<WatchTime> batch = new ArrayList<>(batchSize);
+        int written = 0;
+        for (Map<Key, Pending> stripe : stripes) {
+            for (Key key : stripe.keySet()) {
+                // removing under the lock of the key hands the entry over; later reports start a new one
+                Pending pending = stripe.remove(key);
+                if (pending == null) {
+                    continue;
+                }
+                pendingCount.decrementAndGet();
+                batch.add(new WatchTime(key.userId, key.courseSessionId, pending.addedSeconds, pending.position, pending.reportedAt));
+                if (batch.size() == batchSize) {
+                    written += write(batch);
+                    batch.clear();
+                }
+            }
+        }
+        written += write(batch);
+        if (written > 0) {
+            log.debug("Flushed {} watch time updates", written);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        flush();
+    }
+
+    /**
+     * Writes one batch; a failing batch is retried update by update so one bad update does not lose the others.
+     */
+    private int write(List<WatchTime> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        try {
+            writeInTransaction(batch);
+            return batch.size();
+        } catch (DataAccessException | TransactionException e) {
+            log.warn("Watch time batch of {} updates failed, retrying one by one: {}", batch.size(), e.getMessage());
+        }
+        int written = 0;
+        for (WatchTime update : batch) {
+            try {
+                writeInTransaction(List.of(update));
+                written++;
+            } catch (DataAccessException | TransactionException e) {
+                log.error("Dropped watch time update {}: {}", update, e.getMessage());
+            }
+        }
+        return written;
+    }
+
+    private void writeInTransaction(List<WatchTime> updates) {
+        Set<Long> userIds = new HashSet<>();
+        Set<Long> courseSessionIds = new HashSet<>();
+        for (WatchTime update : updates) {
+            userIds.add(update.getUserId());
+            courseSessionIds.add(update.getCourseSessionId());
+        }
+        transactionTemplate.executeWithoutResult(
+            status -> {
+                courseSessionProgressRepository.mergeWatchTime(updates);
+                courseCompletionService.progressChanged(userIds, courseSessionIds);
+            }
+        );
+    }
+
+    private static final class Key {
+
+        private final Long userId;
+
+        private final Long courseSessionId;
+
+        Key(Long userId, Long courseSessionId) {
+            this.userId = userId;
+            this.courseSessionId = courseSessionId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return userId.equals(other.userId) && courseSessionId.equals(other.courseSessionId);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * userId.hashCode() + courseSessionId.hashCode();
+        }
+    }
+
+    /**
+     * A user enrolled in the course of a session, with the wall-clock time their watched seconds are credited up to.
+     */
+    private static final class Watcher {
+
+        private final long durationSeconds;
+
+        private long creditedUntilMillis;
+
+        Watcher(long durationSeconds, long creditedUntilMillis) {
+            this.durationSeconds = durationSeconds;
+            this.creditedUntilMillis = creditedUntilMillis;
+        }
+
+        /**
+         * Credit watched seconds, up to the time elapsed since the seconds credited so far; time not claimed by a
+         * report carries over to the next one, for at most one duration of the session.
+         */
+        synchronized long credit(long seconds, long nowMillis) {
+            creditedUntilMillis = Math.max(creditedUntilMillis, nowMillis - durationSeconds * 1000);
+            long credited = Math.max(0, Math.min(seconds, (nowMillis - creditedUntilMillis) / 1000));
+            creditedUntilMillis += credited * 1000;
+            return credited;
+        }
+    }
+
+    /**
+     * The reports of one key since the last flush; only touched under the lock of its key in the stripe.
+     */
+    private static final class Pending {
+
+        private long addedSeconds;
+
+        private long position;
+
+        private Instant reportedAt;
+    }
+}
@@ -0,0 +1,35 @@
+package com.charusat.pacelearn.service.dto;
+
+import com.charusat.pacelearn.domain.Course;
+import org.springframework.data.domain.Page;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * One page of the faceted course catalog, with the number of courses behind every facet value.
+ */
+public class CatalogPageDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Page<Course> courses;
+
+    private final Map<String, Map<String, Integer>> facets;
+
+    public CatalogPageDTO(Page<Course> courses, Map<String, Map<String, Integer>> facets) {
+        this.courses = courses;
+        this.facets = facets;
+    }
+
+    public Page<Course> getCourses() {
+        return courses;
+    }
+
+    /**
+     * @return the count of every value of every facet, by facet name and value.
+     */
+    public Map<String, Map<String, Integer>> getFacets() {
+        return facets;
+    }
+}
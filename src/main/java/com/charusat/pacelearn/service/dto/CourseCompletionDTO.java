@@ -0,0 +1,81 @@
+package com.charusat.pacelearn.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * How far a user is through a course.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CourseCompletionDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long courseId;
+
+    private final int completedSessions;
+
+    private final int totalSessions;
+
+    private final Long nextSessionId;
+
+    private final List<Long> completedSessionIds;
+
+    public CourseCompletionDTO(Long courseId, int completedSessions, int totalSessions, Long nextSessionId, List<Long> completedSessionIds) {
+        this.courseId = courseId;
+        this.completedSessions = completedSessions;
+        this.totalSessions = totalSessions;
+        this.nextSessionId = nextSessionId;
+        this.completedSessionIds = completedSessionIds;
+    }
+
+    public Long getCourseId() {
+        return courseId;
+    }
+
+    public int getCompletedSessions() {
+        return completedSessions;
+    }
+
+    public int getTotalSessions() {
+        return totalSessions;
+    }
+
+    /**
+     * @return the completed share of the sessions, from 0 to 100.
+     */
+    public int getPercentage() {
+        return totalSessions == 0 ? 0 : (int) Math.min(100, 100L * completedSessions / totalSessions);
+    }
+
+    public boolean isCompleted() {
+        return totalSessions > 0 && completedSessions >= totalSessions;
+    }
+
+    /**
+     * @return the first session not completed yet in curriculum order, {@code null} once the course is completed.
+     */
+    public Long getNextSessionId() {
+        return nextSessionId;
+    }
+
+    /**
+     * @return the completed sessions in curriculum order; only filled in when asked for a single course.
+     */
+    public List<Long> getCompletedSessionIds() {
+        return completedSessionIds;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "CourseCompletionDTO{" +
+            "courseId=" + getCourseId() +
+            ", completedSessions=" + getCompletedSessions() +
+            ", totalSessions=" + getTotalSessions() +
+            ", nextSessionId=" + getNextSessionId() +
+            "}";
+    }
+}
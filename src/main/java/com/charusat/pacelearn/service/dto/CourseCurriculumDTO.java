@@ -0,0 +1,222 @@
+package com.charusat.pacelearn.service.dto;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Everything the course page shows of a course: a summary of the course, and its sections with their sessions, both
+ * in curriculum order. Media keys are left out, they are handed out signed by {@code /course-sessions/{id}/media}.
+ */
+public class CourseCurriculumDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final CourseSummary course;
+
+    private final List<SectionSummary> sections;
+
+    public CourseCurriculumDTO(CourseSummary course, List<SectionSummary> sections) {
+        this.course = course;
+        this.sections = sections;
+    }
+
+    public CourseSummary getCourse() {
+        return course;
+    }
+
+    public List<SectionSummary> getSections() {
+        return sections;
+    }
+
+    public static class CourseSummary implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Long id;
+
+        private final String courseTitle;
+
+        private final String courseSubTitle;
+
+        private final String courseDescription;
+
+        private final String courseLogo;
+
+        private final Double amount;
+
+        private final String instructor;
+
+        private final Long totalDuration;
+
+        private final Integer sessionCount;
+
+        private final Integer previewSessionCount;
+
+        public CourseSummary(
+            Long id,
+            String courseTitle,
+            String courseSubTitle,
+            String courseDescription,
+            String courseLogo,
+            Double amount,
+            String instructor,
+            Long totalDuration,
+            Integer sessionCount,
+            Integer previewSessionCount
+        ) {
+            this.id = id;
+            this.courseTitle = courseTitle;
+            this.courseSubTitle = courseSubTitle;
+            this.courseDescription = courseDescription;
+            this.courseLogo = courseLogo;
+            this.amount = amount;
+            this.instructor = instructor;
+            this.totalDuration = totalDuration;
+            this.sessionCount = sessionCount;
+            this.previewSessionCount = previewSessionCount;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getCourseTitle() {
+            return courseTitle;
+        }
+
+        public String getCourseSubTitle() {
+            return courseSubTitle;
+        }
+
+        public String getCourseDescription() {
+            return courseDescription;
+        }
+
+        public String getCourseLogo() {
+            return courseLogo;
+        }
+
+        public Double getAmount() {
+            return amount;
+        }
+
+        /**
+         * @return the full name of the instructor.
+         */
+        public String getInstructor() {
+            return instructor;
+        }
+
+        public Long getTotalDuration() {
+            return totalDuration;
+        }
+
+        public Integer getSessionCount() {
+            return sessionCount;
+        }
+
+        public Integer getPreviewSessionCount() {
+            return previewSessionCount;
+        }
+    }
+
+    public static class SectionSummary implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Long id;
+
+        private final String sectionTitle;
+
+        private final String sectionDescription;
+
+        private final Integer sectionOrder;
+
+        private final Long totalDuration;
+
+        private final List<SessionSummary> sessions;
+
+        public SectionSummary(
+            Long id,
+            String sectionTitle,
+            String sectionDescription,
+            Integer sectionOrder,
+            Long totalDuration,
+            List<SessionSummary> sessions
+        ) {
+            this.id = id;
+            this.sectionTitle = sectionTitle;
+            this.sectionDescription = sectionDescription;
+            this.sectionOrder = sectionOrder;
+            this.totalDuration = totalDuration;
+            this.sessions = sessions;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getSectionTitle() {
+            return sectionTitle;
+        }
+
+        public String getSectionDescription() {
+            return sectionDescription;
+        }
+
+        public Integer getSectionOrder() {
+            return sectionOrder;
+        }
+
+        public Long getTotalDuration() {
+            return totalDuration;
+        }
+
+        public List<SessionSummary> getSessions() {
+            return sessions;
+        }
+    }
+
+    public static class SessionSummary implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Long id;
+
+        private final String sessionTitle;
+
+        private final Long sessionDuration;
+
+        private final Integer sessionOrder;
+
+        private final Boolean isPreview;
+
+        public SessionSummary(Long id, String sessionTitle, Long sessionDuration, Integer sessionOrder, Boolean isPreview) {
+            this.id = id;
+            this.sessionTitle = sessionTitle;
+            this.sessionDuration = sessionDuration;
+            this.sessionOrder = sessionOrder;
+            this.isPreview = isPreview;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getSessionTitle() {
+            return sessionTitle;
+        }
+
+        public Long getSessionDuration() {
+            return sessionDuration;
+        }
+
+        public Integer getSessionOrder() {
+            return sessionOrder;
+        }
+
+        public Boolean getIsPreview() {
+            return isPreview;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.charusat.pacelearn.service.dto;
+
+import com.charusat.pacelearn.domain.Course;
+import com.charusat.pacelearn.web.rest.errors.BadRequestAlertException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position of a course in the "newest first" course listing, ordered by
+ * ({@code courseCreatedOn} desc, {@code id} desc).
+ * <p>
+ * Clients only ever see it as an opaque continuation token.
+ */
+public final class CourseCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final LocalDate createdOn;
+
+    private final Long id;
+
+    private CourseCursor(LocalDate createdOn, Long id) {
+        this.createdOn = createdOn;
+        this.id = id;
+    }
+
+    public static CourseCursor of(Course course) {
+        return new CourseCursor(course.getCourseCreatedOn(), course.getId());
+    }
+
+    /**
+     * Decode a continuation token.
+     *
+     * @param token the token, may be {@code null} or blank for the first page.
+     * @return the cursor, or {@code null} for the first page.
+     */
+    public static CourseCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.indexOf(SEPARATOR);
+            return new CourseCursor(LocalDate.parse(value.substring(0, separator)), Long.valueOf(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new BadRequestAlertException("Invalid cursor", "course", "cursorinvalid");
+        }
+    }
+
+    public String encode() {
+        String value = createdOn + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public LocalDate getCreatedOn() {
+        return createdOn;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return "CourseCursor{" + "createdOn=" + createdOn + ", id=" + id + "}";
+    }
+}
@@ -2,6 +2,7 @@ package com.charusat.pacelearn.service.dto;
 
 import com.charusat.pacelearn.domain.Course;
 import com.charusat.pacelearn.service.mapper.CourseMapper;
+import com.fasterxml.jackson.annotation.JsonInclude;
 
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
@@ -40,6 +41,14 @@ public class CourseDTO implements Serializable {
 
     private Integer courseLength;
 
+    private Long totalDuration;
+
+    private Integer sessionCount;
+
+    private Integer previewSessionCount;
+
+    private Integer approvedSessionCount;
+
     @NotNull
 //    @Size(min = 10, max = 42)
     private String courseLogo;
@@ -80,6 +89,9 @@ public class CourseDTO implements Serializable {
 
     Integer maxStudents;
 
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private CourseCompletionDTO progress;
+
     public CourseDTO() {}
 
     public CourseDTO(CourseDTO course) {
@@ -90,6 +102,10 @@ public class CourseDTO implements Serializable {
         this.courseSubTitle = course.getCourseSubTitle();
         this.coursePreviewURL = course.getCoursePreviewURL();
         this.courseLength = course.getCourseLength();
+        this.totalDuration = course.getTotalDuration();
+        this.sessionCount = course.getSessionCount();
+        this.previewSessionCount = course.getPreviewSessionCount();
+        this.approvedSessionCount = course.getApprovedSessionCount();
         this.courseLogo = course.getCourseLogo();
         this.courseCreatedOn = course.getCourseCreatedOn();
         this.courseUpdatedOn = course.getCourseUpdatedOn();
@@ -105,6 +121,7 @@ public class CourseDTO implements Serializable {
         this.user = course.getUser();
         this.minStudents = course.getMinStudents();
         this.maxStudents = course.getMaxStudents();
+        this.progress = course.getProgress();
     }
 
     public Long getId() {
@@ -163,6 +180,38 @@ public class CourseDTO implements Serializable {
         this.courseLength = courseLength;
     }
 
+    public Long getTotalDuration() {
+        return totalDuration;
+    }
+
+    public void setTotalDuration(Long totalDuration) {
+        this.totalDuration = totalDuration;
+    }
+
+    public Integer getSessionCount() {
+        return sessionCount;
+    }
+
+    public void setSessionCount(Integer sessionCount) {
+        this.sessionCount = sessionCount;
+    }
+
+    public Integer getPreviewSessionCount() {
+        return previewSessionCount;
+    }
+
+    public void setPreviewSessionCount(Integer previewSessionCount) {
+        this.previewSessionCount = previewSessionCount;
+    }
+
+    public Integer getApprovedSessionCount() {
+        return approvedSessionCount;
+    }
+
+    public void setApprovedSessionCount(Integer approvedSessionCount) {
+        this.approvedSessionCount = approvedSessionCount;
+    }
+
     public String getCourseLogo() {
         return courseLogo;
     }
@@ -291,6 +340,17 @@ public class CourseDTO implements Serializable {
         this.maxStudents = maxStudents;
     }
 
+    /**
+     * @return how far the current user is through the course; only filled in for the courses the user is enrolled in.
+     */
+    public CourseCompletionDTO getProgress() {
+        return progress;
+    }
+
+    public void setProgress(CourseCompletionDTO progress) {
+        this.progress = progress;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -323,6 +383,10 @@ public class CourseDTO implements Serializable {
             ", courseSubTitle='" + getCourseSubTitle() + "'" +
             ", coursePreviewURL='" + getCoursePreviewURL() + "'" +
             ", courseLength=" + getCourseLength() +
+            ", totalDuration=" + getTotalDuration() +
+            ", sessionCount=" + getSessionCount() +
+            ", previewSessionCount=" + getPreviewSessionCount() +
+            ", approvedSessionCount=" + getApprovedSessionCount() +
             ", courseLogo='" + getCourseLogo() + "'" +
             ", courseCreatedOn='" + getCourseCreatedOn() + "'" +
             ", courseUpdatedOn='" + getCourseUpdatedOn() + "'" +
@@ -0,0 +1,90 @@
+package com.charusat.pacelearn.service.dto;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * A course matching a full-text search, with the matching fragments of its indexed fields.
+ */
+public class CourseSearchHitDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long courseId;
+
+    private String courseTitle;
+
+    private String courseSubTitle;
+
+    private String courseLogo;
+
+    private String courseLogoThumbnail;
+
+    private float score;
+
+    /**
+     * Matching fragment of every field that matched, keyed by field name, with the terms wrapped in {@code <em>}.
+     */
+    private Map<String, String> highlights;
+
+    public Long getCourseId() {
+        return courseId;
+    }
+
+    public void setCourseId(Long courseId) {
+        this.courseId = courseId;
+    }
+
+    public String getCourseTitle() {
+        return courseTitle;
+    }
+
+    public void setCourseTitle(String courseTitle) {
+        this.courseTitle = courseTitle;
+    }
+
+    public String getCourseSubTitle() {
+        return courseSubTitle;
+    }
+
+    public void setCourseSubTitle(String courseSubTitle) {
+        this.courseSubTitle = courseSubTitle;
+    }
+
+    public String getCourseLogo() {
+        return courseLogo;
+    }
+
+    public void setCourseLogo(String courseLogo) {
+        this.courseLogo = courseLogo;
+    }
+
+    public String getCourseLogoThumbnail() {
+        return courseLogoThumbnail;
+    }
+
+    public void setCourseLogoThumbnail(String courseLogoThumbnail) {
+        this.courseLogoThumbnail = courseLogoThumbnail;
+    }
+
+    public float getScore() {
+        return score;
+    }
+
+    public void setScore(float score) {
+        this.score = score;
+    }
+
+    public Map<String, String> getHighlights() {
+        return highlights;
+    }
+
+    public void setHighlights(Map<String, String> highlights) {
+        this.highlights = highlights;
+    }
+
+    @Override
+    public String toString() {
+        return "CourseSearchHitDTO{" + "courseId=" + courseId + ", courseTitle='" + courseTitle + "'" + ", score=" + score + "}";
+    }
+}
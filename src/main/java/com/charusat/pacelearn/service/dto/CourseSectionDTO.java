@@ -29,6 +29,14 @@ public class CourseSectionDTO implements Serializable {
 //    @NotNull
     private Boolean isApproved;
 
+    private Long totalDuration;
+
+    private Integer sessionCount;
+
+    private Integer previewSessionCount;
+
+    private Integer approvedSessionCount;
+
     private com.charusat.pacelearn.service.dto.CourseDTO course;
 
     public Long getId() {
@@ -87,6 +95,38 @@ public class CourseSectionDTO implements Serializable {
         this.course = course;
     }
 
+    public Long getTotalDuration() {
+        return totalDuration;
+    }
+
+    public void setTotalDuration(Long totalDuration) {
+        this.totalDuration = totalDuration;
+    }
+
+    public Integer getSessionCount() {
+        return sessionCount;
+    }
+
+    public void setSessionCount(Integer sessionCount) {
+        this.sessionCount = sessionCount;
+    }
+
+    public Integer getPreviewSessionCount() {
+        return previewSessionCount;
+    }
+
+    public void setPreviewSessionCount(Integer previewSessionCount) {
+        this.previewSessionCount = previewSessionCount;
+    }
+
+    public Integer getApprovedSessionCount() {
+        return approvedSessionCount;
+    }
+
+    public void setApprovedSessionCount(Integer approvedSessionCount) {
+        this.approvedSessionCount = approvedSessionCount;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -118,6 +158,10 @@ public class CourseSectionDTO implements Serializable {
             ", sectionOrder=" + getSectionOrder() +
             ", isDraft='" + getIsDraft() + "'" +
             ", isApproved='" + getIsApproved() + "'" +
+            ", totalDuration=" + getTotalDuration() +
+            ", sessionCount=" + getSessionCount() +
+            ", previewSessionCount=" + getPreviewSessionCount() +
+            ", approvedSessionCount=" + getApprovedSessionCount() +
             ", course=" + getCourse() +
             "}";
     }
@@ -2,6 +2,7 @@ package com.charusat.pacelearn.service.dto;
 
 import javax.validation.constraints.NotNull;
 import java.io.Serializable;
+import java.time.Instant;
 import java.util.Objects;
 
 /**
@@ -15,6 +16,8 @@ public class CourseSessionProgressDTO implements Serializable {
     @NotNull
     private Long watchSeconds;
 
+    private Instant lastReportedAt;
+
     private UserDTO user;
 
     private com.charusat.pacelearn.service.dto.CourseSessionDTO courseSession;
@@ -35,6 +38,14 @@ public class CourseSessionProgressDTO implements Serializable {
         this.watchSeconds = watchSeconds;
     }
 
+    public Instant getLastReportedAt() {
+        return lastReportedAt;
+    }
+
+    public void setLastReportedAt(Instant lastReportedAt) {
+        this.lastReportedAt = lastReportedAt;
+    }
+
     public UserDTO getUser() {
         return user;
     }
@@ -78,6 +89,7 @@ public class CourseSessionProgressDTO implements Serializable {
         return "CourseSessionProgressDTO{" +
             "id=" + getId() +
             ", watchSeconds=" + getWatchSeconds() +
+            ", lastReportedAt='" + getLastReportedAt() + "'" +
             ", user=" + getUser() +
             ", courseSession=" + getCourseSession() +
             "}";
@@ -0,0 +1,38 @@
+package com.charusat.pacelearn.service.dto;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * One page of a keyset paginated listing.
+ *
+ * @param <T> the type of the page content.
+ */
+public class CursorPageDTO<T> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<T> content;
+
+    private final String nextCursor;
+
+    public CursorPageDTO(List<T> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    /**
+     * @return the continuation token of the next page, or {@code null} on the last page.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
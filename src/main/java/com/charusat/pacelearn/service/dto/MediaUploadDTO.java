@@ -0,0 +1,89 @@
+package com.charusat.pacelearn.service.dto;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * The state of a resumable media upload: the chunks still to send, and until when the upload can be resumed.
+ * <p>
+ * Chunk {@code i} covers the bytes from {@code i * chunkSize}, and is {@code chunkSize} long except for the last one.
+ */
+public class MediaUploadDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String uploadId;
+
+    private final Long courseSessionId;
+
+    private final String kind;
+
+    private final String fileName;
+
+    private final long size;
+
+    private final int chunkSize;
+
+    private final List<Integer> missingChunks;
+
+    private final Instant expiresAt;
+
+    public MediaUploadDTO(
+        String uploadId,
+        Long courseSessionId,
+        String kind,
+        String fileName,
+        long size,
+        int chunkSize,
+        List<Integer> missingChunks,
+        Instant expiresAt
+    ) {
+        this.uploadId = uploadId;
+        this.courseSessionId = courseSessionId;
+        this.kind = kind;
+        this.fileName = fileName;
+        this.size = size;
+        this.chunkSize = chunkSize;
+        this.missingChunks = missingChunks;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getUploadId() {
+        return uploadId;
+    }
+
+    public Long getCourseSessionId() {
+        return courseSessionId;
+    }
+
+    /**
+     * @return {@code video} or {@code resource}, the media of the session the file becomes.
+     */
+    public String getKind() {
+        return kind;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * @return the indexes of the chunks not received yet, in order.
+     */
+    public List<Integer> getMissingChunks() {
+        return missingChunks;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+}
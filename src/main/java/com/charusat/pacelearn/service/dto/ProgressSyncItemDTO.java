@@ -0,0 +1,52 @@
+package com.charusat.pacelearn.service.dto;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * One progress record of a client coming back online: how far it got in a session, and when.
+ */
+public class ProgressSyncItemDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long sessionId;
+
+    private Long watchSeconds;
+
+    private Instant clientTimestamp;
+
+    public Long getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(Long sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    public Long getWatchSeconds() {
+        return watchSeconds;
+    }
+
+    public void setWatchSeconds(Long watchSeconds) {
+        this.watchSeconds = watchSeconds;
+    }
+
+    public Instant getClientTimestamp() {
+        return clientTimestamp;
+    }
+
+    public void setClientTimestamp(Instant clientTimestamp) {
+        this.clientTimestamp = clientTimestamp;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ProgressSyncItemDTO{" +
+            "sessionId=" + getSessionId() +
+            ", watchSeconds=" + getWatchSeconds() +
+            ", clientTimestamp='" + getClientTimestamp() + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,49 @@
+package com.charusat.pacelearn.service.dto;
+
+import java.io.Serializable;
+
+/**
+ * What became of one synced progress record, and the resulting watch time of its session.
+ */
+public class ProgressSyncResultDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String APPLIED = "applied";
+    public static final String STALE = "stale";
+    public static final String NOT_FOUND = "not-found";
+    public static final String FORBIDDEN = "forbidden";
+    public static final String INVALID = "invalid";
+
+    private final Long sessionId;
+
+    private final String status;
+
+    private final Long watchSeconds;
+
+    public ProgressSyncResultDTO(Long sessionId, String status, Long watchSeconds) {
+        this.sessionId = sessionId;
+        this.status = status;
+        this.watchSeconds = watchSeconds;
+    }
+
+    public Long getSessionId() {
+        return sessionId;
+    }
+
+    /**
+     * @return {@code applied}, {@code stale} when the server already had newer progress, {@code not-found} when the
+     * session does not exist, {@code forbidden} when the user is not enrolled in the course of the session, or
+     * {@code invalid}.
+     */
+    public String getStatus() {
+        return status;
+    }
+
+    /**
+     * @return the watch time of the session after the sync, {@code null} when unknown.
+     */
+    public Long getWatchSeconds() {
+        return watchSeconds;
+    }
+}
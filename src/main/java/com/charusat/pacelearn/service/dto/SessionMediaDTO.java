@@ -0,0 +1,45 @@
+package com.charusat.pacelearn.service.dto;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * The URLs to play the video and download the resource of a course session.
+ * <p>
+ * Media stored by the platform get signed URLs valid until {@code expiresAt}; media hosted elsewhere keep their URL.
+ */
+public class SessionMediaDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long sessionId;
+
+    private final String videoUrl;
+
+    private final String resourceUrl;
+
+    private final Instant expiresAt;
+
+    public SessionMediaDTO(Long sessionId, String videoUrl, String resourceUrl, Instant expiresAt) {
+        this.sessionId = sessionId;
+        this.videoUrl = videoUrl;
+        this.resourceUrl = resourceUrl;
+        this.expiresAt = expiresAt;
+    }
+
+    public Long getSessionId() {
+        return sessionId;
+    }
+
+    public String getVideoUrl() {
+        return videoUrl;
+    }
+
+    public String getResourceUrl() {
+        return resourceUrl;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+}
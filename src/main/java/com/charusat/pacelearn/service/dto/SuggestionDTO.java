@@ -0,0 +1,65 @@
+package com.charusat.pacelearn.service.dto;
+
+import java.io.Serializable;
+
+/**
+ * A completion offered by the search box: a course, a category or an instructor.
+ */
+public class SuggestionDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String COURSE = "course";
+    public static final String CATEGORY = "category";
+    public static final String INSTRUCTOR = "instructor";
+
+    private final String type;
+
+    private final Long id;
+
+    private final String text;
+
+    private final long weight;
+
+    public SuggestionDTO(String type, Long id, String text, long weight) {
+        this.type = type;
+        this.id = id;
+        this.text = text;
+        this.weight = weight;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * @return the number of enrollments behind the suggestion, higher ranks first.
+     */
+    public long getWeight() {
+        return weight;
+    }
+
+    /**
+     * @return the identity of the suggested item, shared by every version of the suggestion.
+     */
+    public String key() {
+        return key(type, id);
+    }
+
+    public static String key(String type, Long id) {
+        return type + ":" + id;
+    }
+
+    @Override
+    public String toString() {
+        return "SuggestionDTO{" + "type='" + type + "'" + ", id=" + id + ", text='" + text + "'" + ", weight=" + weight + "}";
+    }
+}
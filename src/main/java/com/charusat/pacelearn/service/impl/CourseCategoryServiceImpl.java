@@ -6,10 +6,14 @@ import com.charusat.pacelearn.domain.CourseCategory;
 import com.charusat.pacelearn.repository.CourseCategoryRepository;
 import com.charusat.pacelearn.repository.CourseRepository;
 import com.charusat.pacelearn.service.CourseCategoryService;
+import com.charusat.pacelearn.service.CourseChangedEvent;
+import com.charusat.pacelearn.service.CourseCategoryTree;
+import com.charusat.pacelearn.service.CourseCategoryTreeService;
 import com.charusat.pacelearn.service.dto.CourseCategoryDTO;
 import com.charusat.pacelearn.service.mapper.CourseCategoryMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
@@ -32,21 +36,34 @@ public class CourseCategoryServiceImpl implements CourseCategoryService {
 
     private final CourseCategoryMapper courseCategoryMapper;
 
+    private final CourseCategoryTreeService courseCategoryTreeService;
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
     public CourseCategoryServiceImpl(
         CourseCategoryRepository courseCategoryRepository,
         CourseRepository courseRepository,
-        CourseCategoryMapper courseCategoryMapper
+        CourseCategoryMapper courseCategoryMapper,
+        CourseCategoryTreeService courseCategoryTreeService,
+        ApplicationEventPublisher applicationEventPublisher
     ) {
         this.courseCategoryRepository = courseCategoryRepository;
         this.courseRepository = courseRepository;
         this.courseCategoryMapper = courseCategoryMapper;
+        this.courseCategoryTreeService = courseCategoryTreeService;
+        this.applicationEventPublisher = applicationEventPublisher;
     }
 
     @Override
     public CourseCategoryDTO save(CourseCategoryDTO courseCategoryDTO) {
         log.debug("Request to save CourseCategory : {}", courseCategoryDTO);
         CourseCategory courseCategory = courseCategoryMapper.toEntity(courseCategoryDTO);
+        boolean existing = courseCategory.getId() != null;
         courseCategory = courseCategoryRepository.save(courseCategory);
+        courseCategoryTreeService.invalidate();
+        if (existing) {
+            coursesChanged(courseCategory.getId());
+        }
         return courseCategoryMapper.toDto(courseCategory);
     }
 
@@ -58,6 +75,8 @@ public class CourseCategoryServiceImpl implements CourseCategoryService {
             .findById(courseCategoryDTO.getId())
             .map(existingCourseCategory -> {
                 courseCategoryMapper.partialUpdate(existingCourseCategory, courseCategoryDTO);
+                courseCategoryTreeService.invalidate();
+                coursesChanged(existingCourseCategory.getId());
 
                 return existingCourseCategory;
             })
@@ -83,72 +102,66 @@ public class CourseCategoryServiceImpl implements CourseCategoryService {
     public void delete(Long id) {
         log.debug("Request to delete CourseCategory : {}", id);
         courseCategoryRepository.deleteById(id);
+        courseCategoryTreeService.invalidate();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<CourseCategory> listParentCategory() {
         log.debug("Request to list parent categories ");
-        List<CourseCategory> list;
-        list = courseCategoryRepository.findParentCategory();
-        return list;
+        return courseCategoryTreeService.getTree().getParentCategoriesWithCourses();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<CourseCategory> listByParentId(Long id) {
         log.debug("request to list sub-categories of category : {}", id);
-        List<CourseCategory> list;
-        list = courseCategoryRepository.findByParentId(Integer.parseInt(id.toString()));
-        return list;
+        return courseCategoryTreeService.getTree().getCategoriesWithCourses(id.intValue());
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Map<String, List<Course>> getCoursesBySubCategories() {
-        List<CourseCategory> courseCategories = courseCategoryRepository.findCourseCategoryByIsParent(false);
+        Map<Long, List<Course>> coursesByCategoryId = new HashMap<>();
+        for (Course course : courseRepository.findApprovedInSubCategories()) {
+            coursesByCategoryId.computeIfAbsent(course.getCourseCategory().getId(), key -> new ArrayList<>()).add(course);
+        }
         Map<String, List<Course>> map = new HashMap<>();
-        for (CourseCategory category : courseCategories) {
-            List<Course> courses = courseRepository.findByCategoryId(category.getId());
-            map.put(category.getCourseCategoryTitle().strip(), courses);
+        for (CourseCategory category : courseCategoryTreeService.getTree().getSubCategories()) {
+            map.put(category.getCourseCategoryTitle().strip(), coursesByCategoryId.getOrDefault(category.getId(), new ArrayList<>()));
         }
         return map;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Map<String, List<CourseCategory>> getCourseSubCategoriesByParentCategories() {
-        List<CourseCategory> courseCategories = courseCategoryRepository.findCourseCategoryByIsParent(true);
+        CourseCategoryTree tree = courseCategoryTreeService.getTree();
         Map<String, List<CourseCategory>> map = new HashMap<>();
-        for (CourseCategory category : courseCategories) {
-            List<CourseCategory> subCategories = courseCategoryRepository.findByParentId(category.getParentId());
-            map.put(category.getCourseCategoryTitle().strip(), subCategories);
+        for (CourseCategory category : tree.getParentCategories()) {
+            map.put(category.getCourseCategoryTitle().strip(), tree.getCategoriesWithCourses(category.getParentId()));
         }
         return map;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ResponseEntity<Map<Long, Integer>> getCourseCountBySubCategory(Long parentId) {
-        List<CourseCategory> courseCategories = courseCategoryRepository.findByParentId(parentId.intValue());
-        Map<Long, Integer> map = new HashMap<>();
-        for (CourseCategory category : courseCategories) {
-            map.put(category.getId(), courseCategoryRepository.getCourseCountBySubCategory(category.getId()));
-        }
-        return ResponseEntity.ok().body(map);
+        return ResponseEntity.ok().body(courseCategoryTreeService.getTree().getCourseCountBySubCategory(parentId.intValue()));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ResponseEntity<Map<Long, Integer>> getCourseCountByParentCategory() {
-        List<CourseCategory> courseCategories = courseCategoryRepository.findParentCategory();
-        Map<Long, Integer> map = new HashMap<>();
-        for (CourseCategory category : courseCategories) {
-            map.put(category.getId(), courseCategoryRepository.getCourseCountByParentCategory(category.getId().intValue()));
-        }
-        return ResponseEntity.ok().body(map);
+        return ResponseEntity.ok().body(courseCategoryTreeService.getTree().getCourseCountByParentCategory());
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ArrayList<AllCategories> getCategoriesWithItsSubcategories(){
+        CourseCategoryTree tree = courseCategoryTreeService.getTree();
         ArrayList<AllCategories> allCategoriesResponse =new ArrayList<>();
-        List<CourseCategory> courseCategories = courseCategoryRepository.findCourseCategoryByIsParent(true);
-        List<CourseCategory> subCategories;
-        for (CourseCategory category:courseCategories) {
+        for (CourseCategory category : tree.getParentCategories()) {
             AllCategories allCategories=new AllCategories();
                 allCategories.setCourseCategoryTitle(category.getCourseCategoryTitle());
                 allCategories.setDescription(category.getDescription());
@@ -156,11 +169,19 @@ public class CourseCategoryServiceImpl implements CourseCategoryService {
                 allCategories.setLogo(category.getLogo());
                 allCategories.setParentId(category.getParentId());
                 allCategories.setParent(category.getIsParent());
-                subCategories=courseCategoryRepository.findByParentId(category.getParentId());
-                allCategories.setSubCategories(subCategories);
+                allCategories.setSubCategories(tree.getCategoriesWithCourses(category.getParentId()));
             allCategoriesResponse.add(allCategories);
 
         }
         return allCategoriesResponse;
     }
+
+    /**
+     * Reports every course of a category as changed, since the views of the courses copy the title of their category.
+     */
+    private void coursesChanged(Long categoryId) {
+        for (Long courseId : courseRepository.findIdsByCourseCategoryId(categoryId)) {
+            applicationEventPublisher.publishEvent(CourseChangedEvent.of(courseId));
+        }
+    }
 }
@@ -3,6 +3,8 @@ package com.charusat.pacelearn.service.impl;
 import com.charusat.pacelearn.domain.CourseEnrollment;
 import com.charusat.pacelearn.repository.CourseEnrollmentRepository;
 import com.charusat.pacelearn.service.CourseEnrollmentService;
+import com.charusat.pacelearn.service.EnrollmentCounterService;
+import com.charusat.pacelearn.service.PlatformMetricsService;
 import com.charusat.pacelearn.service.dto.CourseEnrollmentDTO;
 import com.charusat.pacelearn.service.mapper.CourseEnrollmentMapper;
 import org.slf4j.Logger;
@@ -12,6 +14,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Objects;
 import java.util.Optional;
 
 /**
@@ -27,19 +30,31 @@ public class CourseEnrollmentServiceImpl implements CourseEnrollmentService {
 
     private final CourseEnrollmentMapper courseEnrollmentMapper;
 
+    private final EnrollmentCounterService enrollmentCounterService;
+
+    private final PlatformMetricsService platformMetricsService;
+
     public CourseEnrollmentServiceImpl(
         CourseEnrollmentRepository courseEnrollmentRepository,
-        CourseEnrollmentMapper courseEnrollmentMapper
+        CourseEnrollmentMapper courseEnrollmentMapper,
+        EnrollmentCounterService enrollmentCounterService,
+        PlatformMetricsService platformMetricsService
     ) {
         this.courseEnrollmentRepository = courseEnrollmentRepository;
         this.courseEnrollmentMapper = courseEnrollmentMapper;
+        this.enrollmentCounterService = enrollmentCounterService;
+        this.platformMetricsService = platformMetricsService;
     }
 
     @Override
     public CourseEnrollmentDTO save(CourseEnrollmentDTO courseEnrollmentDTO) {
         log.debug("Request to save CourseEnrollment : {}", courseEnrollmentDTO);
+        Long previousCourseId = courseEnrollmentDTO.getId() == null
+            ? null
+            : courseEnrollmentRepository.findById(courseEnrollmentDTO.getId()).map(this::courseIdOf).orElse(null);
         CourseEnrollment courseEnrollment = courseEnrollmentMapper.toEntity(courseEnrollmentDTO);
         courseEnrollment = courseEnrollmentRepository.save(courseEnrollment);
+        moveCount(previousCourseId, courseIdOf(courseEnrollment));
         return courseEnrollmentMapper.toDto(courseEnrollment);
     }
 
@@ -50,7 +65,9 @@ public class CourseEnrollmentServiceImpl implements CourseEnrollmentService {
         return courseEnrollmentRepository
             .findById(courseEnrollmentDTO.getId())
             .map(existingCourseEnrollment -> {
+                Long previousCourseId = courseIdOf(existingCourseEnrollment);
                 courseEnrollmentMapper.partialUpdate(existingCourseEnrollment, courseEnrollmentDTO);
+                moveCount(previousCourseId, courseIdOf(existingCourseEnrollment));
 
                 return existingCourseEnrollment;
             })
@@ -75,6 +92,31 @@ public class CourseEnrollmentServiceImpl implements CourseEnrollmentService {
     @Override
     public void delete(Long id) {
         log.debug("Request to delete CourseEnrollment : {}", id);
-        courseEnrollmentRepository.deleteById(id);
+        courseEnrollmentRepository
+            .findById(id)
+            .ifPresent(courseEnrollment -> {
+                courseEnrollmentRepository.delete(courseEnrollment);
+                moveCount(courseIdOf(courseEnrollment), null);
+            });
+    }
+
+    /**
+     * Keeps the enrollment counters and the platform metrics in step when an enrollment appears, disappears or changes course.
+     */
+    private void moveCount(Long fromCourseId, Long toCourseId) {
+        if (Objects.equals(fromCourseId, toCourseId)) {
+            return;
+        }
+        if (fromCourseId != null) {
+            enrollmentCounterService.decrement(fromCourseId);
+        }
+        if (toCourseId != null) {
+            enrollmentCounterService.increment(toCourseId);
+        }
+        platformMetricsService.enrollmentMoved(fromCourseId, toCourseId);
+    }
+
+    private Long courseIdOf(CourseEnrollment courseEnrollment) {
+        return courseEnrollment.getCourse() == null ? null : courseEnrollment.getCourse().getId();
     }
 }
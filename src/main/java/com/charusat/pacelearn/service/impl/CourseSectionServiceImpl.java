@@ -5,6 +5,7 @@ import com.charusat.pacelearn.domain.CourseSection;
 import com.charusat.pacelearn.domain.User;
 import com.charusat.pacelearn.repository.CourseRepository;
 import com.charusat.pacelearn.repository.CourseSectionRepository;
+import com.charusat.pacelearn.service.CourseChangedEvent;
 import com.charusat.pacelearn.service.CourseSectionService;
 import com.charusat.pacelearn.service.UserService;
 import com.charusat.pacelearn.service.dto.CourseDTO;
@@ -13,6 +14,7 @@ import com.charusat.pacelearn.service.mapper.CourseMapper;
 import com.charusat.pacelearn.service.mapper.CourseSectionMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -42,11 +44,14 @@ public class CourseSectionServiceImpl implements CourseSectionService {
 
     private final CourseRepository courseRepository;
 
+    private final ApplicationEventPublisher applicationEventPublisher;
+
     public CourseSectionServiceImpl(
             CourseSectionRepository courseSectionRepository,
             CourseServiceImpl courseService, UserService userService, CourseSectionMapper courseSectionMapper,
             CourseMapper courseMapper,
-            CourseRepository courseRepository
+            CourseRepository courseRepository,
+            ApplicationEventPublisher applicationEventPublisher
     ) {
         this.courseSectionRepository = courseSectionRepository;
         this.courseService = courseService;
@@ -54,6 +59,7 @@ public class CourseSectionServiceImpl implements CourseSectionService {
         this.courseSectionMapper = courseSectionMapper;
         this.courseMapper = courseMapper;
         this.courseRepository = courseRepository;
+        this.applicationEventPublisher = applicationEventPublisher;
     }
 
     @Override
@@ -61,6 +67,7 @@ public class CourseSectionServiceImpl implements CourseSectionService {
         log.debug("Request to save CourseSection : {}", courseSectionDTO);
         CourseSection courseSection = courseSectionMapper.toEntity(courseSectionDTO);
         courseSection = courseSectionRepository.save(courseSection);
+        courseChanged(courseIdOf(courseSection));
         return courseSectionMapper.toDto(courseSection);
     }
 
@@ -72,6 +79,7 @@ public class CourseSectionServiceImpl implements CourseSectionService {
             .findById(courseSectionDTO.getId())
             .map(existingCourseSection -> {
                 courseSectionMapper.partialUpdate(existingCourseSection, courseSectionDTO);
+                courseChanged(courseIdOf(existingCourseSection));
 
                 return existingCourseSection;
             })
@@ -106,9 +114,20 @@ public class CourseSectionServiceImpl implements CourseSectionService {
     @Override
     public void delete(Long id) {
         log.debug("Request to delete CourseSection : {}", id);
+        courseSectionRepository.findById(id).ifPresent(courseSection -> courseChanged(courseIdOf(courseSection)));
         courseSectionRepository.deleteById(id);
     }
 
+    private void courseChanged(Long courseId) {
+        if (courseId != null) {
+            applicationEventPublisher.publishEvent(CourseChangedEvent.of(courseId));
+        }
+    }
+
+    private static Long courseIdOf(CourseSection courseSection) {
+        return courseSection.getCourse() == null ? null : courseSection.getCourse().getId();
+    }
+
     public CourseSection save(Long courseId, CourseSectionDTO courseSectionDTO) {
         Optional<CourseDTO> course = courseService.findOne(courseId);
         Course course1 = courseMapper.toEntity(course);
@@ -124,6 +143,7 @@ public class CourseSectionServiceImpl implements CourseSectionService {
             courseSection.isDraft(false);
             courseSection.sectionOrder(courseSectionRepository.findCourseSectionByCourse_Id(courseId).size() + 1);
             courseSection.isApproved(false);
+            courseChanged(courseId);
             return courseSectionRepository.save(courseSection);
         } else {
             return null;
@@ -2,26 +2,41 @@ package com.charusat.pacelearn.service.impl;
 
 import com.charusat.pacelearn.domain.Authority;
 import com.charusat.pacelearn.domain.Course;
+import com.charusat.pacelearn.domain.CourseCategory;
+import com.charusat.pacelearn.domain.CourseCompletion;
+import com.charusat.pacelearn.domain.CourseEnrollment;
 import com.charusat.pacelearn.domain.User;
 import com.charusat.pacelearn.repository.AuthorityRepository;
+import com.charusat.pacelearn.repository.CourseEnrollmentRepository;
 import com.charusat.pacelearn.repository.CourseRepository;
 import com.charusat.pacelearn.repository.CourseReviewStatusRepository;
 import com.charusat.pacelearn.repository.UserRepository;
 import com.charusat.pacelearn.security.AuthoritiesConstants;
+import com.charusat.pacelearn.service.CourseChangedEvent;
+import com.charusat.pacelearn.service.CourseCompletionService;
 import com.charusat.pacelearn.service.CourseService;
+import com.charusat.pacelearn.service.EnrollmentCounterService;
 import com.charusat.pacelearn.service.MailService;
+import com.charusat.pacelearn.service.PlatformMetricsService;
 import com.charusat.pacelearn.service.UserService;
+import com.charusat.pacelearn.service.dto.CourseCursor;
 import com.charusat.pacelearn.service.dto.CourseDTO;
+import com.charusat.pacelearn.service.dto.CursorPageDTO;
 import com.charusat.pacelearn.service.mapper.CourseMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 
 import java.time.LocalDate;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 
 /**
  * Service Implementation for managing {@link Course}.
@@ -30,10 +45,16 @@ import java.util.concurrent.atomic.AtomicBoolean;
 @Transactional
 public class CourseServiceImpl implements CourseService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final Logger log = LoggerFactory.getLogger(CourseServiceImpl.class);
 
     private final CourseRepository courseRepository;
 
+    private final CourseEnrollmentRepository courseEnrollmentRepository;
+
+    private final EnrollmentCounterService enrollmentCounterService;
+
     private final UserRepository userRepository;
     private final CourseReviewStatusRepository courseReviewStatusRepository;
 
@@ -44,23 +65,40 @@ public class CourseServiceImpl implements CourseService {
     private final UserService userService;
     private final AuthorityRepository authorityRepository;
 
+    private final PlatformMetricsService platformMetricsService;
+
+    private final CourseCompletionService courseCompletionService;
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
     public CourseServiceImpl(
             CourseRepository courseRepository,
+            CourseEnrollmentRepository courseEnrollmentRepository,
+            EnrollmentCounterService enrollmentCounterService,
             UserRepository userRepository,
             CourseReviewStatusRepository courseReviewStatusRepository, MailService mailService, CourseMapper courseMapper,
-            UserService userService, AuthorityRepository authorityRepository) {
+            UserService userService, AuthorityRepository authorityRepository, PlatformMetricsService platformMetricsService,
+            CourseCompletionService courseCompletionService, ApplicationEventPublisher applicationEventPublisher) {
         this.courseRepository = courseRepository;
+        this.courseEnrollmentRepository = courseEnrollmentRepository;
+        this.enrollmentCounterService = enrollmentCounterService;
         this.userRepository = userRepository;
         this.courseReviewStatusRepository = courseReviewStatusRepository;
         this.mailService = mailService;
         this.userService = userService;
         this.courseMapper = courseMapper;
         this.authorityRepository = authorityRepository;
+        this.platformMetricsService = platformMetricsService;
+        this.courseCompletionService = courseCompletionService;
+        this.applicationEventPublisher = applicationEventPublisher;
     }
 
     @Override
     public CourseDTO save(CourseDTO courseDTO) {
         log.debug("Request to save Course : {}", courseDTO);
+        Optional<Course> existingCourse = courseDTO.getId() == null ? Optional.empty() : courseRepository.findById(courseDTO.getId());
+        Boolean previouslyApproved = existingCourse.map(Course::getIsApproved).orElse(null);
+        Long previousCategoryId = existingCourse.map(Course::getCourseCategory).map(CourseCategory::getId).orElse(null);
         Course course = courseMapper.toEntity(courseDTO);
         /**
          * Setting the default values that needs to set during the course creation.
@@ -77,6 +115,8 @@ public class CourseServiceImpl implements CourseService {
         /** * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
 
         course = courseRepository.save(course);
+        platformMetricsService.courseApprovalChanged(previouslyApproved, course.getIsApproved());
+        applicationEventPublisher.publishEvent(CourseChangedEvent.of(course.getId(), previousCategoryId, categoryId(course)));
         return courseMapper.toDto(course);
     }
 
@@ -87,8 +127,14 @@ public class CourseServiceImpl implements CourseService {
         return courseRepository
             .findById(courseDTO.getId())
             .map(existingCourse -> {
+                Boolean previouslyApproved = existingCourse.getIsApproved();
+                Long previousCategoryId = categoryId(existingCourse);
                 existingCourse.setCourseUpdatedOn(LocalDate.now());
                 courseMapper.partialUpdate(existingCourse, courseDTO);
+                platformMetricsService.courseApprovalChanged(previouslyApproved, existingCourse.getIsApproved());
+                applicationEventPublisher.publishEvent(
+                    CourseChangedEvent.of(existingCourse.getId(), previousCategoryId, categoryId(existingCourse))
+                );
 
                 return existingCourse;
             })
@@ -98,10 +144,14 @@ public class CourseServiceImpl implements CourseService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<Course> findAllOpen() {
-        log.debug("Request to get all Courses");
-//        return courseRepository.findAll().map(courseMapper::toDto);
-        return courseRepository.findAllByIsApproved(true);
+    public CursorPageDTO<Course> findAllOpen(String cursor, int size) {
+        log.debug("Request to get a page of open Courses after : {}", cursor);
+        CourseCursor after = CourseCursor.decode(cursor);
+        Pageable limit = pageLimit(size);
+        List<Course> courses = after == null
+            ? courseRepository.findApprovedFirstPage(limit)
+            : courseRepository.findApprovedPageAfter(after.getCreatedOn(), after.getId(), limit);
+        return toCursorPage(courses, limit);
     }
 
     @Override
@@ -114,7 +164,21 @@ public class CourseServiceImpl implements CourseService {
     @Override
     public void delete(Long id) {
         log.debug("Request to delete Course : {}", id);
+        CourseChangedEvent event = courseRepository
+            .findById(id)
+            .map(course -> {
+                platformMetricsService.courseDeleted(id, course.getIsApproved());
+                return CourseChangedEvent.of(id, categoryId(course), null);
+            })
+            .orElseGet(() -> CourseChangedEvent.of(id));
+        courseEnrollmentRepository.deleteByCourseId(id);
+        enrollmentCounterService.deleteByCourseId(id);
         courseRepository.deleteById(id);
+        applicationEventPublisher.publishEvent(event);
+    }
+
+    private static Long categoryId(Course course) {
+        return course.getCourseCategory() == null ? null : course.getCourseCategory().getId();
     }
 
     //
@@ -180,14 +244,14 @@ public class CourseServiceImpl implements CourseService {
     @Override
     public List<CourseDTO> getEnrolledCourses() throws Exception {
         Optional<User> user = userService.getUserWithAuthorities();
-        List<Course> courses;
         List<CourseDTO> courseDTOList = new ArrayList<>();
         CourseDTO courseDTO;
         if (user.isPresent()) {
-            courses = courseRepository.findCourseByEnrolledUsersListsContaining(user.get());
-            for (Course course : courses) {
+            for (Object[] row : courseEnrollmentRepository.findEnrolledCoursesWithCompletionByUser(user.get())) {
+                Course course = (Course) row[0];
                 courseDTO = new CourseDTO(courseMapper.toDto(course));
                 courseDTO.setEnrolled(true);
+                courseDTO.setProgress(courseCompletionService.toSummary(course.getId(), (CourseCompletion) row[1]));
                 courseDTOList.add(courseDTO);
             }
             return courseDTOList;
@@ -205,18 +269,17 @@ public class CourseServiceImpl implements CourseService {
         if (user.isPresent()) {
             List<CourseDTO> list = new ArrayList<>();
             List<Course> courses = courseRepository.findByCategoryId(id);
+            if (courses.isEmpty()) {
+                return list;
+            }
+            List<Long> courseIds = courses.stream().map(Course::getId).collect(Collectors.toList());
+            Set<Long> enrolledCourseIds = new HashSet<>(courseEnrollmentRepository.findEnrolledCourseIdsByUserAndCourseIdIn(user.get(), courseIds));
+            Map<Long, Long> enrollmentCounts = enrollmentCounterService.getCounts(courseIds);
             CourseDTO courseDTO;
             for (Course course : courses) {
                 courseDTO = new CourseDTO(courseMapper.toDto(course));
-                if (course.getEnrolledUsersLists().contains(user.get())) {
-//                    System.out.println("HAHAHAHAHAHAHA  --> " + course.getEnrolledUsersLists());
-                    courseDTO.setEnrolled(true);
-                } else {
-//                    System.out.println("HAHAHAHAHAHAHA2  --> " + course.getEnrolledUsersLists());
-                    courseDTO.setEnrolled(false);
-                }
-//                courseDTO.setMinStudents(course.getMinStudents() + getStudentEnrolledCountByCourse(course.getId()).getBody());
-                courseDTO.setMinStudents(course.getMinStudents() + course.getEnrolledUsersLists().size());
+                courseDTO.setEnrolled(enrolledCourseIds.contains(course.getId()));
+                courseDTO.setMinStudents(course.getMinStudents() + enrollmentCounts.getOrDefault(course.getId(), 0L).intValue());
                 list.add(courseDTO);
             }
             return list;
@@ -227,9 +290,8 @@ public class CourseServiceImpl implements CourseService {
 
     @Override
     public ResponseEntity<Map<String,Integer>> getStudentEnrolledCountByCourse(Long courseId) {
-        Optional<Course> course = courseRepository.findById(courseId);
-        if (course.isPresent()) {
-            Integer count = course.get().getEnrolledUsersLists().size();
+        if (courseRepository.existsById(courseId)) {
+            Integer count = Math.toIntExact(enrollmentCounterService.getCount(courseId));
             HashMap<String,Integer> body = new HashMap<>();
             body.put("studentCount",count);
             return ResponseEntity.ok(body);
@@ -293,53 +355,56 @@ public class CourseServiceImpl implements CourseService {
 
     @Override
     public ResponseEntity enrollInCourse(String courseId) {
-        AtomicBoolean flag = new AtomicBoolean(false);
         Map<String, String> body = new HashMap<>();
-//        System.out.println("In enrollInCourse function");
         body.put("Success", "Data Entered Successfully");
         try {
-            courseRepository
-                .findById(Long.valueOf(courseId))
-                .map(existingCourse -> {
-                    Set<User> alreadyEnrolledUsers = existingCourse.getEnrolledUsersLists();
-                    if (
-                        userService.getUserWithAuthorities().isPresent() &&
-                        !alreadyEnrolledUsers.contains(userService.getUserWithAuthorities().get())
-                    ) {
-//                        System.out.println("I am in if part");
-                        alreadyEnrolledUsers.add(userService.getUserWithAuthorities().get());
-                        flag.set(true);
-                    }
-                    return existingCourse;
-                })
-                .map(courseRepository::save);
-            if (flag.get()) return ResponseEntity.ok().body(body); else {
-//                System.out.println("Inside else part of enrolledCourses function");
-                HashMap<String,String> errorbody = new HashMap<>();
-                body.put("status","Already enrolled");
-                return ResponseEntity.badRequest().body(errorbody);
+            Optional<User> user = userService.getUserWithAuthorities();
+            Optional<Course> course = courseRepository.findById(Long.valueOf(courseId));
+            if (user.isEmpty() || course.isEmpty() || courseEnrollmentRepository.existsByCourse_IdAndUser_Id(course.get().getId(), user.get().getId())) {
+                return alreadyEnrolled();
+            }
+            boolean firstEnrollment = !courseEnrollmentRepository.existsByCourse_Id(course.get().getId());
+            // A single insert guarded by the (course_id, user_id) unique constraint, flushed here so a concurrent
+            // enrollment of the same user fails within this try rather than at commit.
+            CourseEnrollment courseEnrollment = new CourseEnrollment()
+                .course(course.get())
+                .user(user.get())
+                .enrollementDate(LocalDate.now())
+                .lastAccessedDate(LocalDate.now());
+            courseEnrollmentRepository.saveAndFlush(courseEnrollment);
+            enrollmentCounterService.increment(course.get().getId());
+            if (firstEnrollment) {
+                platformMetricsService.courseFirstEnrolled();
             }
+            return ResponseEntity.ok().body(body);
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Concurrent enrollment in Course : {}", courseId);
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return alreadyEnrolled();
         } catch (Exception e) {
-//            System.out.println("Error in enrolledCourses is --> "+ e);
+            log.error("Failed to enroll in Course : {}", courseId, e);
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
             return ResponseEntity.status(500).build();
         }
     }
 
+    private static ResponseEntity<Map<String, String>> alreadyEnrolled() {
+        Map<String, String> errorbody = new HashMap<>();
+        errorbody.put("status", "Already enrolled");
+        return ResponseEntity.badRequest().body(errorbody);
+    }
+
     @Override
     public ResponseEntity<Map<String, String>> getOverview() {
         Map<String, String> map = new HashMap<>();
 
-        Integer data = courseRepository.findAll().size();
-        map.put("totalCourses", data.toString());
+        Long total = courseRepository.count();
+        map.put("totalCourses", total.toString());
 
-        data = courseRepository.findTotalEnrollment();
-        List<Course> courses = courseRepository.findAll();
-        for (Course course : courses) {
-            data += course.getMinStudents();
-        }
-        map.put("totalEnrollments", data.toString());
+        total = enrollmentCounterService.getTotalCount() + courseRepository.sumMinStudents();
+        map.put("totalEnrollments", total.toString());
 
-        data = userService.getTotalUsersByAuthority(AuthoritiesConstants.FACULTY);
+        Integer data = userService.getTotalUsersByAuthority(AuthoritiesConstants.FACULTY);
         map.put("totalInstructors", data.toString());
 
         return ResponseEntity.ok().body(map);
@@ -347,9 +412,8 @@ public class CourseServiceImpl implements CourseService {
 
     @Override
     public ResponseEntity<Set<User>> getEnrolledUsersByCourseId(Long courseId) {
-        Optional<Course> course = courseRepository.findById(courseId);
-        if (course.isPresent()) {
-            Set<User> users = course.get().getEnrolledUsersLists();
+        if (courseRepository.existsById(courseId)) {
+            Set<User> users = new HashSet<>(courseEnrollmentRepository.findEnrolledUsersByCourseId(courseId));
             return ResponseEntity.ok().body(users);
         } else {
             return ResponseEntity.badRequest().build();
@@ -358,24 +422,47 @@ public class CourseServiceImpl implements CourseService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<Course> findAll() {
+    public CursorPageDTO<Course> findAll(String cursor, int size) {
+        CourseCursor after = CourseCursor.decode(cursor);
+        Pageable limit = pageLimit(size);
         Optional<User> user = userService.getUserWithAuthorities();
         if (user.isPresent()) {
-            String authority = user.get().getAuthorities().toString();
-//            System.out.println("HAHAHAH");
-            if (authority.contains(AuthoritiesConstants.ADMIN)) {
-                return courseRepository.findAll();
-            } else if (authority.contains(AuthoritiesConstants.FACULTY)) {
-                return courseRepository.findCourseByUserEquals(user.get());
-            } else if (authority.contains(AuthoritiesConstants.STUDENT)) {
-                //                return courseRepository.findCourseByEnrolledUsersListsContaining(user.get(), pageable);
-                return courseRepository.findAllByIsApproved(true);
-            } else {
-                return null;
+            Set<String> authorities = userService.getCurrentUserAuthorities();
+            if (authorities.contains(AuthoritiesConstants.ADMIN)) {
+                return toCursorPage(
+                    after == null
+                        ? courseRepository.findFirstPage(limit)
+                        : courseRepository.findPageAfter(after.getCreatedOn(), after.getId(), limit),
+                    limit
+                );
+            } else if (authorities.contains(AuthoritiesConstants.FACULTY)) {
+                return toCursorPage(
+                    after == null
+                        ? courseRepository.findByAuthorFirstPage(user.get(), limit)
+                        : courseRepository.findByAuthorPageAfter(user.get(), after.getCreatedOn(), after.getId(), limit),
+                    limit
+                );
+            } else if (!authorities.contains(AuthoritiesConstants.STUDENT)) {
+                return new CursorPageDTO<>(Collections.emptyList(), null);
             }
-        } else {
-            return courseRepository.findAllByIsApproved(true);
         }
+        return findAllOpen(cursor, size);
+    }
+
+    /**
+     * Fetches one row more than the page size, which tells whether a next page exists without a count query.
+     */
+    private Pageable pageLimit(int size) {
+        return PageRequest.of(0, Math.max(1, Math.min(size, MAX_PAGE_SIZE)) + 1);
+    }
+
+    private CursorPageDTO<Course> toCursorPage(List<Course> courses, Pageable limit) {
+        int size = limit.getPageSize() - 1;
+        if (courses.size() <= size) {
+            return new CursorPageDTO<>(courses, null);
+        }
+        List<Course> content = new ArrayList<>(courses.subList(0, size));
+        return new CursorPageDTO<>(content, CourseCursor.of(content.get(size - 1)).encode());
     }
 
 
@@ -385,10 +472,11 @@ public class CourseServiceImpl implements CourseService {
 
         Optional<User> user = userService.getUserWithAuthorities();
         if (user.isPresent()) {
-            String authority = user.get().getAuthorities().toString();
-            if (authority.contains("ROLE_ADMIN") || authority.contains("ROLE_REVIEWER")) {
+            Set<String> currentAuthorities = userService.getCurrentUserAuthorities();
+            if (currentAuthorities.contains(AuthoritiesConstants.ADMIN) || currentAuthorities.contains(AuthoritiesConstants.REVIEWER)) {
                 Optional<Course> course = courseRepository.findById(courseId);
                 if (course.isPresent()) {
+                    platformMetricsService.courseApprovalChanged(course.get().getIsApproved(), true);
                     course.get().setIsApproved(true);
 //                    CourseReviewStatus crs = course.get().getCourseReviewStatus();
 //                    crs.setStatus(true);
@@ -398,6 +486,7 @@ public class CourseServiceImpl implements CourseService {
                     course.get().setCourseApprovalDate(LocalDate.now());
 //                    System.out.println("Course Object is ---> "+course.get());
                     mailService.sendCourseApprovalMail(course.get());
+                    applicationEventPublisher.publishEvent(CourseChangedEvent.of(courseId));
                     return courseRepository.save(course.get());
                 } else {
                     log.warn("Course not present");
@@ -420,10 +509,11 @@ public class CourseServiceImpl implements CourseService {
 
         Optional<User> user = userService.getUserWithAuthorities();
         if (user.isPresent()) {
-            String authority = user.get().getAuthorities().toString();
-            if (authority.contains("ROLE_ADMIN") || authority.contains("ROLE_REVIEWER")) {
+            Set<String> currentAuthorities = userService.getCurrentUserAuthorities();
+            if (currentAuthorities.contains(AuthoritiesConstants.ADMIN) || currentAuthorities.contains(AuthoritiesConstants.REVIEWER)) {
                 Optional<Course> course = courseRepository.findById(courseId);
                 if (course.isPresent()) {
+                    platformMetricsService.courseApprovalChanged(course.get().getIsApproved(), false);
                     course.get().setIsApproved(false);
 //                    CourseReviewStatus crs = course.get().getCourseReviewStatus();
 //                    crs.setStatus(true);
@@ -434,6 +524,7 @@ public class CourseServiceImpl implements CourseService {
                     course.get().setCourseUpdatedOn(LocalDate.now());
 //                    System.out.println("Course Object is ---> "+course.get());
                     mailService.sendCourseDisApprovalMail(course.get());
+                    applicationEventPublisher.publishEvent(CourseChangedEvent.of(courseId));
                     return courseRepository.save(course.get());
                 } else {
                     log.warn("Course not present");
@@ -455,15 +546,17 @@ public class CourseServiceImpl implements CourseService {
 
         Optional<User> user = userService.getUserWithAuthorities();
         if (user.isPresent()) {
-            String authority = user.get().getAuthorities().toString();
-            if (authority.contains("ROLE_ADMIN") || authority.contains("ROLE_REVIEWER")) {
+            Set<String> currentAuthorities = userService.getCurrentUserAuthorities();
+            if (currentAuthorities.contains(AuthoritiesConstants.ADMIN) || currentAuthorities.contains(AuthoritiesConstants.REVIEWER)) {
                 Optional<User> reviewer = userRepository.findById(userId);
                 if (reviewer.isPresent()) {
                     Set<Authority> authorities = new HashSet<>();
                     authorityRepository.findById(AuthoritiesConstants.REVIEWER).ifPresent(authorities::add);
                     authorityRepository.findById(AuthoritiesConstants.FACULTY).ifPresent(authorities::add);
 //                    System.out.println("Authorities are ---> "+authorities);
+                    platformMetricsService.authoritiesChanged(authorityNames(reviewer.get().getAuthorities()), authorityNames(authorities));
                     reviewer.get().setAuthorities(authorities);
+                    userService.userChanged(reviewer.get().getLogin());
 //                    course.get().setIsApproved(true);
 //                    CourseReviewStatus crs = course.get().getCourseReviewStatus();
 //                    crs.setStatus(true);
@@ -494,15 +587,17 @@ public class CourseServiceImpl implements CourseService {
 
         Optional<User> user = userService.getUserWithAuthorities();
         if (user.isPresent()) {
-            String authority = user.get().getAuthorities().toString();
-            if (authority.contains("ROLE_ADMIN") || authority.contains("ROLE_REVIEWER")) {
+            Set<String> currentAuthorities = userService.getCurrentUserAuthorities();
+            if (currentAuthorities.contains(AuthoritiesConstants.ADMIN) || currentAuthorities.contains(AuthoritiesConstants.REVIEWER)) {
                 Optional<User> reviewer = userRepository.findById(userId);
                 if (reviewer.isPresent()) {
                     Set<Authority> authorities = new HashSet<>();
 //                    authorityRepository.findById(AuthoritiesConstants.REVIEWER).ifPresent(authorities::add);
                     authorityRepository.findById(AuthoritiesConstants.FACULTY).ifPresent(authorities::add);
 //                    System.out.println("Authorities are ---> "+authorities);
+                    platformMetricsService.authoritiesChanged(authorityNames(reviewer.get().getAuthorities()), authorityNames(authorities));
                     reviewer.get().setAuthorities(authorities);
+                    userService.userChanged(reviewer.get().getLogin());
 //                    course.get().setIsApproved(true);
 //                    CourseReviewStatus crs = course.get().getCourseReviewStatus();
 //                    crs.setStatus(true);
@@ -527,4 +622,7 @@ public class CourseServiceImpl implements CourseService {
         }
     }
 
+    private Set<String> authorityNames(Set<Authority> authorities) {
+        return authorities.stream().map(Authority::getName).collect(Collectors.toSet());
+    }
 }
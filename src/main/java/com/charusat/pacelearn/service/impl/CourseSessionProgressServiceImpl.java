@@ -2,6 +2,7 @@ package com.charusat.pacelearn.service.impl;
 
 import com.charusat.pacelearn.domain.CourseSessionProgress;
 import com.charusat.pacelearn.repository.CourseSessionProgressRepository;
+import com.charusat.pacelearn.service.CourseCompletionService;
 import com.charusat.pacelearn.service.CourseSessionProgressService;
 import com.charusat.pacelearn.service.dto.CourseSessionProgressDTO;
 import com.charusat.pacelearn.service.mapper.CourseSessionProgressMapper;
@@ -12,6 +13,8 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -27,19 +30,25 @@ public class CourseSessionProgressServiceImpl implements CourseSessionProgressSe
 
     private final CourseSessionProgressMapper courseSessionProgressMapper;
 
+    private final CourseCompletionService courseCompletionService;
+
     public CourseSessionProgressServiceImpl(
         CourseSessionProgressRepository courseSessionProgressRepository,
-        CourseSessionProgressMapper courseSessionProgressMapper
+        CourseSessionProgressMapper courseSessionProgressMapper,
+        CourseCompletionService courseCompletionService
     ) {
         this.courseSessionProgressRepository = courseSessionProgressRepository;
         this.courseSessionProgressMapper = courseSessionProgressMapper;
+        this.courseCompletionService = courseCompletionService;
     }
 
     @Override
     public CourseSessionProgressDTO save(CourseSessionProgressDTO courseSessionProgressDTO) {
         log.debug("Request to save CourseSessionProgress : {}", courseSessionProgressDTO);
         CourseSessionProgress courseSessionProgress = courseSessionProgressMapper.toEntity(courseSessionProgressDTO);
+        courseSessionProgress.setLastReportedAt(Instant.now());
         courseSessionProgress = courseSessionProgressRepository.save(courseSessionProgress);
+        progressChanged(courseSessionProgress);
         return courseSessionProgressMapper.toDto(courseSessionProgress);
     }
 
@@ -51,10 +60,15 @@ public class CourseSessionProgressServiceImpl implements CourseSessionProgressSe
             .findById(courseSessionProgressDTO.getId())
             .map(existingCourseSessionProgress -> {
                 courseSessionProgressMapper.partialUpdate(existingCourseSessionProgress, courseSessionProgressDTO);
+                existingCourseSessionProgress.setLastReportedAt(Instant.now());
 
                 return existingCourseSessionProgress;
             })
             .map(courseSessionProgressRepository::save)
+            .map(progress -> {
+                progressChanged(progress);
+                return progress;
+            })
             .map(courseSessionProgressMapper::toDto);
     }
 
@@ -77,4 +91,14 @@ public class CourseSessionProgressServiceImpl implements CourseSessionProgressSe
         log.debug("Request to delete CourseSessionProgress : {}", id);
         courseSessionProgressRepository.deleteById(id);
     }
+
+    private void progressChanged(CourseSessionProgress courseSessionProgress) {
+        if (courseSessionProgress.getUser() == null || courseSessionProgress.getCourseSession() == null) {
+            return;
+        }
+        courseCompletionService.progressChanged(
+            List.of(courseSessionProgress.getUser().getId()),
+            List.of(courseSessionProgress.getCourseSession().getId())
+        );
+    }
 }
@@ -1,13 +1,20 @@
 package com.charusat.pacelearn.service.impl;
 
+import com.charusat.pacelearn.domain.CourseSection;
 import com.charusat.pacelearn.domain.CourseSession;
 import com.charusat.pacelearn.domain.User;
 import com.charusat.pacelearn.repository.CourseRepository;
 import com.charusat.pacelearn.repository.CourseSectionRepository;
 import com.charusat.pacelearn.repository.CourseSessionRepository;
+import com.charusat.pacelearn.service.CourseCompletionService;
+import com.charusat.pacelearn.service.CourseChangedEvent;
+import com.charusat.pacelearn.service.CourseRollupService;
+import com.charusat.pacelearn.service.CourseRollupService.Contribution;
 import com.charusat.pacelearn.service.CourseSectionService;
 import com.charusat.pacelearn.service.CourseService;
 import com.charusat.pacelearn.service.CourseSessionService;
+import com.charusat.pacelearn.service.MediaBlobStore;
+import com.charusat.pacelearn.service.PlatformMetricsService;
 import com.charusat.pacelearn.service.UserService;
 import com.charusat.pacelearn.service.dto.CourseDTO;
 import com.charusat.pacelearn.service.dto.CourseSectionDTO;
@@ -17,6 +24,7 @@ import com.charusat.pacelearn.service.mapper.CourseSectionMapper;
 import com.charusat.pacelearn.service.mapper.CourseSessionMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -46,12 +54,27 @@ public class CourseSessionServiceImpl implements CourseSessionService {
     private final CourseSessionMapper courseSessionMapper;
     private final CourseSectionMapper courseSectionMapper;
 
+    private final PlatformMetricsService platformMetricsService;
+
+    private final MediaBlobStore mediaBlobStore;
+
+    private final CourseCompletionService courseCompletionService;
+
+    private final CourseRollupService courseRollupService;
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
     public CourseSessionServiceImpl(
             CourseSessionRepository courseSessionRepository,
             CourseSectionRepository courseSectionRepository,
             CourseRepository courseRepository,
             UserService userService, CourseService courseService, CourseSectionService courseSectionService, CourseSessionMapper courseSessionMapper,
-            CourseSectionMapper courseSectionMapper) {
+            CourseSectionMapper courseSectionMapper,
+            PlatformMetricsService platformMetricsService,
+            MediaBlobStore mediaBlobStore,
+            CourseCompletionService courseCompletionService,
+            CourseRollupService courseRollupService,
+            ApplicationEventPublisher applicationEventPublisher) {
         this.courseSessionRepository = courseSessionRepository;
         this.courseSectionRepository = courseSectionRepository;
         this.courseRepository = courseRepository;
@@ -60,13 +83,38 @@ public class CourseSessionServiceImpl implements CourseSessionService {
         this.courseSectionService = courseSectionService;
         this.courseSessionMapper = courseSessionMapper;
         this.courseSectionMapper = courseSectionMapper;
+        this.platformMetricsService = platformMetricsService;
+        this.mediaBlobStore = mediaBlobStore;
+        this.courseCompletionService = courseCompletionService;
+        this.courseRollupService = courseRollupService;
+        this.applicationEventPublisher = applicationEventPublisher;
     }
 
     @Override
     public CourseSessionDTO save(CourseSessionDTO courseSessionDTO) {
         log.debug("Request to save CourseSession : {}", courseSessionDTO);
+        boolean created = courseSessionDTO.getId() == null;
+        Optional<CourseSession> previous = created ? Optional.empty() : courseSessionRepository.findById(courseSessionDTO.getId());
+        String previousVideo = previous.map(CourseSession::getSessionVideo).orElse(null);
+        String previousResource = previous.map(CourseSession::getSessionResource).orElse(null);
+        Long previousCourseId = previous.map(this::courseIdOf).orElse(null);
+        // read before the save, which merges the ordinal-less entity into the previous one
+        Integer previousOrdinal = previous.map(CourseSession::getCompletionOrdinal).orElse(null);
+        Contribution previousContribution = previous.map(session -> Contribution.of(session, previousCourseId)).orElse(null);
         CourseSession courseSession = courseSessionMapper.toEntity(courseSessionDTO);
         courseSession = courseSessionRepository.save(courseSession);
+        if (created) {
+            platformMetricsService.sessionCreated();
+        }
+        mediaBlobStore.referenceChanged(previousVideo, courseSession.getSessionVideo());
+        mediaBlobStore.referenceChanged(previousResource, courseSession.getSessionResource());
+        Long courseId = courseIdOf(courseSession);
+        courseRollupService.sessionChanged(previousContribution, Contribution.of(courseSession, courseId));
+        courseChanged(courseId);
+        if (previousCourseId != null && !previousCourseId.equals(courseId)) {
+            courseCompletionService.sessionMoved(courseSession.getId(), previousOrdinal, previousCourseId);
+            courseChanged(previousCourseId);
+        }
         return courseSessionMapper.toDto(courseSession);
     }
 
@@ -77,7 +125,24 @@ public class CourseSessionServiceImpl implements CourseSessionService {
         return courseSessionRepository
             .findById(courseSessionDTO.getId())
             .map(existingCourseSession -> {
+                String previousVideo = existingCourseSession.getSessionVideo();
+                String previousResource = existingCourseSession.getSessionResource();
+                Long previousCourseId = courseIdOf(existingCourseSession);
+                Contribution previousContribution = Contribution.of(existingCourseSession, previousCourseId);
                 courseSessionMapper.partialUpdate(existingCourseSession, courseSessionDTO);
+                mediaBlobStore.referenceChanged(previousVideo, existingCourseSession.getSessionVideo());
+                mediaBlobStore.referenceChanged(previousResource, existingCourseSession.getSessionResource());
+                Long courseId = courseIdOf(existingCourseSession);
+                courseRollupService.sessionChanged(previousContribution, Contribution.of(existingCourseSession, courseId));
+                courseChanged(courseId);
+                if (previousCourseId != null && !previousCourseId.equals(courseId)) {
+                    courseCompletionService.sessionMoved(
+                        existingCourseSession.getId(),
+                        existingCourseSession.getCompletionOrdinal(),
+                        previousCourseId
+                    );
+                    courseChanged(previousCourseId);
+                }
 
                 return existingCourseSession;
             })
@@ -102,7 +167,37 @@ public class CourseSessionServiceImpl implements CourseSessionService {
     @Override
     public void delete(Long id) {
         log.debug("Request to delete CourseSession : {}", id);
+        courseSessionRepository
+            .findById(id)
+            .ifPresent(
+                courseSession -> {
+                    Long courseId = courseIdOf(courseSession);
+                    courseRollupService.sessionChanged(Contribution.of(courseSession, courseId), null);
+                    courseCompletionService.sessionDeleted(courseSession, courseId);
+                    courseChanged(courseId);
+                    mediaBlobStore.release(courseSession.getSessionVideo());
+                    mediaBlobStore.release(courseSession.getSessionResource());
+                }
+            );
         courseSessionRepository.deleteById(id);
+        platformMetricsService.sessionDeleted();
+    }
+
+    private void courseChanged(Long courseId) {
+        if (courseId != null) {
+            applicationEventPublisher.publishEvent(CourseChangedEvent.of(courseId));
+        }
+    }
+
+    private Long courseIdOf(CourseSession courseSession) {
+        if (courseSession.getCourseSection() == null || courseSession.getCourseSection().getId() == null) {
+            return null;
+        }
+        return courseSectionRepository
+            .findById(courseSession.getCourseSection().getId())
+            .map(CourseSection::getCourse)
+            .map(course -> course.getId())
+            .orElse(null);
     }
 
     @Override
@@ -160,7 +255,13 @@ public class CourseSessionServiceImpl implements CourseSessionService {
                     }
 //                    System.out.println("Section is --> "+courseSessionDTOManual.getSectionId().longValue());
                     courseSession.sessionOrder(courseSessionRepository.findAllByCourseSection_Id(courseSessionDTOManual.getSectionId().longValue()).size() + 1);
-                    return courseSessionRepository.save(courseSession);
+                    courseSession = courseSessionRepository.save(courseSession);
+                    mediaBlobStore.retain(courseSession.getSessionVideo());
+                    mediaBlobStore.retain(courseSession.getSessionResource());
+                    platformMetricsService.sessionCreated();
+                    courseRollupService.sessionChanged(null, Contribution.of(courseSession, courseId));
+                    courseChanged(courseId);
+                    return courseSession;
                 } else {
                     return null;
                 }
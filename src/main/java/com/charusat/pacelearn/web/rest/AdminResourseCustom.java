@@ -3,13 +3,16 @@ package com.charusat.pacelearn.web.rest;
 import com.charusat.pacelearn.domain.Course;
 import com.charusat.pacelearn.domain.User;
 import com.charusat.pacelearn.repository.CourseRepository;
-import com.charusat.pacelearn.repository.CourseSessionRepository;
 import com.charusat.pacelearn.repository.UserRepository;
 import com.charusat.pacelearn.security.AuthoritiesConstants;
+import com.charusat.pacelearn.service.CourseSearchService;
 import com.charusat.pacelearn.service.CourseService;
+import com.charusat.pacelearn.service.PlatformMetricsService;
 import com.charusat.pacelearn.service.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -27,16 +30,20 @@ public class AdminResourseCustom {
 
     private final UserRepository userRepository;
     private final CourseRepository courseRepository;
-    private final CourseSessionRepository courseSessionRepository;
     private final CourseService courseService;
     private final UserService userService;
+    private final PlatformMetricsService platformMetricsService;
+    private final CacheManager cacheManager;
+    private final CourseSearchService courseSearchService;
 
-    public AdminResourseCustom(UserRepository userRepository, CourseRepository courseRepository, CourseSessionRepository courseSessionRepository, CourseService courseService, UserService userService) {
+    public AdminResourseCustom(UserRepository userRepository, CourseRepository courseRepository, CourseService courseService, UserService userService, PlatformMetricsService platformMetricsService, CacheManager cacheManager, CourseSearchService courseSearchService) {
         this.userRepository = userRepository;
         this.courseRepository = courseRepository;
-        this.courseSessionRepository = courseSessionRepository;
         this.courseService = courseService;
         this.userService = userService;
+        this.platformMetricsService = platformMetricsService;
+        this.cacheManager = cacheManager;
+        this.courseSearchService = courseSearchService;
     }
 
 
@@ -53,28 +60,8 @@ public class AdminResourseCustom {
     @GetMapping("/coreMetaData")
     @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
     public ResponseEntity<Map<String,Long>> getCoreMetaData(){
-        log.debug("REST request to get the core meta data for dashboard : {}");
-        HashMap<String,Long> body = new HashMap<>();
-
-        Long students = Long.valueOf(userRepository.countAllByAuthoritiesContains("ROLE_STUDENT"));
-        Long instructor = Long.valueOf(userRepository.countAllByAuthoritiesContains("ROLE_FACULTY"));
-        Long reviewer = Long.valueOf(userRepository.countAllByAuthoritiesContains("ROLE_REVIEWER"));
-        Long approvedCourses = Long.valueOf(courseRepository.countCoursesByIsApproved(true));
-        Long approvalPendingCourses = Long.valueOf(courseRepository.countCoursesByIsApproved(false));
-        Long totalEnrollment = Long.valueOf(courseRepository.findEnrolledCourses());
-        Long courseVideos = Long.valueOf(courseSessionRepository.countAll());
-
-        body.put("students",students);
-        body.put("instructor",instructor);
-        body.put("reviewer",reviewer);
-        body.put("approvedCourses",approvedCourses);
-        body.put("approvalPendingCourses",approvalPendingCourses);
-        body.put("totalEnrollment",totalEnrollment);
-        body.put("courseVideos",courseVideos);
-
-        return  ResponseEntity.ok(body);
-
-
+        log.debug("REST request to get the core meta data for dashboard");
+        return ResponseEntity.ok(platformMetricsService.getCoreMetaData());
     }
 
     @PutMapping("/course/{courseId}/approve")
@@ -179,6 +166,60 @@ public class AdminResourseCustom {
     }
 
 
+    /**
+     *
+     * {@code POST  /search/reindex} : Rebuild the course search index from the database
+     *
+     */
+    @PostMapping("/search/reindex")
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public ResponseEntity<Map<String,String>> reindexSearch(){
+        log.debug("REST request to rebuild the course search index");
+        courseSearchService.reindexAll();
+        HashMap<String,String> body = new HashMap<>();
+        body.put("message","Search index rebuilt successfully");
+        return ResponseEntity.ok().body(body);
+    }
+
+    /**
+     *
+     * {@code DELETE  /caches} : Clear every cache, including the Hibernate second-level and query caches
+     *
+     */
+    @DeleteMapping("/caches")
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public ResponseEntity<Map<String,String>> clearCaches(){
+        log.debug("REST request to clear all caches");
+        for (String cacheName : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+        HashMap<String,String> body = new HashMap<>();
+        body.put("message","Caches cleared successfully");
+        return ResponseEntity.ok().body(body);
+    }
+
+    /**
+     *
+     * {@code DELETE  /caches/:cacheName} : Clear one cache
+     *
+     */
+    @DeleteMapping("/caches/{cacheName:.+}")
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public ResponseEntity<Map<String,String>> clearCache(@PathVariable String cacheName){
+        log.debug("REST request to clear cache : {}", cacheName);
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return ResponseEntity.notFound().build();
+        }
+        cache.clear();
+        HashMap<String,String> body = new HashMap<>();
+        body.put("message","Cache cleared successfully");
+        return ResponseEntity.ok().body(body);
+    }
+
     /**
      *  /GET Request for open data for banner in home page (partially same as /coreMetaData)
      */
@@ -189,19 +230,7 @@ public class AdminResourseCustom {
      */
     @GetMapping("/openMetaData")
     public ResponseEntity<Map<String,Long>> getOpenMetaData(){
-        log.info("REST request to get the Open meta data for Home page Banner : {}");
-        HashMap<String,Long> body = new HashMap<>();
-
-        Long students = Long.valueOf(userRepository.countAllByAuthoritiesContains("ROLE_STUDENT"));
-        Long approvedCourses = Long.valueOf(courseRepository.countCoursesByIsApproved(true));
-        Long approvalPendingCourses = Long.valueOf(courseRepository.countCoursesByIsApproved(false));
-        Long totalCourses = approvedCourses+approvalPendingCourses;
-
-        body.put("students",students);
-        body.put("totalCourses",totalCourses);
-
-        return  ResponseEntity.ok(body);
-
-
+        log.debug("REST request to get the Open meta data for Home page Banner");
+        return ResponseEntity.ok(platformMetricsService.getOpenMetaData());
     }
 }
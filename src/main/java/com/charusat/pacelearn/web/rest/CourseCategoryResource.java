@@ -6,6 +6,7 @@ import com.charusat.pacelearn.domain.CourseCategory;
 import com.charusat.pacelearn.repository.CourseCategoryRepository;
 import com.charusat.pacelearn.service.CourseCategoryQueryService;
 import com.charusat.pacelearn.service.CourseCategoryService;
+import com.charusat.pacelearn.service.ImageThumbnailService;
 import com.charusat.pacelearn.service.criteria.CourseCategoryCriteria;
 import com.charusat.pacelearn.service.dto.CourseCategoryDTO;
 import com.charusat.pacelearn.web.rest.errors.BadRequestAlertException;
@@ -48,14 +49,18 @@ public class CourseCategoryResource {
 
     private final CourseCategoryQueryService courseCategoryQueryService;
 
+    private final ImageThumbnailService imageThumbnailService;
+
     public CourseCategoryResource(
         CourseCategoryService courseCategoryService,
         CourseCategoryRepository courseCategoryRepository,
-        CourseCategoryQueryService courseCategoryQueryService
+        CourseCategoryQueryService courseCategoryQueryService,
+        ImageThumbnailService imageThumbnailService
     ) {
         this.courseCategoryService = courseCategoryService;
         this.courseCategoryRepository = courseCategoryRepository;
         this.courseCategoryQueryService = courseCategoryQueryService;
+        this.imageThumbnailService = imageThumbnailService;
     }
 
     /**
@@ -175,14 +180,15 @@ public class CourseCategoryResource {
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of courseCategories in body.
      */
     @GetMapping("/open-course-categories")
-    public ResponseEntity<Map<String,List<CourseCategoryDTO>>> getAllOpenCourseCategories(
+    public ResponseEntity<Map<String,Object>> getAllOpenCourseCategories(
             CourseCategoryCriteria criteria,
             @org.springdoc.api.annotations.ParameterObject Pageable pageable
     ) {
         log.debug("REST request to get CourseCategories by criteria: {}", criteria);
         Page<CourseCategoryDTO> page = courseCategoryQueryService.findByCriteria(criteria, pageable);
-        HashMap<String,List<CourseCategoryDTO>> map = new HashMap<>();
+        HashMap<String,Object> map = new HashMap<>();
         map.put("categories",page.getContent());
+        map.put("thumbnails", imageThumbnailService.thumbnailUrls(page.getContent(), CourseCategoryDTO::getId, CourseCategoryDTO::getLogo));
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
         return ResponseEntity.ok().headers(headers).body(map);
     }
@@ -231,11 +237,12 @@ public class CourseCategoryResource {
     // To Get Parent/Main Categories of courses
 
     @GetMapping("/course-category/parent-categories")
-    public ResponseEntity<Map<String,List<CourseCategory>>> getParentCourseCategories() {
+    public ResponseEntity<Map<String,Object>> getParentCourseCategories() {
         log.debug("REST request to get course category by isParent");
         List<CourseCategory> list = courseCategoryService.listParentCategory();
-        HashMap<String,List<CourseCategory>> body = new HashMap<>();
+        HashMap<String,Object> body = new HashMap<>();
         body.put("parentCategories",list);
+        body.put("thumbnails", imageThumbnailService.thumbnailUrls(list, CourseCategory::getId, CourseCategory::getLogo));
         return ResponseEntity.ok().body(body);
     }
 
@@ -4,10 +4,21 @@ import com.charusat.pacelearn.domain.Course;
 import com.charusat.pacelearn.domain.User;
 import com.charusat.pacelearn.repository.CourseRepository;
 import com.charusat.pacelearn.security.AuthoritiesConstants;
+import com.charusat.pacelearn.service.AutocompleteService;
+import com.charusat.pacelearn.service.CourseCatalogService;
+import com.charusat.pacelearn.service.CourseCurriculumService;
+import com.charusat.pacelearn.service.CourseFacetIndex;
 import com.charusat.pacelearn.service.CourseQueryService;
+import com.charusat.pacelearn.service.CourseSearchService;
 import com.charusat.pacelearn.service.CourseService;
+import com.charusat.pacelearn.service.ImageThumbnailService;
 import com.charusat.pacelearn.service.criteria.CourseCriteria;
+import com.charusat.pacelearn.service.dto.CatalogPageDTO;
+import com.charusat.pacelearn.service.dto.CourseCurriculumDTO;
 import com.charusat.pacelearn.service.dto.CourseDTO;
+import com.charusat.pacelearn.service.dto.CourseSearchHitDTO;
+import com.charusat.pacelearn.service.dto.CursorPageDTO;
+import com.charusat.pacelearn.service.dto.SuggestionDTO;
 import com.charusat.pacelearn.service.mapper.CourseMapper;
 import com.charusat.pacelearn.web.rest.errors.BadRequestAlertException;
 import io.swagger.v3.core.util.Json;
@@ -15,11 +26,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import tech.jhipster.web.util.HeaderUtil;
+import tech.jhipster.web.util.PaginationUtil;
 import tech.jhipster.web.util.ResponseUtil;
 
 import javax.net.ssl.SSLSession;
@@ -29,7 +44,6 @@ import javax.validation.constraints.NotNull;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.http.HttpClient;
-import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.util.*;
@@ -45,6 +59,8 @@ public class CourseResource {
 
     private static final String ENTITY_NAME = "course";
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
@@ -56,16 +72,36 @@ public class CourseResource {
 
     private final CourseQueryService courseQueryService;
 
+    private final CourseSearchService courseSearchService;
+
+    private final AutocompleteService autocompleteService;
+
+    private final CourseCatalogService courseCatalogService;
+
+    private final ImageThumbnailService imageThumbnailService;
+
+    private final CourseCurriculumService courseCurriculumService;
+
     public CourseResource(
         CourseService courseService,
         CourseRepository courseRepository,
         CourseMapper courseMapper,
-        CourseQueryService courseQueryService
+        CourseQueryService courseQueryService,
+        CourseSearchService courseSearchService,
+        AutocompleteService autocompleteService,
+        CourseCatalogService courseCatalogService,
+        ImageThumbnailService imageThumbnailService,
+        CourseCurriculumService courseCurriculumService
     ) {
         this.courseService = courseService;
         this.courseRepository = courseRepository;
         this.courseMapper = courseMapper;
         this.courseQueryService = courseQueryService;
+        this.courseSearchService = courseSearchService;
+        this.autocompleteService = autocompleteService;
+        this.courseCatalogService = courseCatalogService;
+        this.imageThumbnailService = imageThumbnailService;
+        this.courseCurriculumService = courseCurriculumService;
     }
 
     /**
@@ -159,55 +195,127 @@ public class CourseResource {
     }
 
     /**
-     * {@code GET  /courses} : get all the courses without authorization.
+     * {@code GET  /open-courses} : get a page of the approved courses without authorization, newest first.
+     * <p>
+     * The continuation token of the next page is returned in the {@code X-Next-Cursor} header and
+     * as a {@code Link} header with {@code rel="next"}.
      *
-     //     * @param criteria the criteria which the requested entities should match.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of courses in body.
+     * @param cursor the continuation token of the page to fetch, absent for the first page.
+     * @param size the maximum number of courses on the page.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of courses and their thumbnails in body.
      */
     @GetMapping("/open-courses")
-    public ResponseEntity<Map<String,List<Course>>> getAllOpenCourses(
-            //        CourseCriteria criteria
-            //        @org.springdoc.api.annotations.ParameterObject Pageable pageable
+    public ResponseEntity<Map<String,Object>> getAllOpenCourses(
+        @RequestParam(value = "cursor", required = false) String cursor,
+        @RequestParam(value = "size", defaultValue = "16") int size
     ) {
-        //        log.debug("REST request to get Courses by criteria: {}", criteria);
-        //        List<CourseDTO> list = courseService.findAllByCurrentSemester();
-        //        List<CourseDTO> list = courseQueryService.findByCriteria(criteria);
-        //        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
-        //        return ResponseEntity.ok().body(list);
-        List<Course> list = courseService.findAllOpen();
-        List<Course> listLatest16 = list.subList(list.size()-16,list.size());
-//        System.out.println("HAHAHAH--> " + listLatest16);
-        String customJSONResponse = "courses : "+listLatest16;
-        Collections.reverse(listLatest16);
-//        return ResponseEntity.ok().body(listTop4);
-        HashMap<String,List<Course>> map = new HashMap<>();
-        map.put("courses",listLatest16);
-        return ResponseEntity.ok().body(map);
+        log.debug("REST request to get a page of open Courses after : {}", cursor);
+        CursorPageDTO<Course> page = courseService.findAllOpen(cursor, size);
+        HashMap<String,Object> map = new HashMap<>();
+        map.put("courses", page.getContent());
+        putThumbnails(map, page.getContent());
+        return ResponseEntity.ok().headers(generateCursorHttpHeaders(page)).body(map);
     }
 
     /**
-     * {@code GET  /courses} : get all the courses.
+     * {@code GET  /courses} : get a page of the courses visible to the current user, newest first.
+     * <p>
+     * The continuation token of the next page is returned in the {@code X-Next-Cursor} header and
+     * as a {@code Link} header with {@code rel="next"}.
      *
-//     * @param criteria the criteria which the requested entities should match.
+     * @param cursor the continuation token of the page to fetch, absent for the first page.
+     * @param size the maximum number of courses on the page.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of courses in body.
      */
     @GetMapping("/courses")
     public ResponseEntity<Map<String,List<Course>>> getAllCourses(
-        //        CourseCriteria criteria
-        //        @org.springdoc.api.annotations.ParameterObject Pageable pageable
+        @RequestParam(value = "cursor", required = false) String cursor,
+        @RequestParam(value = "size", defaultValue = "20") int size
     ) {
-        //        log.debug("REST request to get Courses by criteria: {}", criteria);
-        //        List<CourseDTO> list = courseService.findAllByCurrentSemester();
-        //        List<CourseDTO> list = courseQueryService.findByCriteria(criteria);
-        //        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
-        //        return ResponseEntity.ok().body(list);
-        List<Course> list = courseService.findAll();
-//        System.out.println("HAHAHAH--> " + list);
+        log.debug("REST request to get a page of Courses after : {}", cursor);
+        CursorPageDTO<Course> page = courseService.findAll(cursor, size);
         HashMap<String,List<Course>> body = new HashMap<>();
-        body.put("courses",list);
+        body.put("courses", page.getContent());
+        return ResponseEntity.ok().headers(generateCursorHttpHeaders(page)).body(body);
+    }
+
+    /**
+     * {@code GET  /courses/search?q=:text} : full-text search over the approved courses, best match first.
+     * <p>
+     * Every hit carries the matching fragments of its fields with the matched terms wrapped in {@code <em>}.
+     *
+     * @param text the text to search for.
+     * @param pageable the pagination information.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of hits in body.
+     */
+    @GetMapping("/courses/search")
+    public ResponseEntity<Map<String,List<CourseSearchHitDTO>>> searchCourses(
+        @RequestParam("q") String text,
+        @org.springdoc.api.annotations.ParameterObject Pageable pageable
+    ) {
+        log.debug("REST request to search Courses for : {}", text);
+        Page<CourseSearchHitDTO> page = courseSearchService.search(text, pageable);
+        page.forEach(hit -> hit.setCourseLogoThumbnail(imageThumbnailService.thumbnailUrl(hit.getCourseLogo())));
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        HashMap<String,List<CourseSearchHitDTO>> body = new HashMap<>();
+        body.put("courses", page.getContent());
+        return ResponseEntity.ok().headers(headers).body(body);
+    }
+
+    /**
+     * {@code GET  /courses/autocomplete?q=:prefix} : complete what the user typed in the search box
+     * with course titles, category titles and instructor names, most enrolled first.
+     *
+     * @param prefix the text typed so far.
+     * @param size the maximum number of completions.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of suggestions in body.
+     */
+    @GetMapping("/courses/autocomplete")
+    public ResponseEntity<Map<String,List<SuggestionDTO>>> autocompleteCourses(
+        @RequestParam("q") String prefix,
+        @RequestParam(value = "size", defaultValue = "8") int size
+    ) {
+        HashMap<String,List<SuggestionDTO>> body = new HashMap<>();
+        body.put("suggestions", autocompleteService.complete(prefix, size));
         return ResponseEntity.ok().body(body);
     }
 
+    /**
+     * {@code GET  /courses/catalog} : get a page of the approved courses matching a facet selection, newest first.
+     * <p>
+     * Values of one facet are OR-ed and facets are AND-ed. The body also holds, for every facet, the
+     * number of courses behind each of its values, and the thumbnails of the course logos and instructor images.
+     *
+     * @param level the selected course level ids.
+     * @param type the selected course type ids.
+     * @param category the selected course category ids.
+     * @param price the selected price bands ({@code free}, {@code under-500}, {@code 500-1999}, {@code 2000-and-more}).
+     * @param pageable the pagination information.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the courses and facet counts in body.
+     */
+    @GetMapping("/courses/catalog")
+    public ResponseEntity<Map<String,Object>> getCourseCatalog(
+        @RequestParam(value = "level", required = false) List<String> level,
+        @RequestParam(value = "type", required = false) List<String> type,
+        @RequestParam(value = "category", required = false) List<String> category,
+        @RequestParam(value = "price", required = false) List<String> price,
+        @org.springdoc.api.annotations.ParameterObject Pageable pageable
+    ) {
+        log.debug("REST request to get the course catalog for level {}, type {}, category {}, price {}", level, type, category, price);
+        Map<String,List<String>> selection = new HashMap<>();
+        selection.put(CourseFacetIndex.LEVEL, level);
+        selection.put(CourseFacetIndex.TYPE, type);
+        selection.put(CourseFacetIndex.CATEGORY, category);
+        selection.put(CourseFacetIndex.PRICE, price);
+        CatalogPageDTO page = courseCatalogService.find(selection, pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page.getCourses());
+        HashMap<String,Object> body = new HashMap<>();
+        body.put("courses", page.getCourses().getContent());
+        body.put("facets", page.getFacets());
+        putThumbnails(body, page.getCourses().getContent());
+        return ResponseEntity.ok().headers(headers).body(body);
+    }
+
     /**
      * {@code GET  /courses/count} : count all the courses.
      *
@@ -240,6 +348,18 @@ public class CourseResource {
 //        return ResponseUtil.wrapOrNotFound(body);
     }
 
+    /**
+     * {@code GET  /courses/:id/curriculum} : get the "id" course with its sections and sessions, in curriculum order.
+     *
+     * @param id the id of the course.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the curriculum, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/courses/{id}/curriculum")
+    public ResponseEntity<CourseCurriculumDTO> getCurriculum(@PathVariable Long id) {
+        log.debug("REST request to get the curriculum of Course : {}", id);
+        return ResponseUtil.wrapOrNotFound(courseCurriculumService.getCurriculum(id));
+    }
+
     /**
      * CUSTOM
      * {@code GET  /courses/enroll} :Get Enrolled courses of Logged in User.
@@ -324,6 +444,26 @@ public class CourseResource {
             .build();
     }
 
+    private HttpHeaders generateCursorHttpHeaders(CursorPageDTO<?> page) {
+        HttpHeaders headers = new HttpHeaders();
+        if (page.hasNext()) {
+            headers.add(NEXT_CURSOR_HEADER, page.getNextCursor());
+            String next = ServletUriComponentsBuilder.fromCurrentRequest().replaceQueryParam("cursor", page.getNextCursor()).toUriString();
+            headers.add(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return headers;
+    }
+
+    /**
+     * Adds the thumbnail URLs of the course logos, by course id, and of the instructor images, by user id.
+     */
+    private void putThumbnails(Map<String,Object> body, List<Course> courses) {
+        body.put("thumbnails", imageThumbnailService.thumbnailUrls(courses, Course::getId, Course::getCourseLogo));
+        List<User> instructors = new ArrayList<>();
+        courses.forEach(course -> instructors.add(course.getUser()));
+        body.put("instructorThumbnails", imageThumbnailService.thumbnailUrls(instructors, User::getId, User::getImageUrl));
+    }
+
 
 
 
@@ -1,31 +1,51 @@
 package com.charusat.pacelearn.web.rest;
 
+import com.charusat.pacelearn.config.ApplicationProperties;
 import com.charusat.pacelearn.repository.CourseSessionProgressRepository;
+import com.charusat.pacelearn.service.CourseCompletionService;
 import com.charusat.pacelearn.service.CourseSessionProgressQueryService;
 import com.charusat.pacelearn.service.CourseSessionProgressService;
+import com.charusat.pacelearn.service.ProgressSyncService;
+import com.charusat.pacelearn.service.UserService;
+import com.charusat.pacelearn.service.WatchTimeIngestionService;
 import com.charusat.pacelearn.service.criteria.CourseSessionProgressCriteria;
+import com.charusat.pacelearn.service.dto.CourseCompletionDTO;
 import com.charusat.pacelearn.service.dto.CourseSessionProgressDTO;
+import com.charusat.pacelearn.service.dto.ProgressSyncItemDTO;
+import com.charusat.pacelearn.service.dto.ProgressSyncResultDTO;
 import com.charusat.pacelearn.web.rest.errors.BadRequestAlertException;
+import com.charusat.pacelearn.web.rest.vm.WatchTimeVM;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.PaginationUtil;
 import tech.jhipster.web.util.ResponseUtil;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipException;
 
 /**
  * REST controller for managing {@link com.charusat.pacelearn.domain.CourseSessionProgress}.
@@ -47,14 +67,136 @@ public class CourseSessionProgressResource {
 
     private final CourseSessionProgressQueryService courseSessionProgressQueryService;
 
+    private final WatchTimeIngestionService watchTimeIngestionService;
+
+    private final UserService userService;
+
+    private final ProgressSyncService progressSyncService;
+
+    private final ObjectMapper objectMapper;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final CourseCompletionService courseCompletionService;
+
     public CourseSessionProgressResource(
         CourseSessionProgressService courseSessionProgressService,
         CourseSessionProgressRepository courseSessionProgressRepository,
-        CourseSessionProgressQueryService courseSessionProgressQueryService
+        CourseSessionProgressQueryService courseSessionProgressQueryService,
+        WatchTimeIngestionService watchTimeIngestionService,
+        UserService userService,
+        ProgressSyncService progressSyncService,
+        ObjectMapper objectMapper,
+        ApplicationProperties applicationProperties,
+        CourseCompletionService courseCompletionService
     ) {
         this.courseSessionProgressService = courseSessionProgressService;
         this.courseSessionProgressRepository = courseSessionProgressRepository;
         this.courseSessionProgressQueryService = courseSessionProgressQueryService;
+        this.watchTimeIngestionService = watchTimeIngestionService;
+        this.userService = userService;
+        this.progressSyncService = progressSyncService;
+        this.objectMapper = objectMapper;
+        this.applicationProperties = applicationProperties;
+        this.courseCompletionService = courseCompletionService;
+    }
+
+    /**
+     * {@code GET  /courses/:courseId/completion} : get how far the current user is through a course.
+     *
+     * @param courseId the id of the course.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the completion, listing the
+     * completed sessions and the next one to watch.
+     */
+    @GetMapping("/courses/{courseId}/completion")
+    public ResponseEntity<CourseCompletionDTO> getCourseCompletion(@PathVariable Long courseId) {
+        log.debug("REST request to get the completion of Course : {}", courseId);
+        Long userId = userService
+            .getUserWithAuthorities()
+            .orElseThrow(() -> new AccessDeniedException("Not authenticated"))
+            .getId();
+        return ResponseEntity.ok(courseCompletionService.getCompletion(userId, courseId));
+    }
+
+    /**
+     * {@code POST  /course-session-progresses/watch-time} : report the watch time of the current user in a session.
+     * <p>
+     * Reports are buffered and merged into the progress of the session within a second; a position keeps the
+     * furthest one reported, watched seconds add up. Watched seconds beyond the time elapsed since the previous
+     * report, and positions past the end of the session, are capped.
+     *
+     * @param watchTimeVM the session and the watch time.
+     * @return the {@link ResponseEntity} with status {@code 202 (Accepted)}, or with status {@code 403 (Forbidden)}
+     * if the user is not enrolled in the course of the session.
+     */
+    @PostMapping("/course-session-progresses/watch-time")
+    public ResponseEntity<Void> reportWatchTime(@Valid @RequestBody WatchTimeVM watchTimeVM) {
+        Long userId = userService
+            .getUserWithAuthorities()
+            .orElseThrow(() -> new AccessDeniedException("Not authenticated"))
+            .getId();
+        if (WatchTimeVM.MODE_WATCHED.equals(watchTimeVM.getMode())) {
+            watchTimeIngestionService.recordWatched(userId, watchTimeVM.getCourseSessionId(), watchTimeVM.getWatchSeconds());
+        } else {
+            watchTimeIngestionService.recordPosition(userId, watchTimeVM.getCourseSessionId(), watchTimeVM.getWatchSeconds());
+        }
+        return ResponseEntity.accepted().build();
+    }
+
+    /**
+     * {@code POST  /course-session-progresses/sync} : merge the progress the current user recorded while offline.
+     * <p>
+     * The body is a JSON array of {@link ProgressSyncItemDTO}, gzip-compressed when sent with
+     * {@code Content-Encoding: gzip}; it is read as a stream, up to {@code application.progress-sync.max-items} records.
+     *
+     * @param merge {@code max} to keep the furthest watch time, or {@code latest} to keep the latest record.
+     * @param request the HTTP request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the result of every record in the order sent,
+     * or with status {@code 400 (Bad Request)} if the body cannot be read.
+     * @throws IOException if the body cannot be received.
+     */
+    @PostMapping(value = "/course-session-progresses/sync", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<ProgressSyncResultDTO>> syncProgress(
+        @RequestParam(defaultValue = "max") String merge,
+        HttpServletRequest request
+    ) throws IOException {
+        if (!"max".equals(merge) && !"latest".equals(merge)) {
+            throw new BadRequestAlertException("Unknown merge strategy", ENTITY_NAME, "mergeinvalid");
+        }
+        Long userId = userService
+            .getUserWithAuthorities()
+            .orElseThrow(() -> new AccessDeniedException("Not authenticated"))
+            .getId();
+        int maxItems = applicationProperties.getProgressSync().getMaxItems();
+        List<ProgressSyncItemDTO> items = new ArrayList<>();
+        try (InputStream body = syncBody(request)) {
+            MappingIterator<ProgressSyncItemDTO> records = objectMapper.readerFor(ProgressSyncItemDTO.class).readValues(body);
+            while (records.hasNextValue()) {
+                if (items.size() == maxItems) {
+                    throw new BadRequestAlertException("Too many progress records", ENTITY_NAME, "toomanyitems");
+                }
+                items.add(records.nextValue());
+            }
+        } catch (JsonProcessingException | ZipException e) {
+            throw new BadRequestAlertException("Malformed progress records", ENTITY_NAME, "syncmalformed");
+        }
+        log.debug("REST request to sync {} CourseSessionProgress records", items.size());
+        return ResponseEntity.ok(progressSyncService.sync(userId, items, "latest".equals(merge)));
+    }
+
+    private InputStream syncBody(HttpServletRequest request) throws IOException {
+        String encoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+        if (encoding == null || encoding.equalsIgnoreCase("identity")) {
+            return request.getInputStream();
+        }
+        if (encoding.equalsIgnoreCase("gzip")) {
+            try {
+                return new GZIPInputStream(request.getInputStream());
+            } catch (ZipException e) {
+                throw new BadRequestAlertException("Malformed gzip body", ENTITY_NAME, "syncmalformed");
+            }
+        }
+        throw new BadRequestAlertException("Unsupported content encoding", ENTITY_NAME, "encodingunsupported");
     }
 
     /**
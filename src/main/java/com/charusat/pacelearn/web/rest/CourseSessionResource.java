@@ -4,9 +4,11 @@ import com.charusat.pacelearn.domain.CourseSession;
 import com.charusat.pacelearn.repository.CourseSessionRepository;
 import com.charusat.pacelearn.service.CourseSessionQueryService;
 import com.charusat.pacelearn.service.CourseSessionService;
+import com.charusat.pacelearn.service.MediaAccessService;
 import com.charusat.pacelearn.service.criteria.CourseSessionCriteria;
 import com.charusat.pacelearn.service.dto.CourseSessionDTO;
 import com.charusat.pacelearn.service.dto.CourseSessionDTOManual;
+import com.charusat.pacelearn.service.dto.SessionMediaDTO;
 import com.charusat.pacelearn.web.rest.errors.BadRequestAlertException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -48,14 +50,18 @@ public class CourseSessionResource {
 
     private final CourseSessionQueryService courseSessionQueryService;
 
+    private final MediaAccessService mediaAccessService;
+
     public CourseSessionResource(
         CourseSessionService courseSessionService,
         CourseSessionRepository courseSessionRepository,
-        CourseSessionQueryService courseSessionQueryService
+        CourseSessionQueryService courseSessionQueryService,
+        MediaAccessService mediaAccessService
     ) {
         this.courseSessionService = courseSessionService;
         this.courseSessionRepository = courseSessionRepository;
         this.courseSessionQueryService = courseSessionQueryService;
+        this.mediaAccessService = mediaAccessService;
     }
 
     /**
@@ -183,6 +189,19 @@ public class CourseSessionResource {
 //        return (List) courseSessionService.findCourseSessionsByCourseSectionIn(id);
     }
 
+    /**
+     * {@code GET  /course-sessions/:id/media} : get the signed URLs of the video and the resource of the "id" courseSession.
+     *
+     * @param id the id of the courseSession.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the URLs in body, with status {@code 403 (Forbidden)}
+     * if the current user is not enrolled, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/course-sessions/{id}/media")
+    public ResponseEntity<SessionMediaDTO> getCourseSessionMedia(@PathVariable Long id) {
+        log.debug("REST request to get the media of CourseSession : {}", id);
+        return ResponseUtil.wrapOrNotFound(mediaAccessService.getSessionMedia(id));
+    }
+
     /**
      * {@code GET  /course-sessions/count} : count all the courseSessions.
      *
@@ -0,0 +1,69 @@
+package com.charusat.pacelearn.web.rest;
+
+import com.charusat.pacelearn.service.ImageThumbnailService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+/**
+ * REST controller delivering the thumbnails of {@link ImageThumbnailService}.
+ * <p>
+ * A thumbnail URL names one content of its source for good, so responses are cacheable by anyone, forever.
+ */
+@RestController
+public class ImageResource {
+
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+
+    private final Logger log = LoggerFactory.getLogger(ImageResource.class);
+
+    private final ImageThumbnailService imageThumbnailService;
+
+    public ImageResource(ImageThumbnailService imageThumbnailService) {
+        this.imageThumbnailService = imageThumbnailService;
+    }
+
+    /**
+     * {@code GET  /images/:width/:digest.:format?src=&sig=} : get the thumbnail of an image.
+     *
+     * @param width the width of the thumbnail.
+     * @param digest the digest of the content of the image.
+     * @param format {@code jpg} or {@code png}.
+     * @param source the media key of the image.
+     * @param signature the signature of the media key.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the thumbnail in body, or with status {@code 404 (Not Found)}
+     * if the signature does not match, or the image is missing, has changed, or is not an image.
+     */
+    @GetMapping(ImageThumbnailService.PATH_PREFIX + "{width}/{digest}.{format}")
+    public ResponseEntity<Resource> getThumbnail(
+        @PathVariable int width,
+        @PathVariable String digest,
+        @PathVariable String format,
+        @RequestParam("src") String source,
+        @RequestParam(value = "sig", required = false) String signature
+    ) throws IOException {
+        log.debug("Request to get the {} px thumbnail of {}", width, source);
+        return imageThumbnailService
+            .getThumbnail(width, digest, format, source, signature)
+            .<ResponseEntity<Resource>>map(
+                thumbnail ->
+                    ResponseEntity
+                        .ok()
+                        .header(HttpHeaders.CACHE_CONTROL, IMMUTABLE)
+                        .eTag(digest + "-" + width)
+                        .contentType(ImageThumbnailService.FORMAT_PNG.equals(format) ? MediaType.IMAGE_PNG : MediaType.IMAGE_JPEG)
+                        .body(new FileSystemResource(thumbnail))
+            )
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
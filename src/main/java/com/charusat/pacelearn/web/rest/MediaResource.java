@@ -0,0 +1,211 @@
+package com.charusat.pacelearn.web.rest;
+
+import com.charusat.pacelearn.management.MediaMetersService;
+import com.charusat.pacelearn.security.MediaUrlFilter;
+import com.charusat.pacelearn.security.MediaUrlSigner;
+import com.charusat.pacelearn.service.MediaFileChannels;
+import com.charusat.pacelearn.service.MediaStorageService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.web.bind.annotation.RequestAttribute;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * REST controller delivering the session media through the signed URLs of {@link MediaUrlSigner}.
+ * <p>
+ * The signature has already been checked by the {@link MediaUrlFilter}; nothing here reads the database.
+ * Single byte ranges are honoured so players can seek, and validators let clients revalidate without a
+ * transfer. When the container supports sendfile the transfer is handed to it, and the bytes go from the
+ * file to the socket without passing through the heap; the container opens the file itself, by name.
+ * Otherwise they are copied through a heap buffer from a channel of the {@link MediaFileChannels} pool.
+ */
+@RestController
+public class MediaResource {
+
+    private static final String SENDFILE_SUPPORT_ATTRIBUTE = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTRIBUTE = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTRIBUTE = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTRIBUTE = "org.apache.tomcat.sendfile.end";
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final Logger log = LoggerFactory.getLogger(MediaResource.class);
+
+    private final MediaStorageService mediaStorageService;
+
+    private final MediaFileChannels mediaFileChannels;
+
+    private final MediaMetersService mediaMetersService;
+
+    public MediaResource(
+        MediaStorageService mediaStorageService,
+        MediaFileChannels mediaFileChannels,
+        MediaMetersService mediaMetersService
+    ) {
+        this.mediaStorageService = mediaStorageService;
+        this.mediaFileChannels = mediaFileChannels;
+        this.mediaMetersService = mediaMetersService;
+    }
+
+    /**
+     * {@code GET  /media/**} : get a media file, or the requested range of it.
+     * <p>
+     * Responds with status {@code 200 (OK)} or {@code 206 (Partial Content)} and the bytes in body,
+     * {@code 304 (Not Modified)} when the client copy is current, {@code 416 (Range Not Satisfiable)}
+     * when the range lies past the end of the file, or {@code 404 (Not Found)}.
+     *
+     * @param grant the verified grant of the URL.
+     */
+    @RequestMapping(value = MediaUrlSigner.PATH_PREFIX + "**", method = { RequestMethod.GET, RequestMethod.HEAD })
+    public void getMedia(
+        @RequestAttribute(MediaUrlFilter.GRANT_ATTRIBUTE) MediaUrlSigner.Grant grant,
+        HttpServletRequest request,
+        HttpServletResponse response
+    ) throws IOException {
+        log.debug("Request to get media {} of session {} for user {}", grant.getMediaKey(), grant.getSessionId(), grant.getUserId());
+        Optional<Path> resolved = mediaStorageService.resolve(grant.getMediaKey());
+        if (resolved.isEmpty()) {
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        Path file = resolved.get();
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long length = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        String etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        // the URL stops working at the expiry of the grant, so must the cached copy
+        long maxAge = Math.max(0, grant.getExpires() - Instant.now().getEpochSecond());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, max-age=" + maxAge);
+        if (isNotModified(request, etag, lastModified)) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        long start = 0;
+        long end = length - 1;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && isRangeCurrent(request, etag, lastModified)) {
+            HttpRange range = singleRange(rangeHeader);
+            if (range != null) {
+                try {
+                    start = range.getRangeStart(length);
+                    end = range.getRangeEnd(length);
+                } catch (IllegalArgumentException e) {
+                    start = length;
+                }
+                if (start >= length || start > end) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                    return;
+                }
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+        long count = end - start + 1;
+        response.setContentType(MediaTypeFactory.getMediaType(file.getFileName().toString()).orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+        response.setContentLengthLong(count);
+        if (RequestMethod.HEAD.name().equals(request.getMethod()) || count == 0) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTRIBUTE))) {
+            request.setAttribute(SENDFILE_FILENAME_ATTRIBUTE, file.toString());
+            request.setAttribute(SENDFILE_START_ATTRIBUTE, start);
+            request.setAttribute(SENDFILE_END_ATTRIBUTE, end + 1);
+            mediaMetersService.trackSendfile(grant.getCourseId(), count);
+            return;
+        }
+        long startTime = System.nanoTime();
+        long sent = 0;
+        try (MediaFileChannels.Handle handle = mediaFileChannels.open(file, lastModified, length)) {
+            OutputStream out = response.getOutputStream();
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(COPY_BUFFER_SIZE, count));
+            while (sent < count) {
+                buffer.clear().limit((int) Math.min(buffer.capacity(), count - sent));
+                int read = handle.getChannel().read(buffer, start + sent);
+                if (read <= 0) {
+                    // the file shrank under us; the declared length can no longer be honoured
+                    throw new IOException("Media file " + file + " ended before the declared length");
+                }
+                out.write(buffer.array(), 0, read);
+                sent += read;
+            }
+        } finally {
+            mediaMetersService.trackCopied(grant.getCourseId(), sent, System.nanoTime() - startTime);
+        }
+    }
+
+    private static boolean isNotModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.strip();
+                if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        long ifModifiedSince = dateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+        return ifModifiedSince >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+    }
+
+    /**
+     * Tell whether a range request still applies to the current file, per its {@code If-Range} validator.
+     */
+    private static boolean isRangeCurrent(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.strip().startsWith("\"")) {
+            return ifRange.strip().equals(etag);
+        }
+        long date = dateHeader(request, HttpHeaders.IF_RANGE);
+        return date >= 0 && lastModified / 1000 == date / 1000;
+    }
+
+    /**
+     * Parse a {@code Range} header; malformed or multiple ranges are answered with the whole file.
+     */
+    private static HttpRange singleRange(String rangeHeader) {
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static long dateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+}
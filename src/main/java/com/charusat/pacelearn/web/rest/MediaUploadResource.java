@@ -0,0 +1,150 @@
+package com.charusat.pacelearn.web.rest;
+
+import com.charusat.pacelearn.service.MediaUploadService;
+import com.charusat.pacelearn.service.dto.CourseSessionDTO;
+import com.charusat.pacelearn.service.dto.MediaUploadDTO;
+import com.charusat.pacelearn.web.rest.errors.BadRequestAlertException;
+import com.charusat.pacelearn.web.rest.vm.MediaUploadVM;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import tech.jhipster.web.util.ResponseUtil;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.validation.Valid;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Base64;
+import java.util.Locale;
+
+/**
+ * REST controller for the resumable uploads of the course session media.
+ * <p>
+ * An upload is started with its size, its chunks are then {@code PUT} at their offset, in any order and in
+ * parallel, each with a {@code Digest: sha-256=<base64>} header; a client that lost track asks which chunks
+ * are missing. Completing the upload attaches the file to the session.
+ */
+@RestController
+@RequestMapping("/api")
+public class MediaUploadResource {
+
+    private static final String ENTITY_NAME = "mediaUpload";
+
+    private static final String DIGEST_HEADER = "Digest";
+
+    private static final String SHA_256 = "sha-256=";
+
+    private final Logger log = LoggerFactory.getLogger(MediaUploadResource.class);
+
+    private final MediaUploadService mediaUploadService;
+
+    public MediaUploadResource(MediaUploadService mediaUploadService) {
+        this.mediaUploadService = mediaUploadService;
+    }
+
+    /**
+     * {@code POST  /media-uploads} : start the upload of a session media.
+     *
+     * @param mediaUploadVM the session, kind, name and size of the media.
+     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and the upload in body, with status
+     * {@code 403 (Forbidden)} if the current user is not the instructor of the course, or with status {@code 404 (Not Found)}.
+     */
+    @PostMapping("/media-uploads")
+    public ResponseEntity<MediaUploadDTO> startMediaUpload(@Valid @RequestBody MediaUploadVM mediaUploadVM) throws IOException {
+        log.debug("REST request to start MediaUpload : {}", mediaUploadVM);
+        return mediaUploadService
+            .start(mediaUploadVM.getCourseSessionId(), mediaUploadVM.getKind(), mediaUploadVM.getFileName(), mediaUploadVM.getSize(), mediaUploadVM.getSha256())
+            .map(upload -> ResponseEntity.created(URI.create("/api/media-uploads/" + upload.getUploadId())).body(upload))
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * {@code GET  /media-uploads/:uploadId} : get an upload, with the chunks still missing.
+     *
+     * @param uploadId the id of the upload.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the upload in body, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/media-uploads/{uploadId}")
+    public ResponseEntity<MediaUploadDTO> getMediaUpload(@PathVariable String uploadId) throws IOException {
+        log.debug("REST request to get MediaUpload : {}", uploadId);
+        return ResponseUtil.wrapOrNotFound(mediaUploadService.findOne(uploadId));
+    }
+
+    /**
+     * {@code PUT  /media-uploads/:uploadId?offset=} : send one chunk of an upload.
+     *
+     * @param uploadId the id of the upload.
+     * @param offset the offset of the chunk in the file.
+     * @param digest the {@code Digest} header, holding the SHA-256 of the chunk.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the upload in body, with status
+     * {@code 400 (Bad Request)} if the chunk is misplaced, truncated or corrupted, or with status {@code 404 (Not Found)}.
+     */
+    @PutMapping(value = "/media-uploads/{uploadId}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<MediaUploadDTO> putMediaUploadChunk(
+        @PathVariable String uploadId,
+        @RequestParam long offset,
+        @RequestHeader(DIGEST_HEADER) String digest,
+        HttpServletRequest request
+    ) throws IOException {
+        log.debug("REST request to put the chunk at {} of MediaUpload : {}", offset, uploadId);
+        return ResponseUtil.wrapOrNotFound(
+            mediaUploadService.writeChunk(uploadId, offset, request.getContentLengthLong(), request.getInputStream(), sha256Of(digest))
+        );
+    }
+
+    /**
+     * {@code POST  /media-uploads/:uploadId/complete} : complete an upload and attach the file to its session.
+     *
+     * @param uploadId the id of the upload.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the updated courseSessionDTO in body, with status
+     * {@code 400 (Bad Request)} if chunks are missing, or with status {@code 404 (Not Found)}.
+     */
+    @PostMapping("/media-uploads/{uploadId}/complete")
+    public ResponseEntity<CourseSessionDTO> completeMediaUpload(@PathVariable String uploadId) throws IOException {
+        log.debug("REST request to complete MediaUpload : {}", uploadId);
+        return ResponseUtil.wrapOrNotFound(mediaUploadService.complete(uploadId));
+    }
+
+    /**
+     * {@code DELETE  /media-uploads/:uploadId} : abandon an upload.
+     *
+     * @param uploadId the id of the upload.
+     * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)}, or with status {@code 404 (Not Found)}.
+     */
+    @DeleteMapping("/media-uploads/{uploadId}")
+    public ResponseEntity<Void> deleteMediaUpload(@PathVariable String uploadId) throws IOException {
+        log.debug("REST request to delete MediaUpload : {}", uploadId);
+        if (!mediaUploadService.abort(uploadId)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    private static byte[] sha256Of(String digest) {
+        for (String instance : digest.split(",")) {
+            String value = instance.strip();
+            if (value.toLowerCase(Locale.ROOT).startsWith(SHA_256)) {
+                try {
+                    byte[] sha256 = Base64.getDecoder().decode(value.substring(SHA_256.length()));
+                    if (sha256.length == 32) {
+                        return sha256;
+                    }
+                } catch (IllegalArgumentException e) {
+                    break;
+                }
+            }
+        }
+        throw new BadRequestAlertException("A Digest header with the sha-256 of the chunk is required", ENTITY_NAME, "chunkdigest");
+    }
+}
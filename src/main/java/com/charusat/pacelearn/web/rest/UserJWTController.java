@@ -1,11 +1,17 @@
 package com.charusat.pacelearn.web.rest;
 
 import com.charusat.pacelearn.PacelearnApplication;
+import com.charusat.pacelearn.security.LoginAttemptService;
+import com.charusat.pacelearn.security.PasswordCheckExecutor;
 import com.charusat.pacelearn.web.rest.errors.InvalidPasswordException;
+import com.charusat.pacelearn.web.rest.errors.LoginOverloadedException;
+import com.charusat.pacelearn.web.rest.errors.LoginThrottledException;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.charusat.pacelearn.security.jwt.JWTFilter;
 import com.charusat.pacelearn.security.jwt.TokenProvider;
+import com.charusat.pacelearn.service.RefreshTokenService;
 import com.charusat.pacelearn.web.rest.vm.LoginVM;
+import com.charusat.pacelearn.web.rest.vm.RefreshTokenVM;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -13,15 +19,21 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.web.bind.annotation.*;
 
 /**
@@ -36,25 +48,48 @@ public class UserJWTController {
 
     private final AuthenticationManagerBuilder authenticationManagerBuilder;
 
+    private final PasswordCheckExecutor passwordCheckExecutor;
+
+    private final LoginAttemptService loginAttemptService;
+
+    private final RefreshTokenService refreshTokenService;
+
+    private final UserDetailsService userDetailsService;
+
     private final Logger log = LoggerFactory.getLogger(PacelearnApplication.class);
 
 
 //    private final AuthenticationManager authenticationManager;
 
-    public UserJWTController(TokenProvider tokenProvider, AuthenticationManagerBuilder authenticationManagerBuilder) {
+    public UserJWTController(
+        TokenProvider tokenProvider,
+        AuthenticationManagerBuilder authenticationManagerBuilder,
+        PasswordCheckExecutor passwordCheckExecutor,
+        LoginAttemptService loginAttemptService,
+        RefreshTokenService refreshTokenService,
+        UserDetailsService userDetailsService
+    ) {
         this.tokenProvider = tokenProvider;
         this.authenticationManagerBuilder = authenticationManagerBuilder;
+        this.passwordCheckExecutor = passwordCheckExecutor;
+        this.loginAttemptService = loginAttemptService;
+        this.refreshTokenService = refreshTokenService;
+        this.userDetailsService = userDetailsService;
     }
 
 
     /**
      * {@code POST  /authenticate} : register the user.
      *
+     * The password is checked on the {@link PasswordCheckExecutor}, which frees the request thread meanwhile.
+     *
      * @param loginVM the managed user View Model.
      * @throws InvalidPasswordException {@code 400 (Bad Request)} if the password is incorrect.
+     * @throws LoginThrottledException {@code 429 (Too Many Requests)} if the login or the client failed too often.
+     * @throws LoginOverloadedException {@code 503 (Service Unavailable)} if too many logins are already waiting.
      */
     @PostMapping("/authenticate")
-    public ResponseEntity<JWTToken> authorize(@Valid @RequestBody LoginVM loginVM, HttpServletRequest request){
+    public CompletableFuture<ResponseEntity<JWTToken>> authorize(@Valid @RequestBody LoginVM loginVM, HttpServletRequest request){
         UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
             loginVM.getUsername(),
             loginVM.getPassword()
@@ -62,21 +97,78 @@ public class UserJWTController {
 
         log.info("/POST Request to for SIGNIN for USERNAME :  "+loginVM.getUsername());
 
+        String address = request.getRemoteAddr();
+        if (loginAttemptService.isBlocked(loginVM.getUsername(), address)) {
+            throw new LoginThrottledException();
+        }
+        try {
+            return passwordCheckExecutor.submit(() -> authenticate(authenticationToken, loginVM, address));
+        } catch (RejectedExecutionException e) {
+            throw new LoginOverloadedException();
+        }
+    }
+
+    /**
+     * Runs on a {@link PasswordCheckExecutor} thread; the security context of that thread is left untouched, as the
+     * token is all the client needs.
+     */
+    private ResponseEntity<JWTToken> authenticate(
+        UsernamePasswordAuthenticationToken authenticationToken,
+        LoginVM loginVM,
+        String address
+    ) {
 //        System.out.println("HAHA in authenticate api endpoint");
 //        System.out.println("USERNAME is --> "+ loginVM.getUsername());
 //        System.out.println("Token is is --> "+ authenticationToken);
 //        Authentication authentication = authenticationManagerBuilder.getObject().authenticate(authenticationToken);
-        Authentication authentication = authenticationManagerBuilder.getObject().authenticate(authenticationToken);
+        Authentication authentication;
+        try {
+            authentication = authenticationManagerBuilder.getObject().authenticate(authenticationToken);
+        } catch (BadCredentialsException e) {
+            loginAttemptService.loginFailed(loginVM.getUsername(), address);
+            throw e;
+        }
+        loginAttemptService.loginSucceeded(loginVM.getUsername());
 //        System.out.println("HAHA in authenticate api endpoint1");
-        SecurityContextHolder.getContext().setAuthentication(authentication);
 //        System.out.println("HAHA in authenticate api endpoint2");
-        String jwt = tokenProvider.createToken(authentication, loginVM.isRememberMe());
+        RefreshTokenService.Session session = refreshTokenService.open(authentication.getName(), loginVM.isRememberMe());
+        String jwt = tokenProvider.createToken(authentication, session.getId());
 //        System.out.println("HAHA in authenticate api endpoint3");
         HttpHeaders httpHeaders = new HttpHeaders();
         httpHeaders.add(JWTFilter.AUTHORIZATION_HEADER, "Bearer " + jwt);
 //        httpHeaders.add(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN,"http://localhost:3000");
 //        httpHeaders.add(HttpHeaders.ACCESS_CONTROL_ALLOW_HEADERS,"Content-Type");
-        return new ResponseEntity<>(new JWTToken(jwt), httpHeaders, HttpStatus.OK);
+        return new ResponseEntity<>(new JWTToken(jwt, session.getRefreshToken()), httpHeaders, HttpStatus.OK);
+    }
+
+    /**
+     * {@code POST  /authenticate/refresh} : exchange a refresh token for a new access token and refresh token.
+     *
+     * The authorities are read again, so a change of role applies from the next refresh.
+     *
+     * @param refreshTokenVM the refresh token of the session.
+     * @throws BadCredentialsException {@code 401 (Unauthorized)} if the refresh token is unknown, expired, revoked or already used.
+     */
+    @PostMapping("/authenticate/refresh")
+    public ResponseEntity<JWTToken> refresh(@Valid @RequestBody RefreshTokenVM refreshTokenVM) {
+        RefreshTokenService.Session session = refreshTokenService
+            .refresh(refreshTokenVM.getRefreshToken())
+            .orElseThrow(() -> new BadCredentialsException("Invalid refresh token"));
+        UserDetails user = userDetailsService.loadUserByUsername(session.getLogin());
+        Authentication authentication = new UsernamePasswordAuthenticationToken(user, "", user.getAuthorities());
+        String jwt = tokenProvider.createToken(authentication, session.getId());
+        HttpHeaders httpHeaders = new HttpHeaders();
+        httpHeaders.add(JWTFilter.AUTHORIZATION_HEADER, "Bearer " + jwt);
+        return new ResponseEntity<>(new JWTToken(jwt, session.getRefreshToken()), httpHeaders, HttpStatus.OK);
+    }
+
+    /**
+     * {@code POST  /logout} : revoke the session of the current access token, along with its refresh token.
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout() {
+        TokenProvider.getSessionId(SecurityContextHolder.getContext().getAuthentication()).ifPresent(refreshTokenService::revoke);
+        return ResponseEntity.noContent().build();
     }
 
     /**
@@ -86,8 +178,11 @@ public class UserJWTController {
 
         private String idToken;
 
-        JWTToken(String idToken) {
+        private String refreshToken;
+
+        JWTToken(String idToken, String refreshToken) {
             this.idToken = idToken;
+            this.refreshToken = refreshToken;
         }
 
         @JsonProperty("id_token")
@@ -98,5 +193,14 @@ public class UserJWTController {
         void setIdToken(String idToken) {
             this.idToken = idToken;
         }
+
+        @JsonProperty("refresh_token")
+        String getRefreshToken() {
+            return refreshToken;
+        }
+
+        void setRefreshToken(String refreshToken) {
+            this.refreshToken = refreshToken;
+        }
     }
 }
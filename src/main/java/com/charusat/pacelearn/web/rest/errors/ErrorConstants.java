@@ -13,6 +13,9 @@ public final class ErrorConstants {
     public static final URI EMAIL_ALREADY_USED_TYPE = URI.create(PROBLEM_BASE_URL + "/email-already-used");
     public static final URI INVALID_EMAIL_USED = URI.create(PROBLEM_BASE_URL + "/invalid-email-id");
     public static final URI LOGIN_ALREADY_USED_TYPE = URI.create(PROBLEM_BASE_URL + "/login-already-used");
+    public static final URI LOGIN_THROTTLED_TYPE = URI.create(PROBLEM_BASE_URL + "/login-throttled");
+    public static final URI LOGIN_OVERLOADED_TYPE = URI.create(PROBLEM_BASE_URL + "/login-overloaded");
+    public static final URI RATE_LIMITED_TYPE = URI.create(PROBLEM_BASE_URL + "/rate-limited");
 
     private ErrorConstants() {}
 }
@@ -0,0 +1,13 @@
+package com.charusat.pacelearn.web.rest.errors;
+
+import org.zalando.problem.AbstractThrowableProblem;
+import org.zalando.problem.Status;
+
+public class LoginOverloadedException extends AbstractThrowableProblem {
+
+    private static final long serialVersionUID = 1L;
+
+    public LoginOverloadedException() {
+        super(ErrorConstants.LOGIN_OVERLOADED_TYPE, "Too many logins in progress, try again shortly", Status.SERVICE_UNAVAILABLE);
+    }
+}
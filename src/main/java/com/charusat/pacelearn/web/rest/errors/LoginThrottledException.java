@@ -0,0 +1,13 @@
+package com.charusat.pacelearn.web.rest.errors;
+
+import org.zalando.problem.AbstractThrowableProblem;
+import org.zalando.problem.Status;
+
+public class LoginThrottledException extends AbstractThrowableProblem {
+
+    private static final long serialVersionUID = 1L;
+
+    public LoginThrottledException() {
+        super(ErrorConstants.LOGIN_THROTTLED_TYPE, "Too many failed logins, try again later", Status.TOO_MANY_REQUESTS);
+    }
+}
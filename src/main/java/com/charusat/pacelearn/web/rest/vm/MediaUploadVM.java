@@ -0,0 +1,85 @@
+package com.charusat.pacelearn.web.rest.vm;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Pattern;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.Size;
+
+/**
+ * View Model object for starting the upload of a course session media.
+ */
+public class MediaUploadVM {
+
+    @NotNull
+    private Long courseSessionId;
+
+    @NotNull
+    @Pattern(regexp = "video|resource")
+    private String kind;
+
+    @NotNull
+    @Size(min = 1, max = 255)
+    private String fileName;
+
+    @NotNull
+    @Positive
+    private Long size;
+
+    @Pattern(regexp = "[0-9a-fA-F]{64}")
+    private String sha256;
+
+    public Long getCourseSessionId() {
+        return courseSessionId;
+    }
+
+    public void setCourseSessionId(Long courseSessionId) {
+        this.courseSessionId = courseSessionId;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public void setKind(String kind) {
+        this.kind = kind;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public Long getSize() {
+        return size;
+    }
+
+    public void setSize(Long size) {
+        this.size = size;
+    }
+
+    /**
+     * @return the hex SHA-256 of the whole file, optional; a file already stored is then not uploaded again.
+     */
+    public String getSha256() {
+        return sha256;
+    }
+
+    public void setSha256(String sha256) {
+        this.sha256 = sha256;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "MediaUploadVM{" +
+            "courseSessionId=" + courseSessionId +
+            ", kind='" + kind + "'" +
+            ", fileName='" + fileName + "'" +
+            ", size=" + size +
+            ", sha256='" + sha256 + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,62 @@
+package com.charusat.pacelearn.web.rest.vm;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Pattern;
+import javax.validation.constraints.PositiveOrZero;
+
+/**
+ * View Model object for a watch time report of a player.
+ */
+public class WatchTimeVM {
+
+    public static final String MODE_POSITION = "position";
+    public static final String MODE_WATCHED = "watched";
+
+    @NotNull
+    private Long courseSessionId;
+
+    @NotNull
+    @PositiveOrZero
+    private Long watchSeconds;
+
+    @Pattern(regexp = MODE_POSITION + "|" + MODE_WATCHED)
+    private String mode = MODE_POSITION;
+
+    public Long getCourseSessionId() {
+        return courseSessionId;
+    }
+
+    public void setCourseSessionId(Long courseSessionId) {
+        this.courseSessionId = courseSessionId;
+    }
+
+    public Long getWatchSeconds() {
+        return watchSeconds;
+    }
+
+    public void setWatchSeconds(Long watchSeconds) {
+        this.watchSeconds = watchSeconds;
+    }
+
+    /**
+     * @return {@code position} when {@code watchSeconds} is the playback position, {@code watched} when it is the
+     * time watched since the previous report.
+     */
+    public String getMode() {
+        return mode;
+    }
+
+    public void setMode(String mode) {
+        this.mode = mode;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "WatchTimeVM{" +
+            "courseSessionId=" + courseSessionId +
+            ", watchSeconds=" + watchSeconds +
+            ", mode='" + mode + "'" +
+            "}";
+    }
+}
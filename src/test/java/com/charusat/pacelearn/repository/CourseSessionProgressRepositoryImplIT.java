@@ -0,0 +1,188 @@
+package com.charusat.pacelearn.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.charusat.pacelearn.repository.CourseSessionProgressRepositoryCustom.ReportedWatchTime;
+import com.charusat.pacelearn.repository.CourseSessionProgressRepositoryCustom.WatchTime;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+import javax.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.jdbc.ReturningWork;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Integration tests of the upserts of {@link CourseSessionProgressRepositoryImpl} against MySQL, the only database
+ * they are written for.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class CourseSessionProgressRepositoryImplIT {
+
+    private static final Long USER_ID = 1L;
+
+    private static final Long SESSION_ID = 10L;
+
+    private static final Long DELETED_SESSION_ID = 11L;
+
+    private static final Instant NOW = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+
+    private static final Calendar UTC = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+
+    @Container
+    private static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0.28");
+
+    private Connection connection;
+
+    private CourseSessionProgressRepositoryImpl repository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        connection = DriverManager.getConnection(MYSQL.getJdbcUrl(), MYSQL.getUsername(), MYSQL.getPassword());
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop table if exists course_session_progress");
+            statement.execute("drop table if exists course_session");
+            statement.execute("create table course_session (id bigint not null primary key)");
+            statement.execute(
+                "create table course_session_progress (id bigint not null auto_increment primary key, " +
+                "watch_seconds bigint not null, last_reported_at datetime(6), user_id bigint, course_session_id bigint, " +
+                "unique key ux_course_session_progress__user_session (user_id, course_session_id))"
+            );
+            statement.execute("insert into course_session (id) values (" + SESSION_ID + ")");
+        }
+
+        Session session = mock(Session.class);
+        when(session.doReturningWork(any())).thenAnswer(invocation -> invocation.<ReturningWork<?>>getArgument(0).execute(connection));
+        EntityManager entityManager = mock(EntityManager.class);
+        when(entityManager.unwrap(Session.class)).thenReturn(session);
+        repository = new CourseSessionProgressRepositoryImpl();
+        ReflectionTestUtils.setField(repository, "entityManager", entityManager);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        connection.close();
+    }
+
+    @Test
+    void mergeWatchTimeAddsWatchedSecondsAndStampsTheReport() throws Exception {
+        repository.mergeWatchTime(List.of(new WatchTime(USER_ID, SESSION_ID, 30, 0, NOW.minusSeconds(60))));
+        repository.mergeWatchTime(List.of(new WatchTime(USER_ID, SESSION_ID, 20, 0, NOW)));
+
+        assertThat(watchSeconds()).isEqualTo(50);
+        assertThat(lastReportedAt()).isEqualTo(NOW);
+    }
+
+    @Test
+    void mergeWatchTimeKeepsTheFurthestPosition() throws Exception {
+        repository.mergeWatchTime(List.of(new WatchTime(USER_ID, SESSION_ID, 0, 120, NOW)));
+        repository.mergeWatchTime(List.of(new WatchTime(USER_ID, SESSION_ID, 0, 90, NOW.minusSeconds(5))));
+
+        assertThat(watchSeconds()).isEqualTo(120);
+        assertThat(lastReportedAt()).isEqualTo(NOW);
+    }
+
+    @Test
+    void mergeWatchTimeSkipsDeletedSessions() throws Exception {
+        repository.mergeWatchTime(
+            List.of(new WatchTime(USER_ID, DELETED_SESSION_ID, 10, 0, NOW), new WatchTime(USER_ID, SESSION_ID, 10, 0, NOW))
+        );
+
+        assertThat(rowCount()).isEqualTo(1);
+        assertThat(watchSeconds()).isEqualTo(10);
+    }
+
+    @Test
+    void maxWinsKeepsTheFurthestWatchTimeWhateverTheOrder() throws Exception {
+        repository.syncWatchTime(USER_ID, List.of(new ReportedWatchTime(SESSION_ID, 300, NOW.minusSeconds(60))), false);
+        repository.syncWatchTime(USER_ID, List.of(new ReportedWatchTime(SESSION_ID, 100, NOW)), false);
+
+        assertThat(watchSeconds()).isEqualTo(300);
+        assertThat(lastReportedAt()).isEqualTo(NOW);
+    }
+
+    @Test
+    void lastWriterWinsReplacesAnEarlierReport() throws Exception {
+        repository.syncWatchTime(USER_ID, List.of(new ReportedWatchTime(SESSION_ID, 300, NOW.minusSeconds(60))), true);
+        repository.syncWatchTime(USER_ID, List.of(new ReportedWatchTime(SESSION_ID, 100, NOW)), true);
+
+        assertThat(watchSeconds()).isEqualTo(100);
+        assertThat(lastReportedAt()).isEqualTo(NOW);
+    }
+
+    @Test
+    void lastWriterWinsKeepsLiveProgressNewerThanAnOfflineRecord() throws Exception {
+        repository.mergeWatchTime(List.of(new WatchTime(USER_ID, SESSION_ID, 0, 500, NOW)));
+        repository.syncWatchTime(USER_ID, List.of(new ReportedWatchTime(SESSION_ID, 40, NOW.minusSeconds(3600))), true);
+
+        assertThat(watchSeconds()).isEqualTo(500);
+        assertThat(lastReportedAt()).isEqualTo(NOW);
+    }
+
+    @Test
+    void lastWriterWinsKeepsTheFurthestOfAnUnstampedRow() throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(
+                "insert into course_session_progress (watch_seconds, user_id, course_session_id) values (200, " + USER_ID + ", " +
+                SESSION_ID + ")"
+            );
+        }
+        repository.syncWatchTime(USER_ID, List.of(new ReportedWatchTime(SESSION_ID, 50, NOW)), true);
+
+        assertThat(watchSeconds()).isEqualTo(200);
+        assertThat(lastReportedAt()).isEqualTo(NOW);
+    }
+
+    private long watchSeconds() throws Exception {
+        return (long) select("watch_seconds", ResultSet::getLong);
+    }
+
+    private Instant lastReportedAt() throws Exception {
+        Timestamp timestamp = (Timestamp) select("last_reported_at", (resultSet, column) -> resultSet.getTimestamp(column, UTC));
+        return timestamp.toInstant();
+    }
+
+    private int rowCount() throws Exception {
+        try (Statement statement = connection.createStatement(); ResultSet resultSet = statement.executeQuery("select count(*) from course_session_progress")) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+
+    private Object select(String column, Getter getter) throws Exception {
+        try (
+            PreparedStatement statement = connection.prepareStatement(
+                "select " + column + " from course_session_progress where user_id = ? and course_session_id = ?"
+            )
+        ) {
+            statement.setLong(1, USER_ID);
+            statement.setLong(2, SESSION_ID);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                assertThat(resultSet.next()).isTrue();
+                return getter.get(resultSet, column);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Getter {
+        Object get(ResultSet resultSet, String column) throws Exception;
+    }
+}
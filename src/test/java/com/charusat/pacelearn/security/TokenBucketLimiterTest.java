@@ -0,0 +1,107 @@
+package com.charusat.pacelearn.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link TokenBucketLimiter}: burst capacity, refill rate and the CAS under contention.
+ */
+class TokenBucketLimiterTest {
+
+    @Test
+    void aFullBucketAllowsItsCapacityThenWaitsOneInterval() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(16, 3, 1, Duration.ofHours(1));
+
+        assertThat(limiter.tryAcquire("client")).isZero();
+        assertThat(limiter.tryAcquire("client")).isZero();
+        assertThat(limiter.tryAcquire("client")).isZero();
+
+        long wait = limiter.tryAcquire("client");
+        assertThat(wait).isPositive().isLessThanOrEqualTo(Duration.ofHours(1).toNanos());
+        assertThat(wait).isGreaterThan(Duration.ofMinutes(59).toNanos());
+    }
+
+    @Test
+    void refusedRequestsDoNotTakeTokens() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(16, 1, 1, Duration.ofHours(1));
+        limiter.tryAcquire("client");
+
+        long first = limiter.tryAcquire("client");
+        long second = limiter.tryAcquire("client");
+
+        // a refusal leaves the bucket as it was, so the wait does not grow
+        assertThat(second).isLessThanOrEqualTo(first);
+    }
+
+    @Test
+    void theBucketRefillsAtTheConfiguredRate() throws Exception {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(16, 1, 1, Duration.ofMillis(50));
+        assertThat(limiter.tryAcquire("client")).isZero();
+
+        long wait = limiter.tryAcquire("client");
+        assertThat(wait).isPositive().isLessThanOrEqualTo(Duration.ofMillis(50).toNanos());
+
+        TimeUnit.NANOSECONDS.sleep(wait);
+        assertThat(limiter.tryAcquire("client")).isZero();
+    }
+
+    @Test
+    void keysOnOtherStripesHaveTheirOwnBucket() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(16, 1, 1, Duration.ofHours(1));
+
+        assertThat(limiter.tryAcquire("a")).isZero();
+        assertThat(limiter.tryAcquire("a")).isPositive();
+        assertThat(limiter.tryAcquire("b")).isZero();
+    }
+
+    @Test
+    void concurrentRequestsNeverTakeMoreThanTheCapacity() throws Exception {
+        int capacity = 100;
+        int threads = 8;
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, capacity, 1, Duration.ofHours(1));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> acquired = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                acquired.add(
+                    executor.submit(() -> {
+                        start.await();
+                        int count = 0;
+                        for (int j = 0; j < capacity; j++) {
+                            if (limiter.tryAcquire("client") == 0) {
+                                count++;
+                            }
+                        }
+                        return count;
+                    })
+                );
+            }
+            start.countDown();
+            int total = 0;
+            for (Future<Integer> future : acquired) {
+                total += future.get(10, TimeUnit.SECONDS);
+            }
+            assertThat(total).isEqualTo(capacity);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void rejectsAnEmptyBucketOrRate() {
+        assertThatThrownBy(() -> new TokenBucketLimiter(16, 0, 1, Duration.ofSeconds(1))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TokenBucketLimiter(16, 1, 0, Duration.ofSeconds(1))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TokenBucketLimiter(16, 1, 1, Duration.ZERO)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,79 @@
+package com.charusat.pacelearn.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.charusat.pacelearn.service.dto.SuggestionDTO;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link AutocompleteTrie}: prefixes ending within a compressed edge, and edges split and merged back.
+ */
+class AutocompleteTrieTest {
+
+    private AutocompleteTrie trie;
+
+    @BeforeEach
+    void setUp() {
+        trie = new AutocompleteTrie(5);
+    }
+
+    @Test
+    void completesPrefixesEndingWithinAnEdge() {
+        trie.put(course(1L, "JavaScript Basics", 10));
+
+        assertThat(texts("j")).containsExactly("JavaScript Basics");
+        assertThat(texts("javas")).containsExactly("JavaScript Basics");
+        assertThat(texts("bas")).containsExactly("JavaScript Basics");
+        assertThat(texts("javax")).isEmpty();
+        assertThat(texts("javascript basics and more")).isEmpty();
+    }
+
+    @Test
+    void splitsAnEdgeWhereKeysBranchOff() {
+        trie.put(course(1L, "JavaScript", 10));
+        trie.put(course(2L, "Java", 20));
+        trie.put(course(3L, "Jakarta EE", 5));
+
+        assertThat(texts("ja")).containsExactly("Java", "JavaScript", "Jakarta EE");
+        assertThat(texts("java")).containsExactly("Java", "JavaScript");
+        assertThat(texts("javas")).containsExactly("JavaScript");
+        assertThat(texts("jak")).containsExactly("Jakarta EE");
+    }
+
+    @Test
+    void removingAKeyMergesTheEdgeBack() {
+        trie.put(course(1L, "JavaScript", 10));
+        trie.put(course(2L, "Java", 20));
+
+        trie.remove(SuggestionDTO.key(SuggestionDTO.COURSE, 2L));
+
+        assertThat(trie.size()).isEqualTo(1);
+        assertThat(texts("java")).containsExactly("JavaScript");
+        assertThat(texts("javas")).containsExactly("JavaScript");
+
+        trie.remove(SuggestionDTO.key(SuggestionDTO.COURSE, 1L));
+
+        assertThat(texts("j")).isEmpty();
+    }
+
+    @Test
+    void replacingASuggestionReranksIt() {
+        trie.put(course(1L, "Spring Boot", 10));
+        trie.put(course(2L, "Spring Data", 20));
+
+        trie.put(course(1L, "Spring Boot", 30));
+
+        assertThat(texts("spring")).containsExactly("Spring Boot", "Spring Data");
+    }
+
+    private List<String> texts(String prefix) {
+        return trie.complete(prefix, 5).stream().map(SuggestionDTO::getText).collect(Collectors.toList());
+    }
+
+    private static SuggestionDTO course(Long id, String text, long weight) {
+        return new SuggestionDTO(SuggestionDTO.COURSE, id, text, weight);
+    }
+}
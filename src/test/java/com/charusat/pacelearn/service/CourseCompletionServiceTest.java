@@ -0,0 +1,262 @@
+package com.charusat.pacelearn.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.charusat.pacelearn.config.ApplicationProperties;
+import com.charusat.pacelearn.domain.Course;
+import com.charusat.pacelearn.domain.CourseCompletion;
+import com.charusat.pacelearn.domain.CourseSession;
+import com.charusat.pacelearn.repository.CourseCompletionRepository;
+import com.charusat.pacelearn.repository.CourseRepository;
+import com.charusat.pacelearn.repository.CourseSessionProgressRepository;
+import com.charusat.pacelearn.repository.CourseSessionRepository;
+import com.charusat.pacelearn.service.dto.CourseCompletionDTO;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link CourseCompletionService} and {@link CourseCompletionLayout}: completion ordinals are handed
+ * out once, bits of deleted and moved sessions are cleared, and completions count and point to the next session.
+ */
+class CourseCompletionServiceTest {
+
+    private static final Long USER_ID = 1L;
+
+    private static final Long COURSE_ID = 3L;
+
+    private static final Long OTHER_COURSE_ID = 4L;
+
+    private CourseCompletionRepository courseCompletionRepository;
+
+    private CourseSessionProgressRepository courseSessionProgressRepository;
+
+    private CourseSessionRepository courseSessionRepository;
+
+    private CourseRepository courseRepository;
+
+    private CourseCompletionService courseCompletionService;
+
+    /**
+     * The completion ordinal of the sessions of each course in curriculum order, as the database holds them.
+     */
+    private final Map<Long, Map<Long, Integer>> sessions = new LinkedHashMap<>();
+
+    private final Map<Long, Course> courses = new LinkedHashMap<>();
+
+    private CourseCompletion completion;
+
+    @BeforeEach
+    void setUp() {
+        courseCompletionRepository = mock(CourseCompletionRepository.class);
+        courseSessionProgressRepository = mock(CourseSessionProgressRepository.class);
+        courseSessionRepository = mock(CourseSessionRepository.class);
+        courseRepository = mock(CourseRepository.class);
+        courseCompletionService =
+            new CourseCompletionService(
+                courseCompletionRepository,
+                courseSessionProgressRepository,
+                courseSessionRepository,
+                courseRepository,
+                new ApplicationProperties()
+            );
+
+        when(courseSessionRepository.findCompletionLayoutByCourseId(anyLong()))
+            .thenAnswer(
+                invocation -> {
+                    List<Object[]> rows = new ArrayList<>();
+                    sessions
+                        .getOrDefault(invocation.<Long>getArgument(0), Map.of())
+                        .forEach((sessionId, ordinal) -> rows.add(new Object[] { sessionId, ordinal, 600L }));
+                    return rows;
+                }
+            );
+        when(courseSessionRepository.updateCompletionOrdinal(anyLong(), any()))
+            .thenAnswer(
+                invocation -> {
+                    Long sessionId = invocation.getArgument(0);
+                    for (Map<Long, Integer> courseSessions : sessions.values()) {
+                        if (courseSessions.containsKey(sessionId)) {
+                            courseSessions.put(sessionId, invocation.getArgument(1));
+                        }
+                    }
+                    return 1;
+                }
+            );
+        when(courseRepository.lockById(anyLong()))
+            .thenAnswer(invocation -> Optional.ofNullable(courses.get(invocation.<Long>getArgument(0))));
+        when(courseRepository.advanceNextCompletionOrdinal(anyLong(), anyInt()))
+            .thenAnswer(
+                invocation -> {
+                    Course course = courses.get(invocation.<Long>getArgument(0));
+                    int next = invocation.getArgument(1);
+                    if (course.getNextCompletionOrdinal() == null || course.getNextCompletionOrdinal() < next) {
+                        course.setNextCompletionOrdinal(next);
+                    }
+                    return 1;
+                }
+            );
+
+        completion = new CourseCompletion();
+        completion.setUserId(USER_ID);
+        completion.setCourseId(COURSE_ID);
+        completion.setCompletedSessions(new byte[0]);
+        completion.setCompletedCount(0);
+        when(courseCompletionRepository.findAllForUpdate(anyCollection(), anyCollection())).thenReturn(List.of(completion));
+        when(courseCompletionRepository.findAllByCourseIdForUpdate(COURSE_ID)).thenReturn(List.of(completion));
+        when(courseCompletionRepository.findByUserIdAndCourseId(USER_ID, COURSE_ID)).thenReturn(Optional.of(completion));
+
+        addCourse(COURSE_ID);
+        addCourse(OTHER_COURSE_ID);
+        sessions.get(COURSE_ID).put(10L, null);
+        sessions.get(COURSE_ID).put(11L, null);
+        sessions.get(COURSE_ID).put(12L, null);
+    }
+
+    @Test
+    void ordinalsAreAssignedOnceInCurriculumOrder() {
+        CourseCompletionLayout layout = courseCompletionService.getLayout(COURSE_ID);
+
+        assertThat(layout.ordinalOf(10L)).isZero();
+        assertThat(layout.ordinalOf(11L)).isEqualTo(1);
+        assertThat(layout.ordinalOf(12L)).isEqualTo(2);
+        assertThat(courses.get(COURSE_ID).getNextCompletionOrdinal()).isEqualTo(3);
+
+        // the next load finds every session numbered and caches the layout without writing
+        courseCompletionService.getLayout(COURSE_ID);
+        courseCompletionService.getLayout(COURSE_ID);
+
+        verify(courseRepository).lockById(COURSE_ID);
+    }
+
+    @Test
+    void ordinalOfADeletedSessionIsNotReused() {
+        courseCompletionService.getLayout(COURSE_ID);
+        complete(10L, 12L);
+
+        courseCompletionService.sessionDeleted(session(12L, 2), COURSE_ID);
+        sessions.get(COURSE_ID).remove(12L);
+        sessions.get(COURSE_ID).put(13L, null);
+        courseCompletionService.courseChanged(CourseChangedEvent.of(COURSE_ID));
+
+        assertThat(completed()).containsExactly(0);
+        assertThat(completion.getCompletedCount()).isEqualTo(1);
+        assertThat(courseCompletionService.getLayout(COURSE_ID).ordinalOf(13L)).isEqualTo(3);
+        assertThat(courseCompletionService.getCompletion(USER_ID, COURSE_ID).getCompletedSessionIds()).containsExactly(10L);
+    }
+
+    @Test
+    void movedSessionIsClearedAndTakesAFreshOrdinalInItsNewCourse() {
+        courseCompletionService.getLayout(COURSE_ID);
+        courses.get(OTHER_COURSE_ID).setNextCompletionOrdinal(5);
+        sessions.get(OTHER_COURSE_ID).put(20L, 4);
+        complete(10L, 11L);
+
+        courseCompletionService.sessionMoved(11L, 1, COURSE_ID);
+        sessions.get(OTHER_COURSE_ID).put(11L, sessions.get(COURSE_ID).remove(11L));
+        courseCompletionService.courseChanged(CourseChangedEvent.of(COURSE_ID));
+
+        verify(courseSessionRepository).updateCompletionOrdinal(11L, null);
+        assertThat(completed()).containsExactly(0);
+        assertThat(completion.getCompletedCount()).isEqualTo(1);
+        assertThat(courseCompletionService.getLayout(OTHER_COURSE_ID).ordinalOf(11L)).isEqualTo(5);
+        assertThat(courseCompletionService.getLayout(COURSE_ID).ordinalOf(11L)).isNull();
+    }
+
+    @Test
+    void clearingAnOrdinalTwiceCountsItOnce() {
+        courseCompletionService.getLayout(COURSE_ID);
+        complete(10L, 11L);
+
+        courseCompletionService.sessionDeleted(session(11L, 1), COURSE_ID);
+        courseCompletionService.sessionDeleted(session(11L, 1), COURSE_ID);
+        courseCompletionService.sessionDeleted(session(14L, null), COURSE_ID);
+
+        assertThat(completed()).containsExactly(0);
+        assertThat(completion.getCompletedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void completedSessionsAreCountedOnceAndTheNextSessionFollows() {
+        courseCompletionService.getLayout(COURSE_ID);
+
+        complete(10L);
+        complete(10L, 11L);
+        // a session missing from the layout has no bit
+        complete(20L);
+
+        assertThat(completed()).containsExactly(0, 1);
+        assertThat(completion.getCompletedCount()).isEqualTo(2);
+        assertThat(completion.getLastCompletedDate()).isNotNull();
+        CourseCompletionDTO dto = courseCompletionService.getCompletion(USER_ID, COURSE_ID);
+        assertThat(dto.getCompletedSessionIds()).containsExactly(10L, 11L);
+        assertThat(dto.getCompletedSessions()).isEqualTo(2);
+        assertThat(dto.getTotalSessions()).isEqualTo(3);
+        assertThat(dto.getNextSessionId()).isEqualTo(12L);
+
+        complete(12L);
+
+        assertThat(courseCompletionService.getCompletion(USER_ID, COURSE_ID).getNextSessionId()).isNull();
+        verify(courseCompletionRepository, never()).insertIfMissing(anyLong(), anyLong());
+    }
+
+    @Test
+    void nextIncompleteFollowsTheCurriculumWhenOrdinalsDoNotAscend() {
+        CourseCompletionLayout layout = new CourseCompletionLayout(List.of(30L, 10L, 20L), List.of(2, 0, 1));
+        BitSet completed = new BitSet();
+        completed.set(2);
+
+        assertThat(layout.nextIncomplete(completed)).isEqualTo(10L);
+        assertThat(layout.completedSessionIds(completed)).containsExactly(30L);
+
+        completed.set(0);
+        completed.set(1);
+
+        assertThat(layout.nextIncomplete(completed)).isNull();
+    }
+
+    private void addCourse(Long courseId) {
+        Course course = new Course();
+        course.setId(courseId);
+        courses.put(courseId, course);
+        sessions.put(courseId, new LinkedHashMap<>());
+    }
+
+    /**
+     * Report progress of the user crossing the threshold in some sessions.
+     */
+    private void complete(Long... sessionIds) {
+        List<Object[]> rows = new ArrayList<>();
+        for (Long sessionId : sessionIds) {
+            rows.add(new Object[] { USER_ID, sessionId, COURSE_ID });
+        }
+        when(courseSessionProgressRepository.findCompleted(anyCollection(), anyCollection(), anyDouble())).thenReturn(rows);
+        courseCompletionService.progressChanged(List.of(USER_ID), List.of(sessionIds));
+    }
+
+    private List<Integer> completed() {
+        return BitSet.valueOf(completion.getCompletedSessions()).stream().boxed().collect(Collectors.toList());
+    }
+
+    private static CourseSession session(Long id, Integer ordinal) {
+        CourseSession session = new CourseSession();
+        session.setId(id);
+        session.setCompletionOrdinal(ordinal);
+        return session;
+    }
+}
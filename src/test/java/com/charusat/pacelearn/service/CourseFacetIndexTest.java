@@ -0,0 +1,115 @@
+package com.charusat.pacelearn.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link CourseFacetIndex}: selections, facet counts, renumbering and newest-first paging.
+ */
+class CourseFacetIndexTest {
+
+    private static final LocalDate DAY = LocalDate.of(2022, 1, 1);
+
+    private CourseFacetIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new CourseFacetIndex();
+    }
+
+    @Test
+    void valuesOfAFacetAreOredAndFacetsAreAnded() {
+        put(1L, 1, "beginner", "video", "free");
+        put(2L, 2, "advanced", "video", "paid");
+        put(3L, 3, "beginner", "text", "paid");
+
+        assertThat(hits(Map.of(CourseFacetIndex.LEVEL, List.of("beginner", "advanced")))).containsExactly(3L, 2L, 1L);
+        assertThat(
+            hits(Map.of(CourseFacetIndex.LEVEL, List.of("beginner", "advanced"), CourseFacetIndex.TYPE, List.of("video")))
+        )
+            .containsExactly(2L, 1L);
+        assertThat(hits(Map.of(CourseFacetIndex.LEVEL, List.of("beginner"), CourseFacetIndex.PRICE, List.of("paid"))))
+            .containsExactly(3L);
+        assertThat(hits(Map.of(CourseFacetIndex.LEVEL, List.of("expert")))).isEmpty();
+        assertThat(hits(Map.of())).containsExactly(3L, 2L, 1L);
+    }
+
+    @Test
+    void facetCountsIgnoreTheSelectionOfTheirOwnFacet() {
+        put(1L, 1, "beginner", "video", "free");
+        put(2L, 2, "advanced", "video", "paid");
+        put(3L, 3, "beginner", "text", "paid");
+
+        CourseFacetIndex.Result result = index.query(
+            Map.of(CourseFacetIndex.LEVEL, List.of("beginner"), CourseFacetIndex.TYPE, List.of("video"))
+        );
+
+        assertThat(result.getHits().getCardinality()).isEqualTo(1);
+        Map<String, Map<String, Integer>> counts = result.getFacetCounts();
+        assertThat(counts.get(CourseFacetIndex.LEVEL)).containsOnly(Map.entry("beginner", 1), Map.entry("advanced", 1));
+        assertThat(counts.get(CourseFacetIndex.TYPE)).containsOnly(Map.entry("video", 1), Map.entry("text", 1));
+        assertThat(counts.get(CourseFacetIndex.PRICE)).containsOnly(Map.entry("free", 1));
+        assertThat(counts.get(CourseFacetIndex.CATEGORY)).isEmpty();
+    }
+
+    @Test
+    void coursesOutOfListingOrderAreRenumbered() {
+        put(1L, 3, "beginner", "video", "free");
+        put(2L, 1, "advanced", "video", "paid");
+        put(3L, 2, "beginner", "text", "paid");
+        // same creation date as course 1, so the id breaks the tie
+        put(4L, 3, "beginner", "text", "free");
+        index.put(5L, null, Map.of(CourseFacetIndex.LEVEL, "advanced"));
+
+        assertThat(hits(Map.of())).containsExactly(4L, 1L, 3L, 2L, 5L);
+
+        // a new creation date moves the course, and its facet values are replaced
+        put(2L, 4, "beginner", "video", "paid");
+
+        assertThat(hits(Map.of())).containsExactly(2L, 4L, 1L, 3L, 5L);
+        assertThat(hits(Map.of(CourseFacetIndex.LEVEL, List.of("advanced")))).containsExactly(5L);
+        assertThat(index.size()).isEqualTo(5);
+    }
+
+    @Test
+    void pagesNewestFirstAcrossARemoval() {
+        for (long courseId = 1; courseId <= 5; courseId++) {
+            put(courseId, (int) courseId, "beginner", "video", "free");
+        }
+        index.remove(4L);
+        index.remove(42L);
+
+        assertThat(page(0, 2)).containsExactly(5L, 3L);
+        assertThat(page(2, 2)).containsExactly(2L, 1L);
+        assertThat(page(4, 2)).isEmpty();
+
+        // a newer course takes the next ordinal, an older one renumbers the index and drops the removed ordinal
+        put(6L, 6, "beginner", "video", "free");
+        put(7L, 0, "beginner", "video", "free");
+
+        assertThat(page(0, 3)).containsExactly(6L, 5L, 3L);
+        assertThat(page(3, 3)).containsExactly(2L, 1L, 7L);
+        assertThat(index.size()).isEqualTo(6);
+    }
+
+    private void put(long courseId, int day, String level, String type, String price) {
+        index.put(
+            courseId,
+            DAY.plusDays(day),
+            Map.of(CourseFacetIndex.LEVEL, level, CourseFacetIndex.TYPE, type, CourseFacetIndex.PRICE, price)
+        );
+    }
+
+    private List<Long> hits(Map<String, List<String>> selection) {
+        return index.newestFirst(index.query(selection).getHits(), 0, 10);
+    }
+
+    private List<Long> page(long offset, int limit) {
+        return index.newestFirst(index.query(Map.of()).getHits(), offset, limit);
+    }
+}
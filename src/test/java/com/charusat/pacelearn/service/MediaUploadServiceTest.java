@@ -0,0 +1,250 @@
+package com.charusat.pacelearn.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.charusat.pacelearn.config.ApplicationProperties;
+import com.charusat.pacelearn.domain.Course;
+import com.charusat.pacelearn.domain.CourseSection;
+import com.charusat.pacelearn.domain.CourseSession;
+import com.charusat.pacelearn.domain.User;
+import com.charusat.pacelearn.repository.CourseSessionRepository;
+import com.charusat.pacelearn.service.dto.CourseSessionDTO;
+import com.charusat.pacelearn.service.dto.MediaUploadDTO;
+import com.charusat.pacelearn.web.rest.errors.BadRequestAlertException;
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * Unit tests for {@link MediaUploadService}: chunks sent again, short or corrupted, and completions retried.
+ */
+class MediaUploadServiceTest {
+
+    private static final int CHUNK_SIZE = 16;
+
+    private static final Long SESSION_ID = 7L;
+
+    @TempDir
+    Path uploads;
+
+    private CourseSessionService courseSessionService;
+
+    private MediaBlobStore mediaBlobStore;
+
+    private MediaUploadService mediaUploadService;
+
+    private final AtomicReference<byte[]> ingested = new AtomicReference<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        User instructor = new User();
+        instructor.setId(1L);
+        instructor.setLogin("instructor");
+        Course course = new Course();
+        course.setId(3L);
+        course.setUser(instructor);
+        CourseSection courseSection = new CourseSection();
+        courseSection.setId(5L);
+        courseSection.setCourse(course);
+        CourseSession courseSession = new CourseSession();
+        courseSession.setId(SESSION_ID);
+        courseSession.setCourseSection(courseSection);
+
+        CourseSessionRepository courseSessionRepository = mock(CourseSessionRepository.class);
+        when(courseSessionRepository.findById(SESSION_ID)).thenReturn(Optional.of(courseSession));
+        UserService userService = mock(UserService.class);
+        when(userService.getUserWithAuthorities()).thenReturn(Optional.of(instructor));
+        courseSessionService = mock(CourseSessionService.class);
+        mediaBlobStore = mock(MediaBlobStore.class);
+        when(mediaBlobStore.ingest(any(Path.class), anyString()))
+            .thenAnswer(invocation -> {
+                Path file = invocation.getArgument(0);
+                ingested.set(Files.readAllBytes(file));
+                Files.delete(file);
+                return "blobs/ab/abcdef.mp4";
+            });
+
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getMediaUpload().setDirectory(uploads.toString());
+        applicationProperties.getMediaUpload().setChunkSize(CHUNK_SIZE);
+        mediaUploadService =
+            new MediaUploadService(courseSessionRepository, courseSessionService, userService, mediaBlobStore, applicationProperties);
+
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("instructor", "instructor"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void chunksInAnyOrderAssembleTheFile() throws Exception {
+        byte[] content = content(40);
+        String uploadId = start(content);
+
+        write(uploadId, content, 2);
+        write(uploadId, content, 0);
+        MediaUploadDTO upload = write(uploadId, content, 1);
+
+        assertThat(upload.getMissingChunks()).isEmpty();
+        complete(uploadId);
+        assertThat(ingested.get()).isEqualTo(content);
+    }
+
+    @Test
+    void corruptedResendOfAReceivedChunkKeepsTheReceivedBytes() throws Exception {
+        byte[] content = content(32);
+        String uploadId = start(content);
+        write(uploadId, content, 0);
+        write(uploadId, content, 1);
+
+        byte[] corrupted = Arrays.copyOfRange(content, 0, CHUNK_SIZE);
+        corrupted[3] ^= 0x55;
+        assertThatThrownBy(
+            () -> mediaUploadService.writeChunk(uploadId, 0, CHUNK_SIZE, new ByteArrayInputStream(corrupted), sha256(chunk(content, 0)))
+        )
+            .isInstanceOf(BadRequestAlertException.class);
+
+        assertThat(mediaUploadService.findOne(uploadId).orElseThrow().getMissingChunks()).isEmpty();
+        complete(uploadId);
+        assertThat(ingested.get()).isEqualTo(content);
+    }
+
+    @Test
+    void shortResendOfAReceivedChunkKeepsTheReceivedBytes() throws Exception {
+        byte[] content = content(32);
+        String uploadId = start(content);
+        write(uploadId, content, 0);
+        write(uploadId, content, 1);
+
+        byte[] shortBody = Arrays.copyOfRange(content, CHUNK_SIZE, CHUNK_SIZE + 5);
+        assertThatThrownBy(
+            () -> mediaUploadService.writeChunk(uploadId, CHUNK_SIZE, -1, new ByteArrayInputStream(shortBody), sha256(shortBody))
+        )
+            .isInstanceOf(BadRequestAlertException.class);
+
+        assertThat(mediaUploadService.findOne(uploadId).orElseThrow().getMissingChunks()).isEmpty();
+        complete(uploadId);
+        assertThat(ingested.get()).isEqualTo(content);
+    }
+
+    @Test
+    void rejectedChunkIsMissingUntilSentAgain() throws Exception {
+        byte[] content = content(32);
+        String uploadId = start(content);
+
+        byte[] corrupted = chunk(content, 1);
+        corrupted[0] ^= 0x55;
+        assertThatThrownBy(
+            () -> mediaUploadService.writeChunk(uploadId, CHUNK_SIZE, CHUNK_SIZE, new ByteArrayInputStream(corrupted), sha256(chunk(content, 1)))
+        )
+            .isInstanceOf(BadRequestAlertException.class);
+        assertThat(mediaUploadService.findOne(uploadId).orElseThrow().getMissingChunks()).containsExactly(0, 1);
+
+        write(uploadId, content, 0);
+        assertThat(write(uploadId, content, 1).getMissingChunks()).isEmpty();
+    }
+
+    @Test
+    void completeMissingChunksIsRejected() throws Exception {
+        byte[] content = content(32);
+        String uploadId = start(content);
+        write(uploadId, content, 0);
+
+        assertThatThrownBy(() -> mediaUploadService.complete(uploadId)).isInstanceOf(BadRequestAlertException.class);
+    }
+
+    @Test
+    void completeFailingToUpdateTheSessionCanBeRetried() throws Exception {
+        byte[] content = content(20);
+        String uploadId = start(content);
+        write(uploadId, content, 0);
+        write(uploadId, content, 1);
+        when(courseSessionService.partialUpdate(any(CourseSessionDTO.class)))
+            .thenThrow(new IllegalStateException("database unavailable"))
+            .thenReturn(Optional.of(new CourseSessionDTO()));
+
+        assertThatThrownBy(() -> mediaUploadService.complete(uploadId)).isInstanceOf(IllegalStateException.class);
+        assertThat(mediaUploadService.complete(uploadId)).isPresent();
+
+        verify(mediaBlobStore, times(1)).ingest(any(Path.class), anyString());
+        verify(courseSessionService, times(2)).partialUpdate(any(CourseSessionDTO.class));
+        assertThat(mediaUploadService.findOne(uploadId)).isEmpty();
+    }
+
+    @Test
+    void completionClaimedElsewhereIsRejectedUntilReleasedOrExpired() throws Exception {
+        byte[] content = content(20);
+        String uploadId = start(content);
+        write(uploadId, content, 0);
+        write(uploadId, content, 1);
+        // as left by another instance completing the same upload
+        Path claim = Files.createFile(uploads.resolve(uploadId).resolve(".completing"));
+
+        assertThatThrownBy(() -> mediaUploadService.complete(uploadId)).isInstanceOf(BadRequestAlertException.class);
+        verify(mediaBlobStore, times(0)).ingest(any(Path.class), anyString());
+
+        Files.setLastModifiedTime(claim, FileTime.from(Instant.now().minus(Duration.ofDays(1))));
+        complete(uploadId);
+
+        assertThat(ingested.get()).isEqualTo(content);
+        assertThat(mediaUploadService.findOne(uploadId)).isEmpty();
+    }
+
+    private String start(byte[] content) throws Exception {
+        return mediaUploadService
+            .start(SESSION_ID, MediaUploadService.KIND_VIDEO, "lecture.mp4", content.length, null)
+            .orElseThrow()
+            .getUploadId();
+    }
+
+    private MediaUploadDTO write(String uploadId, byte[] content, int chunk) throws Exception {
+        byte[] body = chunk(content, chunk);
+        return mediaUploadService
+            .writeChunk(uploadId, (long) chunk * CHUNK_SIZE, body.length, new ByteArrayInputStream(body), sha256(body))
+            .orElseThrow();
+    }
+
+    private void complete(String uploadId) throws Exception {
+        when(courseSessionService.partialUpdate(any(CourseSessionDTO.class))).thenReturn(Optional.of(new CourseSessionDTO()));
+        assertThat(mediaUploadService.complete(uploadId)).isPresent();
+    }
+
+    private static byte[] content(int size) {
+        byte[] content = new byte[size];
+        for (int i = 0; i < size; i++) {
+            content[i] = (byte) (i * 31 + 7);
+        }
+        return content;
+    }
+
+    private static byte[] chunk(byte[] content, int chunk) {
+        int from = chunk * CHUNK_SIZE;
+        return Arrays.copyOfRange(content, from, Math.min(content.length, from + CHUNK_SIZE));
+    }
+
+    private static byte[] sha256(byte[] bytes) throws Exception {
+        return MessageDigest.getInstance("SHA-256").digest(bytes);
+    }
+}
@@ -0,0 +1,153 @@
+package com.charusat.pacelearn.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.charusat.pacelearn.repository.CourseEnrollmentRepository;
+import com.charusat.pacelearn.repository.CourseSessionProgressRepository;
+import com.charusat.pacelearn.repository.CourseSessionProgressRepositoryCustom.ReportedWatchTime;
+import com.charusat.pacelearn.service.dto.ProgressSyncItemDTO;
+import com.charusat.pacelearn.service.dto.ProgressSyncResultDTO;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+/**
+ * Unit tests for {@link ProgressSyncService}: enrollment, capped watch times and the choice of the winning record.
+ */
+class ProgressSyncServiceTest {
+
+    private static final Long USER_ID = 1L;
+
+    private static final Long COURSE_ID = 3L;
+
+    private static final Long OTHER_COURSE_ID = 4L;
+
+    private static final Long SESSION_ID = 10L;
+
+    private static final Long OTHER_SESSION_ID = 20L;
+
+    private static final long DURATION = 600;
+
+    private CourseSessionProgressRepository courseSessionProgressRepository;
+
+    private CourseCompletionService courseCompletionService;
+
+    private CourseEnrollmentRepository courseEnrollmentRepository;
+
+    private ProgressSyncService progressSyncService;
+
+    private final List<Object[]> targets = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        courseSessionProgressRepository = mock(CourseSessionProgressRepository.class);
+        courseCompletionService = mock(CourseCompletionService.class);
+        courseEnrollmentRepository = mock(CourseEnrollmentRepository.class);
+        when(courseSessionProgressRepository.findSyncTargets(eq(USER_ID), anyCollection())).thenReturn(targets);
+        when(courseEnrollmentRepository.findEnrolledCourseIdsByUserIdAndCourseIdIn(anyLong(), anyCollection()))
+            .thenReturn(List.of(COURSE_ID));
+        progressSyncService = new ProgressSyncService(courseSessionProgressRepository, courseCompletionService, courseEnrollmentRepository);
+        targets.add(new Object[] { SESSION_ID, null, null, DURATION, COURSE_ID });
+        targets.add(new Object[] { OTHER_SESSION_ID, null, null, DURATION, OTHER_COURSE_ID });
+    }
+
+    @Test
+    void recordOfACourseNotEnrolledInIsForbidden() {
+        List<ProgressSyncResultDTO> results = progressSyncService.sync(
+            USER_ID,
+            List.of(item(OTHER_SESSION_ID, 999_999_999L, null), item(SESSION_ID, 30L, null)),
+            false
+        );
+
+        assertThat(statuses(results)).containsExactly(ProgressSyncResultDTO.FORBIDDEN, ProgressSyncResultDTO.APPLIED);
+        assertThat(results.get(0).getWatchSeconds()).isNull();
+        assertThat(written()).extracting(ReportedWatchTime::getCourseSessionId).containsExactly(SESSION_ID);
+        verify(courseCompletionService).progressChanged(List.of(USER_ID), Set.of(SESSION_ID));
+    }
+
+    @Test
+    void unknownSessionIsNotFound() {
+        List<ProgressSyncResultDTO> results = progressSyncService.sync(USER_ID, List.of(item(99L, 30L, null)), false);
+
+        assertThat(statuses(results)).containsExactly(ProgressSyncResultDTO.NOT_FOUND);
+        assertThat(written()).isEmpty();
+    }
+
+    @Test
+    void watchSecondsAreCappedAtTheSessionDuration() {
+        List<ProgressSyncResultDTO> results = progressSyncService.sync(USER_ID, List.of(item(SESSION_ID, 999_999_999L, null)), false);
+
+        assertThat(statuses(results)).containsExactly(ProgressSyncResultDTO.APPLIED);
+        assertThat(results.get(0).getWatchSeconds()).isEqualTo(DURATION);
+        assertThat(written()).extracting(ReportedWatchTime::getWatchSeconds).containsExactly(DURATION);
+    }
+
+    @Test
+    void cappedRecordsAreComparedAfterCapping() {
+        // both cap at the duration, so the inflated record does not beat the first one
+        List<ProgressSyncResultDTO> results = progressSyncService.sync(
+            USER_ID,
+            List.of(item(SESSION_ID, DURATION, null), item(SESSION_ID, 999_999_999L, null)),
+            false
+        );
+
+        assertThat(statuses(results)).containsExactly(ProgressSyncResultDTO.APPLIED, ProgressSyncResultDTO.STALE);
+        assertThat(written()).extracting(ReportedWatchTime::getWatchSeconds).containsExactly(DURATION);
+    }
+
+    @Test
+    void progressAlreadyAtTheDurationIsStale() {
+        targets.set(0, new Object[] { SESSION_ID, DURATION, Instant.now().minusSeconds(60), DURATION, COURSE_ID });
+
+        List<ProgressSyncResultDTO> results = progressSyncService.sync(USER_ID, List.of(item(SESSION_ID, 999_999_999L, null)), false);
+
+        assertThat(statuses(results)).containsExactly(ProgressSyncResultDTO.STALE);
+        assertThat(written()).isEmpty();
+    }
+
+    @Test
+    void latestRecordWinsWithLastWriterWins() {
+        Instant now = Instant.now();
+
+        List<ProgressSyncResultDTO> results = progressSyncService.sync(
+            USER_ID,
+            List.of(item(SESSION_ID, 500L, now.minusSeconds(10)), item(SESSION_ID, 100L, now.minusSeconds(5)), item(SESSION_ID, 50L, null)),
+            true
+        );
+
+        assertThat(statuses(results))
+            .containsExactly(ProgressSyncResultDTO.STALE, ProgressSyncResultDTO.APPLIED, ProgressSyncResultDTO.INVALID);
+        assertThat(written()).extracting(ReportedWatchTime::getWatchSeconds).containsExactly(100L);
+    }
+
+    private static ProgressSyncItemDTO item(Long sessionId, Long watchSeconds, Instant clientTimestamp) {
+        ProgressSyncItemDTO item = new ProgressSyncItemDTO();
+        item.setSessionId(sessionId);
+        item.setWatchSeconds(watchSeconds);
+        item.setClientTimestamp(clientTimestamp);
+        return item;
+    }
+
+    private static List<String> statuses(List<ProgressSyncResultDTO> results) {
+        return results.stream().map(ProgressSyncResultDTO::getStatus).collect(Collectors.toList());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<ReportedWatchTime> written() {
+        ArgumentCaptor<List<ReportedWatchTime>> reports = ArgumentCaptor.forClass(List.class);
+        verify(courseSessionProgressRepository).syncWatchTime(eq(USER_ID), reports.capture(), anyBoolean());
+        return reports.getValue();
+    }
+}
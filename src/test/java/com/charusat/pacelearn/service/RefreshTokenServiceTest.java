@@ -0,0 +1,149 @@
+package com.charusat.pacelearn.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.charusat.pacelearn.config.ApplicationProperties;
+import com.charusat.pacelearn.domain.RefreshToken;
+import com.charusat.pacelearn.repository.RefreshTokenRepository;
+import com.charusat.pacelearn.security.jwt.TokenRevocationList;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * Unit tests for {@link RefreshTokenService}: rotation of the refresh tokens and revocation on reuse.
+ */
+class RefreshTokenServiceTest {
+
+    private static final Long SESSION_ID = 7L;
+
+    private static final String LOGIN = "user";
+
+    private RefreshTokenRepository refreshTokenRepository;
+
+    private TokenRevocationList tokenRevocationList;
+
+    private RefreshTokenService refreshTokenService;
+
+    @BeforeEach
+    void setUp() {
+        refreshTokenRepository = mock(RefreshTokenRepository.class);
+        when(refreshTokenRepository.save(any(RefreshToken.class)))
+            .thenAnswer(invocation -> {
+                RefreshToken refreshToken = invocation.getArgument(0);
+                refreshToken.setId(SESSION_ID);
+                return refreshToken;
+            });
+        when(refreshTokenRepository.findOneByTokenHash(anyString())).thenReturn(Optional.empty());
+        when(refreshTokenRepository.findOneByPreviousTokenHash(anyString())).thenReturn(Optional.empty());
+        tokenRevocationList = new TokenRevocationList();
+        refreshTokenService =
+            new RefreshTokenService(refreshTokenRepository, tokenRevocationList, new JHipsterProperties(), new ApplicationProperties());
+    }
+
+    @Test
+    void openStoresOnlyTheDigestOfTheToken() throws Exception {
+        RefreshTokenService.Session session = refreshTokenService.open(LOGIN, false);
+
+        ArgumentCaptor<RefreshToken> saved = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository).save(saved.capture());
+        assertThat(session.getId()).isEqualTo(SESSION_ID);
+        assertThat(saved.getValue().getTokenHash()).isEqualTo(digest(session.getRefreshToken())).isNotEqualTo(session.getRefreshToken());
+        assertThat(saved.getValue().getExpiryDate()).isAfter(saved.getValue().getCreatedDate());
+    }
+
+    @Test
+    void refreshRotatesTheTokenOfTheSession() throws Exception {
+        String token = refreshTokenService.open(LOGIN, false).getRefreshToken();
+        stored(digest(token));
+        when(refreshTokenRepository.rotate(eq(SESSION_ID), eq(digest(token)), anyString(), any(Instant.class))).thenReturn(1);
+
+        Optional<RefreshTokenService.Session> refreshed = refreshTokenService.refresh(token);
+
+        assertThat(refreshed).isPresent();
+        assertThat(refreshed.get().getId()).isEqualTo(SESSION_ID);
+        assertThat(refreshed.get().getLogin()).isEqualTo(LOGIN);
+        assertThat(refreshed.get().getRefreshToken()).isNotEqualTo(token);
+        verify(refreshTokenRepository)
+            .rotate(eq(SESSION_ID), eq(digest(token)), eq(digest(refreshed.get().getRefreshToken())), any(Instant.class));
+    }
+
+    @Test
+    void refreshLosingAConcurrentRotationFails() throws Exception {
+        String token = refreshTokenService.open(LOGIN, false).getRefreshToken();
+        stored(digest(token));
+        when(refreshTokenRepository.rotate(eq(SESSION_ID), anyString(), anyString(), any(Instant.class))).thenReturn(0);
+
+        assertThat(refreshTokenService.refresh(token)).isEmpty();
+    }
+
+    @Test
+    void refreshWithAnUnknownTokenFailsWithoutRevoking() {
+        assertThat(refreshTokenService.refresh("unknown")).isEmpty();
+
+        verify(refreshTokenRepository, never()).revokeAllByIdIn(anyList(), any(Instant.class));
+        assertThat(tokenRevocationList.isRevoked(SESSION_ID)).isFalse();
+    }
+
+    @Test
+    void reusingARotatedTokenRevokesTheSession() throws Exception {
+        String token = refreshTokenService.open(LOGIN, false).getRefreshToken();
+        RefreshToken rotated = new RefreshToken();
+        rotated.setId(SESSION_ID);
+        rotated.setLogin(LOGIN);
+        rotated.setTokenHash(digest("next"));
+        rotated.setPreviousTokenHash(digest(token));
+        when(refreshTokenRepository.findOneByPreviousTokenHash(digest(token))).thenReturn(Optional.of(rotated));
+
+        assertThat(refreshTokenService.refresh(token)).isEmpty();
+
+        verify(refreshTokenRepository).revokeAllByIdIn(eq(List.of(SESSION_ID)), any(Instant.class));
+        verify(refreshTokenRepository, never()).rotate(anyLong(), anyString(), anyString(), any(Instant.class));
+        assertThat(tokenRevocationList.isRevoked(SESSION_ID)).isTrue();
+    }
+
+    @Test
+    void reusingATokenOfARevokedSessionDoesNotRevokeItAgain() throws Exception {
+        RefreshToken revoked = new RefreshToken();
+        revoked.setId(SESSION_ID);
+        revoked.setLogin(LOGIN);
+        revoked.setPreviousTokenHash(digest("old"));
+        revoked.setRevokedDate(Instant.now());
+        when(refreshTokenRepository.findOneByPreviousTokenHash(digest("old"))).thenReturn(Optional.of(revoked));
+
+        assertThat(refreshTokenService.refresh("old")).isEmpty();
+
+        verify(refreshTokenRepository, never()).revokeAllByIdIn(anyList(), any(Instant.class));
+    }
+
+    private void stored(String tokenHash) {
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setId(SESSION_ID);
+        refreshToken.setLogin(LOGIN);
+        refreshToken.setTokenHash(tokenHash);
+        when(refreshTokenRepository.findOneByTokenHash(tokenHash)).thenReturn(Optional.of(refreshToken));
+    }
+
+    private static String digest(String token) throws Exception {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8))) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
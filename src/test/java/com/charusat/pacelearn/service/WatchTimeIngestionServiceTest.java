@@ -0,0 +1,161 @@
+package com.charusat.pacelearn.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.charusat.pacelearn.config.ApplicationProperties;
+import com.charusat.pacelearn.repository.CourseEnrollmentRepository;
+import com.charusat.pacelearn.repository.CourseSessionProgressRepository;
+import com.charusat.pacelearn.repository.CourseSessionProgressRepositoryCustom.WatchTime;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+/**
+ * Unit tests for {@link WatchTimeIngestionService}: enrollment, capped reports and transactional flushes.
+ */
+class WatchTimeIngestionServiceTest {
+
+    private static final Long USER_ID = 1L;
+
+    private static final Long COURSE_ID = 3L;
+
+    private static final Long SESSION_ID = 10L;
+
+    private static final long DURATION = 600;
+
+    private CourseSessionProgressRepository courseSessionProgressRepository;
+
+    private CourseCompletionService courseCompletionService;
+
+    private CourseEnrollmentRepository courseEnrollmentRepository;
+
+    private PlatformTransactionManager transactionManager;
+
+    private WatchTimeIngestionService watchTimeIngestionService;
+
+    @BeforeEach
+    void setUp() {
+        courseSessionProgressRepository = mock(CourseSessionProgressRepository.class);
+        courseCompletionService = mock(CourseCompletionService.class);
+        courseEnrollmentRepository = mock(CourseEnrollmentRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(courseEnrollmentRepository.existsByCourse_IdAndUser_Id(COURSE_ID, USER_ID)).thenReturn(true);
+        watchTimeIngestionService =
+            new WatchTimeIngestionService(
+                courseSessionProgressRepository,
+                courseCompletionService,
+                courseEnrollmentRepository,
+                transactionManager,
+                new ApplicationProperties()
+            );
+    }
+
+    @Test
+    void reportOfAUserNotEnrolledIsDenied() {
+        lastReportedAt(null);
+        when(courseEnrollmentRepository.existsByCourse_IdAndUser_Id(COURSE_ID, USER_ID)).thenReturn(false);
+
+        assertThatThrownBy(() -> watchTimeIngestionService.recordWatched(USER_ID, SESSION_ID, 5))
+            .isInstanceOf(AccessDeniedException.class);
+        assertThatThrownBy(() -> watchTimeIngestionService.recordPosition(USER_ID, SESSION_ID, 5))
+            .isInstanceOf(AccessDeniedException.class);
+    }
+
+    @Test
+    void reportInAnUnknownSessionIsDenied() {
+        when(courseSessionProgressRepository.findWatchTarget(USER_ID, SESSION_ID)).thenReturn(List.of());
+
+        assertThatThrownBy(() -> watchTimeIngestionService.recordWatched(USER_ID, SESSION_ID, 5))
+            .isInstanceOf(AccessDeniedException.class);
+    }
+
+    @Test
+    void watchedSecondsAreCappedByTheTimeElapsedSinceTheLastReport() {
+        lastReportedAt(Instant.now().minusSeconds(30));
+
+        long credited = watchTimeIngestionService.recordWatched(USER_ID, SESSION_ID, 300);
+
+        assertThat(credited).isBetween(29L, 31L);
+        assertThat(watchTimeIngestionService.recordWatched(USER_ID, SESSION_ID, 300)).isZero();
+    }
+
+    @Test
+    void firstReportIsCappedAtTheSessionDuration() {
+        lastReportedAt(null);
+
+        assertThat(watchTimeIngestionService.recordWatched(USER_ID, SESSION_ID, 100_000)).isEqualTo(DURATION);
+    }
+
+    @Test
+    void positionIsCappedAtTheSessionDuration() {
+        lastReportedAt(null);
+
+        watchTimeIngestionService.recordPosition(USER_ID, SESSION_ID, 100_000);
+        watchTimeIngestionService.flush();
+
+        WatchTime written = flushed();
+        assertThat(written.getMinSeconds()).isEqualTo(DURATION);
+        assertThat(written.getAddedSeconds()).isZero();
+    }
+
+    @Test
+    void flushWritesProgressAndCompletionsInOneTransaction() {
+        lastReportedAt(null);
+        watchTimeIngestionService.recordWatched(USER_ID, SESSION_ID, 60);
+
+        watchTimeIngestionService.flush();
+
+        InOrder order = inOrder(transactionManager, courseSessionProgressRepository, courseCompletionService);
+        order.verify(transactionManager).getTransaction(any());
+        order.verify(courseSessionProgressRepository).mergeWatchTime(anyList());
+        order.verify(courseCompletionService).progressChanged(anyCollection(), anyCollection());
+        order.verify(transactionManager).commit(any(TransactionStatus.class));
+    }
+
+    @Test
+    void failingCompletionRollsBackTheProgress() {
+        lastReportedAt(null);
+        watchTimeIngestionService.recordWatched(USER_ID, SESSION_ID, 60);
+        doThrow(new DataIntegrityViolationException("completion"))
+            .when(courseCompletionService)
+            .progressChanged(anyCollection(), anyCollection());
+
+        watchTimeIngestionService.flush();
+
+        verify(transactionManager, never()).commit(any(TransactionStatus.class));
+        verify(transactionManager, times(2)).rollback(any(TransactionStatus.class));
+    }
+
+    private void lastReportedAt(Instant lastReportedAt) {
+        when(courseSessionProgressRepository.findWatchTarget(USER_ID, SESSION_ID))
+            .thenReturn(List.<Object[]>of(new Object[] { DURATION, COURSE_ID, lastReportedAt }));
+    }
+
+    @SuppressWarnings("unchecked")
+    private WatchTime flushed() {
+        ArgumentCaptor<List<WatchTime>> batch = ArgumentCaptor.forClass(List.class);
+        verify(courseSessionProgressRepository).mergeWatchTime(batch.capture());
+        assertThat(batch.getValue()).hasSize(1);
+        return batch.getValue().get(0);
+    }
+}